@@ -0,0 +1,10 @@
+-- bootstrap 接口按集合查询所需索引
+
+-- 每个会话最后已读时间之后的消息数
+CREATE INDEX idx_messages_session_created ON messages(session_id, created_at);
+
+-- 客服的全部分组映射
+CREATE INDEX idx_session_group_mappings_agent ON session_group_mappings(agent_id, session_group_id);
+
+-- 客服在各会话中的未读@数量
+CREATE INDEX idx_agent_mentions_agent_session_created ON agent_mentions(agent_id, session_id, created_at);
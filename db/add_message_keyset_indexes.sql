@@ -0,0 +1,10 @@
+-- 历史消息游标分页所需索引
+
+-- (session_id, created_at, id) 作为游标范围扫描的顺序，附带 sender_type、is_internal 使过滤在索引内完成
+CREATE INDEX idx_messages_session_keyset ON messages(session_id, created_at, id, sender_type, is_internal);
+
+-- 上面的索引已覆盖 (session_id, created_at) 前缀
+DROP INDEX idx_messages_session_created ON messages;
+
+-- 按页批量查询消息关联的工作流执行日志
+CREATE INDEX idx_log_message ON workflow_execution_logs(message_id);
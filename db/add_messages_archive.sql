@@ -0,0 +1,38 @@
+-- 消息归档：已结束的历史会话消息迁移到 messages_archive，messages 只保留近期会话
+-- 归档由 MessageArchiveService 定时执行（message.archive.enabled）
+
+-- 1. 会话归档标记：非空表示该会话有消息在归档表中
+ALTER TABLE chat_sessions
+    ADD COLUMN messages_archived_at DATETIME(6) NULL COMMENT '历史消息归档时间';
+
+-- 查找可归档会话（已结束 + 最后活跃时间早于截止时间）
+CREATE INDEX idx_chat_sessions_status_active ON chat_sessions(status, last_active_at);
+
+-- 2. 归档表：与 messages 列结构、索引完全一致（归档使用 INSERT ... SELECT *），不带外键
+-- 注意：以后修改 messages 表结构时需同步修改 messages_archive
+CREATE TABLE IF NOT EXISTS messages_archive LIKE messages;
+
+-- 冷数据压缩存储（JSON 列占比大）
+ALTER TABLE messages_archive ROW_FORMAT=COMPRESSED;
+
+-- 3. 附件、@列表在归档后仍按 message_id 关联，去掉指向 messages 的外键
+-- （外键名由 Hibernate 生成，按列查找后删除）
+SET @fk := (SELECT CONSTRAINT_NAME FROM information_schema.KEY_COLUMN_USAGE
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'attachments'
+              AND COLUMN_NAME = 'message_id' AND REFERENCED_TABLE_NAME = 'messages' LIMIT 1);
+SET @sql := IF(@fk IS NULL, 'SELECT 1', CONCAT('ALTER TABLE attachments DROP FOREIGN KEY ', @fk));
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @fk := (SELECT CONSTRAINT_NAME FROM information_schema.KEY_COLUMN_USAGE
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'message_mentions'
+              AND COLUMN_NAME = 'message_id' AND REFERENCED_TABLE_NAME = 'messages' LIMIT 1);
+SET @sql := IF(@fk IS NULL, 'SELECT 1', CONCAT('ALTER TABLE message_mentions DROP FOREIGN KEY ', @fk));
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 说明:
+-- 1. message_deliveries 随消息删除级联删除（投递状态只对进行中的会话有意义）
+-- 2. agent_mentions.message_id 按原外键置空，@未读数不受影响
@@ -0,0 +1,12 @@
+-- 工具结果缓存配置
+-- cache_enabled: 是否缓存执行结果（仅用于只读工具）
+-- cache_ttl_seconds: 缓存有效期（秒）
+-- cache_key_fields: 缓存键字段，逗号分隔，为空时使用全部参数字段
+ALTER TABLE ai_tools
+    ADD COLUMN cache_enabled BOOLEAN DEFAULT FALSE COMMENT '是否缓存执行结果' AFTER retry_count,
+    ADD COLUMN cache_ttl_seconds INT DEFAULT 300 COMMENT '缓存有效期（秒）' AFTER cache_enabled,
+    ADD COLUMN cache_key_fields VARCHAR(500) COMMENT '缓存键字段（逗号分隔）' AFTER cache_ttl_seconds;
+
+-- 执行记录的缓存状态: MISS、LOCAL_HIT、REDIS_HIT、COALESCED，未开启缓存时为 NULL
+ALTER TABLE tool_executions
+    ADD COLUMN cache_status VARCHAR(20) COMMENT '结果缓存状态' AFTER retry_count;
@@ -0,0 +1,23 @@
+-- 为 chat_sessions 表添加最后一条消息快照
+-- 写消息时同步更新，会话列表 / bootstrap 直接读取，不再查询 messages 表
+-- 需要 MySQL 8.0+（回填使用 ROW_NUMBER() 窗口函数）
+
+ALTER TABLE chat_sessions
+    ADD COLUMN last_message_id CHAR(36) NULL COMMENT '最后一条消息ID',
+    ADD COLUMN last_message_preview VARCHAR(255) NULL COMMENT '最后一条消息预览（截断）',
+    ADD COLUMN last_message_sender VARCHAR(20) NULL COMMENT '最后一条消息发送方类型',
+    ADD COLUMN last_message_at DATETIME(6) NULL COMMENT '最后一条消息时间',
+    ADD COLUMN last_message_internal BOOLEAN NULL COMMENT '最后一条消息是否为内部消息';
+
+-- 回填已有会话的快照
+UPDATE chat_sessions s
+JOIN (
+    SELECT id, session_id, text, sender_type, created_at, is_internal,
+           ROW_NUMBER() OVER (PARTITION BY session_id ORDER BY created_at DESC) AS rn
+    FROM messages
+) m ON m.session_id = s.id AND m.rn = 1
+SET s.last_message_id = m.id,
+    s.last_message_preview = LEFT(m.text, 255),
+    s.last_message_sender = m.sender_type,
+    s.last_message_at = m.created_at,
+    s.last_message_internal = m.is_internal;
@@ -0,0 +1,8 @@
+-- 知识库向量量化配置
+-- vector_quantization: NONE（float32）、INT8（8 位标量量化）、BINARY（1 位二值量化）
+-- rescore_multiplier: 量化检索时先取 maxResults * N 个候选再用高精度向量重排，0 表示不重排
+ALTER TABLE knowledge_bases
+    ADD COLUMN vector_quantization VARCHAR(20) DEFAULT 'NONE' COMMENT '向量量化方式: NONE, INT8, BINARY' AFTER vector_dimension,
+    ADD COLUMN rescore_multiplier INT DEFAULT 4 COMMENT '量化检索重排倍数，0 表示不重排' AFTER vector_quantization;
+
+UPDATE knowledge_bases SET vector_quantization = 'NONE' WHERE vector_quantization IS NULL;
@@ -0,0 +1,24 @@
+-- 为已有知识库向量回填 tenantId 元数据（SaaS 部署）
+-- knowledge.search.tenant-filter 开启后，检索会附加 metadata->>'tenantId' 条件；
+-- 该字段之前写入的向量没有 tenantId，不回填会导致这些知识库检索不到任何结果
+--
+-- 上线顺序：
+-- 1. 部署新版本，保持 knowledge.search.tenant-filter=false（默认），新写入的向量已带 tenantId
+-- 2. 在 MySQL 执行下面的查询，生成每个知识库向量表的 UPDATE 语句
+-- 3. 在 PGVector 库执行生成的语句（可重复执行，只更新缺少 tenantId 的行）
+-- 4. 设置 knowledge.search.tenant-filter=true 后重启
+
+-- 第 2 步（MySQL）：向量表名即 knowledge_bases.index_name
+SELECT CONCAT(
+    'UPDATE ', index_name,
+    ' SET metadata = metadata::jsonb || jsonb_build_object(''tenantId'', ''', REPLACE(tenant_id, '''', ''''''), ''')',
+    ' WHERE metadata->>''tenantId'' IS NULL;'
+) AS backfill_sql
+FROM knowledge_bases
+WHERE tenant_id IS NOT NULL AND tenant_id <> '';
+
+-- 第 3 步（PGVector）生成的语句形如：
+-- UPDATE kb_xxx SET metadata = metadata::jsonb || jsonb_build_object('tenantId', 'tenant_a') WHERE metadata->>'tenantId' IS NULL;
+--
+-- 检查是否还有缺少 tenantId 的向量（结果应为 0）：
+-- SELECT COUNT(*) FROM kb_xxx WHERE metadata->>'tenantId' IS NULL;
@@ -0,0 +1,29 @@
+-- 高写入量表主键改为 BINARY(16)（MySQL 8.0+）
+-- message_delivery、workflow_execution_logs 的主键不被其他表引用，由 CHAR(36) 改为 16 字节二进制，
+-- 主键与所有二级索引（InnoDB 二级索引叶子节点携带主键）随之缩小；新记录使用按时间递增的 UUID v7。
+-- messages / attachments / agent_mentions 的主键继承自公共基类并被多张表引用，仍为 CHAR(36)，只改用 UUID v7 生成，无需迁移。
+--
+-- UUID_TO_BIN 不交换字节顺序（第二个参数省略），与 Hibernate 写入的字节顺序一致。
+-- 大表执行 ALTER 会重建表，建议在低峰期执行，或使用 pt-online-schema-change / gh-ost。
+-- 升级应用前执行（生产环境 ddl-auto=validate 会校验列类型）。
+
+-- 1. 消息发送记录
+ALTER TABLE message_delivery ADD COLUMN id_bin BINARY(16) NULL FIRST;
+UPDATE message_delivery SET id_bin = UUID_TO_BIN(id);
+ALTER TABLE message_delivery
+    DROP PRIMARY KEY,
+    DROP COLUMN id,
+    CHANGE COLUMN id_bin id BINARY(16) NOT NULL COMMENT '主键ID（UUID v7）' FIRST,
+    ADD PRIMARY KEY (id);
+
+-- 2. 工作流执行日志
+ALTER TABLE workflow_execution_logs ADD COLUMN id_bin BINARY(16) NULL FIRST;
+UPDATE workflow_execution_logs SET id_bin = UUID_TO_BIN(id);
+ALTER TABLE workflow_execution_logs
+    DROP PRIMARY KEY,
+    DROP COLUMN id,
+    CHANGE COLUMN id_bin id BINARY(16) NOT NULL COMMENT '主键ID（UUID v7）' FIRST,
+    ADD PRIMARY KEY (id);
+
+-- 手工排查时按字符串查询：
+-- SELECT BIN_TO_UUID(id) AS id, status, started_at FROM workflow_execution_logs WHERE id = UUID_TO_BIN('...');
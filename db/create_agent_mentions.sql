@@ -24,4 +24,5 @@ CREATE INDEX idx_agent_mentions_session ON agent_mentions(session_id);
 CREATE INDEX idx_agent_mentions_message ON agent_mentions(message_id);
 CREATE INDEX idx_agent_mentions_agent_read ON agent_mentions(agent_id, is_read);
 CREATE INDEX idx_agent_mentions_created_at ON agent_mentions(created_at);
+CREATE INDEX idx_agent_mentions_agent_session_created ON agent_mentions(agent_id, session_id, created_at);
 
@@ -33,6 +33,9 @@ CREATE TABLE IF NOT EXISTS ai_tools (
     result_description TEXT COMMENT '返回结果描述（帮助 AI 理解返回数据）',
     result_metadata TEXT COMMENT '返回字段元数据 JSON',
     retry_count INT DEFAULT 0 COMMENT '重试次数',
+    cache_enabled BOOLEAN DEFAULT FALSE COMMENT '是否缓存执行结果',
+    cache_ttl_seconds INT DEFAULT 300 COMMENT '缓存有效期（秒）',
+    cache_key_fields VARCHAR(500) COMMENT '缓存键字段（逗号分隔）',
     require_confirmation BOOLEAN DEFAULT FALSE COMMENT '是否需要确认',
     enabled BOOLEAN NOT NULL DEFAULT TRUE,
     sort_order INT DEFAULT 0 COMMENT '排序',
@@ -62,6 +65,7 @@ CREATE TABLE IF NOT EXISTS tool_executions (
     duration_ms BIGINT COMMENT '执行耗时（毫秒）',
     http_status INT COMMENT 'HTTP 状态码',
     retry_count INT DEFAULT 0 COMMENT '重试次数',
+    cache_status VARCHAR(20) COMMENT '结果缓存状态',
     trigger_source VARCHAR(50) COMMENT '触发来源',
     executed_by CHAR(36) COMMENT '执行者ID',
     started_at DATETIME COMMENT '开始时间',
@@ -76,6 +80,20 @@ CREATE TABLE IF NOT EXISTS tool_executions (
         REFERENCES ai_tools(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='工具执行记录表';
 
+-- 工具执行统计表（执行记录写入时累加，统计查询不扫描执行记录）
+CREATE TABLE IF NOT EXISTS tool_execution_stats (
+    tool_id CHAR(36) PRIMARY KEY COMMENT '工具ID',
+    success_count BIGINT NOT NULL DEFAULT 0 COMMENT '成功次数',
+    failed_count BIGINT NOT NULL DEFAULT 0 COMMENT '失败次数',
+    success_duration_ms BIGINT NOT NULL DEFAULT 0 COMMENT '成功执行总耗时（毫秒）',
+    cache_hit_count BIGINT NOT NULL DEFAULT 0 COMMENT '缓存命中次数',
+    cache_miss_count BIGINT NOT NULL DEFAULT 0 COMMENT '缓存未命中次数',
+    updated_at DATETIME COMMENT '更新时间',
+
+    CONSTRAINT fk_tool_exec_stats_tool FOREIGN KEY (tool_id)
+        REFERENCES ai_tools(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='工具执行统计表';
+
 -- 示例：创建一个天气查询工具
 -- INSERT INTO ai_tools (id, name, display_name, description, tool_type, api_method, api_url, api_timeout, enabled) 
 -- VALUES (
@@ -0,0 +1,30 @@
+-- 会话参与者表：替代 chat_session_support_agents（@ElementCollection）
+-- 旧表没有主键和索引，按客服查询会话只能扫描，修改支持客服时整表删除后重新插入；
+-- 新表 (session_id, agent_id) 唯一，(agent_id, session_id) 索引用于按客服查询参与的会话
+
+CREATE TABLE IF NOT EXISTS chat_session_participants (
+    id CHAR(36) PRIMARY KEY,
+    session_id CHAR(36) NOT NULL COMMENT '会话ID',
+    agent_id CHAR(36) NOT NULL COMMENT '支持客服ID',
+    created_at DATETIME(6) NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    tenant_id VARCHAR(50) NULL,
+    CONSTRAINT uk_session_participants_session_agent UNIQUE (session_id, agent_id),
+    CONSTRAINT fk_session_participants_session
+        FOREIGN KEY (session_id) REFERENCES chat_sessions(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='会话参与者（支持客服）';
+
+CREATE INDEX idx_session_participants_agent_session ON chat_session_participants(agent_id, session_id);
+
+-- 参与者版本号：支持客服变化时递增，广播时按（会话ID, 版本号）缓存参与者
+ALTER TABLE chat_sessions
+    ADD COLUMN participants_version INT NOT NULL DEFAULT 0 COMMENT '参与者版本号';
+
+-- 迁移旧表数据（重复执行时忽略已迁移的行）
+INSERT IGNORE INTO chat_session_participants (id, session_id, agent_id, created_at, updated_at, tenant_id)
+SELECT UUID(), sa.session_id, sa.agent_id, NOW(6), NOW(6), s.tenant_id
+FROM chat_session_support_agents sa
+JOIN chat_sessions s ON s.id = sa.session_id;
+
+-- 确认新版本运行正常后再删除旧表
+-- DROP TABLE chat_session_support_agents;
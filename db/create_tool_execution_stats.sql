@@ -0,0 +1,34 @@
+-- 工具执行统计表
+-- 执行记录由后台写入器批量插入，同一事务内累加本表；工具统计接口直接读取本表
+CREATE TABLE IF NOT EXISTS tool_execution_stats (
+    tool_id CHAR(36) PRIMARY KEY COMMENT '工具ID',
+    success_count BIGINT NOT NULL DEFAULT 0 COMMENT '成功次数',
+    failed_count BIGINT NOT NULL DEFAULT 0 COMMENT '失败次数',
+    success_duration_ms BIGINT NOT NULL DEFAULT 0 COMMENT '成功执行总耗时（毫秒）',
+    cache_hit_count BIGINT NOT NULL DEFAULT 0 COMMENT '缓存命中次数',
+    cache_miss_count BIGINT NOT NULL DEFAULT 0 COMMENT '缓存未命中次数',
+    updated_at DATETIME COMMENT '更新时间',
+
+    CONSTRAINT fk_tool_exec_stats_tool FOREIGN KEY (tool_id)
+        REFERENCES ai_tools(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='工具执行统计表';
+
+-- 按已有执行记录回填统计
+INSERT INTO tool_execution_stats
+    (tool_id, success_count, failed_count, success_duration_ms, cache_hit_count, cache_miss_count, updated_at)
+SELECT tool_id,
+       SUM(status = 'SUCCESS'),
+       SUM(status = 'FAILED'),
+       COALESCE(SUM(CASE WHEN status = 'SUCCESS' THEN duration_ms END), 0),
+       COALESCE(SUM(cache_status <> 'MISS'), 0),
+       COALESCE(SUM(cache_status = 'MISS'), 0),
+       NOW()
+FROM tool_executions
+GROUP BY tool_id
+ON DUPLICATE KEY UPDATE
+    success_count = VALUES(success_count),
+    failed_count = VALUES(failed_count),
+    success_duration_ms = VALUES(success_duration_ms),
+    cache_hit_count = VALUES(cache_hit_count),
+    cache_miss_count = VALUES(cache_miss_count),
+    updated_at = NOW();
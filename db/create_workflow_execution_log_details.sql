@@ -0,0 +1,22 @@
+-- 工作流执行详情表：节点执行详情、工具执行链从 workflow_execution_logs 拆出，压缩后存储
+-- 内容格式与 MySQL COMPRESS() 相同，排查时可用 UNCOMPRESS(node_details) 查看原文
+-- 需在 convert_high_volume_ids_to_binary.sql 之后执行（log_id 与 workflow_execution_logs.id 均为 BINARY(16)）
+
+CREATE TABLE IF NOT EXISTS workflow_execution_log_details (
+    log_id BINARY(16) NOT NULL PRIMARY KEY COMMENT '执行日志ID',
+    node_details LONGBLOB COMMENT '节点执行详情（JSON，COMPRESS 格式）',
+    tool_execution_chain LONGBLOB COMMENT '工具执行链（JSON，COMPRESS 格式）',
+    created_at DATETIME(6) NOT NULL COMMENT '创建时间',
+    INDEX idx_log_detail_created (created_at),
+    CONSTRAINT fk_log_detail_log FOREIGN KEY (log_id)
+        REFERENCES workflow_execution_logs(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='工作流执行详情';
+
+-- 迁移旧数据（重复执行时忽略已迁移的行）；数据量大时可按 created_at 分段执行
+INSERT IGNORE INTO workflow_execution_log_details (log_id, node_details, tool_execution_chain, created_at)
+SELECT id, COMPRESS(node_details), COMPRESS(tool_execution_chain), created_at
+FROM workflow_execution_logs
+WHERE node_details IS NOT NULL OR tool_execution_chain IS NOT NULL;
+
+-- 确认新版本运行正常后再删除旧列（会重建表）
+-- ALTER TABLE workflow_execution_logs DROP COLUMN node_details, DROP COLUMN tool_execution_chain;
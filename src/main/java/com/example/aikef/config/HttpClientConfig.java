@@ -0,0 +1,62 @@
+package com.example.aikef.config;
+
+import com.example.aikef.service.OutboundHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * 出站 HTTP 配置
+ * API 工具、第三方平台转发、渠道适配器共用一个 JDK HttpClient（连接池复用、HTTPS 下协商 HTTP/2）
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${http.client.connect-timeout-millis:10000}")
+    private long connectTimeoutMillis;
+
+    @Value("${http.client.read-timeout-millis:30000}")
+    private long readTimeoutMillis;
+
+    @Value("${http.client.http2:true}")
+    private boolean http2;
+
+    @Bean
+    public HttpClient httpClient() {
+        return newHttpClient(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1);
+    }
+
+    @Bean
+    public RestTemplate restTemplate(HttpClient httpClient, OutboundHttpClient outboundHttpClient) {
+        ClientHttpRequestFactory secure = requestFactory(httpClient);
+        // 明文 http:// 不尝试 h2c 升级（部分服务端不兼容），与 OutboundHttpClient 一致；
+        // JdkClientHttpRequestFactory 不能按请求指定协议版本，明文请求改用单独的 HTTP/1.1 客户端
+        ClientHttpRequestFactory plain = http2 ? requestFactory(newHttpClient(HttpClient.Version.HTTP_1_1)) : secure;
+        ClientHttpRequestFactory factory = (uri, method) -> ("http".equalsIgnoreCase(uri.getScheme()) ? plain : secure)
+                .createRequest(uri, method);
+
+        RestTemplate restTemplate = new RestTemplate(factory);
+        restTemplate.getInterceptors().add(outboundHttpClient.interceptor());
+        return restTemplate;
+    }
+
+    private HttpClient newHttpClient(HttpClient.Version version) {
+        return HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    private ClientHttpRequestFactory requestFactory(HttpClient httpClient) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        return factory;
+    }
+}
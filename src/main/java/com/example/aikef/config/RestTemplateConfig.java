@@ -1,23 +0,0 @@
-package com.example.aikef.config;
-
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
-import org.springframework.web.client.RestTemplate;
-
-/**
- * RestTemplate 配置
- */
-@Configuration
-public class RestTemplateConfig {
-
-    @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(10000);  // 10 秒连接超时
-        factory.setReadTimeout(30000);     // 30 秒读取超时
-
-        return new RestTemplate(factory);
-    }
-}
-
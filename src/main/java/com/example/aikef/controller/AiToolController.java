@@ -2,6 +2,7 @@ package com.example.aikef.controller;
 
 import com.example.aikef.extraction.model.FieldDefinition;
 import com.example.aikef.security.AgentPrincipal;
+import com.example.aikef.tool.mcp.McpClientSession;
 import com.example.aikef.tool.model.AiTool;
 import com.example.aikef.tool.model.ToolExecution;
 import com.example.aikef.tool.service.AiToolService;
@@ -112,7 +113,10 @@ public class AiToolController {
                         request.retryCount(),
                         request.requireConfirmation(),
                         request.sortOrder(),
-                        request.tags()
+                        request.tags(),
+                        request.cacheEnabled(),
+                        request.cacheTtlSeconds(),
+                        request.cacheKeyFields()
                 ),
                 createdBy
         );
@@ -163,7 +167,10 @@ public class AiToolController {
                         request.retryCount(),
                         request.requireConfirmation(),
                         request.sortOrder(),
-                        request.tags()
+                        request.tags(),
+                        request.cacheEnabled(),
+                        request.cacheTtlSeconds(),
+                        request.cacheKeyFields()
                 ),
                 createdBy
         );
@@ -211,7 +218,10 @@ public class AiToolController {
                         request.requireConfirmation(),
                         request.enabled(),
                         request.sortOrder(),
-                        request.tags()
+                        request.tags(),
+                        request.cacheEnabled(),
+                        request.cacheTtlSeconds(),
+                        request.cacheKeyFields()
                 )
         );
 
@@ -301,6 +311,14 @@ public class AiToolController {
         return toolService.getToolStats(toolId);
     }
 
+    /**
+     * 获取 MCP 服务提供的工具列表
+     */
+    @GetMapping("/{toolId}/mcp-tools")
+    public List<McpClientSession.McpToolInfo> getMcpTools(@PathVariable UUID toolId) {
+        return toolService.listMcpTools(toolId);
+    }
+
     // ==================== 工具定义（用于 LLM） ====================
 
     /**
@@ -369,7 +387,10 @@ public class AiToolController {
             Integer retryCount,
             Boolean requireConfirmation,
             Integer sortOrder,
-            String tags
+            String tags,
+            Boolean cacheEnabled,
+            Integer cacheTtlSeconds,
+            String cacheKeyFields       // 缓存键字段（逗号分隔）
     ) {}
 
     public record UpdateToolDto(
@@ -396,7 +417,10 @@ public class AiToolController {
             Boolean requireConfirmation,
             Boolean enabled,
             Integer sortOrder,
-            String tags
+            String tags,
+            Boolean cacheEnabled,
+            Integer cacheTtlSeconds,
+            String cacheKeyFields       // 缓存键字段（逗号分隔）
     ) {}
 
     public record ExecuteToolDto(
@@ -431,7 +455,10 @@ public class AiToolController {
             String createdAt,
             String apiBodyTemplate,
             String apiHeaders,
-            String apiResponsePath
+            String apiResponsePath,
+            Boolean cacheEnabled,
+            Integer cacheTtlSeconds,
+            String cacheKeyFields
     ) {}
 
     public record ExecutionDto(
@@ -445,6 +472,7 @@ public class AiToolController {
             Long durationMs,
             Integer httpStatus,
             String triggerSource,
+            ToolExecution.CacheStatus cacheStatus,
             String createdAt
     ) {}
 
@@ -491,7 +519,10 @@ public class AiToolController {
                 tool.getCreatedAt() != null ? tool.getCreatedAt().toString() : null,
                 tool.getApiBodyTemplate(),
                 tool.getApiHeaders(),
-                tool.getApiResponsePath()
+                tool.getApiResponsePath(),
+                tool.getCacheEnabled(),
+                tool.getCacheTtlSeconds(),
+                tool.getCacheKeyFields()
         );
     }
 
@@ -507,6 +538,7 @@ public class AiToolController {
                 exec.getDurationMs(),
                 exec.getHttpStatus(),
                 exec.getTriggerSource(),
+                exec.getCacheStatus(),
                 exec.getCreatedAt() != null ? exec.getCreatedAt().toString() : null
         );
     }
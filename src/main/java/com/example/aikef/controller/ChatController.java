@@ -4,6 +4,7 @@ package com.example.aikef.controller;
 import com.example.aikef.dto.AgentDto;
 import com.example.aikef.dto.ChatMessageDto;
 import com.example.aikef.dto.ChatSessionDto;
+import com.example.aikef.dto.MessageCursorPage;
 import com.example.aikef.dto.SessionAgentDto;
 import com.example.aikef.dto.request.TransferSessionRequest;
 import com.example.aikef.mapper.EntityMapper;
@@ -103,6 +104,32 @@ public class ChatController {
         return messages;
     }
 
+    /**
+     * 游标分页获取会话的历史消息（按时间倒序）
+     * 与 /messages 可见范围相同，翻页耗时不随深度增加；工作流执行信息只含摘要
+     * GET /api/v1/chat/sessions/{sessionId}/messages/cursor?cursor=xxx&size=50
+     *
+     * @param cursor 上一页返回的 nextCursor，第一页不传
+     */
+    @GetMapping("/sessions/{sessionId}/messages/cursor")
+    public MessageCursorPage getSessionMessagesByCursor(
+            @PathVariable UUID sessionId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            Authentication authentication) {
+
+        AgentPrincipal agentPrincipal = null;
+        CustomerPrincipal customerPrincipal = null;
+
+        if (authentication != null && authentication.getPrincipal() instanceof AgentPrincipal) {
+            agentPrincipal = (AgentPrincipal) authentication.getPrincipal();
+        } else if (authentication != null && authentication.getPrincipal() instanceof CustomerPrincipal) {
+            customerPrincipal = (CustomerPrincipal) authentication.getPrincipal();
+        }
+
+        return messageService.getSessionMessagesByCursor(sessionId, agentPrincipal, customerPrincipal, cursor, size);
+    }
+
     // ==================== 支持客服管理 ====================
 
     /**
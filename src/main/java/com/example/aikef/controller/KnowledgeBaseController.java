@@ -70,7 +70,9 @@ public class KnowledgeBaseController {
                         request.name(),
                         request.description(),
                         request.embeddingModelId(),
-                        request.vectorDimension()
+                        request.vectorDimension(),
+                        request.vectorQuantization(),
+                        request.rescoreMultiplier()
                 ),
                 agentId
         );
@@ -90,7 +92,9 @@ public class KnowledgeBaseController {
                         request.description(),
                         request.enabled(),
                         request.embeddingModelId(),
-                        request.vectorDimension()
+                        request.vectorDimension(),
+                        request.vectorQuantization(),
+                        request.rescoreMultiplier()
                 )
         );
         return ResponseEntity.ok(toDto(kb));
@@ -262,6 +266,14 @@ public class KnowledgeBaseController {
         return ResponseEntity.ok(Map.of("message", "缓存已清除"));
     }
 
+    /**
+     * PGVector 连接池状态
+     */
+    @GetMapping("/pool/stats")
+    public ResponseEntity<Map<String, Object>> getPoolStats() {
+        return ResponseEntity.ok(vectorStoreService.getPoolStats());
+    }
+
     // ==================== 测试接口 ====================
 
     /**
@@ -393,6 +405,8 @@ public class KnowledgeBaseController {
             String indexName,
             UUID embeddingModelId,
             Integer vectorDimension,
+            String vectorQuantization,
+            Integer rescoreMultiplier,
             Integer documentCount,
             Boolean enabled,
             String createdAt,
@@ -403,7 +417,9 @@ public class KnowledgeBaseController {
             @NotBlank String name,
             String description,
             UUID embeddingModelId,
-            Integer vectorDimension
+            Integer vectorDimension,
+            KnowledgeBase.VectorQuantization vectorQuantization,
+            Integer rescoreMultiplier
     ) {}
 
     public record UpdateKnowledgeBaseDto(
@@ -411,7 +427,9 @@ public class KnowledgeBaseController {
             String description,
             Boolean enabled,
             UUID embeddingModelId,
-            Integer vectorDimension
+            Integer vectorDimension,
+            KnowledgeBase.VectorQuantization vectorQuantization,
+            Integer rescoreMultiplier
     ) {}
 
     public record KnowledgeDocumentDto(
@@ -518,6 +536,8 @@ public class KnowledgeBaseController {
                 kb.getIndexName(),
                 kb.getEmbeddingModelId(),
                 kb.getVectorDimension(),
+                kb.getVectorQuantization() != null ? kb.getVectorQuantization().name() : null,
+                kb.getRescoreMultiplier(),
                 kb.getDocumentCount(),
                 kb.getEnabled(),
                 kb.getCreatedAt() != null ? kb.getCreatedAt().toString() : null,
@@ -0,0 +1,46 @@
+package com.example.aikef.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * 消息分页游标：(createdAt, id) 为最后一条已返回消息的位置，下一页从其之后（更早）继续
+ * 对外以 URL 安全的 Base64 字符串传递，客户端不应解析
+ */
+public record MessageCursor(Instant createdAt, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，空字符串返回 null（第一页）
+     */
+    public static MessageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+        int separator = raw.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        try {
+            return new MessageCursor(Instant.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.aikef.dto;
+
+import java.util.List;
+
+/**
+ * 游标分页的消息列表
+ * messages 按创建时间倒序；nextCursor 为 null 表示没有更早的消息
+ */
+public record MessageCursorPage(
+        List<ChatMessageDto> messages,
+        String nextCursor,
+        boolean hasMore
+) {
+}
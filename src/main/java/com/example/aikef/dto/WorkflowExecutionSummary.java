@@ -0,0 +1,17 @@
+package com.example.aikef.dto;
+
+import java.util.UUID;
+
+/**
+ * 消息关联的工作流执行摘要（不含节点详情和工具调用链，详情通过 /api/v1/ai-workflows/execution-log 按需查询）
+ */
+public record WorkflowExecutionSummary(
+        UUID executionId,
+        UUID messageId,
+        String status,
+        String errorMessage,
+        Long durationMs,
+        UUID workflowId,
+        String workflowName
+) {
+}
@@ -0,0 +1,169 @@
+package com.example.aikef.knowledge;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 嵌入请求微批处理
+ * 同一嵌入模型在短时间窗口内的并发 embed 调用合并为一次 embedAll 请求，
+ * 每个调用方拿到各自的结果，减少高并发对话下对模型服务的请求次数。
+ * 窗口内相同的文本只发送一次
+ */
+@Slf4j
+@Component
+public class EmbeddingBatcher {
+
+    @Value("${knowledge.embedding.batch.enabled:true}")
+    private boolean enabled;
+
+    // 第一个请求到达后最多等待的时间
+    @Value("${knowledge.embedding.batch.window-millis:5}")
+    private long windowMillis;
+
+    // 达到该数量立即发送，不再等待窗口结束
+    @Value("${knowledge.embedding.batch.max-size:32}")
+    private int maxBatchSize;
+
+    @Value("${knowledge.embedding.batch.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    // 每个模型当前正在收集的批次
+    private final Map<UUID, Batch> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "embedding-batch-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicInteger senderThreadCount = new AtomicInteger();
+
+    private final ExecutorService sender = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "embedding-batch-sender-" + senderThreadCount.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 向量化单条文本，与同一模型的并发请求合并发送
+     *
+     * @param modelKey 模型缓存键，相同键的请求才会合并
+     */
+    public Embedding embed(UUID modelKey, EmbeddingModel model, String text) {
+        if (!enabled) {
+            return model.embed(text).content();
+        }
+        CompletableFuture<Embedding> future = submit(modelKey, model, text);
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("向量化失败: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw new IllegalStateException("向量化超时: " + timeoutSeconds + "s");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("向量化被中断", e);
+        }
+    }
+
+    /**
+     * 提交文本到当前批次，返回该文本的向量结果
+     */
+    public CompletableFuture<Embedding> submit(UUID modelKey, EmbeddingModel model, String text) {
+        CompletableFuture<Embedding> future = new CompletableFuture<>();
+        while (true) {
+            Batch batch = pending.computeIfAbsent(modelKey, key -> {
+                Batch created = new Batch(model);
+                timer.schedule(() -> flush(key, created), windowMillis, TimeUnit.MILLISECONDS);
+                return created;
+            });
+            boolean full;
+            synchronized (batch) {
+                if (batch.closed) {
+                    // 批次刚被发送，重新获取新批次
+                    continue;
+                }
+                batch.requests.computeIfAbsent(text, t -> new ArrayList<>()).add(future);
+                full = batch.requests.size() >= maxBatchSize;
+            }
+            if (full) {
+                flush(modelKey, batch);
+            }
+            return future;
+        }
+    }
+
+    private void flush(UUID modelKey, Batch batch) {
+        synchronized (batch) {
+            if (batch.closed) {
+                return;
+            }
+            batch.closed = true;
+        }
+        pending.remove(modelKey, batch);
+        sender.execute(() -> send(batch));
+    }
+
+    private void send(Batch batch) {
+        List<String> texts = new ArrayList<>(batch.requests.keySet());
+        try {
+            List<TextSegment> segments = texts.stream().map(TextSegment::from).toList();
+            List<Embedding> embeddings = batch.model.embedAll(segments).content();
+            if (embeddings == null || embeddings.size() != texts.size()) {
+                throw new IllegalStateException("向量化结果数量不匹配: expected=" + texts.size()
+                        + ", actual=" + (embeddings == null ? 0 : embeddings.size()));
+            }
+            for (int i = 0; i < texts.size(); i++) {
+                Embedding embedding = embeddings.get(i);
+                batch.requests.get(texts.get(i)).forEach(f -> f.complete(embedding));
+            }
+            if (texts.size() > 1) {
+                log.debug("批量向量化完成: batchSize={}", texts.size());
+            }
+        } catch (Exception e) {
+            log.warn("批量向量化失败: batchSize={}, error={}", texts.size(), e.getMessage());
+            batch.requests.values().forEach(futures -> futures.forEach(f -> f.completeExceptionally(e)));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        sender.shutdown();
+    }
+
+    private static class Batch {
+        private final EmbeddingModel model;
+        // 文本 -> 等待该文本结果的调用方
+        private final Map<String, List<CompletableFuture<Embedding>>> requests = new LinkedHashMap<>();
+        private boolean closed;
+
+        private Batch(EmbeddingModel model) {
+            this.model = model;
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.example.aikef.knowledge;
+
+import com.example.aikef.model.KnowledgeBase.VectorQuantization;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * 内存 HNSW 向量索引（余弦相似度）
+ * 向量归一化后平铺存储在基本类型数组中，避免每个向量一个对象；
+ * 支持三种存储方式：
+ * - NONE: float32 全精度
+ * - INT8: 每个向量一个缩放系数 + int8 编码，内存约为 float 的 1/4
+ * - BINARY: 每维 1 bit（符号位），图遍历使用汉明距离，内存约为 float 的 1/32；
+ *   开启重排时额外保留 int8 编码，对放大后的候选集重新打分
+ * 构建（add）需单线程完成，构建完成后只读，可被多线程并发查询
+ */
+public class HnswVectorIndex {
+
+    private final int dimension;
+    private final int capacity;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+    private final VectorQuantization quantization;
+    private final int rescoreMultiplier;
+    private final int words;
+
+    // NONE: 归一化后的向量，node i 占用 [i * dimension, (i + 1) * dimension)
+    private final float[] vectors;
+    // INT8（以及 BINARY 重排）: int8 编码与每个向量的缩放系数
+    private final byte[] codes;
+    private final float[] scales;
+    // BINARY: 符号位，node i 占用 [i * words, (i + 1) * words)
+    private final long[] bits;
+
+    // links[node][level] 为邻居节点，linkCounts[node][level] 为有效邻居数
+    private final int[][][] links;
+    private final int[][] linkCounts;
+
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswVectorIndex(int dimension, int capacity, int m, int efConstruction, long seed) {
+        this(dimension, capacity, m, efConstruction, seed, VectorQuantization.NONE, 0);
+    }
+
+    public HnswVectorIndex(int dimension, int capacity, int m, int efConstruction, long seed,
+                           VectorQuantization quantization, int rescoreMultiplier) {
+        if (dimension <= 0 || capacity < 0 || m < 2) {
+            throw new IllegalArgumentException("无效的 HNSW 参数: dimension=" + dimension
+                    + ", capacity=" + capacity + ", m=" + m);
+        }
+        this.dimension = dimension;
+        this.capacity = capacity;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = new Random(seed);
+        this.quantization = quantization != null ? quantization : VectorQuantization.NONE;
+        this.rescoreMultiplier = Math.max(rescoreMultiplier, 0);
+        this.words = (dimension + 63) / 64;
+
+        boolean keepCodes = this.quantization == VectorQuantization.INT8
+                || (this.quantization == VectorQuantization.BINARY && this.rescoreMultiplier > 0);
+        this.vectors = this.quantization == VectorQuantization.NONE ? new float[capacity * dimension] : null;
+        this.codes = keepCodes ? new byte[capacity * dimension] : null;
+        this.scales = keepCodes ? new float[capacity] : null;
+        this.bits = this.quantization == VectorQuantization.BINARY ? new long[capacity * words] : null;
+        this.links = new int[capacity][][];
+        this.linkCounts = new int[capacity][];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public VectorQuantization quantization() {
+        return quantization;
+    }
+
+    /**
+     * 向量数据占用的字节数（不含图结构）
+     */
+    public long vectorBytes() {
+        long total = 0;
+        if (vectors != null) total += (long) vectors.length * Float.BYTES;
+        if (codes != null) total += codes.length + (long) scales.length * Float.BYTES;
+        if (bits != null) total += (long) bits.length * Long.BYTES;
+        return total;
+    }
+
+    /**
+     * 添加向量，返回节点编号（从 0 递增）
+     */
+    public int add(float[] vector) {
+        if (vector.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配: expected=" + dimension + ", actual=" + vector.length);
+        }
+        if (size >= capacity) {
+            throw new IllegalStateException("HNSW 索引已满: capacity=" + capacity);
+        }
+
+        int node = size++;
+        Query query = toQuery(vector);
+        store(node, query);
+
+        int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+        links[node] = new int[level + 1][];
+        linkCounts[node] = new int[level + 1];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[l == 0 ? maxM0 : m];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedySearch(query, current, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(query, current, efConstruction, l);
+            int connections = Math.min(m, candidates.size());
+            for (int i = 0; i < connections; i++) {
+                int neighbor = candidates.get(i).node();
+                links[node][l][linkCounts[node][l]++] = neighbor;
+                connect(neighbor, node, l);
+            }
+            if (!candidates.isEmpty()) {
+                current = candidates.get(0).node();
+            }
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    /**
+     * 查询最相似的 k 个节点，按余弦相似度降序返回
+     * BINARY 开启重排时先取 k * rescoreMultiplier 个候选，再用 int8 编码重新打分
+     */
+    public List<Candidate> search(float[] query, int k, int ef) {
+        if (size == 0 || k <= 0) {
+            return List.of();
+        }
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配: expected=" + dimension + ", actual=" + query.length);
+        }
+
+        Query q = toQuery(query);
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedySearch(q, current, l);
+        }
+
+        boolean rescore = quantization == VectorQuantization.BINARY && rescoreMultiplier > 0;
+        int candidatesWanted = rescore ? k * rescoreMultiplier : k;
+        List<Candidate> results = searchLayer(q, current, Math.max(ef, candidatesWanted), 0);
+
+        if (rescore) {
+            List<Candidate> rescored = new ArrayList<>(Math.min(results.size(), candidatesWanted));
+            for (int i = 0; i < results.size() && i < candidatesWanted; i++) {
+                int node = results.get(i).node();
+                rescored.add(new Candidate(node, int8Similarity(q, node)));
+            }
+            rescored.sort(Comparator.comparingDouble((Candidate c) -> c.similarity()).reversed());
+            results = rescored;
+        }
+        return results.size() > k ? results.subList(0, k) : results;
+    }
+
+    private int greedySearch(Query query, int start, int level) {
+        int current = start;
+        float best = similarity(query, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] neighbors = links[current][level];
+            int count = linkCounts[current][level];
+            for (int i = 0; i < count; i++) {
+                float similarity = similarity(query, neighbors[i]);
+                if (similarity > best) {
+                    best = similarity;
+                    current = neighbors[i];
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private List<Candidate> searchLayer(Query query, int start, int ef, int level) {
+        boolean[] visited = new boolean[size];
+        // 待扩展节点：相似度高的先出队
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.similarity()).reversed());
+        // 当前结果：相似度最低的在堆顶，便于淘汰
+        PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.similarity()));
+
+        Candidate first = new Candidate(start, similarity(query, start));
+        visited[start] = true;
+        candidates.add(first);
+        results.add(first);
+
+        while (!candidates.isEmpty()) {
+            Candidate current = candidates.poll();
+            if (results.size() >= ef && current.similarity() < results.peek().similarity()) {
+                break;
+            }
+            int[] neighbors = links[current.node()][level];
+            int count = linkCounts[current.node()][level];
+            for (int i = 0; i < count; i++) {
+                int neighbor = neighbors[i];
+                if (visited[neighbor]) {
+                    continue;
+                }
+                visited[neighbor] = true;
+                float similarity = similarity(query, neighbor);
+                if (results.size() < ef || similarity > results.peek().similarity()) {
+                    Candidate candidate = new Candidate(neighbor, similarity);
+                    candidates.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble((Candidate c) -> c.similarity()).reversed());
+        return sorted;
+    }
+
+    /**
+     * 为 node 在 level 层添加指向 target 的连接，超出上限时只保留最相似的邻居
+     */
+    private void connect(int node, int target, int level) {
+        int[] neighbors = links[node][level];
+        int count = linkCounts[node][level];
+        if (count < neighbors.length) {
+            neighbors[count] = target;
+            linkCounts[node][level] = count + 1;
+            return;
+        }
+
+        Query nodeQuery = nodeQuery(node);
+        int weakest = -1;
+        float weakestSimilarity = similarity(nodeQuery, target);
+        for (int i = 0; i < count; i++) {
+            float similarity = similarity(nodeQuery, neighbors[i]);
+            if (similarity < weakestSimilarity) {
+                weakestSimilarity = similarity;
+                weakest = i;
+            }
+        }
+        if (weakest >= 0) {
+            neighbors[weakest] = target;
+        }
+    }
+
+    // ==================== 编码与相似度 ====================
+
+    private Query toQuery(float[] vector) {
+        float[] normalized = new float[dimension];
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        float scale = norm > 0 ? (float) (1 / Math.sqrt(norm)) : 0f;
+        for (int i = 0; i < dimension; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return toQuery(normalized, quantization == VectorQuantization.BINARY ? signBits(normalized) : null);
+    }
+
+    private Query toQuery(float[] normalized, long[] signBits) {
+        if (codes == null) {
+            return new Query(normalized, signBits, null, 0f);
+        }
+        float maxAbs = 0f;
+        for (float v : normalized) {
+            maxAbs = Math.max(maxAbs, Math.abs(v));
+        }
+        float scale = maxAbs > 0 ? maxAbs / 127f : 1f;
+        byte[] quantized = new byte[dimension];
+        for (int i = 0; i < dimension; i++) {
+            quantized[i] = (byte) Math.round(normalized[i] / scale);
+        }
+        return new Query(normalized, signBits, quantized, scale);
+    }
+
+    private void store(int node, Query query) {
+        float[] normalized = query.vector();
+        if (vectors != null) {
+            System.arraycopy(normalized, 0, vectors, node * dimension, dimension);
+        }
+        if (codes != null) {
+            System.arraycopy(query.codes(), 0, codes, node * dimension, dimension);
+            scales[node] = query.codeScale();
+        }
+        if (bits != null) {
+            System.arraycopy(query.bits(), 0, bits, node * words, words);
+        }
+    }
+
+    /**
+     * 从已存储的表示还原出查询对象（用于邻居裁剪时比较两个已存储节点）
+     */
+    private Query nodeQuery(int node) {
+        return switch (quantization) {
+            case NONE -> {
+                float[] vector = new float[dimension];
+                System.arraycopy(vectors, node * dimension, vector, 0, dimension);
+                yield new Query(vector, null, null, 0f);
+            }
+            case INT8 -> {
+                byte[] nodeCodes = new byte[dimension];
+                System.arraycopy(codes, node * dimension, nodeCodes, 0, dimension);
+                yield new Query(null, null, nodeCodes, scales[node]);
+            }
+            case BINARY -> {
+                long[] nodeBits = new long[words];
+                System.arraycopy(bits, node * words, nodeBits, 0, words);
+                yield new Query(null, nodeBits, null, 0f);
+            }
+        };
+    }
+
+    private float similarity(Query query, int node) {
+        return switch (quantization) {
+            case NONE -> floatSimilarity(query.vector(), node);
+            case INT8 -> int8Similarity(query, node);
+            case BINARY -> hammingSimilarity(query.bits(), node);
+        };
+    }
+
+    private float floatSimilarity(float[] query, int node) {
+        int nodeOffset = node * dimension;
+        // 四路累加，缩短浮点加法依赖链
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int i = 0;
+        for (int bound = dimension - 3; i < bound; i += 4) {
+            s0 += query[i] * vectors[nodeOffset + i];
+            s1 += query[i + 1] * vectors[nodeOffset + i + 1];
+            s2 += query[i + 2] * vectors[nodeOffset + i + 2];
+            s3 += query[i + 3] * vectors[nodeOffset + i + 3];
+        }
+        for (; i < dimension; i++) {
+            s0 += query[i] * vectors[nodeOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * 查询同样量化为 int8，整数点积可被 JIT 向量化
+     */
+    private float int8Similarity(Query query, int node) {
+        byte[] queryCodes = query.codes();
+        int nodeOffset = node * dimension;
+        int sum = 0;
+        for (int i = 0; i < dimension; i++) {
+            sum += queryCodes[i] * codes[nodeOffset + i];
+        }
+        return sum * query.codeScale() * scales[node];
+    }
+
+    /**
+     * 汉明距离换算为 [-1, 1] 的近似余弦相似度
+     */
+    private float hammingSimilarity(long[] queryBits, int node) {
+        int nodeOffset = node * words;
+        int distance = 0;
+        for (int w = 0; w < words; w++) {
+            distance += Long.bitCount(queryBits[w] ^ bits[nodeOffset + w]);
+        }
+        return 1f - 2f * distance / dimension;
+    }
+
+    private long[] signBits(float[] vector) {
+        long[] result = new long[words];
+        for (int i = 0; i < dimension; i++) {
+            if (vector[i] > 0) {
+                result[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查询向量的各种表示：bits 仅 BINARY 模式下存在，codes/codeScale 仅保存 int8 编码时存在
+     */
+    private record Query(float[] vector, long[] bits, byte[] codes, float codeScale) {}
+
+    /**
+     * 查询结果：节点编号与余弦相似度
+     */
+    public record Candidate(int node, float similarity) {}
+}
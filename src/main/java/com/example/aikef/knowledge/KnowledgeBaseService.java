@@ -69,6 +69,12 @@ public class KnowledgeBaseService {
         kb.setDescription(request.description());
         kb.setEmbeddingModelId(request.embeddingModelId());
         kb.setVectorDimension(request.vectorDimension() != null ? request.vectorDimension() : 1536);
+        if (request.vectorQuantization() != null) {
+            kb.setVectorQuantization(request.vectorQuantization());
+        }
+        if (request.rescoreMultiplier() != null) {
+            kb.setRescoreMultiplier(request.rescoreMultiplier());
+        }
         kb.setEnabled(true);
 
         if (agentId != null) {
@@ -123,12 +129,29 @@ public class KnowledgeBaseService {
             log.info("知识库向量维度已更新: id={}, newDimension={}", id, request.vectorDimension());
         }
 
+        boolean quantizationChanged = false;
+
+        if (request.vectorQuantization() != null && request.vectorQuantization() != kb.getVectorQuantization()) {
+            kb.setVectorQuantization(request.vectorQuantization());
+            quantizationChanged = true;
+            log.info("知识库向量量化方式已更新: id={}, quantization={}", id, request.vectorQuantization());
+        }
+
+        if (request.rescoreMultiplier() != null && !request.rescoreMultiplier().equals(kb.getRescoreMultiplier())) {
+            kb.setRescoreMultiplier(request.rescoreMultiplier());
+            quantizationChanged = true;
+        }
+
         KnowledgeBase saved = knowledgeBaseRepository.save(kb);
 
-        // 如果嵌入模型或维度变更，清除缓存
+        // 如果嵌入模型或维度变更，移除该知识库的缓存（其他知识库的缓存不受影响）
         if (embeddingModelChanged) {
-            vectorStoreService.clearCache();
-            log.warn("嵌入模型或向量维度已变更，已清除缓存。建议重建索引以确保向量一致性。");
+            vectorStoreService.evictStore(saved);
+            log.warn("嵌入模型或向量维度已变更，已移除知识库缓存。建议重建索引以确保向量一致性。");
+        }
+
+        if (quantizationChanged) {
+            vectorStoreService.applyQuantization(saved);
         }
 
         log.info("更新知识库: id={}", id);
@@ -146,8 +169,8 @@ public class KnowledgeBaseService {
         // 删除所有文档
         documentRepository.deleteByKnowledgeBase_Id(id);
 
-        // 清除向量存储缓存
-        vectorStoreService.clearCache();
+        // 移除该知识库的向量存储缓存
+        vectorStoreService.evictStore(kb);
 
         // 删除知识库
         knowledgeBaseRepository.delete(kb);
@@ -335,7 +358,9 @@ public class KnowledgeBaseService {
             String name,
             String description,
             UUID embeddingModelId,
-            Integer vectorDimension
+            Integer vectorDimension,
+            KnowledgeBase.VectorQuantization vectorQuantization,
+            Integer rescoreMultiplier
     ) {}
 
     public record UpdateKnowledgeBaseRequest(
@@ -343,7 +368,9 @@ public class KnowledgeBaseService {
             String description,
             Boolean enabled,
             UUID embeddingModelId,
-            Integer vectorDimension
+            Integer vectorDimension,
+            KnowledgeBase.VectorQuantization vectorQuantization,
+            Integer rescoreMultiplier
     ) {}
 
     public record AddDocumentRequest(
@@ -0,0 +1,115 @@
+package com.example.aikef.knowledge;
+
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.MetadataFilterBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 知识库检索过滤条件
+ * 转换为 LangChain4j Filter 后由 PgVectorEmbeddingStore 拼接到向量查询的 WHERE 子句中（预过滤），
+ * 对应的元数据表达式索引由 {@link PgVectorMetadataIndexes} 创建
+ *
+ * @param tenantId      租户 ID
+ * @param docTypes      文档类型（任一匹配）
+ * @param tags          标签（全部匹配）
+ * @param documentIds   文档 ID（任一匹配）
+ * @param updatedAfter  文档更新时间下限（含）
+ * @param updatedBefore 文档更新时间上限（不含）
+ */
+public record KnowledgeSearchFilter(
+        String tenantId,
+        List<String> docTypes,
+        List<String> tags,
+        List<UUID> documentIds,
+        Instant updatedAfter,
+        Instant updatedBefore
+) {
+
+    // 向量元数据键
+    public static final String KEY_KNOWLEDGE_BASE_ID = "knowledgeBaseId";
+    public static final String KEY_DOCUMENT_ID = "documentId";
+    public static final String KEY_TITLE = "title";
+    public static final String KEY_DOC_TYPE = "docType";
+    public static final String KEY_TENANT_ID = "tenantId";
+    public static final String KEY_TAGS = "tags";
+    public static final String KEY_UPDATED_AT = "updatedAt";
+
+    // 标签中去除的字符：分隔符与正则元字符（PGVector 将 containsString 映射为正则匹配，内存索引则是普通包含匹配）
+    private static final String TAG_STRIP_CHARS = ",\\.^$|?*+()[]{}";
+
+    private static final KnowledgeSearchFilter EMPTY = new KnowledgeSearchFilter(null, null, null, null, null, null);
+
+    public static KnowledgeSearchFilter empty() {
+        return EMPTY;
+    }
+
+    public KnowledgeSearchFilter withTenantId(String tenantId) {
+        return new KnowledgeSearchFilter(tenantId, docTypes, tags, documentIds, updatedAfter, updatedBefore);
+    }
+
+    /**
+     * 标签以 ",a,b," 形式存储，便于按 ",tag," 做包含匹配
+     */
+    public static String joinTags(List<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(",");
+        for (String tag : tags) {
+            String normalized = normalizeTag(tag);
+            if (!normalized.isEmpty()) {
+                sb.append(normalized).append(',');
+            }
+        }
+        return sb.length() > 1 ? sb.toString() : null;
+    }
+
+    /**
+     * 转换为 LangChain4j 过滤条件，没有任何条件时返回 null
+     */
+    public Filter toFilter() {
+        List<Filter> filters = new ArrayList<>();
+        if (tenantId != null && !tenantId.isBlank()) {
+            filters.add(MetadataFilterBuilder.metadataKey(KEY_TENANT_ID).isEqualTo(tenantId));
+        }
+        if (docTypes != null && !docTypes.isEmpty()) {
+            filters.add(MetadataFilterBuilder.metadataKey(KEY_DOC_TYPE).isIn(docTypes));
+        }
+        if (documentIds != null && !documentIds.isEmpty()) {
+            filters.add(MetadataFilterBuilder.metadataKey(KEY_DOCUMENT_ID)
+                    .isIn(documentIds.stream().map(UUID::toString).toList()));
+        }
+        if (tags != null) {
+            for (String tag : tags) {
+                String normalized = normalizeTag(tag);
+                if (!normalized.isEmpty()) {
+                    filters.add(MetadataFilterBuilder.metadataKey(KEY_TAGS).containsString("," + normalized + ","));
+                }
+            }
+        }
+        if (updatedAfter != null) {
+            filters.add(MetadataFilterBuilder.metadataKey(KEY_UPDATED_AT).isGreaterThanOrEqualTo(updatedAfter.toEpochMilli()));
+        }
+        if (updatedBefore != null) {
+            filters.add(MetadataFilterBuilder.metadataKey(KEY_UPDATED_AT).isLessThan(updatedBefore.toEpochMilli()));
+        }
+        return filters.stream().reduce((left, right) -> left.and(right)).orElse(null);
+    }
+
+    private static String normalizeTag(String tag) {
+        if (tag == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(tag.length());
+        for (char c : tag.trim().toCharArray()) {
+            if (TAG_STRIP_CHARS.indexOf(c) < 0) {
+                sb.append(c);
+            }
+        }
+        return sb.toString().trim();
+    }
+}
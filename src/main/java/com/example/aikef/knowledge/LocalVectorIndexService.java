@@ -0,0 +1,286 @@
+package com.example.aikef.knowledge;
+
+import com.example.aikef.model.KnowledgeBase;
+import com.example.aikef.model.KnowledgeBase.VectorQuantization;
+import com.example.aikef.repository.KnowledgeDocumentRepository;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import dev.langchain4j.store.embedding.filter.Filter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 小型知识库的进程内 HNSW 向量索引
+ * 分块数不超过阈值的知识库从 PGVector 全量加载到内存，搜索时不再访问 PGVector；
+ * 文档变更时失效并在下次搜索时后台重新加载，加载完成前仍走 PGVector
+ */
+@Slf4j
+@Service
+public class LocalVectorIndexService {
+
+    // 带过滤条件时候选数为 maxResults 的倍数
+    private static final int FILTER_OVERSAMPLING = 8;
+
+    private final KnowledgeDocumentRepository documentRepository;
+    private final PgVectorJdbcSupport jdbcSupport;
+
+    @Value("${knowledge.local-index.enabled:true}")
+    private boolean enabled;
+
+    // 分块数不超过该值的知识库使用内存索引
+    @Value("${knowledge.local-index.max-chunks:2000}")
+    private int maxChunks;
+
+    @Value("${knowledge.local-index.m:16}")
+    private int m;
+
+    @Value("${knowledge.local-index.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${knowledge.local-index.ef-search:64}")
+    private int efSearch;
+
+    // 多实例部署时其他节点的变更无法感知，超过该时间后台刷新
+    @Value("${knowledge.local-index.refresh-seconds:300}")
+    private long refreshSeconds;
+
+    // 已加载的索引（按知识库 ID）
+    private final Map<UUID, LocalIndex> indexes = new ConcurrentHashMap<>();
+
+    // 索引版本，失效时递增，防止加载中的旧数据覆盖新状态
+    private final Map<UUID, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    // 分块数超过阈值的知识库，失效前不再重复检查
+    private final Set<UUID> oversized = ConcurrentHashMap.newKeySet();
+
+    // 正在加载的知识库
+    private final Set<UUID> loading = ConcurrentHashMap.newKeySet();
+
+    // 加载失败的知识库在此时间前不再重试（如向量表尚未创建）
+    private final Map<UUID, Instant> retryAfter = new ConcurrentHashMap<>();
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "local-vector-index-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public LocalVectorIndexService(KnowledgeDocumentRepository documentRepository, PgVectorJdbcSupport jdbcSupport) {
+        this.documentRepository = documentRepository;
+        this.jdbcSupport = jdbcSupport;
+    }
+
+    /**
+     * 尝试使用内存索引搜索
+     * 返回 empty 表示该知识库当前不走内存索引（未启用、分块过多、加载中、过滤后结果不足），调用方应回退到 PGVector
+     */
+    public Optional<EmbeddingSearchResult<TextSegment>> search(KnowledgeBase kb, EmbeddingSearchRequest request) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        LocalIndex index = indexes.get(kb.getId());
+        if (index == null) {
+            scheduleLoad(kb);
+            return Optional.empty();
+        }
+        if (index.hnsw().quantization() != quantizationOf(kb)) {
+            // 量化方式已变更（可能来自其他节点），旧索引不可用
+            invalidate(kb.getId());
+            scheduleLoad(kb);
+            return Optional.empty();
+        }
+        if (index.loadedAt().isBefore(Instant.now().minusSeconds(refreshSeconds))) {
+            // 旧索引继续提供服务，后台刷新
+            scheduleLoad(kb);
+        }
+
+        float[] query = request.queryEmbedding().vector();
+        if (query.length != index.hnsw().dimension()) {
+            log.warn("查询向量维度与内存索引不一致，回退 PGVector: knowledgeBaseId={}, query={}, index={}",
+                    kb.getId(), query.length, index.hnsw().dimension());
+            return Optional.empty();
+        }
+
+        Filter filter = request.filter();
+        // 带过滤条件时多取候选再按元数据过滤
+        int candidates = filter == null ? request.maxResults()
+                : Math.min(index.hnsw().size(), Math.max(request.maxResults() * FILTER_OVERSAMPLING, efSearch));
+        List<HnswVectorIndex.Candidate> found = index.hnsw().search(query, candidates, Math.max(efSearch, candidates));
+
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>();
+        boolean belowMinScore = false;
+        for (HnswVectorIndex.Candidate candidate : found) {
+            // 与 PgVectorEmbeddingStore 一致：score = (1 + cosine) / 2
+            double score = (1 + candidate.similarity()) / 2;
+            if (score < request.minScore()) {
+                belowMinScore = true;
+                break;
+            }
+            TextSegment segment = index.segments()[candidate.node()];
+            if (filter != null && (segment == null || !filter.test(segment.metadata()))) {
+                continue;
+            }
+            matches.add(new EmbeddingMatch<>(score, index.embeddingIds()[candidate.node()], null, segment));
+            if (matches.size() >= request.maxResults()) {
+                break;
+            }
+        }
+        if (filter != null && matches.size() < request.maxResults() && !belowMinScore
+                && found.size() < index.hnsw().size()) {
+            // 过滤后结果不足且候选未覆盖全部向量，交给 PGVector 精确过滤
+            return Optional.empty();
+        }
+        return Optional.of(new EmbeddingSearchResult<>(matches));
+    }
+
+    /**
+     * 知识库向量发生变化时调用，下次搜索重新加载
+     */
+    public void invalidate(UUID knowledgeBaseId) {
+        versions.computeIfAbsent(knowledgeBaseId, id -> new AtomicLong()).incrementAndGet();
+        indexes.remove(knowledgeBaseId);
+        oversized.remove(knowledgeBaseId);
+        retryAfter.remove(knowledgeBaseId);
+    }
+
+    /**
+     * 清除所有内存索引
+     */
+    public void invalidateAll() {
+        versions.values().forEach(AtomicLong::incrementAndGet);
+        indexes.clear();
+        oversized.clear();
+        retryAfter.clear();
+    }
+
+    private void scheduleLoad(KnowledgeBase kb) {
+        UUID kbId = kb.getId();
+        Instant retryAt = retryAfter.get(kbId);
+        if (oversized.contains(kbId) || (retryAt != null && retryAt.isAfter(Instant.now())) || !loading.add(kbId)) {
+            return;
+        }
+
+        // 只传递需要的字段，避免在后台线程访问实体
+        String tableName = kb.getIndexName();
+        int dimension = kb.getVectorDimension() != null ? kb.getVectorDimension() : 1536;
+        VectorQuantization quantization = quantizationOf(kb);
+        int rescoreMultiplier = kb.getRescoreMultiplier() != null ? kb.getRescoreMultiplier() : 0;
+        long version = versions.computeIfAbsent(kbId, id -> new AtomicLong()).get();
+
+        try {
+            loader.submit(() -> {
+                try {
+                    load(kbId, tableName, dimension, quantization, rescoreMultiplier, version);
+                } catch (Exception e) {
+                    retryAfter.put(kbId, Instant.now().plusSeconds(refreshSeconds));
+                    log.warn("加载内存向量索引失败，继续使用 PGVector: knowledgeBaseId={}, error={}", kbId, e.getMessage());
+                } finally {
+                    loading.remove(kbId);
+                }
+            });
+        } catch (Exception e) {
+            loading.remove(kbId);
+        }
+    }
+
+    private void load(UUID kbId, String tableName, int dimension, VectorQuantization quantization,
+                      int rescoreMultiplier, long version) throws SQLException {
+        Integer chunkCount = documentRepository.getTotalChunkCount(kbId);
+        if (chunkCount != null && chunkCount > maxChunks) {
+            markOversized(kbId, version, chunkCount);
+            return;
+        }
+        jdbcSupport.checkTableName(tableName);
+
+        long start = System.currentTimeMillis();
+        List<String> ids = new ArrayList<>();
+        List<TextSegment> segments = new ArrayList<>();
+        List<float[]> vectors = new ArrayList<>();
+
+        try (Connection conn = jdbcSupport.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.setMaxRows(maxChunks + 1);
+            try (ResultSet rs = stmt.executeQuery("SELECT embedding_id, embedding::text, text, metadata::text FROM " + tableName)) {
+                while (rs.next()) {
+                    float[] vector = jdbcSupport.parseVector(rs.getString(2));
+                    if (vector.length != dimension) {
+                        continue;
+                    }
+                    ids.add(rs.getString(1));
+                    String text = rs.getString(3);
+                    segments.add(text != null ? TextSegment.from(text, jdbcSupport.parseMetadata(rs.getString(4))) : null);
+                    vectors.add(vector);
+                }
+            }
+        }
+
+        if (vectors.size() > maxChunks) {
+            markOversized(kbId, version, vectors.size());
+            return;
+        }
+
+        HnswVectorIndex hnsw = new HnswVectorIndex(dimension, vectors.size(), m, efConstruction,
+                kbId.getLeastSignificantBits(), quantization, rescoreMultiplier);
+        for (float[] vector : vectors) {
+            hnsw.add(vector);
+        }
+
+        LocalIndex index = new LocalIndex(hnsw, ids.toArray(new String[0]), segments.toArray(new TextSegment[0]), Instant.now());
+        if (currentVersion(kbId) == version) {
+            indexes.put(kbId, index);
+            log.info("内存向量索引加载完成: knowledgeBaseId={}, vectorCount={}, quantization={}, vectorBytes={}, cost={}ms",
+                    kbId, hnsw.size(), quantization, hnsw.vectorBytes(), System.currentTimeMillis() - start);
+        } else {
+            log.debug("内存向量索引加载期间知识库已变更，丢弃: knowledgeBaseId={}", kbId);
+        }
+    }
+
+    private void markOversized(UUID kbId, long version, int chunkCount) {
+        if (currentVersion(kbId) == version) {
+            oversized.add(kbId);
+            indexes.remove(kbId);
+        }
+        log.debug("知识库分块数超过内存索引阈值，使用 PGVector: knowledgeBaseId={}, chunks={}, maxChunks={}",
+                kbId, chunkCount, maxChunks);
+    }
+
+    private VectorQuantization quantizationOf(KnowledgeBase kb) {
+        return kb.getVectorQuantization() != null ? kb.getVectorQuantization() : VectorQuantization.NONE;
+    }
+
+    private long currentVersion(UUID kbId) {
+        AtomicLong version = versions.get(kbId);
+        return version != null ? version.get() : 0L;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+        try {
+            loader.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 已加载的内存索引，node 编号与数组下标一一对应
+     */
+    private record LocalIndex(HnswVectorIndex hnsw, String[] embeddingIds, TextSegment[] segments, Instant loadedAt) {}
+}
@@ -0,0 +1,150 @@
+package com.example.aikef.knowledge;
+
+import dev.langchain4j.store.embedding.filter.Filter;
+import dev.langchain4j.store.embedding.filter.comparison.ContainsString;
+import dev.langchain4j.store.embedding.filter.comparison.IsEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsGreaterThan;
+import dev.langchain4j.store.embedding.filter.comparison.IsGreaterThanOrEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsIn;
+import dev.langchain4j.store.embedding.filter.comparison.IsLessThan;
+import dev.langchain4j.store.embedding.filter.comparison.IsLessThanOrEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotEqualTo;
+import dev.langchain4j.store.embedding.filter.comparison.IsNotIn;
+import dev.langchain4j.store.embedding.filter.logical.And;
+import dev.langchain4j.store.embedding.filter.logical.Not;
+import dev.langchain4j.store.embedding.filter.logical.Or;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * 把 LangChain4j 元数据过滤条件翻译为 PGVector 向量表的 WHERE 条件（值以 JDBC 参数传入）
+ * 键表达式与 PgVectorEmbeddingStore 内部的 JSONFilterMapper 一致：比较条件为 (metadata->>'key')::type，
+ * isIn / notIn 为 metadata->>'key'，因此同样命中 {@link PgVectorMetadataIndexes} 建立的表达式索引
+ */
+final class PgVectorFilterSql {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9_]+");
+
+    private final StringBuilder sql = new StringBuilder();
+    private final List<Object> params = new ArrayList<>();
+
+    private PgVectorFilterSql() {
+    }
+
+    /**
+     * @throws IllegalArgumentException 不支持的过滤条件或非法的元数据键
+     */
+    static PgVectorFilterSql of(Filter filter) {
+        PgVectorFilterSql result = new PgVectorFilterSql();
+        result.append(filter);
+        return result;
+    }
+
+    String sql() {
+        return sql.toString();
+    }
+
+    List<Object> params() {
+        return Collections.unmodifiableList(params);
+    }
+
+    private void append(Filter filter) {
+        if (filter instanceof And and) {
+            sql.append('(');
+            append(and.left());
+            sql.append(" AND ");
+            append(and.right());
+            sql.append(')');
+        } else if (filter instanceof Or or) {
+            sql.append('(');
+            append(or.left());
+            sql.append(" OR ");
+            append(or.right());
+            sql.append(')');
+        } else if (filter instanceof Not not) {
+            sql.append("NOT (");
+            append(not.expression());
+            sql.append(')');
+        } else if (filter instanceof IsEqualTo f) {
+            String key = typedKey(f.key(), f.comparisonValue());
+            comparison(key + " IS NOT NULL AND " + key + " = ?", f.comparisonValue());
+        } else if (filter instanceof IsNotEqualTo f) {
+            String key = typedKey(f.key(), f.comparisonValue());
+            comparison(key + " IS NULL OR " + key + " != ?", f.comparisonValue());
+        } else if (filter instanceof IsGreaterThan f) {
+            comparison(typedKey(f.key(), f.comparisonValue()) + " > ?", f.comparisonValue());
+        } else if (filter instanceof IsGreaterThanOrEqualTo f) {
+            comparison(typedKey(f.key(), f.comparisonValue()) + " >= ?", f.comparisonValue());
+        } else if (filter instanceof IsLessThan f) {
+            comparison(typedKey(f.key(), f.comparisonValue()) + " < ?", f.comparisonValue());
+        } else if (filter instanceof IsLessThanOrEqualTo f) {
+            comparison(typedKey(f.key(), f.comparisonValue()) + " <= ?", f.comparisonValue());
+        } else if (filter instanceof IsIn f) {
+            sql.append('(').append(textKey(f.key())).append(" IN (");
+            appendValues(f.comparisonValues());
+            sql.append("))");
+        } else if (filter instanceof IsNotIn f) {
+            String key = textKey(f.key());
+            sql.append('(').append(key).append(" IS NULL OR ").append(key).append(" NOT IN (");
+            appendValues(f.comparisonValues());
+            sql.append("))");
+        } else if (filter instanceof ContainsString f) {
+            // 按字面子串匹配（标签过滤传入的是 ",tag," 形式）
+            String key = textKey(f.key());
+            sql.append('(').append(key).append(" IS NOT NULL AND strpos(").append(key).append(", ?) > 0)");
+            params.add(f.comparisonValue());
+        } else {
+            throw new IllegalArgumentException("不支持的过滤条件: " + filter.getClass().getSimpleName());
+        }
+    }
+
+    private void comparison(String condition, Object value) {
+        sql.append('(').append(condition).append(')');
+        params.add("text".equals(sqlType(value)) ? String.valueOf(value) : value);
+    }
+
+    private void appendValues(Collection<?> values) {
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) {
+                sql.append(", ");
+            }
+            sql.append('?');
+            params.add(String.valueOf(value));
+            first = false;
+        }
+    }
+
+    private static String typedKey(String key, Object value) {
+        return "(" + textKey(key) + ")::" + sqlType(value);
+    }
+
+    private static String textKey(String key) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("非法的元数据键: " + key);
+        }
+        return "metadata->>'" + key + "'";
+    }
+
+    private static String sqlType(Object value) {
+        if (value instanceof Integer) {
+            return "int";
+        } else if (value instanceof Long) {
+            return "bigint";
+        } else if (value instanceof Float) {
+            return "float";
+        } else if (value instanceof Double) {
+            return "float8";
+        } else if (value instanceof UUID) {
+            return "uuid";
+        } else if (value instanceof Boolean) {
+            return "boolean";
+        }
+        return "text";
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.aikef.knowledge;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import dev.langchain4j.data.document.Metadata;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * PGVector 连接池与 JDBC 支持
+ * 所有知识库的 PgVectorEmbeddingStore 以及直连查询（全量加载、量化检索等）共用一个 HikariCP 连接池，
+ * 知识库数量增加不会增加 PostgreSQL 连接数。
+ * 连接池不注册为 DataSource Bean，避免影响主库（MySQL）的自动配置
+ */
+@Slf4j
+@Component
+public class PgVectorJdbcSupport {
+
+    private static final Pattern TABLE_NAME_PATTERN = Pattern.compile("[A-Za-z0-9_]+");
+    private static final String POOL_NAME = "pgvector-pool";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${knowledge.pgvector.host:localhost}")
+    private String pgHost;
+
+    @Value("${knowledge.pgvector.port:5432}")
+    private int pgPort;
+
+    @Value("${knowledge.pgvector.database:aikef_vector}")
+    private String pgDatabase;
+
+    @Value("${knowledge.pgvector.user:postgres}")
+    private String pgUser;
+
+    @Value("${knowledge.pgvector.password:}")
+    private String pgPassword;
+
+    @Value("${knowledge.pgvector.pool.maximum-pool-size:10}")
+    private int maximumPoolSize;
+
+    @Value("${knowledge.pgvector.pool.minimum-idle:1}")
+    private int minimumIdle;
+
+    @Value("${knowledge.pgvector.pool.connection-timeout:10000}")
+    private long connectionTimeout;
+
+    @Value("${knowledge.pgvector.pool.idle-timeout:300000}")
+    private long idleTimeout;
+
+    @Value("${knowledge.pgvector.pool.max-lifetime:1800000}")
+    private long maxLifetime;
+
+    private HikariDataSource dataSource;
+
+    public PgVectorJdbcSupport(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @PostConstruct
+    public void init() {
+        // 无参构造 + setter：连接池在首次获取连接时才初始化，PGVector 不可用时不影响应用启动
+        HikariDataSource ds = new HikariDataSource();
+        ds.setPoolName(POOL_NAME);
+        ds.setDriverClassName("org.postgresql.Driver");
+        ds.setJdbcUrl("jdbc:postgresql://" + pgHost + ":" + pgPort + "/" + pgDatabase);
+        ds.setUsername(pgUser);
+        ds.setPassword(pgPassword);
+        ds.setMaximumPoolSize(maximumPoolSize);
+        ds.setMinimumIdle(Math.min(minimumIdle, maximumPoolSize));
+        ds.setConnectionTimeout(connectionTimeout);
+        ds.setIdleTimeout(idleTimeout);
+        ds.setMaxLifetime(maxLifetime);
+
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry != null) {
+            // 指标: hikaricp.connections.* {pool=pgvector-pool}
+            ds.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        }
+        this.dataSource = ds;
+        log.info("PGVector 连接池已配置: host={}, database={}, maxPoolSize={}", pgHost, pgDatabase, maximumPoolSize);
+    }
+
+    /**
+     * 共享的 PGVector 数据源（供 PgVectorEmbeddingStore 使用）
+     */
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    /**
+     * 连接池状态
+     */
+    public Map<String, Object> getPoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolName", POOL_NAME);
+        stats.put("maximumPoolSize", dataSource.getMaximumPoolSize());
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            // 尚未获取过连接，连接池未初始化
+            stats.put("initialized", false);
+            return stats;
+        }
+        stats.put("initialized", true);
+        stats.put("activeConnections", pool.getActiveConnections());
+        stats.put("idleConnections", pool.getIdleConnections());
+        stats.put("totalConnections", pool.getTotalConnections());
+        stats.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 校验向量表名（表名会拼接进 SQL）
+     */
+    public String checkTableName(String tableName) {
+        if (tableName == null || !TABLE_NAME_PATTERN.matcher(tableName).matches()) {
+            throw new IllegalArgumentException("非法的向量表名: " + tableName);
+        }
+        return tableName;
+    }
+
+    /**
+     * 转换为 pgvector 文本格式: [0.1,0.2,...]
+     */
+    public String toVectorLiteral(float[] vector) {
+        StringBuilder sb = new StringBuilder(vector.length * 10 + 2).append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(vector[i]);
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * 解析 pgvector 文本格式: [0.1,0.2,...]
+     */
+    public float[] parseVector(String text) {
+        if (text == null || text.length() < 2) {
+            return new float[0];
+        }
+        String body = text.substring(1, text.length() - 1);
+        if (body.isBlank()) {
+            return new float[0];
+        }
+        String[] parts = body.split(",");
+        float[] vector = new float[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            vector[i] = Float.parseFloat(parts[i].trim());
+        }
+        return vector;
+    }
+
+    /**
+     * 解析 metadata JSONB 列
+     */
+    public Metadata parseMetadata(String json) {
+        if (json == null || json.isBlank()) {
+            return new Metadata();
+        }
+        try {
+            Map<String, Object> map = objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+            map.values().removeIf(Objects::isNull);
+            return Metadata.from(map);
+        } catch (Exception e) {
+            log.debug("解析向量元数据失败: {}", e.getMessage());
+            return new Metadata();
+        }
+    }
+}
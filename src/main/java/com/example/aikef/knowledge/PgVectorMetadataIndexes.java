@@ -0,0 +1,62 @@
+package com.example.aikef.knowledge;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 向量表元数据过滤索引
+ * PgVectorEmbeddingStore 把过滤条件翻译为 (metadata->>'key')::type 表达式，
+ * 在相同表达式上建立 B-Tree 索引后，带租户/文档类型/时间条件的检索只扫描命中的行，
+ * 不会随同表数据量（租户数）增长而变慢
+ */
+@Slf4j
+@Component
+public class PgVectorMetadataIndexes {
+
+    // 索引名后缀 -> 索引表达式，需与 LangChain4j JSONFilterMapper 生成的表达式一致
+    // （isIn 生成的 metadata->>'key' 不带 ::text，text 到 text 的转换会被 PostgreSQL 消除，同样命中索引）
+    private static final Map<String, String> INDEXES = Map.of(
+            "meta_tenant_idx", "((metadata->>'" + KnowledgeSearchFilter.KEY_TENANT_ID + "')::text)",
+            "meta_doc_type_idx", "((metadata->>'" + KnowledgeSearchFilter.KEY_DOC_TYPE + "')::text)",
+            "meta_document_idx", "((metadata->>'" + KnowledgeSearchFilter.KEY_DOCUMENT_ID + "')::text)",
+            "meta_updated_at_idx", "((metadata->>'" + KnowledgeSearchFilter.KEY_UPDATED_AT + "')::bigint)"
+    );
+
+    private final PgVectorJdbcSupport jdbcSupport;
+
+    // 已创建索引的表
+    private final Set<String> indexedTables = ConcurrentHashMap.newKeySet();
+
+    public PgVectorMetadataIndexes(PgVectorJdbcSupport jdbcSupport) {
+        this.jdbcSupport = jdbcSupport;
+    }
+
+    /**
+     * 创建元数据表达式索引（幂等）
+     */
+    public void ensureIndexes(String tableName) throws SQLException {
+        String table = jdbcSupport.checkTableName(tableName);
+        if (indexedTables.contains(table)) {
+            return;
+        }
+        try (Connection conn = jdbcSupport.getConnection(); Statement stmt = conn.createStatement()) {
+            for (Map.Entry<String, String> index : INDEXES.entrySet()) {
+                stmt.execute("CREATE INDEX IF NOT EXISTS " + table + "_" + index.getKey()
+                        + " ON " + table + " (" + index.getValue() + ")");
+            }
+        }
+        indexedTables.add(table);
+        log.info("向量表元数据索引已就绪: table={}", table);
+    }
+
+    public void forget(String tableName) {
+        indexedTables.remove(tableName);
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.aikef.knowledge;
+
+import com.example.aikef.model.KnowledgeBase;
+import com.example.aikef.model.KnowledgeBase.VectorQuantization;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.store.embedding.EmbeddingMatch;
+import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
+import dev.langchain4j.store.embedding.EmbeddingSearchResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PGVector 量化检索
+ * 向量表仍保存 float32 全精度 embedding（用于重排），在其上额外建立量化表达式索引，
+ * 表本身不会变小，总存储是 float32 列加上量化索引：
+ * - INT8: pgvector 没有 int8 向量类型，使用 halfvec（16 位）表达式索引，索引体积约为 float32 HNSW 索引的一半
+ * - BINARY: binary_quantize(embedding)::bit(d) + 汉明距离索引，索引体积约为 1/32
+ * 查询先在量化索引上取 maxResults * rescoreMultiplier 个候选，再用全精度向量重排。
+ * 元数据过滤条件（租户、文档类型、标签等）由 {@link PgVectorFilterSql} 翻译为与 PgVectorEmbeddingStore
+ * 相同的 metadata 表达式，直接加在量化查询的 WHERE 中
+ */
+@Slf4j
+@Component
+public class QuantizedPgVectorSearch {
+
+    // HNSW 的 ef_search 上限为 1000
+    private static final int MAX_EF_SEARCH = 1000;
+
+    private final PgVectorJdbcSupport jdbcSupport;
+
+    // 已确认存在量化索引的表（表名:量化方式）
+    private final Set<String> indexedTables = ConcurrentHashMap.newKeySet();
+
+    public QuantizedPgVectorSearch(PgVectorJdbcSupport jdbcSupport) {
+        this.jdbcSupport = jdbcSupport;
+    }
+
+    public boolean supports(KnowledgeBase kb, EmbeddingSearchRequest request) {
+        VectorQuantization quantization = kb.getVectorQuantization();
+        return quantization != null && quantization != VectorQuantization.NONE;
+    }
+
+    /**
+     * 创建量化表达式索引（幂等）
+     */
+    public void ensureIndex(KnowledgeBase kb) throws SQLException {
+        VectorQuantization quantization = kb.getVectorQuantization();
+        if (quantization == null || quantization == VectorQuantization.NONE) {
+            return;
+        }
+        String table = jdbcSupport.checkTableName(kb.getIndexName());
+        String key = table + ":" + quantization;
+        if (indexedTables.contains(key)) {
+            return;
+        }
+
+        String sql = switch (quantization) {
+            case INT8 -> "CREATE INDEX IF NOT EXISTS " + table + "_halfvec_idx ON " + table
+                    + " USING hnsw ((" + quantizedColumn(kb) + ") halfvec_cosine_ops)";
+            case BINARY -> "CREATE INDEX IF NOT EXISTS " + table + "_bit_idx ON " + table
+                    + " USING hnsw ((" + quantizedColumn(kb) + ") bit_hamming_ops)";
+            case NONE -> throw new IllegalStateException();
+        };
+
+        try (Connection conn = jdbcSupport.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+        indexedTables.add(key);
+        log.info("量化向量索引已就绪: table={}, quantization={}", table, quantization);
+    }
+
+    /**
+     * 在量化索引上检索，按需用全精度向量重排
+     */
+    public EmbeddingSearchResult<TextSegment> search(KnowledgeBase kb, EmbeddingSearchRequest request) throws SQLException {
+        ensureIndex(kb);
+
+        String table = jdbcSupport.checkTableName(kb.getIndexName());
+        int rescoreMultiplier = kb.getRescoreMultiplier() != null ? kb.getRescoreMultiplier() : 0;
+        int maxResults = request.maxResults();
+        boolean rescore = rescoreMultiplier > 0;
+        int candidates = rescore ? maxResults * rescoreMultiplier : maxResults;
+
+        String orderBy = quantizedColumn(kb) + " " + distanceOperator(kb) + " " + quantizedQuery(kb);
+        PgVectorFilterSql filter = request.filter() != null ? PgVectorFilterSql.of(request.filter()) : null;
+        String where = filter != null ? " WHERE " + filter.sql() : "";
+        String sql;
+        if (rescore) {
+            sql = "SELECT embedding_id, text, metadata::text, (2 - (embedding <=> ?::vector)) / 2 AS score"
+                    + " FROM (SELECT embedding_id, text, metadata, embedding FROM " + table + where
+                    + " ORDER BY " + orderBy + " LIMIT ?) candidates"
+                    + " ORDER BY score DESC LIMIT ?";
+        } else {
+            sql = "SELECT embedding_id, text, metadata::text, " + quantizedScore(kb) + " AS score"
+                    + " FROM " + table + where + " ORDER BY " + orderBy + " LIMIT ?";
+        }
+
+        String vector = jdbcSupport.toVectorLiteral(request.queryEmbedding().vector());
+        List<EmbeddingMatch<TextSegment>> matches = new ArrayList<>();
+
+        try (Connection conn = jdbcSupport.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                // HNSW 默认 ef_search=40，候选数更大时需要同步调大，否则返回结果不足（上限 1000）
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SET LOCAL hnsw.ef_search = " + Math.min(MAX_EF_SEARCH, Math.max(40, candidates)));
+                }
+                if (filter != null) {
+                    enableIterativeScan(conn);
+                }
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    int i = 1;
+                    ps.setString(i++, vector);
+                    if (filter != null) {
+                        for (Object param : filter.params()) {
+                            ps.setObject(i++, param);
+                        }
+                    }
+                    ps.setString(i++, vector);
+                    if (rescore) {
+                        ps.setInt(i++, candidates);
+                    }
+                    ps.setInt(i, maxResults);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            double score = rs.getDouble(4);
+                            if (score < request.minScore()) {
+                                continue;
+                            }
+                            String text = rs.getString(2);
+                            TextSegment segment = text != null
+                                    ? TextSegment.from(text, jdbcSupport.parseMetadata(rs.getString(3)))
+                                    : null;
+                            matches.add(new EmbeddingMatch<>(score, rs.getString(1), null, segment));
+                        }
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+        // 迭代扫描（relaxed_order）返回的顺序可能略有偏差
+        matches.sort(Comparator.comparingDouble((EmbeddingMatch<TextSegment> match) -> match.score()).reversed());
+        return new EmbeddingSearchResult<>(matches);
+    }
+
+    /**
+     * HNSW 先取 ef_search 个近邻再应用 WHERE，过滤条件命中比例低时结果会不足；
+     * pgvector 0.8+ 开启迭代扫描后会继续扫描直到凑够结果，旧版本不支持该参数时忽略
+     */
+    private void enableIterativeScan(Connection conn) throws SQLException {
+        Savepoint savepoint = conn.setSavepoint();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET LOCAL hnsw.iterative_scan = relaxed_order");
+            conn.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            conn.rollback(savepoint);
+            log.debug("pgvector 不支持 hnsw.iterative_scan，过滤检索的结果可能不足: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 表结构变更（量化方式或维度变化）后需要重新确认索引
+     */
+    public void forget(KnowledgeBase kb) {
+        indexedTables.removeIf(key -> key.startsWith(kb.getIndexName() + ":"));
+    }
+
+    private int dimension(KnowledgeBase kb) {
+        return kb.getVectorDimension() != null ? kb.getVectorDimension() : 1536;
+    }
+
+    // 需与索引表达式完全一致，查询才能命中索引
+    private String quantizedColumn(KnowledgeBase kb) {
+        return switch (kb.getVectorQuantization()) {
+            case INT8 -> "embedding::halfvec(" + dimension(kb) + ")";
+            case BINARY -> "binary_quantize(embedding)::bit(" + dimension(kb) + ")";
+            case NONE -> "embedding";
+        };
+    }
+
+    private String quantizedQuery(KnowledgeBase kb) {
+        return switch (kb.getVectorQuantization()) {
+            case INT8 -> "?::halfvec(" + dimension(kb) + ")";
+            case BINARY -> "binary_quantize(?::vector)";
+            case NONE -> "?::vector";
+        };
+    }
+
+    private String distanceOperator(KnowledgeBase kb) {
+        return kb.getVectorQuantization() == VectorQuantization.BINARY ? "<~>" : "<=>";
+    }
+
+    // 不重排时直接用量化距离换算分数，与 PgVectorEmbeddingStore 的 (1 + cosine) / 2 对齐
+    private String quantizedScore(KnowledgeBase kb) {
+        if (kb.getVectorQuantization() == VectorQuantization.BINARY) {
+            return "1 - (" + quantizedColumn(kb) + " <~> " + quantizedQuery(kb) + ") / " + dimension(kb);
+        }
+        return "(2 - (" + quantizedColumn(kb) + " <=> " + quantizedQuery(kb) + ")) / 2";
+    }
+}
@@ -6,6 +6,9 @@ import com.example.aikef.model.LlmModel;
 import com.example.aikef.repository.KnowledgeBaseRepository;
 import com.example.aikef.repository.KnowledgeDocumentRepository;
 import com.example.aikef.llm.LlmModelService;
+import com.example.aikef.saas.context.TenantContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.DocumentSplitter;
 import dev.langchain4j.data.document.Metadata;
@@ -29,6 +32,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -43,21 +47,12 @@ public class VectorStoreService {
     private final KnowledgeBaseRepository knowledgeBaseRepository;
     private final KnowledgeDocumentRepository documentRepository;
     private final LlmModelService llmModelService;
-
-    @Value("${knowledge.pgvector.host:localhost}")
-    private String pgHost;
-
-    @Value("${knowledge.pgvector.port:5432}")
-    private int pgPort;
-
-    @Value("${knowledge.pgvector.database:aikef_vector}")
-    private String pgDatabase;
-
-    @Value("${knowledge.pgvector.user:postgres}")
-    private String pgUser;
-
-    @Value("${knowledge.pgvector.password:}")
-    private String pgPassword;
+    private final LocalVectorIndexService localVectorIndexService;
+    private final QuantizedPgVectorSearch quantizedPgVectorSearch;
+    private final PgVectorJdbcSupport jdbcSupport;
+    private final EmbeddingBatcher embeddingBatcher;
+    private final PgVectorMetadataIndexes metadataIndexes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Value("${knowledge.embedding.default-model:text-embedding-3-small}")
     private String defaultEmbeddingModel;
@@ -65,24 +60,41 @@ public class VectorStoreService {
     @Value("${knowledge.embedding.default-dimension:1536}")
     private int defaultDimension;
 
+    // 检索时自动附加当前租户条件，默认关闭；旧向量没有 tenantId 元数据，
+    // 开启前需先执行 db/backfill_pgvector_tenant_metadata.sql 回填
+    @Value("${knowledge.search.tenant-filter:false}")
+    private boolean tenantFilterEnabled;
+
     // 缓存 EmbeddingStore 实例（按知识库表名）
     private final Map<String, PgVectorEmbeddingStore> storeCache = new ConcurrentHashMap<>();
     
     // 缓存 EmbeddingModel 实例
     private final Map<UUID, EmbeddingModel> embeddingModelCache = new ConcurrentHashMap<>();
 
+    private static final UUID DEFAULT_EMBEDDING_MODEL_KEY = UUID.fromString("00000000-0000-0000-0000-000000000000");
+
     public VectorStoreService(
             KnowledgeBaseRepository knowledgeBaseRepository,
             KnowledgeDocumentRepository documentRepository,
-            LlmModelService llmModelService) {
+            LlmModelService llmModelService,
+            LocalVectorIndexService localVectorIndexService,
+            QuantizedPgVectorSearch quantizedPgVectorSearch,
+            PgVectorJdbcSupport jdbcSupport,
+            EmbeddingBatcher embeddingBatcher,
+            PgVectorMetadataIndexes metadataIndexes) {
         this.knowledgeBaseRepository = knowledgeBaseRepository;
         this.documentRepository = documentRepository;
         this.llmModelService = llmModelService;
+        this.localVectorIndexService = localVectorIndexService;
+        this.quantizedPgVectorSearch = quantizedPgVectorSearch;
+        this.jdbcSupport = jdbcSupport;
+        this.embeddingBatcher = embeddingBatcher;
+        this.metadataIndexes = metadataIndexes;
     }
 
     /**
      * 获取或创建 PGVector 向量存储
-     * 每个知识库使用独立的表
+     * 每个知识库使用独立的表，所有表共用 PGVector 连接池
      */
     public PgVectorEmbeddingStore getOrCreateStore(KnowledgeBase kb) {
         String tableName = kb.getIndexName();
@@ -90,17 +102,15 @@ public class VectorStoreService {
         return storeCache.computeIfAbsent(tableName, name -> {
             log.info("创建 PGVector 向量存储: table={}, dimension={}", name, kb.getVectorDimension());
             
-            return PgVectorEmbeddingStore.builder()
-                    .host(pgHost)
-                    .port(pgPort)
-                    .database(pgDatabase)
-                    .user(pgUser)
-                    .password(pgPassword)
+            PgVectorEmbeddingStore store = PgVectorEmbeddingStore.datasourceBuilder()
+                    .datasource(jdbcSupport.getDataSource())
                     .table(name)
                     .dimension(kb.getVectorDimension())
                     .createTable(true)  // 自动创建表
                     .dropTableFirst(false)  // 不删除已有表
                     .build();
+            ensureMetadataIndexes(name);
+            return store;
         });
     }
 
@@ -113,7 +123,7 @@ public class VectorStoreService {
         if (modelId == null) {
             // 使用默认 OpenAI 嵌入模型
             return embeddingModelCache.computeIfAbsent(
-                    UUID.fromString("00000000-0000-0000-0000-000000000000"),
+                    DEFAULT_EMBEDDING_MODEL_KEY,
                     id -> createDefaultEmbeddingModel());
         }
         
@@ -183,13 +193,23 @@ public class VectorStoreService {
                 log.warn("清理旧向量时出现异常，继续处理: documentId={}, error={}", documentId, e.getMessage());
             }
             
-            // 创建文档，添加元数据
-            Document document = Document.from(doc.getContent(), Metadata.from(Map.of(
-                    "documentId", doc.getId().toString(),
-                    "knowledgeBaseId", kb.getId().toString(),
-                    "title", doc.getTitle(),
-                    "docType", doc.getDocType().name()
-            )));
+            // 创建文档，添加元数据（租户、类型、标签、更新时间用于检索预过滤）
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put(KnowledgeSearchFilter.KEY_DOCUMENT_ID, doc.getId().toString());
+            metadata.put(KnowledgeSearchFilter.KEY_KNOWLEDGE_BASE_ID, kb.getId().toString());
+            metadata.put(KnowledgeSearchFilter.KEY_TITLE, doc.getTitle());
+            metadata.put(KnowledgeSearchFilter.KEY_DOC_TYPE, doc.getDocType().name());
+            metadata.put(KnowledgeSearchFilter.KEY_UPDATED_AT,
+                    (doc.getUpdatedAt() != null ? doc.getUpdatedAt() : Instant.now()).toEpochMilli());
+            String tenantId = TenantContext.getTenantId();
+            if (tenantId != null && !tenantId.isBlank()) {
+                metadata.put(KnowledgeSearchFilter.KEY_TENANT_ID, tenantId);
+            }
+            String tags = KnowledgeSearchFilter.joinTags(parseTags(doc.getMetadataJson()));
+            if (tags != null) {
+                metadata.put(KnowledgeSearchFilter.KEY_TAGS, tags);
+            }
+            Document document = Document.from(doc.getContent(), Metadata.from(metadata));
             
             // 分块
             DocumentSplitter splitter = DocumentSplitters.recursive(
@@ -203,6 +223,8 @@ public class VectorStoreService {
             // 向量化并存储
             List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
             store.addAll(embeddings, segments);
+            localVectorIndexService.invalidate(kb.getId());
+            ensureQuantizedIndex(kb);
             
             log.info("向量存储完成: documentId={}, vectorCount={}", documentId, segments.size());
 
@@ -229,45 +251,57 @@ public class VectorStoreService {
      * 从知识库搜索相关内容
      */
     public List<SearchResult> search(UUID knowledgeBaseId, String query, int maxResults, double minScore) {
+        return search(knowledgeBaseId, query, maxResults, minScore, KnowledgeSearchFilter.empty());
+    }
+
+    /**
+     * 从知识库搜索相关内容（带元数据过滤）
+     */
+    public List<SearchResult> search(UUID knowledgeBaseId, String query, int maxResults, double minScore,
+                                     KnowledgeSearchFilter filter) {
         KnowledgeBase kb = knowledgeBaseRepository.findById(knowledgeBaseId)
                 .orElseThrow(() -> new IllegalArgumentException("知识库不存在: " + knowledgeBaseId));
         
-        return search(kb, query, maxResults, minScore);
+        return search(kb, query, maxResults, minScore, filter);
     }
 
     /**
      * 从知识库搜索相关内容
      */
     public List<SearchResult> search(KnowledgeBase kb, String query, int maxResults, double minScore) {
+        return search(kb, query, maxResults, minScore, KnowledgeSearchFilter.empty());
+    }
+
+    /**
+     * 从知识库搜索相关内容，过滤条件下推到 PGVector 查询
+     */
+    public List<SearchResult> search(KnowledgeBase kb, String query, int maxResults, double minScore,
+                                     KnowledgeSearchFilter filter) {
+        return searchWithFilter(kb, query, maxResults, minScore, withTenant(filter).toFilter());
+    }
+
+    /**
+     * 带过滤条件的搜索
+     */
+    public List<SearchResult> searchWithFilter(KnowledgeBase kb, String query, int maxResults, double minScore, Filter filter) {
         try {
-            PgVectorEmbeddingStore store = getOrCreateStore(kb);
-            EmbeddingModel embeddingModel = getEmbeddingModel(kb);
-            
-            // 将查询文本向量化
-            Embedding queryEmbedding = embeddingModel.embed(query).content();
+            // 将查询文本向量化（与同一模型的并发查询合并请求）
+            Embedding queryEmbedding = embedQuery(kb, query);
             
             // 搜索相似向量
             EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
                     .queryEmbedding(queryEmbedding)
                     .maxResults(maxResults)
                     .minScore(minScore)
+                    .filter(filter)  // 元数据过滤
                     .build();
             
-            EmbeddingSearchResult<TextSegment> searchResult = store.search(request);
+            // 小型知识库优先使用内存索引，未就绪时回退 PGVector
+            EmbeddingSearchResult<TextSegment> searchResult = localVectorIndexService.search(kb, request)
+                    .orElseGet(() -> searchStore(kb, request));
             
             // 转换结果
-            List<SearchResult> results = new ArrayList<>();
-            for (EmbeddingMatch<TextSegment> match : searchResult.matches()) {
-                TextSegment segment = match.embedded();
-                if (segment != null) {
-                    SearchResult result = new SearchResult();
-                    result.setContent(segment.text());
-                    result.setScore(match.score());
-                    result.setDocumentId(getMetadataValue(segment, "documentId"));
-                    result.setTitle(getMetadataValue(segment, "title"));
-                    results.add(result);
-                }
-            }
+            List<SearchResult> results = toSearchResults(searchResult);
             
             log.info("向量搜索完成: knowledgeBaseId={}, query={}, resultCount={}", 
                     kb.getId(), query.substring(0, Math.min(50, query.length())), results.size());
@@ -280,43 +314,87 @@ public class VectorStoreService {
         }
     }
 
+    private KnowledgeSearchFilter withTenant(KnowledgeSearchFilter filter) {
+        KnowledgeSearchFilter result = filter != null ? filter : KnowledgeSearchFilter.empty();
+        if (tenantFilterEnabled && result.tenantId() == null) {
+            String tenantId = TenantContext.getTenantId();
+            if (tenantId != null && !tenantId.isBlank()) {
+                return result.withTenantId(tenantId);
+            }
+        }
+        return result;
+    }
+
+    private void ensureMetadataIndexes(String tableName) {
+        try {
+            metadataIndexes.ensureIndexes(tableName);
+        } catch (Exception e) {
+            log.warn("创建向量元数据索引失败: table={}, error={}", tableName, e.getMessage());
+        }
+    }
+
     /**
-     * 带过滤条件的搜索
+     * 从文档自定义元数据中读取标签：{"tags": ["a", "b"]} 或 {"tags": "a,b"}
      */
-    public List<SearchResult> searchWithFilter(KnowledgeBase kb, String query, int maxResults, double minScore, Filter filter) {
+    private List<String> parseTags(String metadataJson) {
+        if (metadataJson == null || metadataJson.isBlank()) {
+            return List.of();
+        }
         try {
-            PgVectorEmbeddingStore store = getOrCreateStore(kb);
-            EmbeddingModel embeddingModel = getEmbeddingModel(kb);
-            
-            Embedding queryEmbedding = embeddingModel.embed(query).content();
-            
-            EmbeddingSearchRequest request = EmbeddingSearchRequest.builder()
-                    .queryEmbedding(queryEmbedding)
-                    .maxResults(maxResults)
-                    .minScore(minScore)
-                    .filter(filter)  // 元数据过滤
-                    .build();
-            
-            EmbeddingSearchResult<TextSegment> searchResult = store.search(request);
-            
-            List<SearchResult> results = new ArrayList<>();
-            for (EmbeddingMatch<TextSegment> match : searchResult.matches()) {
-                TextSegment segment = match.embedded();
-                if (segment != null) {
-                    SearchResult result = new SearchResult();
-                    result.setContent(segment.text());
-                    result.setScore(match.score());
-                    result.setDocumentId(getMetadataValue(segment, "documentId"));
-                    result.setTitle(getMetadataValue(segment, "title"));
-                    results.add(result);
-                }
+            JsonNode tags = objectMapper.readTree(metadataJson).get(KnowledgeSearchFilter.KEY_TAGS);
+            if (tags == null) {
+                return List.of();
             }
-            
-            return results;
-            
+            if (tags.isArray()) {
+                List<String> result = new ArrayList<>();
+                tags.forEach(tag -> result.add(tag.asText()));
+                return result;
+            }
+            return Arrays.asList(tags.asText().split(","));
         } catch (Exception e) {
-            log.error("向量搜索失败: knowledgeBaseId={}", kb.getId(), e);
-            return Collections.emptyList();
+            log.debug("解析文档元数据标签失败: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 查询文本向量化，同一嵌入模型的并发查询合并为一次批量请求
+     */
+    private Embedding embedQuery(KnowledgeBase kb, String query) {
+        UUID modelKey = kb.getEmbeddingModelId() != null ? kb.getEmbeddingModelId() : DEFAULT_EMBEDDING_MODEL_KEY;
+        return embeddingBatcher.embed(modelKey, getEmbeddingModel(kb), query);
+    }
+
+    /**
+     * 在 PGVector 中搜索，配置了量化的知识库走量化索引
+     */
+    private EmbeddingSearchResult<TextSegment> searchStore(KnowledgeBase kb, EmbeddingSearchRequest request) {
+        if (quantizedPgVectorSearch.supports(kb, request)) {
+            try {
+                return quantizedPgVectorSearch.search(kb, request);
+            } catch (Exception e) {
+                log.warn("量化向量检索失败，回退全精度检索: knowledgeBaseId={}, error={}", kb.getId(), e.getMessage());
+            }
+        }
+        return getOrCreateStore(kb).search(request);
+    }
+
+    /**
+     * 知识库量化配置变更：确保向量表和量化索引存在，并丢弃旧的内存索引
+     */
+    public void applyQuantization(KnowledgeBase kb) {
+        quantizedPgVectorSearch.forget(kb);
+        localVectorIndexService.invalidate(kb.getId());
+        getOrCreateStore(kb);
+        ensureQuantizedIndex(kb);
+    }
+
+    private void ensureQuantizedIndex(KnowledgeBase kb) {
+        try {
+            quantizedPgVectorSearch.ensureIndex(kb);
+        } catch (Exception e) {
+            log.warn("创建量化向量索引失败: knowledgeBaseId={}, quantization={}, error={}",
+                    kb.getId(), kb.getVectorQuantization(), e.getMessage());
         }
     }
 
@@ -324,11 +402,19 @@ public class VectorStoreService {
      * 从多个知识库搜索
      */
     public List<SearchResult> searchMultiple(List<UUID> knowledgeBaseIds, String query, int maxResults, double minScore) {
+        return searchMultiple(knowledgeBaseIds, query, maxResults, minScore, KnowledgeSearchFilter.empty());
+    }
+
+    /**
+     * 从多个知识库搜索（带元数据过滤）
+     */
+    public List<SearchResult> searchMultiple(List<UUID> knowledgeBaseIds, String query, int maxResults, double minScore,
+                                             KnowledgeSearchFilter filter) {
         List<SearchResult> allResults = new ArrayList<>();
         
         for (UUID kbId : knowledgeBaseIds) {
             try {
-                List<SearchResult> results = search(kbId, query, maxResults, minScore);
+                List<SearchResult> results = search(kbId, query, maxResults, minScore, filter);
                 allResults.addAll(results);
             } catch (Exception e) {
                 log.warn("搜索知识库失败: kbId={}", kbId, e);
@@ -357,6 +443,7 @@ public class VectorStoreService {
                     .isEqualTo(doc.getId().toString());
             
             store.removeAll(filter);
+            localVectorIndexService.invalidate(kb.getId());
             
             log.info("删除文档向量完成: documentId={}", doc.getId());
             
@@ -381,6 +468,7 @@ public class VectorStoreService {
             
             // 从缓存移除
             storeCache.remove(kb.getIndexName());
+            localVectorIndexService.invalidate(kb.getId());
             
             log.info("删除知识库所有向量完成: knowledgeBaseId={}", kb.getId());
             
@@ -436,15 +524,54 @@ public class VectorStoreService {
         });
     }
 
+    /**
+     * 移除单个知识库的缓存（向量存储、内存索引、量化索引状态）
+     * 知识库配置变更或删除时使用，不影响其他知识库
+     */
+    public void evictStore(KnowledgeBase kb) {
+        storeCache.remove(kb.getIndexName());
+        localVectorIndexService.invalidate(kb.getId());
+        quantizedPgVectorSearch.forget(kb);
+        metadataIndexes.forget(kb.getIndexName());
+        log.info("知识库向量缓存已移除: knowledgeBaseId={}", kb.getId());
+    }
+
+    /**
+     * PGVector 连接池状态
+     */
+    public Map<String, Object> getPoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(jdbcSupport.getPoolStats());
+        stats.put("cachedStores", storeCache.size());
+        stats.put("cachedEmbeddingModels", embeddingModelCache.size());
+        return stats;
+    }
+
     /**
      * 清除缓存
      */
     public void clearCache() {
         storeCache.clear();
         embeddingModelCache.clear();
+        localVectorIndexService.invalidateAll();
         log.info("向量存储缓存已清除");
     }
 
+    private List<SearchResult> toSearchResults(EmbeddingSearchResult<TextSegment> searchResult) {
+        List<SearchResult> results = new ArrayList<>();
+        for (EmbeddingMatch<TextSegment> match : searchResult.matches()) {
+            TextSegment segment = match.embedded();
+            if (segment != null) {
+                SearchResult result = new SearchResult();
+                result.setContent(segment.text());
+                result.setScore(match.score());
+                result.setDocumentId(getMetadataValue(segment, "documentId"));
+                result.setTitle(getMetadataValue(segment, "title"));
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
     private String getMetadataValue(TextSegment segment, String key) {
         if (segment.metadata() != null) {
             return segment.metadata().getString(key);
@@ -5,6 +5,7 @@ import com.example.aikef.dto.request.SaveLlmModelRequest;
 import com.example.aikef.model.LlmModel;
 import com.example.aikef.model.enums.LlmProvider;
 import com.example.aikef.repository.LlmModelRepository;
+import com.example.aikef.service.ConfigEntityCache;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,9 +26,11 @@ public class LlmModelService {
     private static final Logger log = LoggerFactory.getLogger(LlmModelService.class);
 
     private final LlmModelRepository llmModelRepository;
+    private final ConfigEntityCache configEntityCache;
 
-    public LlmModelService(LlmModelRepository llmModelRepository) {
+    public LlmModelService(LlmModelRepository llmModelRepository, ConfigEntityCache configEntityCache) {
         this.llmModelRepository = llmModelRepository;
+        this.configEntityCache = configEntityCache;
     }
 
     // ==================== CRUD 操作 ====================
@@ -45,6 +48,7 @@ public class LlmModelService {
         LlmModel model = new LlmModel();
         updateModelFromRequest(model, request);
         
+        configEntityCache.invalidate(ConfigEntityCache.LLM_MODEL);
         return llmModelRepository.save(model);
     }
 
@@ -64,6 +68,7 @@ public class LlmModelService {
                 });
 
         updateModelFromRequest(model, request);
+        configEntityCache.invalidate(ConfigEntityCache.LLM_MODEL);
         return llmModelRepository.save(model);
     }
 
@@ -76,21 +81,22 @@ public class LlmModelService {
             throw new EntityNotFoundException("模型不存在");
         }
         llmModelRepository.deleteById(modelId);
+        configEntityCache.invalidate(ConfigEntityCache.LLM_MODEL);
     }
 
     /**
-     * 获取模型详情
+     * 获取模型详情（缓存，只读）
      */
     public LlmModel getModel(UUID modelId) {
-        return llmModelRepository.findById(modelId)
+        return configEntityCache.get(ConfigEntityCache.LLM_MODEL, modelId, () -> llmModelRepository.findById(modelId))
                 .orElseThrow(() -> new EntityNotFoundException("模型不存在"));
     }
 
     /**
-     * 根据编码获取模型
+     * 根据编码获取模型（缓存，只读）
      */
     public LlmModel getModelByCode(String code) {
-        return llmModelRepository.findByCode(code)
+        return configEntityCache.get(ConfigEntityCache.LLM_MODEL, "code:" + code, () -> llmModelRepository.findByCode(code))
                 .orElseThrow(() -> new EntityNotFoundException("模型不存在: " + code));
     }
 
@@ -116,10 +122,19 @@ public class LlmModelService {
     }
 
     /**
-     * 获取默认模型
+     * 获取默认模型（缓存，只读）
      */
     public Optional<LlmModel> getDefaultModel() {
-        return llmModelRepository.findByIsDefaultTrueAndEnabledTrue();
+        return configEntityCache.get(ConfigEntityCache.LLM_MODEL, "default",
+                llmModelRepository::findByIsDefaultTrueAndEnabledTrue);
+    }
+
+    /**
+     * 获取状态解释专用的小模型（缓存，只读）
+     */
+    public Optional<LlmModel> getStatusExplanationModel() {
+        return configEntityCache.get(ConfigEntityCache.LLM_MODEL, "status-explanation",
+                llmModelRepository::findFirstByStatusExplanationTrueAndEnabledTrueOrderBySortOrderAsc);
     }
 
     /**
@@ -127,8 +142,9 @@ public class LlmModelService {
      */
     @Transactional
     public LlmModel toggleModel(UUID modelId, boolean enabled) {
-        LlmModel model = getModel(modelId);
+        LlmModel model = findModelForUpdate(modelId);
         model.setEnabled(enabled);
+        configEntityCache.invalidate(ConfigEntityCache.LLM_MODEL);
         return llmModelRepository.save(model);
     }
 
@@ -138,7 +154,7 @@ public class LlmModelService {
      */
     @Transactional
     public LlmModel setDefaultModel(UUID modelId) {
-        LlmModel model = getModel(modelId);
+        LlmModel model = findModelForUpdate(modelId);
         
         // 检查模型类型，EMBEDDING 类型不能设为默认模型
         if (model.getModelType() == LlmModel.ModelType.EMBEDDING) {
@@ -154,6 +170,7 @@ public class LlmModelService {
 
         model.setIsDefault(true);
         model.setEnabled(true);
+        configEntityCache.invalidate(ConfigEntityCache.LLM_MODEL);
         return llmModelRepository.save(model);
     }
 
@@ -177,6 +194,14 @@ public class LlmModelService {
 
     // ==================== 辅助方法 ====================
 
+    /**
+     * 写操作绕过缓存，加载当前事务中的受管实体
+     */
+    private LlmModel findModelForUpdate(UUID modelId) {
+        return llmModelRepository.findById(modelId)
+                .orElseThrow(() -> new EntityNotFoundException("模型不存在"));
+    }
+
     private void updateModelFromRequest(LlmModel model, SaveLlmModelRequest request) {
         model.setName(request.name());
         model.setCode(request.code());
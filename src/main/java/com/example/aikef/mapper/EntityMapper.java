@@ -19,20 +19,17 @@ public class EntityMapper {
     private static final Logger log = LoggerFactory.getLogger(EntityMapper.class);
 
     private final SessionGroupMappingRepository sessionGroupMappingRepository;
-    private final com.example.aikef.repository.MessageRepository messageRepository;
     private final AgentRepository agentRepository;
     private final ObjectMapper objectMapper;
     private final com.example.aikef.repository.SpecialCustomerRepository specialCustomerRepository;
     private final com.example.aikef.repository.WorkflowExecutionLogRepository workflowExecutionLogRepository;
 
     public EntityMapper(SessionGroupMappingRepository sessionGroupMappingRepository,
-                        com.example.aikef.repository.MessageRepository messageRepository,
                         AgentRepository agentRepository,
                         ObjectMapper objectMapper,
                         com.example.aikef.repository.SpecialCustomerRepository specialCustomerRepository,
                         com.example.aikef.repository.WorkflowExecutionLogRepository workflowExecutionLogRepository) {
         this.sessionGroupMappingRepository = sessionGroupMappingRepository;
-        this.messageRepository = messageRepository;
         this.agentRepository = agentRepository;
         this.objectMapper = objectMapper;
         this.specialCustomerRepository = specialCustomerRepository;
@@ -90,12 +87,11 @@ public class EntityMapper {
         long lastActive = session.getLastActiveAt() != null ?
                 session.getLastActiveAt().toEpochMilli() : 0;
 
-        // 查询最后一条消息
-        Message lastMessage = messageRepository.findFirstBySession_IdOrderByCreatedAtDesc(session.getId());
-        SessionMessageDto lastMessageDto = lastMessage != null ? toSessionMessageDto(lastMessage) : null;
+        // 最后一条消息取自会话上的快照，不查询 messages 表
+        SessionMessageDto lastMessageDto = toLastMessageDto(session);
 
         // 构建客服列表
-        List<SessionAgentDto> agents = buildSessionAgents(session);
+        List<SessionAgentDto> agents = buildSessionAgents(session, agentRepository::findByIdWithRole);
 
         // 获取主要客服ID
         UUID primaryAgentId = session.getPrimaryAgent() != null ? session.getPrimaryAgent().getId() : null;
@@ -131,32 +127,51 @@ public class EntityMapper {
             return null;
         }
         
+        // 只查询该客服的分组映射
+        UUID sessionGroupId = sessionGroupMappingRepository
+                .findBySessionIdAndAgentId(session.getId(), agentId)
+                .map(mapping -> mapping.getSessionGroup().getId())
+                .orElse(null);
+        
         // 转换客户信息，从session.user获取notes和tags
         CustomerDto customerDto = null;
         if (session.getCustomer() != null) {
             customerDto = toCustomerDtoFromSession(session);
         }
         
+        return buildChatSessionDto(session, customerDto, sessionGroupId, 0,
+                buildSessionAgents(session, agentRepository::findByIdWithRole));
+    }
+
+    /**
+     * 转换为ChatSessionDto（批量场景：分组、客服、客户特殊角色均由调用方预先批量查出，不再逐个会话查询）
+     *
+     * @param session         会话实体
+     * @param sessionGroupId  该客服下的分组ID
+     * @param unreadCount     未读数
+     * @param agentsById      会话涉及的客服（已加载角色）
+     * @param specialCustomer 客户的特殊角色，可为null
+     * @return 会话DTO
+     */
+    public ChatSessionDto toChatSessionDtoForAgent(ChatSession session, UUID sessionGroupId, int unreadCount,
+                                                   Map<UUID, Agent> agentsById, SpecialCustomer specialCustomer) {
+        if (session == null) {
+            return null;
+        }
+        CustomerDto customerDto = session.getCustomer() != null
+                ? toCustomerDtoFromSession(session.getCustomer(), specialCustomer)
+                : null;
+        return buildChatSessionDto(session, customerDto, sessionGroupId, unreadCount,
+                buildSessionAgents(session, id -> Optional.ofNullable(agentsById.get(id))));
+    }
+
+    private ChatSessionDto buildChatSessionDto(ChatSession session, CustomerDto customerDto, UUID sessionGroupId,
+                                               int unreadCount, List<SessionAgentDto> agents) {
         // 计算最后活跃时间戳（毫秒）
         long lastActive = session.getLastActiveAt() != null ? 
             session.getLastActiveAt().toEpochMilli() : 0;
         
-        // 只查询该客服的分组映射
-        UUID sessionGroupId = null;
-        SessionGroupMapping mapping = sessionGroupMappingRepository
-                .findBySessionIdAndAgentId(session.getId(), agentId)
-                .orElse(null);
-        
-        if (mapping != null) {
-            sessionGroupId = mapping.getSessionGroup().getId();
-        }
-        
-        // 查询最后一条消息
-        Message lastMessage = messageRepository.findFirstBySession_IdOrderByCreatedAtDesc(session.getId());
-        SessionMessageDto lastMessageDto = lastMessage != null ? toSessionMessageDto(lastMessage) : null;
-        
-        // 构建客服列表（主要客服 + 支持客服）
-        List<SessionAgentDto> agents = buildSessionAgents(session);
+        SessionMessageDto lastMessageDto = toLastMessageDto(session);
         
         // 获取主要客服ID
         UUID primaryAgentId = session.getPrimaryAgent() != null ? session.getPrimaryAgent().getId() : null;
@@ -167,7 +182,7 @@ public class EntityMapper {
                 customerDto,
                 session.getStatus(),
                 lastActive,
-                0,
+                unreadCount,
                 sessionGroupId,
                 primaryAgentId,
                 agents,
@@ -198,13 +213,14 @@ public class EntityMapper {
     /**
      * 构建会话客服列表（主要客服在前，支持客服在后）
      */
-    private List<SessionAgentDto> buildSessionAgents(ChatSession session) {
+    private List<SessionAgentDto> buildSessionAgents(ChatSession session,
+                                                     java.util.function.Function<UUID, Optional<Agent>> agentLookup) {
         List<SessionAgentDto> agents = new ArrayList<>();
         UUID primaryAgentId = session.getPrimaryAgent() != null ? session.getPrimaryAgent().getId() : null;
         
         // 添加主要客服
         if (primaryAgentId != null) {
-            agentRepository.findByIdWithRole(primaryAgentId)
+            agentLookup.apply(primaryAgentId)
                     .map(agent -> SessionAgentDto.fromAgentDto(toAgentDto(agent), true))
                     .ifPresent(agents::add);
         }
@@ -212,7 +228,7 @@ public class EntityMapper {
         // 添加支持客服
         if (session.getSupportAgentIds() != null && !session.getSupportAgentIds().isEmpty()) {
             for (UUID supportAgentId : session.getSupportAgentIds()) {
-                agentRepository.findByIdWithRole(supportAgentId)
+                agentLookup.apply(supportAgentId)
                         .map(agent -> SessionAgentDto.fromAgentDto(toAgentDto(agent), false))
                         .ifPresent(agents::add);
             }
@@ -247,10 +263,14 @@ public class EntityMapper {
             return null;
         }
         
+        // 查找特殊角色
+        return toCustomerDtoFromSession(customer,
+                specialCustomerRepository.findByCustomer_Id(customer.getId()).orElse(null));
+    }
+
+    private CustomerDto toCustomerDtoFromSession(Customer customer, SpecialCustomer specialCustomer) {
         String notes = customer.getNotes();
         
-        // 查找特殊角色
-        SpecialCustomer specialCustomer = specialCustomerRepository.findByCustomer_Id(customer.getId()).orElse(null);
         String roleCode = null;
         String roleName = null;
         if (specialCustomer != null) {
@@ -396,29 +416,23 @@ public class EntityMapper {
         );
     }
     
-    private SessionMessageDto toSessionMessageDto(Message message) {
-        if (message == null) {
+    /**
+     * 由会话上的最后消息快照构建预览（快照不含附件和@列表，纯附件消息的文本为占位文本，见 ChatSession.previewOf）
+     */
+    private SessionMessageDto toLastMessageDto(ChatSession session) {
+        if (session.getLastMessageId() == null) {
             return null;
         }
-        List<AttachmentDto> attachments = message.getAttachments() != null
-                ? message.getAttachments().stream()
-                    .map(this::toAttachmentDto)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList())
-                : List.of();
-        List<String> mentions = message.getMentionAgentIds() != null
-                ? List.copyOf(message.getMentionAgentIds())
-                : List.of();
-        long timestamp = message.getCreatedAt() != null ? message.getCreatedAt().toEpochMilli() : 0L;
-        String sender = message.getSenderType() != null ? message.getSenderType().name() : null;
+        long timestamp = session.getLastMessageAt() != null ? session.getLastMessageAt().toEpochMilli() : 0L;
+        String sender = session.getLastMessageSender() != null ? session.getLastMessageSender().name() : null;
         return new SessionMessageDto(
-                message.getId(),
-                message.getText(),
+                session.getLastMessageId(),
+                session.getLastMessagePreview(),
                 sender,
                 timestamp,
-                message.isInternal(),
-                attachments,
-                mentions
+                Boolean.TRUE.equals(session.getLastMessageInternal()),
+                List.of(),
+                List.of()
         );
     }
 
@@ -1,6 +1,7 @@
 package com.example.aikef.model;
 
 import com.example.aikef.model.base.AuditableEntity;
+import com.example.aikef.service.UnreadCounterEntityListener;
 import jakarta.persistence.*;
 
 import java.util.UUID;
@@ -11,6 +12,7 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "agent_mentions")
+@EntityListeners(UnreadCounterEntityListener.class)
 public class AgentMention extends AuditableEntity {
 
     /**
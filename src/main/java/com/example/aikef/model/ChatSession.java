@@ -1,31 +1,46 @@
 package com.example.aikef.model;
 
 import com.example.aikef.model.base.AuditableEntity;
+import com.example.aikef.model.enums.AttachmentType;
+import com.example.aikef.model.enums.SenderType;
 import com.example.aikef.model.enums.SessionStatus;
-import jakarta.persistence.CollectionTable;
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "chat_sessions")
 @Data
+@DynamicUpdate // 只更新变化的列，避免保存会话时用旧值覆盖 SessionActivityWriter 批量写入的活跃时间和最后消息快照
 public class ChatSession extends AuditableEntity {
 
+    /**
+     * 最后消息快照预览的最大长度
+     */
+    public static final int LAST_MESSAGE_PREVIEW_LENGTH = 255;
+
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
@@ -51,10 +66,21 @@ public class ChatSession extends AuditableEntity {
     @JoinColumn(name = "category_id")
     private SessionCategory category;
 
-    @ElementCollection
-    @CollectionTable(name = "chat_session_support_agents", joinColumns = @JoinColumn(name = "session_id"))
-    @Column(name = "agent_id")
-    private List<UUID> supportAgentIds = new ArrayList<>();
+    /**
+     * 支持客服（chat_session_participants 表）
+     * 多个会话一起访问时按 default_batch_fetch_size 批量加载；只需要 ID 做广播时用 SessionParticipantService 的缓存
+     */
+    @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("createdAt")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<SessionParticipant> participants = new LinkedHashSet<>();
+
+    /**
+     * 参与者版本号：支持客服变化时递增，参与者缓存按（会话ID, 版本号）取值，各实例无需互相通知失效
+     */
+    @Column(name = "participants_version", nullable = false)
+    private int participantsVersion;
 
     @Column(columnDefinition = "text")
     private String note;
@@ -75,6 +101,31 @@ public class ChatSession extends AuditableEntity {
     @JdbcTypeCode(SqlTypes.JSON)
     private String metadata;
 
+    /**
+     * 最后一条消息快照（写消息时由 SessionActivityWriter 与最后活跃时间一起写入，会话列表直接使用，不再查询 messages 表）
+     */
+    @Column(name = "last_message_id", columnDefinition = "CHAR(36)")
+    private UUID lastMessageId;
+
+    @Column(name = "last_message_preview", length = LAST_MESSAGE_PREVIEW_LENGTH)
+    private String lastMessagePreview;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "last_message_sender", length = 20)
+    private SenderType lastMessageSender;
+
+    @Column(name = "last_message_at", columnDefinition = "DATETIME(6)")
+    private Instant lastMessageAt;
+
+    @Column(name = "last_message_internal")
+    private Boolean lastMessageInternal;
+
+    /**
+     * 历史消息归档时间（为空表示消息全部在 messages 表；非空时更早的消息在 messages_archive 表）
+     */
+    @Column(name = "messages_archived_at")
+    private Instant messagesArchivedAt;
+
 
     public SessionStatus getStatus() {
         return status;
@@ -101,12 +152,36 @@ public class ChatSession extends AuditableEntity {
         this.primaryAgent = primaryAgent;
     }
 
+    /**
+     * 支持客服ID（返回副本，修改后需通过 {@link #setSupportAgentIds(List)} 写回）
+     */
     public List<UUID> getSupportAgentIds() {
-        return supportAgentIds;
+        List<UUID> agentIds = new ArrayList<>(participants.size());
+        for (SessionParticipant participant : participants) {
+            agentIds.add(participant.getAgentId());
+        }
+        return agentIds;
     }
 
+    /**
+     * 按差异同步支持客服：只删除移出的、只新增加入的，未变化的参与者行保持不动
+     */
     public void setSupportAgentIds(List<UUID> supportAgentIds) {
-        this.supportAgentIds = supportAgentIds;
+        Set<UUID> target = supportAgentIds != null ? new LinkedHashSet<>(supportAgentIds) : Set.of();
+        boolean changed = participants.removeIf(participant -> !target.contains(participant.getAgentId()));
+        Set<UUID> existing = new HashSet<>();
+        for (SessionParticipant participant : participants) {
+            existing.add(participant.getAgentId());
+        }
+        for (UUID agentId : target) {
+            if (existing.add(agentId)) {
+                participants.add(new SessionParticipant(this, agentId));
+                changed = true;
+            }
+        }
+        if (changed) {
+            participantsVersion++;
+        }
     }
 
     public Customer getCustomer() {
@@ -148,4 +223,29 @@ public class ChatSession extends AuditableEntity {
     public void setCustomerLanguage(String customerLanguage) {
         this.customerLanguage = customerLanguage;
     }
+
+    /**
+     * 截取消息预览文本
+     */
+    public static String previewOf(String text) {
+        if (text == null || text.length() <= LAST_MESSAGE_PREVIEW_LENGTH) {
+            return text;
+        }
+        return text.substring(0, LAST_MESSAGE_PREVIEW_LENGTH);
+    }
+
+    /**
+     * 消息预览：有文本时截取文本；只有附件时用占位文本，如 [图片]、[文件×2]
+     */
+    public static String previewOf(Message message) {
+        String text = message.getText();
+        List<Attachment> attachments = message.getAttachments();
+        if ((text != null && !text.isBlank()) || attachments == null || attachments.isEmpty()) {
+            return previewOf(text);
+        }
+        AttachmentType type = attachments.get(0).getType();
+        boolean sameType = attachments.stream().allMatch(a -> a.getType() == type);
+        String label = !sameType || type == null ? "附件" : type == AttachmentType.IMAGE ? "图片" : "文件";
+        return attachments.size() > 1 ? "[" + label + "×" + attachments.size() + "]" : "[" + label + "]";
+    }
 }
@@ -45,6 +45,22 @@ public class KnowledgeBase {
     @Column(name = "vector_dimension")
     private Integer vectorDimension = 1536;
 
+    /**
+     * 向量量化方式: NONE, INT8, BINARY
+     * 只影响检索索引：PGVector 向量表始终保留 float32 原始向量（用于重排），量化索引是额外建立的，
+     * 因此 PGVector 侧总存储会增加而不是减少（INT8 额外一个 halfvec 索引，BINARY 额外一个 bit 索引）；
+     * 小型知识库的内存索引才会按量化方式压缩向量
+     */
+    @Column(name = "vector_quantization", length = 20)
+    @Enumerated(EnumType.STRING)
+    private VectorQuantization vectorQuantization = VectorQuantization.NONE;
+
+    /**
+     * 量化检索的重排倍数：先按量化向量取 maxResults * N 个候选，再用更高精度向量重排；0 表示不重排
+     */
+    @Column(name = "rescore_multiplier")
+    private Integer rescoreMultiplier = 4;
+
     /**
      * 文档数量（缓存字段）
      */
@@ -75,6 +91,12 @@ public class KnowledgeBase {
             indexName = "kb_" + UUID.randomUUID().toString().replace("-", "");
         }
     }
+
+    public enum VectorQuantization {
+        NONE,     // float32 全精度
+        INT8,     // 8 位标量量化（内存索引为 int8；PGVector 没有 int8 类型，实际是 16 位 halfvec 表达式索引）
+        BINARY    // 1 位二值量化（汉明距离）
+    }
 }
 
 
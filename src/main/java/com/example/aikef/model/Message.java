@@ -2,6 +2,7 @@ package com.example.aikef.model;
 
 import com.example.aikef.model.base.AuditableEntity;
 import com.example.aikef.model.enums.SenderType;
+import com.example.aikef.service.UnreadCounterEntityListener;
 import jakarta.persistence.AttributeOverride;
 import jakarta.persistence.AttributeOverrides;
 import jakarta.persistence.CascadeType;
@@ -9,6 +10,7 @@ import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
@@ -25,6 +27,7 @@ import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "messages")
+@EntityListeners(UnreadCounterEntityListener.class)
 @AttributeOverrides({
     @AttributeOverride(name = "createdAt", column = @Column(name = "created_at", nullable = false, updatable = false, columnDefinition = "DATETIME(6)")),
     @AttributeOverride(name = "updatedAt", column = @Column(name = "updated_at", nullable = false, columnDefinition = "DATETIME(6)"))
@@ -1,6 +1,9 @@
 package com.example.aikef.model;
 
+import com.example.aikef.model.base.UuidV7;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import java.time.Instant;
 import java.util.UUID;
 
@@ -17,8 +20,11 @@ import java.util.UUID;
         })
 public class MessageDelivery {
 
+    // 每条消息按客服各写一行，主键使用按时间递增的 UUID 并以 BINARY(16) 存储，缩小主键及二级索引
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(nullable = false, updatable = false, columnDefinition = "BINARY(16)")
     private UUID id;
 
     /**
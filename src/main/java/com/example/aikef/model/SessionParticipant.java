@@ -0,0 +1,58 @@
+package com.example.aikef.model;
+
+import com.example.aikef.model.base.AuditableEntity;
+import jakarta.persistence.*;
+
+import java.util.UUID;
+
+/**
+ * 会话参与者（支持客服）
+ * 主责客服仍保存在 chat_sessions.primary_agent_id；
+ * (session_id, agent_id) 唯一，(agent_id, session_id) 索引用于按客服查询参与的会话
+ */
+@Entity
+@Table(name = "chat_session_participants",
+        uniqueConstraints = @UniqueConstraint(name = "uk_session_participants_session_agent",
+                columnNames = {"session_id", "agent_id"}),
+        indexes = @Index(name = "idx_session_participants_agent_session", columnList = "agent_id, session_id"))
+public class SessionParticipant extends AuditableEntity {
+
+    /**
+     * 所在的会话
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id", nullable = false)
+    private ChatSession session;
+
+    /**
+     * 参与的客服ID
+     */
+    @Column(name = "agent_id", nullable = false, columnDefinition = "CHAR(36)")
+    private UUID agentId;
+
+    public SessionParticipant() {
+    }
+
+    public SessionParticipant(ChatSession session, UUID agentId) {
+        this.session = session;
+        this.agentId = agentId;
+    }
+
+    // Getters and Setters
+
+    public ChatSession getSession() {
+        return session;
+    }
+
+    public void setSession(ChatSession session) {
+        this.session = session;
+    }
+
+    public UUID getAgentId() {
+        return agentId;
+    }
+
+    public void setAgentId(UUID agentId) {
+        this.agentId = agentId;
+    }
+}
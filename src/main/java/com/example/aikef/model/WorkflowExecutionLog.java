@@ -1,20 +1,26 @@
 package com.example.aikef.model;
 
+import com.example.aikef.model.base.UuidV7;
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
 import java.util.UUID;
 
 /**
  * 工作流执行日志
- * 记录每次工作流执行的详细信息
+ * 记录每次工作流执行的详细信息；节点执行详情、工具执行链见 {@link WorkflowExecutionLogDetail}
  */
 @Entity
 @Table(name = "workflow_execution_logs")
 public class WorkflowExecutionLog {
 
+    // 按时间递增的 UUID，以 16 字节二进制存储
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(nullable = false, updatable = false, columnDefinition = "BINARY(16)")
     private UUID id;
 
     /**
@@ -52,20 +58,6 @@ public class WorkflowExecutionLog {
     @Column(name = "final_output", columnDefinition = "TEXT")
     private String finalOutput;
 
-    /**
-     * 节点执行详情 (JSON)
-     * 记录每个节点的输入、输出、耗时等
-     */
-    @Column(name = "node_details", columnDefinition = "LONGTEXT")
-    private String nodeDetails;
-
-    /**
-     * 工具执行链 (JSON)
-     * 记录 Agent 和 LLM 节点的工具调用详情
-     */
-    @Column(name = "tool_execution_chain", columnDefinition = "LONGTEXT")
-    private String toolExecutionChain;
-
     /**
      * 错误信息
      */
@@ -159,22 +151,6 @@ public class WorkflowExecutionLog {
         this.finalOutput = finalOutput;
     }
 
-    public String getNodeDetails() {
-        return nodeDetails;
-    }
-
-    public void setNodeDetails(String nodeDetails) {
-        this.nodeDetails = nodeDetails;
-    }
-
-    public String getToolExecutionChain() {
-        return toolExecutionChain;
-    }
-
-    public void setToolExecutionChain(String toolExecutionChain) {
-        this.toolExecutionChain = toolExecutionChain;
-    }
-
     public String getErrorMessage() {
         return errorMessage;
     }
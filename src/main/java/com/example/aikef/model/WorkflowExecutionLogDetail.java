@@ -0,0 +1,170 @@
+package com.example.aikef.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 工作流执行详情
+ * 节点执行详情、工具执行链体积远大于日志本身，且只在查看单条消息的执行过程时读取，
+ * 从 workflow_execution_logs 拆出单独存放（主键即日志 ID），日志列表、执行摘要不再读到这些大字段，
+ * 也可以比日志本身更早清理。
+ * <p>
+ * 内容压缩后存储，格式与 MySQL {@code COMPRESS()} 相同（4 字节小端原文长度 + zlib 数据），
+ * 迁移脚本可直接用 {@code COMPRESS()} 转存旧数据，排查时可用 {@code UNCOMPRESS()} 查看
+ */
+@Entity
+@Table(name = "workflow_execution_log_details",
+        indexes = @Index(name = "idx_log_detail_created", columnList = "created_at"))
+public class WorkflowExecutionLogDetail {
+
+    @Id
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "log_id", nullable = false, updatable = false, columnDefinition = "BINARY(16)")
+    private UUID id;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "log_id")
+    private WorkflowExecutionLog log;
+
+    /**
+     * 节点执行详情 (JSON，压缩)
+     */
+    @Column(name = "node_details", columnDefinition = "LONGBLOB")
+    private byte[] nodeDetails;
+
+    /**
+     * 工具执行链 (JSON，压缩)
+     */
+    @Column(name = "tool_execution_chain", columnDefinition = "LONGBLOB")
+    private byte[] toolExecutionChain;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    public WorkflowExecutionLogDetail() {
+    }
+
+    public WorkflowExecutionLogDetail(WorkflowExecutionLog log, String nodeDetails, String toolExecutionChain) {
+        this.log = log;
+        setNodeDetails(nodeDetails);
+        setToolExecutionChain(toolExecutionChain);
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = Instant.now();
+    }
+
+    /**
+     * 是否有需要保存的内容
+     */
+    public boolean hasContent() {
+        return nodeDetails != null || toolExecutionChain != null;
+    }
+
+    // Getters and Setters
+
+    public UUID getId() {
+        return id;
+    }
+
+    public WorkflowExecutionLog getLog() {
+        return log;
+    }
+
+    public void setLog(WorkflowExecutionLog log) {
+        this.log = log;
+    }
+
+    public String getNodeDetails() {
+        return decompress(nodeDetails);
+    }
+
+    public void setNodeDetails(String nodeDetails) {
+        this.nodeDetails = compress(nodeDetails);
+    }
+
+    public String getToolExecutionChain() {
+        return decompress(toolExecutionChain);
+    }
+
+    public void setToolExecutionChain(String toolExecutionChain) {
+        this.toolExecutionChain = compress(toolExecutionChain);
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * 压缩后的字节数（nodeDetails + toolExecutionChain）
+     */
+    public int getStoredBytes() {
+        return (nodeDetails != null ? nodeDetails.length : 0)
+                + (toolExecutionChain != null ? toolExecutionChain.length : 0);
+    }
+
+    static byte[] compress(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        if (input.length == 0) {
+            return new byte[0];
+        }
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 4 + 16);
+            out.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(input.length).array());
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static String decompress(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length == 0) {
+            return "";
+        }
+        int length = ByteBuffer.wrap(data, 0, 4).order(ByteOrder.LITTLE_ENDIAN).getInt() & 0x3FFFFFFF;
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, 4, data.length - 4);
+            byte[] output = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(output, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            return new String(output, 0, read, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("工作流执行详情解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package com.example.aikef.model.base;
 
 import jakarta.persistence.Column;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.MappedSuperclass;
 import jakarta.persistence.PrePersist;
@@ -22,8 +20,9 @@ import org.hibernate.annotations.ParamDef;
 @Filter(name = "tenantFilter", condition = "tenant_id = :tenantId")
 public abstract class AuditableEntity {
 
+    // 按时间递增的 UUID，新记录追加在主键索引末尾
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7
     @Column(nullable = false, updatable = false, columnDefinition = "CHAR(36)")
     private UUID id;
 
@@ -0,0 +1,21 @@
+package com.example.aikef.model.base;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * 主键使用按时间递增的 UUID（v7），替代 {@code @GeneratedValue(strategy = GenerationType.UUID)}
+ *
+ * @see UuidV7Generator
+ */
+@IdGeneratorType(UuidV7Generator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface UuidV7 {
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -71,5 +72,16 @@ public interface AgentMentionRepository extends JpaRepository<AgentMention, UUID
      * 统计指定会话中客服的所有@数量（没有已读记录时使用）
      */
     long countByAgent_IdAndSession_Id(UUID agentId, UUID sessionId);
+
+    /**
+     * 批量统计客服在多个会话中的未读@数量：有已读记录时统计最后已读时间之后的@，否则统计全部
+     * 返回 [sessionId, count]，没有未读@的会话不返回
+     */
+    @Query("SELECT m.session.id, COUNT(m) FROM AgentMention m " +
+            "LEFT JOIN ReadRecord r ON r.session.id = m.session.id AND r.agent.id = :agentId " +
+            "WHERE m.agent.id = :agentId AND m.session.id IN :sessionIds " +
+            "AND (r.id IS NULL OR m.createdAt > r.lastReadTime) GROUP BY m.session.id")
+    List<Object[]> countUnreadBySessionIds(@Param("sessionIds") Collection<UUID> sessionIds,
+                                           @Param("agentId") UUID agentId);
 }
 
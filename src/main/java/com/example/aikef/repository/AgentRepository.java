@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -24,4 +25,10 @@ public interface AgentRepository extends JpaRepository<Agent, UUID>, JpaSpecific
      */
     @Query("SELECT a FROM Agent a LEFT JOIN FETCH a.role WHERE a.id = :id")
     Optional<Agent> findByIdWithRole(@Param("id") UUID id);
+
+    /**
+     * 根据ID批量查询Agent并预加载Role
+     */
+    @Query("SELECT a FROM Agent a LEFT JOIN FETCH a.role WHERE a.id IN :ids")
+    List<Agent> findAllByIdWithRole(@Param("ids") Collection<UUID> ids);
 }
@@ -2,9 +2,13 @@ package com.example.aikef.repository;
 
 import com.example.aikef.model.ChatSession;
 import com.example.aikef.model.enums.SessionStatus;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -16,8 +20,25 @@ public interface ChatSessionRepository extends JpaRepository<ChatSession, UUID>
 
     List<ChatSession> findByCustomer_Id(UUID customerId);
 
-    @Query("SELECT s FROM ChatSession s WHERE s.primaryAgent.id = :agentId OR :agentId MEMBER OF s.supportAgentIds")
-    List<ChatSession> findByPrimaryAgentIdOrSupportAgentIdsContaining(@Param("agentId") UUID agentId);
+    /**
+     * 查询客服作为主责或支持客服参与的会话（支持客服走 chat_session_participants 的 (agent_id, session_id) 索引）
+     */
+    @Query("SELECT s FROM ChatSession s WHERE s.primaryAgent.id = :agentId " +
+            "OR s.id IN (SELECT p.session.id FROM SessionParticipant p WHERE p.agentId = :agentId)")
+    List<ChatSession> findByPrimaryAgentIdOrParticipantAgentId(@Param("agentId") UUID agentId);
 
     ChatSession findFirstByCustomer_IdOrderByLastActiveAtDesc(UUID customerId);
+
+    /**
+     * 查询可归档消息的会话：指定状态、最后活跃早于截止时间且 messages 表中仍有消息（最久未活跃的优先）
+     */
+    @Query("SELECT s.id FROM ChatSession s WHERE s.status = :status AND s.lastActiveAt < :cutoff " +
+            "AND EXISTS (SELECT 1 FROM Message m WHERE m.session = s) ORDER BY s.lastActiveAt ASC")
+    List<UUID> findArchivableSessionIds(@Param("status") SessionStatus status,
+                                        @Param("cutoff") Instant cutoff,
+                                        Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE ChatSession s SET s.messagesArchivedAt = :archivedAt WHERE s.id IN :sessionIds")
+    int markMessagesArchived(@Param("sessionIds") Collection<UUID> sessionIds, @Param("archivedAt") Instant archivedAt);
 }
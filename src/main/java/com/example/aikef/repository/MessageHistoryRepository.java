@@ -0,0 +1,35 @@
+package com.example.aikef.repository;
+
+import com.example.aikef.model.Message;
+import com.example.aikef.model.enums.SenderType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 会话历史消息查询（同时覆盖 messages 热表和 messages_archive 归档表）
+ * 归档按会话整体迁移，同一会话的归档消息总是早于热表中的消息，
+ * 因此按时间倒序时先读热表、不足再接着读归档表即可；会话未归档过时不访问归档表
+ */
+public interface MessageHistoryRepository {
+
+    /**
+     * 游标分页：(beforeCreatedAt, beforeId) 之前的最多 limit 条消息，按 created_at、id 倒序
+     *
+     * @param includeInternal 是否包含内部消息（客户视角为 false）
+     * @param beforeCreatedAt 游标时间，为 null 表示从最新消息开始
+     * @param beforeId        游标消息ID
+     */
+    List<Message> findHistoryPage(UUID sessionId, Collection<SenderType> excludedTypes, boolean includeInternal,
+                                  Instant beforeCreatedAt, UUID beforeId, int limit);
+
+    /**
+     * 偏移分页：按 created_at、id 倒序，总数包含归档消息
+     */
+    Page<Message> findHistory(UUID sessionId, Collection<SenderType> excludedTypes, boolean includeInternal,
+                              Pageable pageable);
+}
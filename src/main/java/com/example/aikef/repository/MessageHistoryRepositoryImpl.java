@@ -0,0 +1,127 @@
+package com.example.aikef.repository;
+
+import com.example.aikef.model.ChatSession;
+import com.example.aikef.model.Message;
+import com.example.aikef.model.enums.SenderType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * {@link MessageHistoryRepository} 实现
+ * 热表使用 JPQL（租户过滤生效）；归档表使用原生 SQL 映射为只读的 Message 实体，
+ * 附件、@列表仍按 message_id 关联加载
+ */
+public class MessageHistoryRepositoryImpl implements MessageHistoryRepository {
+
+    private static final String HOT_FILTER = "m.session.id = :sessionId AND m.senderType NOT IN :excludedTypes " +
+            "AND (:includeInternal = true OR m.internal = false)";
+
+    private static final String ARCHIVE_FILTER = "session_id = :sessionId AND sender_type NOT IN (:excludedTypes) " +
+            "AND (:includeInternal = TRUE OR is_internal = FALSE)";
+
+    private final EntityManager entityManager;
+
+    public MessageHistoryRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<Message> findHistoryPage(UUID sessionId, Collection<SenderType> excludedTypes, boolean includeInternal,
+                                         Instant beforeCreatedAt, UUID beforeId, int limit) {
+        boolean hasCursor = beforeCreatedAt != null && beforeId != null;
+        TypedQuery<Message> hot = entityManager.createQuery("SELECT m FROM Message m LEFT JOIN FETCH m.agent WHERE " +
+                HOT_FILTER + (hasCursor ? " AND (m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id))" : "") +
+                " ORDER BY m.createdAt DESC, m.id DESC", Message.class);
+        bindHot(hot, sessionId, excludedTypes, includeInternal);
+        if (hasCursor) {
+            hot.setParameter("createdAt", beforeCreatedAt);
+            hot.setParameter("id", beforeId);
+        }
+        List<Message> messages = new ArrayList<>(hot.setMaxResults(limit).getResultList());
+        if (messages.size() < limit && hasArchive(sessionId)) {
+            Query archive = entityManager.createNativeQuery("SELECT * FROM messages_archive WHERE " + ARCHIVE_FILTER +
+                    (hasCursor ? " AND (created_at < :createdAt OR (created_at = :createdAt AND id < :id))" : "") +
+                    " ORDER BY created_at DESC, id DESC", Message.class);
+            bindArchive(archive, sessionId, excludedTypes, includeInternal);
+            if (hasCursor) {
+                archive.setParameter("createdAt", beforeCreatedAt);
+                archive.setParameter("id", beforeId.toString());
+            }
+            messages.addAll(archiveResults(archive.setMaxResults(limit - messages.size())));
+        }
+        return messages;
+    }
+
+    @Override
+    public Page<Message> findHistory(UUID sessionId, Collection<SenderType> excludedTypes, boolean includeInternal,
+                                     Pageable pageable) {
+        TypedQuery<Long> hotCount = entityManager.createQuery(
+                "SELECT COUNT(m) FROM Message m WHERE " + HOT_FILTER, Long.class);
+        bindHot(hotCount, sessionId, excludedTypes, includeInternal);
+        long hotTotal = hotCount.getSingleResult();
+        boolean archived = hasArchive(sessionId);
+        long archiveTotal = 0;
+        if (archived) {
+            Query archiveCount = entityManager.createNativeQuery(
+                    "SELECT COUNT(*) FROM messages_archive WHERE " + ARCHIVE_FILTER);
+            bindArchive(archiveCount, sessionId, excludedTypes, includeInternal);
+            archiveTotal = ((Number) archiveCount.getSingleResult()).longValue();
+        }
+
+        List<Message> messages = new ArrayList<>(pageable.getPageSize());
+        long offset = pageable.getOffset();
+        if (offset < hotTotal) {
+            TypedQuery<Message> hot = entityManager.createQuery("SELECT m FROM Message m LEFT JOIN FETCH m.agent WHERE " +
+                    HOT_FILTER + " ORDER BY m.createdAt DESC, m.id DESC", Message.class);
+            bindHot(hot, sessionId, excludedTypes, includeInternal);
+            messages.addAll(hot.setFirstResult((int) offset).setMaxResults(pageable.getPageSize()).getResultList());
+        }
+        int remaining = pageable.getPageSize() - messages.size();
+        if (archived && remaining > 0 && offset + messages.size() < hotTotal + archiveTotal) {
+            Query archive = entityManager.createNativeQuery("SELECT * FROM messages_archive WHERE " + ARCHIVE_FILTER +
+                    " ORDER BY created_at DESC, id DESC", Message.class);
+            bindArchive(archive, sessionId, excludedTypes, includeInternal);
+            archive.setFirstResult((int) Math.max(0, offset - hotTotal)).setMaxResults(remaining);
+            messages.addAll(archiveResults(archive));
+        }
+        return new PageImpl<>(messages, pageable, hotTotal + archiveTotal);
+    }
+
+    private boolean hasArchive(UUID sessionId) {
+        ChatSession session = entityManager.find(ChatSession.class, sessionId);
+        return session != null && session.getMessagesArchivedAt() != null;
+    }
+
+    private static void bindHot(Query query, UUID sessionId, Collection<SenderType> excludedTypes,
+                                boolean includeInternal) {
+        query.setParameter("sessionId", sessionId);
+        query.setParameter("excludedTypes", excludedTypes);
+        query.setParameter("includeInternal", includeInternal);
+    }
+
+    private static void bindArchive(Query query, UUID sessionId, Collection<SenderType> excludedTypes,
+                                    boolean includeInternal) {
+        query.setParameter("sessionId", sessionId.toString());
+        query.setParameter("excludedTypes", excludedTypes.stream().map(Enum::name).toList());
+        query.setParameter("includeInternal", includeInternal);
+    }
+
+    /**
+     * 归档消息在 messages 表中不存在，只读加载，避免脏检查生成对 messages 的 UPDATE
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Message> archiveResults(Query archive) {
+        return archive.setHint(HibernateHints.HINT_READ_ONLY, true).getResultList();
+    }
+}
@@ -6,11 +6,15 @@ import com.example.aikef.model.enums.SenderType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
-public interface MessageRepository extends JpaRepository<Message, UUID> {
+public interface MessageRepository extends JpaRepository<Message, UUID>, MessageHistoryRepository {
 
     List<Message> findBySession_IdOrderByCreatedAtAsc(UUID sessionId);
 
@@ -50,6 +54,17 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
      */
     Message findFirstBySession_IdOrderByCreatedAtDesc(UUID sessionId);
 
+    /**
+     * 批量统计客服在多个会话中的未读消息数：有已读记录时统计最后已读时间之后的消息，否则统计全部消息
+     * 返回 [sessionId, count]，没有未读消息的会话不返回
+     */
+    @Query("SELECT m.session.id, COUNT(m) FROM Message m " +
+            "LEFT JOIN ReadRecord r ON r.session.id = m.session.id AND r.agent.id = :agentId " +
+            "WHERE m.session.id IN :sessionIds AND (r.id IS NULL OR m.createdAt > r.lastReadTime) " +
+            "GROUP BY m.session.id")
+    List<Object[]> countUnreadBySessionIds(@Param("sessionIds") java.util.Collection<UUID> sessionIds,
+                                           @Param("agentId") UUID agentId);
+
     /**
      * 统计会话的消息总数
      */
@@ -109,4 +124,21 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
      */
     Page<Message> findBySession_IdAndInternalFalseAndSenderTypeNotInOrderByCreatedAtDesc(
             UUID sessionId, java.util.Collection<SenderType> senderTypes, Pageable pageable);
+
+    /**
+     * 将会话的消息复制到归档表（已存在的跳过，可重复执行）
+     * messages_archive 与 messages 列结构一致（CREATE TABLE ... LIKE）
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO messages_archive SELECT * FROM messages WHERE session_id IN (:sessionIds)",
+            nativeQuery = true)
+    int copyToArchive(@Param("sessionIds") Collection<String> sessionIds);
+
+    /**
+     * 删除已复制到归档表的消息（只删除归档表中存在的，复制之后新写入的消息保留）
+     */
+    @Modifying
+    @Query(value = "DELETE m FROM messages m JOIN messages_archive a ON a.id = m.id WHERE m.session_id IN (:sessionIds)",
+            nativeQuery = true)
+    int deleteArchived(@Param("sessionIds") Collection<String> sessionIds);
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,6 +19,12 @@ public interface SessionGroupCategoryBindingRepository extends JpaRepository<Ses
      */
     List<SessionGroupCategoryBinding> findBySessionGroup_Id(UUID sessionGroupId);
 
+    /**
+     * 批量查询多个分组绑定的分类（预加载分类）
+     */
+    @Query("SELECT b FROM SessionGroupCategoryBinding b JOIN FETCH b.category WHERE b.sessionGroup.id IN :groupIds")
+    List<SessionGroupCategoryBinding> findBySessionGroupIdInWithCategory(@Param("groupIds") Collection<UUID> groupIds);
+
     /**
      * 根据客服查询所有绑定关系
      */
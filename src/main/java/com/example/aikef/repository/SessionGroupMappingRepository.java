@@ -48,6 +48,13 @@ public interface SessionGroupMappingRepository extends JpaRepository<SessionGrou
      */
     List<SessionGroupMapping> findByAgent(Agent agent);
 
+    /**
+     * 查询某个客服的所有分组映射，一并加载会话、客户、分类和主要客服（bootstrap 使用）
+     */
+    @Query("SELECT m FROM SessionGroupMapping m JOIN FETCH m.session s LEFT JOIN FETCH s.customer " +
+            "LEFT JOIN FETCH s.category LEFT JOIN FETCH s.primaryAgent WHERE m.agent.id = :agentId")
+    List<SessionGroupMapping> findByAgentIdWithSession(@Param("agentId") UUID agentId);
+
     /**
      * 删除某个客服对某个session的映射
      */
@@ -0,0 +1,20 @@
+package com.example.aikef.repository;
+
+import com.example.aikef.model.SessionParticipant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SessionParticipantRepository extends JpaRepository<SessionParticipant, UUID> {
+
+    /**
+     * 查询会话的支持客服ID（只读取 agent_id 列，不加载实体）
+     */
+    @Query("SELECT p.agentId FROM SessionParticipant p WHERE p.session.id = :sessionId ORDER BY p.createdAt")
+    List<UUID> findAgentIdsBySessionId(@Param("sessionId") UUID sessionId);
+}
@@ -2,7 +2,10 @@ package com.example.aikef.repository;
 
 import com.example.aikef.model.SpecialCustomer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,4 +15,7 @@ public interface SpecialCustomerRepository extends JpaRepository<SpecialCustomer
     List<SpecialCustomer> findByRole_Code(String roleCode);
     List<SpecialCustomer> findByRole_IdIn(List<UUID> roleIds);
     Optional<SpecialCustomer> findByCustomer_Id(UUID customerId);
+
+    @Query("SELECT sc FROM SpecialCustomer sc JOIN FETCH sc.role WHERE sc.customer.id IN :customerIds")
+    List<SpecialCustomer> findByCustomerIdIn(@Param("customerIds") Collection<UUID> customerIds);
 }
\ No newline at end of file
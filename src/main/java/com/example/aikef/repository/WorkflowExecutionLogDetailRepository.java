@@ -0,0 +1,24 @@
+package com.example.aikef.repository;
+
+import com.example.aikef.model.WorkflowExecutionLogDetail;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * 工作流执行详情 Repository（主键为执行日志 ID）
+ */
+public interface WorkflowExecutionLogDetailRepository extends JpaRepository<WorkflowExecutionLogDetail, UUID> {
+
+    /**
+     * 删除一批早于指定时间的执行详情（分批删除，避免长事务和大范围锁）
+     */
+    @Modifying
+    @Query(value = "DELETE FROM workflow_execution_log_details WHERE created_at < :cutoff LIMIT :limit",
+            nativeQuery = true)
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
@@ -1,13 +1,16 @@
 package com.example.aikef.repository;
 
+import com.example.aikef.dto.WorkflowExecutionSummary;
 import com.example.aikef.model.WorkflowExecutionLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -31,6 +34,20 @@ public interface WorkflowExecutionLogRepository extends JpaRepository<WorkflowEx
      */
     java.util.Optional<WorkflowExecutionLog> findByMessageId(UUID messageId);
 
+    /**
+     * 批量查询一页消息关联的执行日志（含工作流）
+     */
+    @Query("SELECT l FROM WorkflowExecutionLog l LEFT JOIN FETCH l.workflow WHERE l.messageId IN :messageIds")
+    List<WorkflowExecutionLog> findByMessageIdIn(@Param("messageIds") Collection<UUID> messageIds);
+
+    /**
+     * 批量查询一页消息关联的执行摘要（不读取节点详情、工具调用链等大字段）
+     */
+    @Query("SELECT new com.example.aikef.dto.WorkflowExecutionSummary(" +
+           "l.id, l.messageId, l.status, l.errorMessage, l.durationMs, w.id, w.name) " +
+           "FROM WorkflowExecutionLog l LEFT JOIN l.workflow w WHERE l.messageId IN :messageIds")
+    List<WorkflowExecutionSummary> findSummariesByMessageIdIn(@Param("messageIds") Collection<UUID> messageIds);
+
     /**
      * 根据状态查找执行日志
      */
@@ -58,5 +75,13 @@ public interface WorkflowExecutionLogRepository extends JpaRepository<WorkflowEx
     @Query("SELECT AVG(l.durationMs) FROM WorkflowExecutionLog l " +
            "WHERE l.workflow.id = :workflowId AND l.status = 'SUCCESS'")
     Double getAverageDuration(@Param("workflowId") UUID workflowId);
+
+    /**
+     * 删除一批早于指定时间的执行日志（执行详情随外键级联删除）
+     */
+    @Modifying
+    @Query(value = "DELETE FROM workflow_execution_logs WHERE created_at < :cutoff LIMIT :limit",
+            nativeQuery = true)
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
 }
 
@@ -0,0 +1,30 @@
+package com.example.aikef.saas.context;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 将提交线程的租户上下文传递到 @Async 任务线程
+ * Spring Boot 自动配置的 applicationTaskExecutor 会使用容器中唯一的 TaskDecorator
+ */
+@Component
+public class TenantTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        String tenantId = TenantContext.getTenantId();
+        return () -> {
+            String previous = TenantContext.getTenantId();
+            TenantContext.setTenantId(tenantId);
+            try {
+                runnable.run();
+            } finally {
+                if (previous != null) {
+                    TenantContext.setTenantId(previous);
+                } else {
+                    TenantContext.clear();
+                }
+            }
+        };
+    }
+}
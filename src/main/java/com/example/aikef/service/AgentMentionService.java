@@ -13,7 +13,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -79,22 +82,25 @@ public class AgentMentionService {
         ChatSession session = chatSessionRepository.findById(sessionId)
                 .orElseThrow(() -> new EntityNotFoundException("会话不存在: " + sessionId));
 
-        for (UUID agentId : agentIds) {
-            try {
-                Agent agent = agentRepository.findById(agentId).orElse(null);
-                if (agent != null) {
-                    AgentMention mention = new AgentMention();
-                    mention.setAgent(agent);
-                    mention.setSession(session);
-                    mention.setMessage(message);
-                    mention.setRead(false);
-                    agentMentionRepository.save(mention);
-                    log.info("创建@记录: agentId={}, sessionId={}", agentId, sessionId);
-                }
-            } catch (Exception e) {
-                log.warn("创建@记录失败: agentId={}, sessionId={}, error={}", agentId, sessionId, e.getMessage());
-            }
+        // 一次查询加载所有被@的客服，@记录通过 saveAll 在 flush 时按 hibernate.jdbc.batch_size 批量插入
+        Set<UUID> distinctIds = new LinkedHashSet<>(agentIds);
+        List<Agent> agents = agentRepository.findAllById(distinctIds);
+        if (agents.size() < distinctIds.size()) {
+            log.warn("部分被@的客服不存在，已跳过: sessionId={}, requested={}, found={}",
+                    sessionId, distinctIds.size(), agents.size());
         }
+
+        List<AgentMention> mentions = new ArrayList<>(agents.size());
+        for (Agent agent : agents) {
+            AgentMention mention = new AgentMention();
+            mention.setAgent(agent);
+            mention.setSession(session);
+            mention.setMessage(message);
+            mention.setRead(false);
+            mentions.add(mention);
+        }
+        agentMentionRepository.saveAll(mentions);
+        log.info("创建@记录: sessionId={}, count={}", sessionId, mentions.size());
     }
 
     /**
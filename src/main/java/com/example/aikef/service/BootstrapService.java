@@ -5,16 +5,27 @@ import com.example.aikef.dto.ChatSessionDto;
 import com.example.aikef.dto.SessionCategoryDto;
 import com.example.aikef.dto.SessionGroupDto;
 import com.example.aikef.mapper.EntityMapper;
+import com.example.aikef.model.Agent;
+import com.example.aikef.model.ChatSession;
 import com.example.aikef.model.SessionGroup;
+import com.example.aikef.model.SessionGroupCategoryBinding;
 import com.example.aikef.model.SessionGroupMapping;
+import com.example.aikef.model.SpecialCustomer;
 import com.example.aikef.repository.AgentRepository;
 import com.example.aikef.repository.KnowledgeBaseRepository;
 import com.example.aikef.repository.QuickReplyRepository;
-import com.example.aikef.repository.RoleRepository;
+import com.example.aikef.repository.SessionGroupCategoryBindingRepository;
 import com.example.aikef.repository.SessionGroupMappingRepository;
 import com.example.aikef.repository.SessionGroupRepository;
+import com.example.aikef.repository.SpecialCustomerRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,137 +36,135 @@ public class BootstrapService {
     private final SessionGroupRepository sessionGroupRepository;
     private final SessionGroupMappingRepository sessionGroupMappingRepository;
     private final AgentRepository agentRepository;
-    private final RoleRepository roleRepository;
+    private final RoleService roleService;
     private final QuickReplyRepository quickReplyRepository;
     private final KnowledgeBaseRepository knowledgeBaseRepository;
     private final EntityMapper entityMapper;
     private final ReadRecordService readRecordService;
-    private final SessionGroupService sessionGroupService;
+    private final SpecialCustomerRepository specialCustomerRepository;
+    private final SessionGroupCategoryBindingRepository categoryBindingRepository;
 
     public BootstrapService(SessionGroupRepository sessionGroupRepository,
                             SessionGroupMappingRepository sessionGroupMappingRepository,
                             AgentRepository agentRepository,
-                            RoleRepository roleRepository,
+                            RoleService roleService,
                             QuickReplyRepository quickReplyRepository,
                             KnowledgeBaseRepository knowledgeBaseRepository,
                             EntityMapper entityMapper,
                             ReadRecordService readRecordService,
-                            SessionGroupService sessionGroupService) {
+                            SpecialCustomerRepository specialCustomerRepository,
+                            SessionGroupCategoryBindingRepository categoryBindingRepository) {
         this.sessionGroupRepository = sessionGroupRepository;
         this.sessionGroupMappingRepository = sessionGroupMappingRepository;
         this.agentRepository = agentRepository;
-        this.roleRepository = roleRepository;
+        this.roleService = roleService;
         this.quickReplyRepository = quickReplyRepository;
         this.knowledgeBaseRepository = knowledgeBaseRepository;
         this.entityMapper = entityMapper;
         this.readRecordService = readRecordService;
-        this.sessionGroupService = sessionGroupService;
+        this.specialCustomerRepository = specialCustomerRepository;
+        this.categoryBindingRepository = categoryBindingRepository;
     }
 
+    /**
+     * 组装客服工作台初始数据
+     * 分组映射、客服、客户特殊角色、分组分类、未读数均按集合一次查出，最后消息取自会话快照，查询次数与会话数无关
+     */
     public BootstrapResponse bootstrap(UUID agentId) {
-        // 收集主要负责客服的会话ID和支持客服的会话ID
-        List<UUID> primaryAgentSessionIds = new java.util.ArrayList<>();
-        List<UUID> supportAgentSessionIds = new java.util.ArrayList<>();
-        
         // 获取所有分组
         List<SessionGroup> groups = sessionGroupRepository.findByAgent_IdOrderBySortOrderAsc(agentId);
-        
+        Set<UUID> groupIds = groups.stream().map(SessionGroup::getId).collect(Collectors.toSet());
+
+        // 一次查出该客服的全部分组映射（含会话、客户、分类、主要客服），按分组归类
+        Map<UUID, List<SessionGroupMapping>> mappingsByGroup = new HashMap<>();
+        List<ChatSession> sessions = new ArrayList<>();
+        for (SessionGroupMapping mapping : sessionGroupMappingRepository.findByAgentIdWithSession(agentId)) {
+            UUID groupId = mapping.getSessionGroup().getId();
+            if (groupIds.contains(groupId)) {
+                mappingsByGroup.computeIfAbsent(groupId, id -> new ArrayList<>()).add(mapping);
+                sessions.add(mapping.getSession());
+            }
+        }
+
+        // 收集主要负责客服的会话ID和支持客服的会话ID，以及会话涉及的客服和客户
+        List<UUID> primaryAgentSessionIds = new ArrayList<>();
+        List<UUID> supportAgentSessionIds = new ArrayList<>();
+        Set<UUID> agentIds = new HashSet<>();
+        Set<UUID> customerIds = new HashSet<>();
+        agentIds.add(agentId);
+        for (ChatSession session : sessions) {
+            if (isPrimaryAgent(session, agentId)) {
+                primaryAgentSessionIds.add(session.getId());
+            } else {
+                supportAgentSessionIds.add(session.getId());
+            }
+            if (session.getPrimaryAgent() != null) {
+                agentIds.add(session.getPrimaryAgent().getId());
+            }
+            if (session.getSupportAgentIds() != null) {
+                agentIds.addAll(session.getSupportAgentIds());
+            }
+            if (session.getCustomer() != null) {
+                customerIds.add(session.getCustomer().getId());
+            }
+        }
+
+        // 批量查询未读数
+        // - 主要负责客服：使用消息未读数
+        // - 支持客服：使用 mention 未读数
+        Map<UUID, Integer> messageUnreadCountMap = readRecordService.getUnreadCountBatch(primaryAgentSessionIds, agentId);
+        Map<UUID, Integer> mentionUnreadCountMap = readRecordService.getMentionUnreadCountBatch(supportAgentSessionIds, agentId);
+
+        // 批量查询客服（含角色）、客户特殊角色、分组绑定的分类；最后一条消息直接取会话快照
+        Map<UUID, Agent> agents = agentRepository.findAllByIdWithRole(agentIds).stream()
+                .collect(Collectors.toMap(Agent::getId, agent -> agent));
+        Map<UUID, SpecialCustomer> specialCustomers = customerIds.isEmpty()
+                ? Map.of()
+                : specialCustomerRepository.findByCustomerIdIn(customerIds).stream()
+                        .collect(Collectors.toMap(special -> special.getCustomer().getId(), special -> special,
+                                (first, second) -> first));
+        Map<UUID, List<SessionCategoryDto>> categoriesByGroup = new HashMap<>();
+        if (!groupIds.isEmpty()) {
+            for (SessionGroupCategoryBinding binding : categoryBindingRepository.findBySessionGroupIdInWithCategory(groupIds)) {
+                categoriesByGroup.computeIfAbsent(binding.getSessionGroup().getId(), id -> new ArrayList<>())
+                        .add(entityMapper.toSessionCategoryDto(binding.getCategory()));
+            }
+        }
+
         List<SessionGroupDto> sessionGroups = groups.stream()
                 .map(group -> {
-                    // 获取分组下的会话
-                    List<ChatSessionDto> sessions = sessionGroupMappingRepository
-                            .findBySessionGroupIdAndAgentId(group.getId(), agentId)
+                    List<ChatSessionDto> groupSessions = mappingsByGroup.getOrDefault(group.getId(), List.of())
                             .stream()
                             .map(SessionGroupMapping::getSession)
                             .map(session -> {
-                                // 区分主要负责客服和支持客服的会话
-                                if (session.getPrimaryAgent() != null && 
-                                    session.getPrimaryAgent().getId().equals(agentId)) {
-                                    primaryAgentSessionIds.add(session.getId());
-                                } else {
-                                    supportAgentSessionIds.add(session.getId());
-                                }
-                                return entityMapper.toChatSessionDtoForAgent(session, agentId);
+                                int unreadCount = isPrimaryAgent(session, agentId)
+                                        ? messageUnreadCountMap.getOrDefault(session.getId(), 0)
+                                        : mentionUnreadCountMap.getOrDefault(session.getId(), 0);
+                                SpecialCustomer specialCustomer = session.getCustomer() != null
+                                        ? specialCustomers.get(session.getCustomer().getId())
+                                        : null;
+                                return entityMapper.toChatSessionDtoForAgent(session, group.getId(), unreadCount,
+                                        agents, specialCustomer);
                             })
                             .toList();
-                    
-                    // 获取分组绑定的分类列表（完整数据）
-                    List<SessionCategoryDto> categories = sessionGroupService.getGroupBoundCategories(group.getId())
-                            .stream()
-                            .map(entityMapper::toSessionCategoryDto)
-                            .toList();
-                    
-                    return entityMapper.toSessionGroupDtoWithSessionsAndCategories(group, sessions, categories);
-                })
-                .toList();
-
-        // 批量查询主要负责客服的未读消息数
-        java.util.Map<UUID, Integer> messageUnreadCountMap = primaryAgentSessionIds.isEmpty() 
-                ? java.util.Collections.emptyMap()
-                : readRecordService.getUnreadCountBatch(primaryAgentSessionIds, agentId);
-        
-        // 批量查询支持客服的未读@数量
-        java.util.Map<UUID, Integer> mentionUnreadCountMap = supportAgentSessionIds.isEmpty()
-                ? java.util.Collections.emptyMap()
-                : readRecordService.getMentionUnreadCountBatch(supportAgentSessionIds, agentId);
-        
-        // 更新未读数
-        // - 主要负责客服：使用消息未读数
-        // - 支持客服：使用 mention 未读数
-        List<SessionGroupDto> updatedGroups = sessionGroups.stream()
-                .map(group -> {
-                    List<ChatSessionDto> updatedSessions = group.sessions().stream()
-                            .map(session -> {
-                                int unreadCount;
-                                if (session.primaryAgentId() != null && 
-                                    session.primaryAgentId().equals(agentId)) {
-                                    // 主要负责客服：使用消息未读数
-                                    unreadCount = messageUnreadCountMap.getOrDefault(session.id(), 0);
-                                } else {
-                                    // 支持客服：使用 mention 未读数
-                                    unreadCount = mentionUnreadCountMap.getOrDefault(session.id(), 0);
-                                }
-                                return new ChatSessionDto(
-                                    session.id(),
-                                    session.userId(),
-                                    session.user(),
-                                    session.status(),
-                                    session.lastActive(),
-                                    unreadCount,
-                                    session.sessionGroupId(),
-                                    session.primaryAgentId(),
-                                    session.agents(),
-                                    session.lastMessage(),
-                                    session.note(),
-                                    session.categoryId(),
-                                    session.category(),
-                                    session.metadata(),
-                                    session.customerLanguage()
-                                );
-                            })
-                            .collect(java.util.stream.Collectors.toList());
-                    return new SessionGroupDto(
-                        group.id(),
-                        group.name(),
-                        group.system(),
-                        group.agentId(),
-                        group.icon(),
-                        group.color(),
-                        group.sortOrder(),
-                        updatedSessions,
-                        group.categories(),
-                        group.createdAt(),
-                        group.updatedAt()
-                    );
+                    return entityMapper.toSessionGroupDtoWithSessionsAndCategories(group, groupSessions,
+                            categoriesByGroup.getOrDefault(group.getId(), List.of()));
                 })
                 .toList();
 
+        Agent agent = agents.get(agentId);
+        if (agent == null) {
+            throw new jakarta.persistence.EntityNotFoundException("坐席不存在");
+        }
         return new BootstrapResponse(
-                updatedGroups,
-                agentRepository.findByIdWithRole(agentId).map(entityMapper::toAgentDto)
-                        .orElseThrow(() -> new jakarta.persistence.EntityNotFoundException("坐席不存在")),
-                roleRepository.findAll().stream().map(entityMapper::toRoleDto).toList(),
+                sessionGroups,
+                entityMapper.toAgentDto(agent),
+                roleService.listRoles(),
                 quickReplyRepository.findAll().stream().map(entityMapper::toQuickReplyDto).toList(),
                 knowledgeBaseRepository.findByEnabledTrue().stream().map(entityMapper::toKnowledgeEntryDto).toList());
     }
+
+    private static boolean isPrimaryAgent(ChatSession session, UUID agentId) {
+        return session.getPrimaryAgent() != null && session.getPrimaryAgent().getId().equals(agentId);
+    }
 }
@@ -312,16 +312,6 @@ public class ChatSessionService {
         );
     }
 
-    /**
-     * 更新会话最后活跃时间
-     */
-    @Transactional
-    public void updateLastActiveTime(UUID sessionId) {
-        ChatSession session = getSession(sessionId);
-        session.setLastActiveAt(Instant.now());
-        chatSessionRepository.save(session);
-    }
-
     /**
      * 检查用户是否是会话成员
      * 增加对管理员角色的支持：如果是管理员，默认有权访问所有会话
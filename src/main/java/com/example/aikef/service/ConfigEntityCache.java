@@ -0,0 +1,217 @@
+package com.example.aikef.service;
+
+import cn.hutool.cache.impl.LRUCache;
+import com.example.aikef.saas.context.TenantContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 读多写少的配置实体缓存
+ * 模型配置、工作流与分类绑定、官方渠道配置、第三方平台、会话分类、角色在每条消息 / 每次 LLM 调用中都会查询，
+ * 但只在管理后台修改。这里按区域（region）在本地缓存查询结果，键带租户 ID，不同租户互不可见。
+ * <p>
+ * 失效：管理端写入后调用 {@link #invalidate(String...)}，在事务结束后清空本地区域并递增 Redis 中该区域的版本号，
+ * 其他实例按间隔检查版本号，发现变化后清空对应区域；Redis 不可用时依靠 TTL 兜底。
+ * 命中 / 未命中次数以 {@code config.cache.gets} 指标输出。
+ * <p>
+ * 缓存的实体在多个线程间共享，调用方只能读取；需要修改的写路径应直接通过 Repository 加载
+ */
+@Slf4j
+@Component
+public class ConfigEntityCache {
+
+    public static final String LLM_MODEL = "llm_model";
+    public static final String SESSION_WORKFLOW = "session_workflow";
+    public static final String OFFICIAL_CHANNEL = "official_channel";
+    public static final String EXTERNAL_PLATFORM = "external_platform";
+    public static final String SESSION_CATEGORY = "session_category";
+    public static final String ROLE = "role";
+    // 会话参与者：键带参与者版本号，变化后旧键不再命中，不需要调用 invalidate
+    public static final String SESSION_PARTICIPANTS = "session_participants";
+
+    private static final String VERSION_KEY = "config_cache_version";
+    private static final String NO_TENANT = "-";
+
+    @Value("${config-cache.enabled:true}")
+    private boolean enabled;
+
+    // 每个区域的最大条目数（多租户时按租户累加）
+    @Value("${config-cache.max-entries:1000}")
+    private int maxEntries;
+
+    // 条目过期时间，Redis 不可用导致其他实例的失效通知丢失时的兜底
+    @Value("${config-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    // 两次检查 Redis 全局版本号的最小间隔
+    @Value("${config-cache.version-check-millis:2000}")
+    private long versionCheckMillis;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    private final Map<String, Region> regions = new ConcurrentHashMap<>();
+    private volatile long lastVersionCheck;
+
+    public ConfigEntityCache(StringRedisTemplate redisTemplate, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.redisTemplate = redisTemplate;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    /**
+     * 读取缓存，未命中时加载；加载结果为 null 时不缓存（不存在的记录请用 Optional 表示）
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String regionName, Object key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        syncVersions();
+        Region region = region(regionName);
+        String cacheKey = tenantKey(key);
+        Object cached = region.entries.get(cacheKey, false);
+        if (cached != null) {
+            region.hits.increment();
+            return (T) cached;
+        }
+        region.misses.increment();
+        long loadedVersion = region.version;
+        T loaded = loader.get();
+        if (loaded != null) {
+            region.entries.put(cacheKey, loaded);
+            // 加载期间区域已失效则丢弃，避免缓存旧数据
+            if (loadedVersion != region.version) {
+                region.entries.remove(cacheKey);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 配置变更后失效区域；在事务中调用时推迟到事务结束（提交或回滚）之后，
+     * 避免其他线程在提交前重新加载到旧数据，也清掉本事务内读到的未提交数据
+     */
+    public void invalidate(String... regionNames) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidateNow(regionNames);
+                }
+            });
+        } else {
+            invalidateNow(regionNames);
+        }
+    }
+
+    public Stats getStats(String regionName) {
+        Region region = region(regionName);
+        return new Stats(region.hits.sum(), region.misses.sum(), region.entries.size());
+    }
+
+    private void invalidateNow(String... regionNames) {
+        for (String regionName : regionNames) {
+            Region region = region(regionName);
+            long next;
+            try {
+                next = redisTemplate.opsForHash().increment(VERSION_KEY, regionName, 1);
+            } catch (Exception e) {
+                log.warn("更新配置缓存版本号失败，仅清空本地缓存: region={}, error={}", regionName, e.getMessage());
+                next = region.version + 1;
+            }
+            region.clear(next);
+            log.debug("配置缓存已失效: region={}, version={}", regionName, next);
+        }
+    }
+
+    /**
+     * 按间隔检查全局版本号，其他实例修改过配置时清空对应区域
+     */
+    private void syncVersions() {
+        long now = System.currentTimeMillis();
+        if (now - lastVersionCheck < versionCheckMillis) {
+            return;
+        }
+        lastVersionCheck = now;
+        try {
+            Map<Object, Object> versions = redisTemplate.opsForHash().entries(VERSION_KEY);
+            regions.forEach((name, region) -> {
+                Object value = versions.get(name);
+                long global = value != null ? Long.parseLong(value.toString()) : 0;
+                if (global != region.version) {
+                    region.clear(global);
+                }
+            });
+        } catch (Exception e) {
+            log.debug("读取配置缓存版本号失败: {}", e.getMessage());
+        }
+    }
+
+    private Region region(String name) {
+        return regions.computeIfAbsent(name, key -> {
+            Region region = new Region(new LRUCache<>(maxEntries, ttlSeconds * 1000L));
+            MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+            if (registry != null) {
+                FunctionCounter.builder("config.cache.gets", region.hits, LongAdder::sum)
+                        .tag("region", key).tag("result", "hit")
+                        .description("配置缓存命中次数")
+                        .register(registry);
+                FunctionCounter.builder("config.cache.gets", region.misses, LongAdder::sum)
+                        .tag("region", key).tag("result", "miss")
+                        .description("配置缓存未命中次数")
+                        .register(registry);
+                Gauge.builder("config.cache.size", region.entries, LRUCache::size)
+                        .tag("region", key)
+                        .description("配置缓存条目数")
+                        .register(registry);
+            }
+            return region;
+        });
+    }
+
+    private static String tenantKey(Object key) {
+        String tenantId = TenantContext.getTenantId();
+        return (tenantId != null ? tenantId : NO_TENANT) + ":" + key;
+    }
+
+    /**
+     * 区域统计
+     */
+    public record Stats(long hits, long misses, int size) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private static final class Region {
+
+        private final LRUCache<String, Object> entries;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private volatile long version;
+
+        private Region(LRUCache<String, Object> entries) {
+            this.entries = entries;
+        }
+
+        private synchronized void clear(long newVersion) {
+            version = newVersion;
+            entries.clear();
+        }
+    }
+}
@@ -23,9 +23,7 @@ import com.example.aikef.repository.MessageRepository;
 import com.example.aikef.websocket.WebSocketSessionManager;
 import jakarta.persistence.EntityNotFoundException;
 import java.time.Instant;
-import org.hibernate.Hibernate;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -47,6 +45,8 @@ public class ConversationService {
     private final ChannelRouter channelRouter;
     private final WebSocketSessionManager sessionManager;
     private final TranslationService translationService;
+    private final SessionActivityWriter sessionActivityWriter;
+    private final SessionParticipantService sessionParticipantService;
 
     public ConversationService(ChatSessionRepository chatSessionRepository,
                                MessageRepository messageRepository,
@@ -55,7 +55,9 @@ public class ConversationService {
                                EntityMapper entityMapper,
                                ChannelRouter channelRouter,
                                @Lazy WebSocketSessionManager sessionManager,
-                               TranslationService translationService) {
+                               TranslationService translationService,
+                               SessionActivityWriter sessionActivityWriter,
+                               SessionParticipantService sessionParticipantService) {
         this.chatSessionRepository = chatSessionRepository;
         this.messageRepository = messageRepository;
         this.messageDeliveryRepository = messageDeliveryRepository;
@@ -64,6 +66,8 @@ public class ConversationService {
         this.channelRouter = channelRouter;
         this.sessionManager = sessionManager;
         this.translationService = translationService;
+        this.sessionActivityWriter = sessionActivityWriter;
+        this.sessionParticipantService = sessionParticipantService;
     }
 
     public MessageDto sendMessage(SendMessageRequest request, UUID agentId) {
@@ -112,13 +116,14 @@ public class ConversationService {
         }
         
         Message persisted = messageRepository.save(message);
-        session.setLastActiveAt(Instant.now());
+        sessionActivityWriter.messageSaved(persisted);
         
-        // 获取在线客服列表
-        Set<UUID> onlineAgentIds = sessionManager.getOnlineAgentsInSession(session);
+        // 获取会话参与客服及其中在线的客服
+        Set<UUID> participantAgentIds = sessionParticipantService.getAgentIds(session);
+        Set<UUID> onlineAgentIds = sessionManager.getOnlineAgents(participantAgentIds);
         
         // 创建消息发送记录（在线客服自动标记已读）
-        createMessageDeliveries(persisted, session, agentId, onlineAgentIds);
+        createMessageDeliveries(persisted, participantAgentIds, agentId, onlineAgentIds);
 
         if (!message.isInternal() && session.getCustomer() != null) {
             Channel Channel = session.getCustomer().getPrimaryChannel();
@@ -139,23 +144,14 @@ public class ConversationService {
      * 只为客服创建发送记录，客户通过历史消息接口获取消息
      * 
      * @param message 消息
-     * @param session 会话
+     * @param recipientAgentIds 应该收到消息的客服（主责 + 支持客服）
      * @param senderId 发送者ID（客服或客户）
      * @param onlineAgentIds 当前在线的客服ID集合
      */
-    private void createMessageDeliveries(Message message, ChatSession session, UUID senderId, Set<UUID> onlineAgentIds) {
+    private void createMessageDeliveries(Message message, Set<UUID> recipientAgentIds, UUID senderId, Set<UUID> onlineAgentIds) {
         List<MessageDelivery> deliveries = new ArrayList<>();
-        Set<UUID> recipientAgentIds = new HashSet<>();
         
-        // 1. 确定所有应该收到消息的客服
-        if (session.getPrimaryAgent() != null) {
-            recipientAgentIds.add(session.getPrimaryAgent().getId());
-        }
-        if (session.getSupportAgentIds() != null) {
-            recipientAgentIds.addAll(session.getSupportAgentIds());
-        }
-        
-        // 2. 为每个客服创建发送记录
+        // 为每个客服创建发送记录
         for (UUID agentId : recipientAgentIds) {
             MessageDelivery delivery = new MessageDelivery();
             delivery.setMessage(message);
@@ -227,15 +223,10 @@ public class ConversationService {
     }
     
     /**
-     * 获取聊天会话
+     * 获取聊天会话（不加载支持客服，广播时通过 SessionParticipantService 获取）
      */
     public ChatSession getChatSession(UUID sessionId) {
-        return chatSessionRepository.findById(sessionId)
-                .map(session -> {
-                    Hibernate.initialize(session.getSupportAgentIds());
-                    return session;
-                })
-                .orElse(null);
+        return chatSessionRepository.findById(sessionId).orElse(null);
     }
 
     public ChatSessionDto getChatSessionDto(UUID sessionId) {
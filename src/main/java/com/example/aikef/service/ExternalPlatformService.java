@@ -50,6 +50,9 @@ public class ExternalPlatformService {
     private final AgentAssignmentStrategy agentAssignmentStrategy;
     private final EntityMapper entityMapper;
     private final TranslationService translationService;
+    private final SessionActivityWriter sessionActivityWriter;
+    private final ConfigEntityCache configEntityCache;
+    private final SessionParticipantService sessionParticipantService;
 
     @Lazy
     @Autowired
@@ -67,7 +70,8 @@ public class ExternalPlatformService {
                     request.language());
 
             // 1. 验证平台配置
-            ExternalPlatform platform = platformRepository.findByNameAndEnabledTrue(platformName)
+            ExternalPlatform platform = configEntityCache.get(ConfigEntityCache.EXTERNAL_PLATFORM, "enabled:" + platformName,
+                            () -> platformRepository.findByNameAndEnabledTrue(platformName))
                     .orElseThrow(() -> new IllegalArgumentException("平台不存在或未启用: " + platformName));
 
             // 2. 查找或创建会话映射
@@ -421,7 +425,9 @@ public class ExternalPlatformService {
 //            log.warn("序列化消息 metadata 失败", e);
 //        }
 
-        return messageRepository.save(message);
+        Message saved = messageRepository.save(message);
+        sessionActivityWriter.messageSaved(saved);
+        return saved;
     }
 
     /**
@@ -443,8 +449,7 @@ public class ExternalPlatformService {
             // 获取会话参与者信息
             UUID customerId = session.getCustomer() != null ? session.getCustomer().getId() : null;
             UUID primaryAgentId = session.getPrimaryAgent() != null ? session.getPrimaryAgent().getId() : null;
-            List<UUID> supportAgentIds = session.getSupportAgentIds() != null ? 
-                    session.getSupportAgentIds().stream().toList() : null;
+            List<UUID> supportAgentIds = sessionParticipantService.getSupportAgentIds(session);
             
             sessionManager.broadcastToSession(
                     session.getId(),
@@ -645,6 +650,7 @@ public class ExternalPlatformService {
         if (platformRepository.existsByName(platform.getName())) {
             throw new IllegalArgumentException("平台名称已存在: " + platform.getName());
         }
+        configEntityCache.invalidate(ConfigEntityCache.EXTERNAL_PLATFORM);
         return platformRepository.save(platform);
     }
 
@@ -676,6 +682,7 @@ public class ExternalPlatformService {
         }
         platform.setEnabled(updates.isEnabled());
         
+        configEntityCache.invalidate(ConfigEntityCache.EXTERNAL_PLATFORM);
         return platformRepository.save(platform);
     }
 
@@ -686,6 +693,14 @@ public class ExternalPlatformService {
         return platformRepository.findByName(name);
     }
 
+    /**
+     * 平台是否已存在（走配置缓存）
+     */
+    public boolean platformExists(String name) {
+        return configEntityCache.get(ConfigEntityCache.EXTERNAL_PLATFORM, "exists:" + name,
+                () -> platformRepository.existsByName(name));
+    }
+
     /**
      * 获取所有平台
      */
@@ -0,0 +1,103 @@
+package com.example.aikef.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个目标主机的并发许可
+ * 许可已满时请求以 CompletableFuture 排队（FIFO），释放许可时直接交给队首请求，
+ * 等待期间不占用任何线程；超时由 CompletableFuture.orTimeout 的共享计时线程处理。
+ * 长时间空闲后可被回收（retire），回收后不再发放许可，调用方应重新获取该主机的限流器
+ */
+class HostRequestLimiter {
+
+    private final int maxRequests;
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private int active;
+    private long idleSinceNanos = System.nanoTime();
+    private boolean retired;
+
+    HostRequestLimiter(int maxRequests) {
+        this.maxRequests = maxRequests;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (!retired && active < maxRequests) {
+            active++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 获取许可，许可已满时排队等待；超时后 future 以 TimeoutException 结束
+     *
+     * @return 已回收时返回 null
+     */
+    CompletableFuture<Void> acquire(long timeoutMillis) {
+        CompletableFuture<Void> waiter;
+        synchronized (this) {
+            if (retired) {
+                return null;
+            }
+            if (active < maxRequests) {
+                active++;
+                return CompletableFuture.completedFuture(null);
+            }
+            waiter = new CompletableFuture<>();
+            waiters.addLast(waiter);
+        }
+        waiter.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).whenComplete((ignored, error) -> {
+            if (error != null) {
+                synchronized (this) {
+                    waiters.remove(waiter);
+                }
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * 释放许可：有等待者时直接转交（已超时的等待者跳过），否则归还
+     */
+    void release() {
+        while (true) {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = waiters.pollFirst();
+                if (next == null) {
+                    if (--active == 0) {
+                        idleSinceNanos = System.nanoTime();
+                    }
+                    return;
+                }
+            }
+            // 在锁外唤醒，等待者的后续回调不在锁内执行；与超时竞争失败时继续转交给下一个
+            if (next.complete(null)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 没有进行中和排队的请求且自 idleBeforeNanos 之前就已空闲时回收
+     *
+     * @return 是否已回收
+     */
+    synchronized boolean retireIfIdleSince(long idleBeforeNanos) {
+        if (!retired && active == 0 && waiters.isEmpty() && idleSinceNanos - idleBeforeNanos <= 0) {
+            retired = true;
+        }
+        return retired;
+    }
+
+    synchronized int activeCount() {
+        return active;
+    }
+
+    synchronized int waitingCount() {
+        return waiters.size();
+    }
+}
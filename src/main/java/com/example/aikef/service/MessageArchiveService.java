@@ -0,0 +1,101 @@
+package com.example.aikef.service;
+
+import com.example.aikef.model.enums.SessionStatus;
+import com.example.aikef.repository.ChatSessionRepository;
+import com.example.aikef.repository.MessageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 消息归档
+ * 已结束且长时间未活跃的会话，其消息从 messages 热表整体迁移到 messages_archive 归档表，
+ * 热表只保留近期会话，索引和缓冲池命中随之稳定；归档后的历史仍可通过 {@link MessageRepository} 的历史查询透明读取
+ * <p>
+ * 每批会话在一个事务内：复制到归档表 -> 删除已复制的消息 -> 标记会话归档时间；
+ * 复制和删除都可重复执行，多实例同时运行或中途失败后重跑不会丢消息或重复归档
+ */
+@Slf4j
+@Service
+public class MessageArchiveService {
+
+    @Value("${message.archive.enabled:false}")
+    private boolean enabled;
+
+    // 会话结束且最后活跃超过该天数后归档
+    @Value("${message.archive.after-days:90}")
+    private int afterDays;
+
+    @Value("${message.archive.batch-sessions:100}")
+    private int batchSessions;
+
+    // 单次运行最多处理的批次，避免一次占用过长时间
+    @Value("${message.archive.max-batches:50}")
+    private int maxBatches;
+
+    private final ChatSessionRepository chatSessionRepository;
+    private final MessageRepository messageRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public MessageArchiveService(ChatSessionRepository chatSessionRepository,
+                                 MessageRepository messageRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.chatSessionRepository = chatSessionRepository;
+        this.messageRepository = messageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${message.archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        if (enabled) {
+            archive();
+        }
+    }
+
+    /**
+     * 归档一轮
+     *
+     * @return 归档的消息数
+     */
+    public int archive() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(afterDays));
+        int sessions = 0;
+        int messages = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<UUID> sessionIds = chatSessionRepository.findArchivableSessionIds(
+                    SessionStatus.RESOLVED, cutoff, PageRequest.of(0, batchSessions));
+            if (sessionIds.isEmpty()) {
+                break;
+            }
+            try {
+                Integer moved = transactionTemplate.execute(status -> archiveSessions(sessionIds));
+                messages += moved != null ? moved : 0;
+                sessions += sessionIds.size();
+            } catch (Exception e) {
+                log.error("归档消息失败: sessions={}, error={}", sessionIds.size(), e.getMessage(), e);
+                break;
+            }
+        }
+        if (sessions > 0) {
+            log.info("消息归档完成: sessions={}, messages={}, cutoff={}", sessions, messages, cutoff);
+        }
+        return messages;
+    }
+
+    private int archiveSessions(List<UUID> sessionIds) {
+        List<String> ids = sessionIds.stream().map(UUID::toString).toList();
+        messageRepository.copyToArchive(ids);
+        int deleted = messageRepository.deleteArchived(ids);
+        chatSessionRepository.markMessagesArchived(sessionIds, Instant.now());
+        return deleted;
+    }
+}
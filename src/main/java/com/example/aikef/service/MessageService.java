@@ -2,11 +2,16 @@ package com.example.aikef.service;
 
 import com.example.aikef.dto.AttachmentDto;
 import com.example.aikef.dto.ChatMessageDto;
+import com.example.aikef.dto.MessageCursor;
+import com.example.aikef.dto.MessageCursorPage;
+import com.example.aikef.dto.WorkflowExecutionSummary;
 import com.example.aikef.model.ChatSession;
 import com.example.aikef.model.Message;
 import com.example.aikef.model.enums.SenderType;
 import com.example.aikef.model.WorkflowExecutionLog;
+import com.example.aikef.model.WorkflowExecutionLogDetail;
 import com.example.aikef.repository.MessageRepository;
+import com.example.aikef.repository.WorkflowExecutionLogDetailRepository;
 import com.example.aikef.repository.WorkflowExecutionLogRepository;
 import com.example.aikef.security.AgentPrincipal;
 import com.example.aikef.security.CustomerPrincipal;
@@ -31,19 +36,35 @@ public class MessageService {
     private final AgentService agentService;
     private final ReadRecordService readRecordService;
     private final WorkflowExecutionLogRepository workflowExecutionLogRepository;
+    private final WorkflowExecutionLogDetailRepository workflowExecutionLogDetailRepository;
+    private final SessionActivityWriter sessionActivityWriter;
 
     public MessageService(MessageRepository messageRepository,
                          ChatSessionService chatSessionService,
                          AgentService agentService,
                          @Lazy ReadRecordService readRecordService,
-                         WorkflowExecutionLogRepository workflowExecutionLogRepository) {
+                         WorkflowExecutionLogRepository workflowExecutionLogRepository,
+                         WorkflowExecutionLogDetailRepository workflowExecutionLogDetailRepository,
+                         SessionActivityWriter sessionActivityWriter) {
         this.messageRepository = messageRepository;
         this.chatSessionService = chatSessionService;
         this.agentService = agentService;
         this.readRecordService = readRecordService;
         this.workflowExecutionLogRepository = workflowExecutionLogRepository;
+        this.workflowExecutionLogDetailRepository = workflowExecutionLogDetailRepository;
+        this.sessionActivityWriter = sessionActivityWriter;
     }
 
+    /**
+     * 游标分页每页最大条数
+     */
+    private static final int MAX_CURSOR_PAGE_SIZE = 200;
+
+    /**
+     * 历史消息中不返回的发送者类型
+     */
+    private static final List<SenderType> EXCLUDED_SENDER_TYPES = List.of(SenderType.TOOL);
+
     /**
      * 获取群组历史消息
      * 根据调用者身份返回不同的内容：
@@ -54,41 +75,142 @@ public class MessageService {
                                                    AgentPrincipal agentPrincipal,
                                                    CustomerPrincipal customerPrincipal,
                                                    Pageable pageable) {
-        // 验证权限
+        checkSessionMember(sessionId, agentPrincipal, customerPrincipal);
+        
+        boolean isAgent = agentPrincipal != null;
+        boolean isCustomer = customerPrincipal != null;
+        UUID currentUserId = isAgent ? agentPrincipal.getId()
+                : customerPrincipal != null ? customerPrincipal.getId() : null;
+
+        // 客户只能看到非内部消息
+        // 按创建时间倒序查询，最新的消息在前（已归档的更早消息排在热表消息之后）
+        Page<Message> messages = messageRepository.findHistory(sessionId, EXCLUDED_SENDER_TYPES, !isCustomer, pageable);
+
+        // 整页消息的工作流执行日志一次查出
+        Map<UUID, Map<String, Object>> workflowInfos = isAgent
+                ? loadWorkflowDetails(messages.getContent())
+                : Map.of();
+        
+        return messages.map(message -> toMessageDto(message, isAgent, currentUserId,
+                workflowInfos.get(message.getId())));
+    }
+
+    /**
+     * 游标分页获取历史消息（按 created_at、id 倒序）
+     * 与 getSessionMessages 可见范围相同；每页耗时与翻页深度无关，
+     * 工作流执行信息只返回摘要，详情按需查询
+     *
+     * @param cursor 上一页返回的 nextCursor，为空表示第一页
+     * @param size   每页条数
+     */
+    public MessageCursorPage getSessionMessagesByCursor(UUID sessionId,
+                                                        AgentPrincipal agentPrincipal,
+                                                        CustomerPrincipal customerPrincipal,
+                                                        String cursor,
+                                                        int size) {
+        checkSessionMember(sessionId, agentPrincipal, customerPrincipal);
+
+        boolean isAgent = agentPrincipal != null;
+        UUID currentUserId = isAgent ? agentPrincipal.getId()
+                : customerPrincipal != null ? customerPrincipal.getId() : null;
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        MessageCursor position = MessageCursor.decode(cursor);
+
+        // 多取一条判断是否还有下一页（热表不足时自动接着读归档表）
+        List<Message> messages = messageRepository.findHistoryPage(sessionId, EXCLUDED_SENDER_TYPES, isAgent,
+                position != null ? position.createdAt() : null, position != null ? position.id() : null,
+                pageSize + 1);
+        boolean hasMore = messages.size() > pageSize;
+        if (hasMore) {
+            messages = messages.subList(0, pageSize);
+        }
+
+        Map<UUID, Map<String, Object>> workflowInfos = isAgent ? loadWorkflowSummaries(messages) : Map.of();
+        List<ChatMessageDto> dtos = messages.stream()
+                .map(message -> toMessageDto(message, isAgent, currentUserId, workflowInfos.get(message.getId())))
+                .toList();
+
+        String nextCursor = null;
+        if (hasMore) {
+            Message last = messages.get(messages.size() - 1);
+            nextCursor = new MessageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new MessageCursorPage(dtos, nextCursor, hasMore);
+    }
+
+    private void checkSessionMember(UUID sessionId, AgentPrincipal agentPrincipal, CustomerPrincipal customerPrincipal) {
         UUID agentId = agentPrincipal != null ? agentPrincipal.getId() : null;
         UUID customerId = customerPrincipal != null ? customerPrincipal.getId() : null;
         
         if (!chatSessionService.isSessionMember(sessionId, agentId, customerId)) {
             throw new SecurityException("无权访问此会话的消息");
         }
-        
-        boolean isAgent = agentPrincipal != null;
-        boolean isCustomer = customerPrincipal != null;
-        UUID currentUserId = isAgent ? agentId : customerId;
-        
-        ChatSession session = chatSessionService.getSession(sessionId);
-        
-        // 排除的消息类型
-        List<SenderType> excludedTypes = List.of(SenderType.TOOL);
+    }
 
-        // 客户只能看到非内部消息
-        // 按创建时间倒序查询，最新的消息在前
-        Page<Message> messages;
-        if (isCustomer) {
-            messages = messageRepository.findBySession_IdAndInternalFalseAndSenderTypeNotInOrderByCreatedAtDesc(
-                    sessionId, excludedTypes, pageable);
-        } else {
-            messages = messageRepository.findBySession_IdAndSenderTypeNotInOrderByCreatedAtDesc(
-                    sessionId, excludedTypes, pageable);
+    /**
+     * 批量加载消息关联的工作流执行日志（含节点详情）
+     */
+    private Map<UUID, Map<String, Object>> loadWorkflowDetails(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return Map.of();
         }
-        
-        return messages.map(message -> toMessageDto(message, isAgent, currentUserId));
+        List<WorkflowExecutionLog> logs = workflowExecutionLogRepository.findByMessageIdIn(
+                messages.stream().map(Message::getId).toList());
+        if (logs.isEmpty()) {
+            return Map.of();
+        }
+        // 执行详情单独存放，按日志 ID 一次查出
+        Map<UUID, WorkflowExecutionLogDetail> details = workflowExecutionLogDetailRepository
+                .findAllById(logs.stream().map(WorkflowExecutionLog::getId).toList()).stream()
+                .collect(Collectors.toMap(WorkflowExecutionLogDetail::getId, detail -> detail));
+        Map<UUID, Map<String, Object>> result = new HashMap<>();
+        for (WorkflowExecutionLog log : logs) {
+            WorkflowExecutionLogDetail detail = details.get(log.getId());
+            Map<String, Object> workflowInfo = new HashMap<>();
+            workflowInfo.put("executionId", log.getId());
+            workflowInfo.put("status", log.getStatus());
+            workflowInfo.put("nodeDetails", detail != null ? detail.getNodeDetails() : null);
+            workflowInfo.put("toolExecutionChain", detail != null ? detail.getToolExecutionChain() : null);
+            workflowInfo.put("errorMessage", log.getErrorMessage());
+            workflowInfo.put("durationMs", log.getDurationMs());
+            if (log.getWorkflow() != null) {
+                workflowInfo.put("workflowId", log.getWorkflow().getId());
+                workflowInfo.put("workflowName", log.getWorkflow().getName());
+            }
+            result.putIfAbsent(log.getMessageId(), workflowInfo);
+        }
+        return result;
+    }
+
+    /**
+     * 批量加载消息关联的工作流执行摘要
+     */
+    private Map<UUID, Map<String, Object>> loadWorkflowSummaries(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, Map<String, Object>> result = new HashMap<>();
+        for (WorkflowExecutionSummary summary : workflowExecutionLogRepository.findSummariesByMessageIdIn(
+                messages.stream().map(Message::getId).toList())) {
+            Map<String, Object> workflowInfo = new HashMap<>();
+            workflowInfo.put("executionId", summary.executionId());
+            workflowInfo.put("status", summary.status());
+            workflowInfo.put("errorMessage", summary.errorMessage());
+            workflowInfo.put("durationMs", summary.durationMs());
+            if (summary.workflowId() != null) {
+                workflowInfo.put("workflowId", summary.workflowId());
+                workflowInfo.put("workflowName", summary.workflowName());
+            }
+            result.putIfAbsent(summary.messageId(), workflowInfo);
+        }
+        return result;
     }
 
     /**
      * 转换消息为 DTO
      */
-    private ChatMessageDto toMessageDto(Message message, boolean isAgent, UUID currentUserId) {
+    private ChatMessageDto toMessageDto(Message message, boolean isAgent, UUID currentUserId,
+                                        Map<String, Object> workflowInfo) {
         // 判断是否是本人发送的
         boolean isMine = false;
         if (message.getSenderType() == SenderType.AGENT && message.getAgent() != null) {
@@ -103,21 +225,8 @@ public class MessageService {
         if (isAgent) {
             agentMetadata = message.getAgentMetadata() != null ? new HashMap<>(message.getAgentMetadata()) : new HashMap<>();
 
-            // 尝试获取关联的工作流执行日志
-            Optional<WorkflowExecutionLog> logOpt = workflowExecutionLogRepository.findByMessageId(message.getId());
-            if (logOpt.isPresent()) {
-                WorkflowExecutionLog log = logOpt.get();
-                Map<String, Object> workflowInfo = new HashMap<>();
-                workflowInfo.put("executionId", log.getId());
-                workflowInfo.put("status", log.getStatus());
-                workflowInfo.put("nodeDetails", log.getNodeDetails());
-                workflowInfo.put("toolExecutionChain", log.getToolExecutionChain());
-                workflowInfo.put("errorMessage", log.getErrorMessage());
-                workflowInfo.put("durationMs", log.getDurationMs());
-                if (log.getWorkflow() != null) {
-                    workflowInfo.put("workflowId", log.getWorkflow().getId());
-                    workflowInfo.put("workflowName", log.getWorkflow().getName());
-                }
+            // 关联的工作流执行日志（由调用方按页批量查出）
+            if (workflowInfo != null) {
                 agentMetadata.put("workflowExecution", workflowInfo);
             }
 
@@ -182,8 +291,8 @@ public class MessageService {
         
         Message saved = messageRepository.save(message);
         
-        // 更新会话最后活跃时间
-        chatSessionService.updateLastActiveTime(sessionId);
+        // 更新会话最后活跃时间和最后消息快照
+        sessionActivityWriter.messageSaved(saved);
         
         // 客服发送消息时，更新已读记录时间（因为发送消息意味着已经看过之前的消息）
         if (agentId != null && senderType == SenderType.AGENT) {
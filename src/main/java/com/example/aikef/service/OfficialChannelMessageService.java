@@ -4,9 +4,7 @@ import com.example.aikef.dto.request.WebhookMessageRequest;
 import com.example.aikef.model.ExternalPlatform;
 import com.example.aikef.model.OfficialChannelConfig;
 import com.example.aikef.model.enums.SenderType;
-import com.example.aikef.repository.ExternalPlatformRepository;
 import com.example.aikef.repository.ExternalSessionMappingRepository;
-import com.example.aikef.repository.OfficialChannelConfigRepository;
 import com.example.aikef.service.channel.wechat.WechatOfficialAdapter;
 import com.example.aikef.service.channel.line.LineOfficialAdapter;
 import com.example.aikef.service.channel.whatsapp.WhatsappOfficialAdapter;
@@ -39,9 +37,8 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class OfficialChannelMessageService {
 
-    private final OfficialChannelConfigRepository configRepository;
+    private final OfficialChannelService officialChannelService;
     private final ExternalSessionMappingRepository mappingRepository;
-    private final ExternalPlatformRepository platformRepository;
     private final ExternalPlatformService externalPlatformService;
     private final ObjectMapper objectMapper;
     
@@ -121,8 +118,7 @@ public class OfficialChannelMessageService {
      */
     @Transactional
     public ResponseEntity<Map<String, Object>> handleLineMessage(String body, String signature) {
-        OfficialChannelConfig config = configRepository
-                .findByChannelTypeAndEnabledTrue(OfficialChannelConfig.ChannelType.LINE_OFFICIAL)
+        OfficialChannelConfig config = officialChannelService.getEnabledConfig(OfficialChannelConfig.ChannelType.LINE_OFFICIAL)
                 .orElse(null);
         
         if (config == null) {
@@ -184,8 +180,7 @@ public class OfficialChannelMessageService {
      */
     @Transactional
     public ResponseEntity<Map<String, Object>> handleWhatsappMessage(String body, String signature) {
-        OfficialChannelConfig config = configRepository
-                .findByChannelTypeAndEnabledTrue(OfficialChannelConfig.ChannelType.WHATSAPP_OFFICIAL)
+        OfficialChannelConfig config = officialChannelService.getEnabledConfig(OfficialChannelConfig.ChannelType.WHATSAPP_OFFICIAL)
                 .orElse(null);
         
         if (config == null) {
@@ -309,7 +304,7 @@ public class OfficialChannelMessageService {
         }
         
         // 获取官方渠道配置
-        var configOpt = configRepository.findByChannelTypeAndEnabledTrue(channelType);
+        var configOpt = officialChannelService.getEnabledConfig(channelType);
         if (configOpt.isEmpty()) {
             log.warn("官方渠道未配置或未启用: channelType={}", channelType);
             return false;
@@ -365,8 +360,7 @@ public class OfficialChannelMessageService {
             String nonce,
             String echostr
     ) {
-        OfficialChannelConfig config = configRepository
-                .findByChannelTypeAndEnabledTrue(channelType)
+        OfficialChannelConfig config = officialChannelService.getEnabledConfig(channelType)
                 .orElse(null);
 
         if (config == null) {
@@ -416,8 +410,7 @@ public class OfficialChannelMessageService {
             String timestamp,
             String nonce
     ) {
-        OfficialChannelConfig config = configRepository
-                .findByChannelTypeAndEnabledTrue(channelType)
+        OfficialChannelConfig config = officialChannelService.getEnabledConfig(channelType)
                 .orElse(null);
 
         if (config == null) {
@@ -535,7 +528,7 @@ public class OfficialChannelMessageService {
     }
 
     private void ensureExternalPlatformExists(String platformName, OfficialChannelConfig config) {
-        if (platformRepository.existsByName(platformName)) {
+        if (externalPlatformService.platformExists(platformName)) {
             return;
         }
 
@@ -558,14 +551,13 @@ public class OfficialChannelMessageService {
         });
         platform.setEnabled(true);
         platform.setWebhookSecret(config.getWebhookSecret());
-        platformRepository.save(platform);
+        externalPlatformService.createPlatform(platform);
     }
 
     // ==================== Facebook / Instagram ====================
 
     public ResponseEntity<String> verifyFacebookWebhook(OfficialChannelConfig.ChannelType channelType, String mode, String token, String challenge) {
-        OfficialChannelConfig config = configRepository
-                .findByChannelTypeAndEnabledTrue(channelType)
+        OfficialChannelConfig config = officialChannelService.getEnabledConfig(channelType)
                 .orElse(null);
 
         if (config == null) {
@@ -580,8 +572,7 @@ public class OfficialChannelMessageService {
 
     @Transactional
     public ResponseEntity<String> handleFacebookMessage(OfficialChannelConfig.ChannelType channelType, String body, String signature) {
-        OfficialChannelConfig config = configRepository
-                .findByChannelTypeAndEnabledTrue(channelType)
+        OfficialChannelConfig config = officialChannelService.getEnabledConfig(channelType)
                 .orElse(null);
 
         if (config == null) return ResponseEntity.badRequest().body("Config not found");
@@ -604,8 +595,7 @@ public class OfficialChannelMessageService {
 
     @Transactional
     public ResponseEntity<String> handleTelegramMessage(String body) {
-        OfficialChannelConfig config = configRepository
-                .findByChannelTypeAndEnabledTrue(OfficialChannelConfig.ChannelType.TELEGRAM)
+        OfficialChannelConfig config = officialChannelService.getEnabledConfig(OfficialChannelConfig.ChannelType.TELEGRAM)
                 .orElse(null);
 
         if (config == null) return ResponseEntity.badRequest().body("Config not found");
@@ -624,8 +614,7 @@ public class OfficialChannelMessageService {
     // ==================== Twitter ====================
 
     public ResponseEntity<Map<String, String>> verifyTwitterCrc(String crcToken) {
-        OfficialChannelConfig config = configRepository
-                .findByChannelTypeAndEnabledTrue(OfficialChannelConfig.ChannelType.TWITTER)
+        OfficialChannelConfig config = officialChannelService.getEnabledConfig(OfficialChannelConfig.ChannelType.TWITTER)
                 .orElse(null);
 
         if (config == null) return ResponseEntity.badRequest().build();
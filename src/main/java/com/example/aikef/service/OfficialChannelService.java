@@ -25,6 +25,7 @@ public class OfficialChannelService {
 
     private final OfficialChannelConfigRepository configRepository;
     private final ObjectMapper objectMapper;
+    private final ConfigEntityCache configEntityCache;
 
     /**
      * 保存或更新官方渠道配置
@@ -77,6 +78,7 @@ public class OfficialChannelService {
         // 设置Webhook URL（系统固定URL）
         config.setWebhookUrl("/api/v1/official-channels/" + channelType.name().toLowerCase() + "/webhook");
 
+        configEntityCache.invalidate(ConfigEntityCache.OFFICIAL_CHANNEL);
         return configRepository.save(config);
     }
 
@@ -88,10 +90,11 @@ public class OfficialChannelService {
     }
 
     /**
-     * 获取启用的官方渠道配置
+     * 获取启用的官方渠道配置（收发消息时使用，走配置缓存，返回的实体只读）
      */
     public Optional<OfficialChannelConfig> getEnabledConfig(OfficialChannelConfig.ChannelType channelType) {
-        return configRepository.findByChannelTypeAndEnabledTrue(channelType);
+        return configEntityCache.get(ConfigEntityCache.OFFICIAL_CHANNEL, channelType,
+                () -> configRepository.findByChannelTypeAndEnabledTrue(channelType));
     }
 
     /**
@@ -110,6 +113,7 @@ public class OfficialChannelService {
                 .orElseThrow(() -> new IllegalArgumentException("渠道配置不存在: " + channelType));
         
         config.setEnabled(enabled);
+        configEntityCache.invalidate(ConfigEntityCache.OFFICIAL_CHANNEL);
         return configRepository.save(config);
     }
 
@@ -120,6 +124,7 @@ public class OfficialChannelService {
     public void deleteConfig(OfficialChannelConfig.ChannelType channelType) {
         configRepository.findByChannelType(channelType)
                 .ifPresent(configRepository::delete);
+        configEntityCache.invalidate(ConfigEntityCache.OFFICIAL_CHANNEL);
     }
 
     /**
@@ -0,0 +1,447 @@
+package com.example.aikef.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 出站 HTTP 客户端
+ * 基于共享的 JDK HttpClient（连接复用、HTTPS 下协商 HTTP/2），提供：
+ * - 同步 / 异步 / 流式读取响应调用，语义与 RestTemplate.exchange 一致（4xx/5xx 抛 HttpStatusCodeException，网络异常抛 ResourceAccessException）
+ * - 按目标主机限制并发请求数，避免单个慢接口占满连接；并发已满时异步请求排队等待，不占用线程
+ * - 按目标主机的请求耗时、并发数与排队数指标：http.client.outbound.requests / http.client.outbound.active / http.client.outbound.waiting
+ * - 目标主机来自工具配置等外部输入，长时间空闲的主机限流器及其指标定期回收
+ */
+@Slf4j
+@Component
+public class OutboundHttpClient {
+
+    // JDK HttpClient 不允许手动设置的请求头
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private final HttpClient httpClient;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${http.client.max-requests-per-host:20}")
+    private int maxRequestsPerHost;
+
+    // 主机并发已满时等待的最长时间
+    @Value("${http.client.acquire-timeout-millis:5000}")
+    private long acquireTimeoutMillis;
+
+    @Value("${http.client.read-timeout-millis:30000}")
+    private long defaultTimeoutMillis;
+
+    // 主机空闲超过该时间后回收其限流器和指标
+    @Value("${http.client.host-idle-evict-millis:600000}")
+    private long hostIdleEvictMillis;
+
+    // 主机并发已满时异步请求在各自主机的队列中排队，不占用线程等待
+    private final Map<String, HostRequestLimiter> hostPermits = new ConcurrentHashMap<>();
+
+    // 流式读取响应体（阻塞读），不占用 HttpClient 的内部线程
+    private final ExecutorService bodyReader = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "http-client-body-reader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public OutboundHttpClient(HttpClient httpClient, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.httpClient = httpClient;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    /**
+     * 同步请求
+     *
+     * @param timeout 本次请求的响应超时，为 null 时使用默认值
+     */
+    public ResponseEntity<String> exchange(String url, HttpMethod method, HttpHeaders headers, String body, Duration timeout) {
+        try {
+            return exchangeAsync(url, method, headers, body, timeout).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 异步请求，不占用调用线程等待响应
+     */
+    public CompletableFuture<ResponseEntity<String>> exchangeAsync(String url, HttpMethod method, HttpHeaders headers,
+                                                                   String body, Duration timeout) {
+        return execute(url, method, headers, body, timeout,
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8), this::toResponseEntity, null);
+    }
+
+    /**
+     * 异步请求，以流的方式读取响应体，适合只需要响应中一小部分内容的大响应
+     * 4xx/5xx 与 exchangeAsync 相同抛出 HttpStatusCodeException；reader 在独立线程中执行，
+     * 读取完成（或抛出异常）后才释放主机并发许可
+     */
+    public <T> CompletableFuture<ResponseEntity<T>> exchangeStreamAsync(String url, HttpMethod method, HttpHeaders headers,
+                                                                        String body, Duration timeout, BodyReader<T> reader) {
+        return execute(url, method, headers, body, timeout,
+                HttpResponse.BodyHandlers.ofInputStream(), response -> readStream(response, reader), bodyReader);
+    }
+
+    /**
+     * 响应流读取函数
+     */
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(InputStream in) throws IOException;
+    }
+
+    /**
+     * RestTemplate 拦截器：对共享 RestTemplate 的调用同样应用主机并发限制和指标
+     * 许可在响应关闭（响应体读取完成）时释放，与异步调用在转换完成后释放一致
+     */
+    public ClientHttpRequestInterceptor interceptor() {
+        return (request, body, execution) -> {
+            String host = hostKey(request.getURI());
+            HostRequestLimiter permits = acquire(host);
+            long start = System.nanoTime();
+            ClientHttpResponse response;
+            int status;
+            try {
+                response = execution.execute(request, body);
+                status = response.getStatusCode().value();
+            } catch (IOException | RuntimeException e) {
+                permits.release();
+                record(host, request.getMethod().name(), -1, start);
+                throw e;
+            }
+            return new PermitReleasingResponse(response, () -> {
+                permits.release();
+                record(host, request.getMethod().name(), status, start);
+            });
+        };
+    }
+
+    /**
+     * @param converterExecutor 转换响应的线程池，为 null 时在响应完成的线程上转换
+     */
+    private <B, R> CompletableFuture<R> execute(String url, HttpMethod method, HttpHeaders headers, String body,
+                                                Duration timeout, HttpResponse.BodyHandler<B> handler,
+                                                Function<HttpResponse<B>, R> converter, Executor converterExecutor) {
+        URI uri = URI.create(url);
+        String host = hostKey(uri);
+        HttpRequest request = buildRequest(uri, method, headers, body, timeout);
+        PermitRequest permit = requestPermit(host);
+        HostRequestLimiter permits = permit.permits();
+
+        return acquireAsync(permit.acquired(), host)
+                .thenCompose(ignored -> send(request, handler, converter, converterExecutor, permits, host, method))
+                .handle((result, error) -> {
+                    if (error != null) {
+                        throw translate(error, method, url);
+                    }
+                    return result;
+                });
+    }
+
+    private <B, R> CompletableFuture<R> send(HttpRequest request, HttpResponse.BodyHandler<B> handler,
+                                             Function<HttpResponse<B>, R> converter, Executor converterExecutor,
+                                             HostRequestLimiter permits, String host, HttpMethod method) {
+        long start = System.nanoTime();
+        AtomicInteger status = new AtomicInteger(-1);
+        CompletableFuture<HttpResponse<B>> sent;
+        try {
+            sent = httpClient.sendAsync(request, handler);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        Function<HttpResponse<B>, R> convert = response -> {
+            status.set(response.statusCode());
+            return converter.apply(response);
+        };
+        CompletableFuture<R> converted = converterExecutor != null
+                ? sent.thenApplyAsync(convert, converterExecutor)
+                : sent.thenApply(convert);
+        return converted.whenComplete((result, error) -> {
+            permits.release();
+            record(host, method.name(), status.get(), start);
+        });
+    }
+
+    private HttpRequest buildRequest(URI uri, HttpMethod method, HttpHeaders headers, String body, Duration timeout) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(timeout != null ? timeout : Duration.ofMillis(defaultTimeoutMillis))
+                .method(method.name(), body != null
+                        ? HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)
+                        : HttpRequest.BodyPublishers.noBody());
+        if ("http".equalsIgnoreCase(uri.getScheme())) {
+            // 明文连接不尝试 h2c 升级，部分服务端不兼容
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        if (headers != null) {
+            headers.forEach((name, values) -> {
+                if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                    values.forEach(value -> builder.header(name, value));
+                }
+            });
+        }
+        return builder.build();
+    }
+
+    private ResponseEntity<String> toResponseEntity(HttpResponse<String> response) {
+        HttpHeaders responseHeaders = responseHeaders(response);
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        byte[] body = response.body() != null ? response.body().getBytes(StandardCharsets.UTF_8) : null;
+        throwOnError(status, responseHeaders, body);
+        return new ResponseEntity<>(response.body(), responseHeaders, status);
+    }
+
+    private <T> ResponseEntity<T> readStream(HttpResponse<InputStream> response, BodyReader<T> reader) {
+        HttpHeaders responseHeaders = responseHeaders(response);
+        HttpStatusCode status = HttpStatusCode.valueOf(response.statusCode());
+        try (InputStream in = response.body()) {
+            if (status.isError()) {
+                // 错误响应通常很小，完整读取后按 exchange 的方式抛出
+                throwOnError(status, responseHeaders, in.readAllBytes());
+            }
+            return new ResponseEntity<>(reader.read(in), responseHeaders, status);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpHeaders responseHeaders(HttpResponse<?> response) {
+        HttpHeaders responseHeaders = new HttpHeaders();
+        response.headers().map().forEach((name, values) -> {
+            // HTTP/2 伪头部
+            if (!name.startsWith(":")) {
+                responseHeaders.addAll(name, values);
+            }
+        });
+        return responseHeaders;
+    }
+
+    private void throwOnError(HttpStatusCode status, HttpHeaders responseHeaders, byte[] body) {
+        if (status.is4xxClientError()) {
+            throw HttpClientErrorException.create(status, "", responseHeaders, body, StandardCharsets.UTF_8);
+        }
+        if (status.is5xxServerError()) {
+            throw HttpServerErrorException.create(status, "", responseHeaders, body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private RuntimeException translate(Throwable error, HttpMethod method, String url) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof UncheckedIOException uncheckedIOException) {
+            cause = uncheckedIOException.getCause();
+        }
+        if (cause instanceof IOException ioException) {
+            String message = ioException.getMessage() != null ? ioException.getMessage() : ioException.getClass().getSimpleName();
+            return new ResourceAccessException("I/O error on " + method + " request for \"" + url + "\": " + message, ioException);
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException(cause.getMessage(), cause);
+    }
+
+    /**
+     * 同步获取许可（RestTemplate 拦截器在调用线程上等待）
+     *
+     * @return 持有许可的限流器
+     */
+    private HostRequestLimiter acquire(String host) {
+        PermitRequest permit = requestPermit(host);
+        HostRequestLimiter permits = permit.permits();
+        CompletableFuture<Void> waiter = permit.acquired();
+        try {
+            waiter.get();
+            return permits;
+        } catch (InterruptedException e) {
+            // 放弃排队；许可已转交给本线程时归还
+            if (!waiter.cancel(false) && !waiter.isCompletedExceptionally()) {
+                permits.release();
+            }
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("等待目标主机连接被中断: host=" + host);
+        } catch (ExecutionException e) {
+            throw new ResourceAccessException("目标主机并发请求已满，等待超时: host=" + host);
+        }
+    }
+
+    private CompletableFuture<Void> acquireAsync(CompletableFuture<Void> acquired, String host) {
+        return acquired.exceptionally(error -> {
+            throw new ResourceAccessException("目标主机并发请求已满，等待超时: host=" + host);
+        });
+    }
+
+    /**
+     * 向主机的限流器申请许可；限流器恰好被空闲回收时取新建的
+     */
+    private PermitRequest requestPermit(String host) {
+        while (true) {
+            HostRequestLimiter permits = permitsFor(host);
+            CompletableFuture<Void> acquired = permits.acquire(acquireTimeoutMillis);
+            if (acquired != null) {
+                return new PermitRequest(permits, acquired);
+            }
+        }
+    }
+
+    private record PermitRequest(HostRequestLimiter permits, CompletableFuture<Void> acquired) {
+    }
+
+    private HostRequestLimiter permitsFor(String host) {
+        return hostPermits.computeIfAbsent(host, key -> {
+            HostRequestLimiter limiter = new HostRequestLimiter(maxRequestsPerHost);
+            MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+            if (registry != null) {
+                Gauge.builder("http.client.outbound.active", limiter, HostRequestLimiter::activeCount)
+                        .tag("host", key)
+                        .description("目标主机当前并发请求数")
+                        .register(registry);
+                Gauge.builder("http.client.outbound.waiting", limiter, HostRequestLimiter::waitingCount)
+                        .tag("host", key)
+                        .description("目标主机排队等待的请求数")
+                        .register(registry);
+            }
+            return limiter;
+        });
+    }
+
+    /**
+     * 回收空闲超过 host-idle-evict-millis 的主机限流器，同时移除该主机的指标
+     * 回收在 ConcurrentHashMap 的 compute 中进行，同一主机的新请求会等待回收完成后创建新的限流器
+     */
+    @Scheduled(fixedDelayString = "${http.client.host-evict-interval-millis:60000}")
+    public void evictIdleHosts() {
+        long idleBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(hostIdleEvictMillis);
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        for (String host : hostPermits.keySet()) {
+            hostPermits.computeIfPresent(host, (key, limiter) -> {
+                if (!limiter.retireIfIdleSince(idleBefore)) {
+                    return limiter;
+                }
+                if (registry != null) {
+                    registry.getMeters().stream()
+                            .filter(meter -> meter.getId().getName().startsWith("http.client.outbound.")
+                                    && key.equals(meter.getId().getTag("host")))
+                            .forEach(registry::remove);
+                }
+                log.debug("回收空闲主机限流器: host={}", key);
+                return null;
+            });
+        }
+    }
+
+    int trackedHostCount() {
+        return hostPermits.size();
+    }
+
+    private void record(String host, String method, int status, long startNanos) {
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        Timer.builder("http.client.outbound.requests")
+                .tag("host", host)
+                .tag("method", method)
+                .tag("status", status > 0 ? String.valueOf(status) : "IO_ERROR")
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private String hostKey(URI uri) {
+        String host = uri.getHost() != null ? uri.getHost() : "unknown";
+        return uri.getPort() > 0 ? host + ":" + uri.getPort() : host;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bodyReader.shutdownNow();
+    }
+
+    /**
+     * 关闭时释放主机许可的响应包装，RestTemplate 在读取（或丢弃）响应体后关闭响应
+     */
+    private static final class PermitReleasingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final Runnable onClose;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        PermitReleasingResponse(ClientHttpResponse delegate, Runnable onClose) {
+            this.delegate = delegate;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (closed.compareAndSet(false, true)) {
+                    onClose.run();
+                }
+            }
+        }
+    }
+}
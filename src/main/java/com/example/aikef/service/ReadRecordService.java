@@ -1,19 +1,11 @@
 package com.example.aikef.service;
 
-import com.example.aikef.model.Agent;
-import com.example.aikef.model.ChatSession;
-import com.example.aikef.model.ReadRecord;
-import com.example.aikef.repository.AgentMentionRepository;
-import com.example.aikef.repository.MessageRepository;
 import com.example.aikef.repository.ReadRecordRepository;
 import jakarta.persistence.EntityNotFoundException;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 已读记录服务
@@ -24,64 +16,34 @@ import java.util.stream.Collectors;
 public class ReadRecordService {
 
     private final ReadRecordRepository readRecordRepository;
-    private final MessageRepository messageRepository;
-    private final ChatSessionService chatSessionService;
-    private final AgentService agentService;
-    private final AgentMentionRepository agentMentionRepository;
+    private final UnreadCounterService unreadCounterService;
+    private final SessionActivityWriter sessionActivityWriter;
 
     public ReadRecordService(ReadRecordRepository readRecordRepository,
-                            MessageRepository messageRepository,
-                            @Lazy ChatSessionService chatSessionService,
-                            AgentService agentService,
-                            AgentMentionRepository agentMentionRepository) {
+                            UnreadCounterService unreadCounterService,
+                            SessionActivityWriter sessionActivityWriter) {
         this.readRecordRepository = readRecordRepository;
-        this.messageRepository = messageRepository;
-        this.chatSessionService = chatSessionService;
-        this.agentService = agentService;
-        this.agentMentionRepository = agentMentionRepository;
+        this.unreadCounterService = unreadCounterService;
+        this.sessionActivityWriter = sessionActivityWriter;
     }
 
     /**
      * 更新已读时间
-     * 当客服打开会话时调用
+     * 当客服打开会话、滚动消息时调用；同一会话的多次已读在写入窗口内合并为一次批量写入
      */
-    @Transactional
     public void updateReadTime(UUID sessionId, UUID agentId) {
-        ChatSession session = chatSessionService.findById(sessionId);
-        Agent agent = agentService.findById(agentId);
+        sessionActivityWriter.markRead(sessionId, agentId);
 
-        ReadRecord record = readRecordRepository
-                .findBySessionIdAndAgentId(sessionId, agentId)
-                .orElse(null);
-
-        if (record == null) {
-            // 创建新记录
-            record = new ReadRecord();
-            record.setSession(session);
-            record.setAgent(agent);
-        }
-
-        record.setLastReadTime(Instant.now());
-        readRecordRepository.save(record);
+        // 未读计数清零（提交后执行）
+        unreadCounterService.onRead(agentId, sessionId);
     }
 
     /**
      * 获取会话的未读消息数
-     * 计算逻辑: messages.created_at > read_record.last_read_time
+     * 计算逻辑: messages.created_at > read_record.last_read_time，由 UnreadCounterService 维护计数
      */
     public int getUnreadCount(UUID sessionId, UUID agentId) {
-        Optional<ReadRecord> recordOpt = readRecordRepository
-                .findBySessionIdAndAgentId(sessionId, agentId);
-
-        if (recordOpt.isEmpty()) {
-            // 没有已读记录,所有消息都是未读的
-            return (int) messageRepository.countBySession_Id(sessionId);
-        }
-
-        Instant lastReadTime = recordOpt.get().getLastReadTime();
-        
-        // 统计在最后已读时间之后创建的消息数
-        return (int) messageRepository.countBySession_IdAndCreatedAtAfter(sessionId, lastReadTime);
+        return unreadCounterService.getMessageUnreadCounts(agentId, List.of(sessionId)).getOrDefault(sessionId, 0);
     }
 
     /**
@@ -93,51 +55,19 @@ public class ReadRecordService {
             return Collections.emptyMap();
         }
 
-        // 批量查询已读记录
-        List<ReadRecord> records = readRecordRepository
-                .findByAgentIdAndSessionIdIn(agentId, sessionIds);
-
-        Map<UUID, Instant> lastReadTimeMap = records.stream()
-                .collect(Collectors.toMap(
-                    r -> r.getSession().getId(),
-                    ReadRecord::getLastReadTime
-                ));
-
-        // 批量计算未读数
-        Map<UUID, Integer> unreadCountMap = new HashMap<>();
-        for (UUID sessionId : sessionIds) {
-            Instant lastReadTime = lastReadTimeMap.get(sessionId);
-            
-            int unreadCount;
-            if (lastReadTime == null) {
-                // 没有已读记录,所有消息都未读
-                unreadCount = (int) messageRepository.countBySession_Id(sessionId);
-            } else {
-                // 统计最后已读时间之后的消息
-                unreadCount = (int) messageRepository.countBySession_IdAndCreatedAtAfter(
-                    sessionId, lastReadTime);
-            }
-            
-            unreadCountMap.put(sessionId, unreadCount);
-        }
-
-        return unreadCountMap;
+        return unreadCounterService.getMessageUnreadCounts(agentId, sessionIds);
     }
 
     /**
      * 获取客服的所有未读会话数量
      */
     public long getTotalUnreadSessions(UUID agentId) {
-        List<ReadRecord> records = readRecordRepository.findByAgentId(agentId);
-        
-        return records.stream()
-                .filter(record -> {
-                    int unreadCount = getUnreadCount(
-                        record.getSession().getId(), 
-                        agentId
-                    );
-                    return unreadCount > 0;
-                })
+        List<UUID> sessionIds = readRecordRepository.findByAgentId(agentId).stream()
+                .map(record -> record.getSession().getId())
+                .toList();
+
+        return getUnreadCountBatch(sessionIds, agentId).values().stream()
+                .filter(unreadCount -> unreadCount > 0)
                 .count();
     }
 
@@ -150,19 +80,7 @@ public class ReadRecordService {
      * @return 未读@数量
      */
     public int getMentionUnreadCount(UUID sessionId, UUID agentId) {
-        Optional<ReadRecord> recordOpt = readRecordRepository
-                .findBySessionIdAndAgentId(sessionId, agentId);
-
-        if (recordOpt.isEmpty()) {
-            // 没有已读记录，返回该会话中该客服所有的@数量
-            return (int) agentMentionRepository.countByAgent_IdAndSession_Id(agentId, sessionId);
-        }
-
-        Instant lastReadTime = recordOpt.get().getLastReadTime();
-        
-        // 统计创建时间大于最后阅读时间的@数量
-        return (int) agentMentionRepository.countByAgentIdAndSessionIdAndCreatedAtAfter(
-                agentId, sessionId, lastReadTime);
+        return unreadCounterService.getMentionUnreadCounts(agentId, List.of(sessionId)).getOrDefault(sessionId, 0);
     }
 
     /**
@@ -177,34 +95,6 @@ public class ReadRecordService {
             return Collections.emptyMap();
         }
 
-        // 批量查询已读记录
-        List<ReadRecord> records = readRecordRepository
-                .findByAgentIdAndSessionIdIn(agentId, sessionIds);
-
-        Map<UUID, Instant> lastReadTimeMap = records.stream()
-                .collect(Collectors.toMap(
-                    r -> r.getSession().getId(),
-                    ReadRecord::getLastReadTime
-                ));
-
-        // 计算每个会话的未读@数量
-        Map<UUID, Integer> unreadCountMap = new HashMap<>();
-        for (UUID sessionId : sessionIds) {
-            Instant lastReadTime = lastReadTimeMap.get(sessionId);
-            
-            int unreadCount;
-            if (lastReadTime == null) {
-                // 没有已读记录，返回该会话中所有的@数量
-                unreadCount = (int) agentMentionRepository.countByAgent_IdAndSession_Id(agentId, sessionId);
-            } else {
-                // 统计创建时间大于最后阅读时间的@数量
-                unreadCount = (int) agentMentionRepository.countByAgentIdAndSessionIdAndCreatedAtAfter(
-                        agentId, sessionId, lastReadTime);
-            }
-            
-            unreadCountMap.put(sessionId, unreadCount);
-        }
-
-        return unreadCountMap;
+        return unreadCounterService.getMentionUnreadCounts(agentId, sessionIds);
     }
 }
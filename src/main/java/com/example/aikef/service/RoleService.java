@@ -21,16 +21,18 @@ public class RoleService {
 
     private final RoleRepository roleRepository;
     private final EntityMapper entityMapper;
+    private final ConfigEntityCache configEntityCache;
 
-    public RoleService(RoleRepository roleRepository, EntityMapper entityMapper) {
+    public RoleService(RoleRepository roleRepository, EntityMapper entityMapper, ConfigEntityCache configEntityCache) {
         this.roleRepository = roleRepository;
         this.entityMapper = entityMapper;
+        this.configEntityCache = configEntityCache;
     }
 
     public List<RoleDto> listRoles() {
-        return roleRepository.findAll().stream()
+        return configEntityCache.get(ConfigEntityCache.ROLE, "all", () -> roleRepository.findAll().stream()
                 .map(entityMapper::toRoleDto)
-                .toList();
+                .toList());
     }
 
     @Transactional
@@ -50,6 +52,7 @@ public class RoleService {
         }
         
         Role saved = roleRepository.save(role);
+        configEntityCache.invalidate(ConfigEntityCache.ROLE);
         return entityMapper.toRoleDto(saved);
     }
 
@@ -62,6 +65,7 @@ public class RoleService {
         if (request.permissions() != null) {
             role.setPermissions(request.permissions());
         }
+        configEntityCache.invalidate(ConfigEntityCache.ROLE);
         return entityMapper.toRoleDto(role);
     }
 
@@ -72,5 +76,6 @@ public class RoleService {
         }
         // TODO: Check if any agent is using this role before deletion
         roleRepository.deleteById(roleId);
+        configEntityCache.invalidate(ConfigEntityCache.ROLE);
     }
 }
@@ -0,0 +1,263 @@
+package com.example.aikef.service;
+
+import com.example.aikef.model.ChatSession;
+import com.example.aikef.model.Message;
+import com.example.aikef.model.base.UuidV7Generator;
+import com.example.aikef.model.enums.SenderType;
+import com.example.aikef.saas.context.TenantContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 会话活跃时间 / 最后消息快照 / 已读时间的合并写入器
+ * 每条消息、每次滚动都会更新会话行和已读记录行，热点会话上行锁竞争严重。
+ * 这里按键（会话、会话+客服）在内存中合并，窗口内多次更新只保留最新值，
+ * 由定时任务在一个事务内用 JDBC 批量 UPDATE / UPSERT 写入（按键排序，多实例并发写入时加锁顺序一致）；
+ * 所有写入都带“只前进不后退”条件，多实例乱序刷新也不会覆盖更新的值；应用停止时写完剩余更新
+ * <p>
+ * 更新在调用方事务提交后才进入缓冲，回滚的消息不会影响会话；
+ * 关闭 {@code session.write-behind.enabled} 时每次更新立即写入
+ */
+@Slf4j
+@Component
+public class SessionActivityWriter {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static final String TOUCH_SESSION_SQL =
+            "UPDATE chat_sessions SET last_active_at = ?, updated_at = ? " +
+            "WHERE id = ? AND (last_active_at IS NULL OR last_active_at < ?)";
+
+    private static final String LAST_MESSAGE_SQL =
+            "UPDATE chat_sessions SET last_message_id = ?, last_message_preview = ?, last_message_sender = ?, " +
+            "last_message_at = ?, last_message_internal = ? " +
+            "WHERE id = ? AND (last_message_at IS NULL OR last_message_at <= ?)";
+
+    private static final String READ_RECORD_SQL =
+            "INSERT INTO read_records (id, session_id, agent_id, last_read_time, created_at, updated_at, tenant_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE last_read_time = GREATEST(last_read_time, VALUES(last_read_time)), " +
+            "updated_at = VALUES(updated_at)";
+
+    @Value("${session.write-behind.enabled:true}")
+    private boolean enabled;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentMap<UUID, SessionActivity> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ReadKey, ReadMark> reads = new ConcurrentHashMap<>();
+
+    public SessionActivityWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+    }
+
+    /**
+     * 更新会话最后活跃时间
+     */
+    public void touch(UUID sessionId) {
+        Instant now = Instant.now();
+        afterCommit(() -> sessions.merge(sessionId, new SessionActivity(now, null), SessionActivity::merge));
+    }
+
+    /**
+     * 消息已保存：更新会话最后活跃时间和最后消息快照
+     */
+    public void messageSaved(Message message) {
+        if (message == null || message.getSession() == null) {
+            return;
+        }
+        Instant now = Instant.now();
+        LastMessage lastMessage = new LastMessage(message.getId(), ChatSession.previewOf(message),
+                message.getSenderType(), message.getCreatedAt() != null ? message.getCreatedAt() : now,
+                message.isInternal());
+        UUID sessionId = message.getSession().getId();
+        afterCommit(() -> sessions.merge(sessionId, new SessionActivity(now, lastMessage), SessionActivity::merge));
+    }
+
+    /**
+     * 更新客服在会话中的已读时间（记录不存在时创建）
+     */
+    public void markRead(UUID sessionId, UUID agentId) {
+        ReadMark mark = new ReadMark(Instant.now(), TenantContext.getTenantId());
+        afterCommit(() -> reads.merge(new ReadKey(sessionId, agentId), mark, ReadMark::merge));
+    }
+
+    public int getPendingCount() {
+        return sessions.size() + reads.size();
+    }
+
+    /**
+     * 写入窗口内合并后的更新
+     */
+    @Scheduled(fixedDelayString = "${session.write-behind.flush-millis:1000}")
+    public void flush() {
+        Map<UUID, SessionActivity> sessionBatch = drain(sessions);
+        Map<ReadKey, ReadMark> readBatch = drain(reads);
+        if (sessionBatch.isEmpty() && readBatch.isEmpty()) {
+            return;
+        }
+        try {
+            write(sessionBatch, readBatch);
+        } catch (Exception e) {
+            // 整批失败（如会话已删除导致外键冲突）时逐条重试，只丢弃写不进去的更新
+            log.warn("批量写入会话活跃 / 已读时间失败，改为逐条写入: sessions={}, reads={}, error={}",
+                    sessionBatch.size(), readBatch.size(), e.getMessage());
+            sessionBatch.forEach((sessionId, activity) -> writeOne(Map.of(sessionId, activity), Map.of()));
+            readBatch.forEach((key, mark) -> writeOne(Map.of(), Map.of(key, mark)));
+        }
+    }
+
+    private void writeOne(Map<UUID, SessionActivity> sessionBatch, Map<ReadKey, ReadMark> readBatch) {
+        try {
+            write(sessionBatch, readBatch);
+        } catch (Exception e) {
+            log.error("写入会话活跃 / 已读时间失败，丢弃: sessions={}, reads={}, error={}",
+                    sessionBatch.keySet(), readBatch.keySet(), e.getMessage());
+        }
+    }
+
+    void write(Map<UUID, SessionActivity> sessionBatch, Map<ReadKey, ReadMark> readBatch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Instant now = Instant.now();
+            if (!sessionBatch.isEmpty()) {
+                List<Map.Entry<UUID, SessionActivity>> touches = new ArrayList<>(sessionBatch.entrySet());
+                jdbcTemplate.batchUpdate(TOUCH_SESSION_SQL, touches, touches.size(), (ps, entry) -> {
+                    setInstant(ps, 1, entry.getValue().lastActiveAt());
+                    setInstant(ps, 2, now);
+                    ps.setString(3, entry.getKey().toString());
+                    setInstant(ps, 4, entry.getValue().lastActiveAt());
+                });
+                List<Map.Entry<UUID, SessionActivity>> lastMessages = touches.stream()
+                        .filter(entry -> entry.getValue().lastMessage() != null)
+                        .toList();
+                if (!lastMessages.isEmpty()) {
+                    jdbcTemplate.batchUpdate(LAST_MESSAGE_SQL, lastMessages, lastMessages.size(), (ps, entry) -> {
+                        LastMessage message = entry.getValue().lastMessage();
+                        ps.setString(1, message.id() != null ? message.id().toString() : null);
+                        ps.setString(2, message.preview());
+                        ps.setString(3, message.sender() != null ? message.sender().name() : null);
+                        setInstant(ps, 4, message.createdAt());
+                        ps.setBoolean(5, message.internal());
+                        ps.setString(6, entry.getKey().toString());
+                        setInstant(ps, 7, message.createdAt());
+                    });
+                }
+            }
+            if (!readBatch.isEmpty()) {
+                List<Map.Entry<ReadKey, ReadMark>> rows = new ArrayList<>(readBatch.entrySet());
+                jdbcTemplate.batchUpdate(READ_RECORD_SQL, rows, rows.size(), (ps, entry) -> {
+                    ps.setString(1, UuidV7Generator.next().toString());
+                    ps.setString(2, entry.getKey().sessionId().toString());
+                    ps.setString(3, entry.getKey().agentId().toString());
+                    setInstant(ps, 4, entry.getValue().readAt());
+                    setInstant(ps, 5, now);
+                    setInstant(ps, 6, now);
+                    ps.setString(7, entry.getValue().tenantId());
+                });
+            }
+        });
+    }
+
+    /**
+     * 与 Hibernate 绑定 Instant 的方式一致（UTC 日历），保证与实体写入的时间列可比较
+     */
+    private static void setInstant(PreparedStatement ps, int index, Instant value) throws SQLException {
+        ps.setTimestamp(index, Timestamp.from(value), Calendar.getInstance(UTC));
+    }
+
+    /**
+     * 取出当前缓冲的全部更新（按键排序）；取出后到达的更新进入下一批
+     */
+    private static <K extends Comparable<K>, V> Map<K, V> drain(ConcurrentMap<K, V> pending) {
+        Map<K, V> batch = new TreeMap<>();
+        for (K key : pending.keySet()) {
+            V value = pending.remove(key);
+            if (value != null) {
+                batch.put(key, value);
+            }
+        }
+        return batch;
+    }
+
+    private void afterCommit(Runnable action) {
+        Runnable enqueue = enabled ? action : () -> {
+            action.run();
+            flush();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue.run();
+                }
+            });
+        } else {
+            enqueue.run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int pending = getPendingCount();
+        if (pending > 0) {
+            log.info("应用停止，写入剩余会话活跃 / 已读时间: count={}", pending);
+            flush();
+        }
+    }
+
+    record LastMessage(UUID id, String preview, SenderType sender, Instant createdAt, boolean internal) {
+    }
+
+    record SessionActivity(Instant lastActiveAt, LastMessage lastMessage) {
+
+        SessionActivity merge(SessionActivity other) {
+            Instant activeAt = lastActiveAt.isAfter(other.lastActiveAt) ? lastActiveAt : other.lastActiveAt;
+            LastMessage message = lastMessage;
+            if (message == null || (other.lastMessage != null
+                    && !other.lastMessage.createdAt().isBefore(message.createdAt()))) {
+                message = other.lastMessage != null ? other.lastMessage : message;
+            }
+            return new SessionActivity(activeAt, message);
+        }
+    }
+
+    record ReadKey(UUID sessionId, UUID agentId) implements Comparable<ReadKey> {
+
+        @Override
+        public int compareTo(ReadKey other) {
+            int result = sessionId.compareTo(other.sessionId);
+            return result != 0 ? result : agentId.compareTo(other.agentId);
+        }
+    }
+
+    record ReadMark(Instant readAt, String tenantId) {
+
+        ReadMark merge(ReadMark other) {
+            return other.readAt.isAfter(readAt) ? other : this;
+        }
+    }
+}
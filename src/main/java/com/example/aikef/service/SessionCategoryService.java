@@ -28,11 +28,14 @@ public class SessionCategoryService {
 
     private final SessionCategoryRepository sessionCategoryRepository;
     private final AgentRepository agentRepository;
+    private final ConfigEntityCache configEntityCache;
 
     public SessionCategoryService(SessionCategoryRepository sessionCategoryRepository,
-                                  AgentRepository agentRepository) {
+                                  AgentRepository agentRepository,
+                                  ConfigEntityCache configEntityCache) {
         this.sessionCategoryRepository = sessionCategoryRepository;
         this.agentRepository = agentRepository;
+        this.configEntityCache = configEntityCache;
     }
 
     /**
@@ -61,6 +64,7 @@ public class SessionCategoryService {
         category.setEnabled(true);
 
         SessionCategory saved = sessionCategoryRepository.save(category);
+        configEntityCache.invalidate(ConfigEntityCache.SESSION_CATEGORY);
         log.info("创建分类成功: id={}, name={}", saved.getId(), saved.getName());
 
         return toDto(saved);
@@ -103,6 +107,7 @@ public class SessionCategoryService {
         }
 
         SessionCategory updated = sessionCategoryRepository.save(category);
+        configEntityCache.invalidate(ConfigEntityCache.SESSION_CATEGORY);
         log.info("更新分类成功: id={}, name={}", updated.getId(), updated.getName());
 
         return toDto(updated);
@@ -116,6 +121,8 @@ public class SessionCategoryService {
                 .orElseThrow(() -> new EntityNotFoundException("分类不存在"));
 
         sessionCategoryRepository.delete(category);
+        // 分类删除后其工作流绑定随之失效
+        configEntityCache.invalidate(ConfigEntityCache.SESSION_CATEGORY, ConfigEntityCache.SESSION_WORKFLOW);
         log.info("删除分类成功: id={}, name={}", categoryId, category.getName());
     }
 
@@ -139,14 +146,15 @@ public class SessionCategoryService {
     }
 
     /**
-     * 获取所有启用的分类
+     * 获取所有启用的分类（走配置缓存）
      */
     @Transactional(readOnly = true)
     public List<SessionCategoryDto> getAllEnabledCategories() {
-        return sessionCategoryRepository.findByEnabledTrueOrderBySortOrderAsc()
-                .stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return configEntityCache.get(ConfigEntityCache.SESSION_CATEGORY, "enabled",
+                () -> sessionCategoryRepository.findByEnabledTrueOrderBySortOrderAsc()
+                        .stream()
+                        .map(this::toDto)
+                        .toList());
     }
 
     /**
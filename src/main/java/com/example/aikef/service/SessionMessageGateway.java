@@ -20,7 +20,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -55,6 +54,8 @@ public class SessionMessageGateway {
     private final ExternalPlatformService externalPlatformService;
     private final OfficialChannelMessageService officialChannelMessageService;
     private final TranslationService translationService;
+    private final SessionActivityWriter sessionActivityWriter;
+    private final SessionParticipantService sessionParticipantService;
 
     /**
      * 发送 AI 消息
@@ -309,9 +310,8 @@ public class SessionMessageGateway {
         // 保存消息
         Message saved = messageRepository.save(message);
 
-        // 更新会话最后活跃时间
-        session.setLastActiveAt(Instant.now());
-        chatSessionRepository.save(session);
+        // 更新会话最后活跃时间和最后消息快照（同一次会话写入，按会话合并后批量写入）
+        sessionActivityWriter.messageSaved(saved);
 
         // 广播消息到 WebSocket
         broadcastMessage(session, saved);
@@ -363,7 +363,7 @@ public class SessionMessageGateway {
             sessionManager.broadcastToSession(
                     session.getId(),
                     session.getPrimaryAgent() != null ? session.getPrimaryAgent().getId() : null,
-                    session.getSupportAgentIds() != null ? session.getSupportAgentIds().stream().toList() : null,
+                    sessionParticipantService.getSupportAgentIds(session),
                     session.getCustomer() != null ? session.getCustomer().getId() : null,
                     senderId,
                     broadcastJson
@@ -400,7 +400,9 @@ public class SessionMessageGateway {
             message.setAgentMetadata(new HashMap<>(metadata));
         }
 
-        return messageRepository.save(message);
+        Message saved = messageRepository.save(message);
+        sessionActivityWriter.messageSaved(saved);
+        return saved;
     }
 
     /**
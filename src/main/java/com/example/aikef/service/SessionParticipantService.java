@@ -0,0 +1,55 @@
+package com.example.aikef.service;
+
+import com.example.aikef.model.ChatSession;
+import com.example.aikef.repository.SessionParticipantRepository;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 会话参与者查询
+ * 消息广播、发送记录只需要参与客服的 ID，这里按（会话ID, 参与者版本号）缓存支持客服ID，
+ * 避免每次广播都加载会话的参与者集合；参与者变化时版本号递增，旧条目自然不再命中
+ */
+@Service
+public class SessionParticipantService {
+
+    private final SessionParticipantRepository participantRepository;
+    private final ConfigEntityCache configEntityCache;
+
+    public SessionParticipantService(SessionParticipantRepository participantRepository,
+                                     ConfigEntityCache configEntityCache) {
+        this.participantRepository = participantRepository;
+        this.configEntityCache = configEntityCache;
+    }
+
+    /**
+     * 获取会话的支持客服ID
+     * 参与者集合已加载（如本事务内刚修改过）时直接使用，不读缓存也不写缓存
+     */
+    public List<UUID> getSupportAgentIds(ChatSession session) {
+        if (Hibernate.isInitialized(session.getParticipants())) {
+            return session.getSupportAgentIds();
+        }
+        UUID sessionId = session.getId();
+        return configEntityCache.get(ConfigEntityCache.SESSION_PARTICIPANTS,
+                sessionId + ":" + session.getParticipantsVersion(),
+                () -> List.copyOf(participantRepository.findAgentIdsBySessionId(sessionId)));
+    }
+
+    /**
+     * 获取会话所有参与客服ID（主责客服 + 支持客服）
+     */
+    public Set<UUID> getAgentIds(ChatSession session) {
+        Set<UUID> agentIds = new LinkedHashSet<>();
+        if (session.getPrimaryAgent() != null) {
+            agentIds.add(session.getPrimaryAgent().getId());
+        }
+        agentIds.addAll(getSupportAgentIds(session));
+        return agentIds;
+    }
+}
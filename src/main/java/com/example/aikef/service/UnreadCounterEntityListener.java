@@ -0,0 +1,35 @@
+package com.example.aikef.service;
+
+import com.example.aikef.model.AgentMention;
+import com.example.aikef.model.Message;
+import jakarta.persistence.PostPersist;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消息 / @记录写入后维护未读计数
+ * 作为实体监听器挂在 Message 和 AgentMention 上，覆盖所有写入路径（客服、客户、AI 节点、第三方平台）
+ * 通过 ObjectProvider 延迟获取计数服务，避免与 EntityManagerFactory 初始化形成循环依赖
+ */
+@Component
+public class UnreadCounterEntityListener {
+
+    private final ObjectProvider<UnreadCounterService> unreadCounterService;
+
+    public UnreadCounterEntityListener(ObjectProvider<UnreadCounterService> unreadCounterService) {
+        this.unreadCounterService = unreadCounterService;
+    }
+
+    @PostPersist
+    public void postPersist(Object entity) {
+        UnreadCounterService counters = unreadCounterService.getIfAvailable();
+        if (counters == null) {
+            return;
+        }
+        if (entity instanceof Message message && message.getSession() != null) {
+            counters.onMessageCreated(message.getSession().getId());
+        } else if (entity instanceof AgentMention mention && mention.getAgent() != null && mention.getSession() != null) {
+            counters.onMentionCreated(mention.getAgent().getId(), mention.getSession().getId());
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.aikef.service;
+
+import com.example.aikef.dto.websocket.ServerEvent;
+import com.example.aikef.repository.AgentMentionRepository;
+import com.example.aikef.repository.MessageRepository;
+import com.example.aikef.websocket.WebSocketSessionManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+/**
+ * 未读数计数器
+ * 按（客服, 会话）在 Redis 中维护消息未读数和@未读数：消息 / @记录写入提交后递增，客服已读时清零，
+ * 读取时直接取计数，不再逐会话 COUNT；计数变化以增量事件推送给在线客服
+ * <p>
+ * Redis 结构：
+ * - unread:msg:{agentId} / unread:mention:{agentId}：Hash，sessionId -> 未读数
+ * - unread:watchers:{sessionId}：Set，持有该会话消息计数的客服（消息写入时只递增这些客服）
+ * - unread:agents：Set，持有计数的客服，定时对账使用
+ * <p>
+ * 计数不存在时从数据库统计后写入（此后由增量维护），只对已存在的计数递增，避免从 0 开始累加出错误值；
+ * 并发写入与已读之间的少量偏差由定时对账纠正；Redis 不可用时退回数据库统计
+ */
+@Service
+public class UnreadCounterService {
+
+    private static final Logger log = LoggerFactory.getLogger(UnreadCounterService.class);
+
+    private static final String MESSAGE_KEY_PREFIX = "unread:msg:";
+    private static final String MENTION_KEY_PREFIX = "unread:mention:";
+    private static final String WATCHERS_KEY_PREFIX = "unread:watchers:";
+    private static final String AGENTS_KEY = "unread:agents";
+
+    static final String EVENT_NAME = "unreadCountChanged";
+
+    /**
+     * 新消息：为会话的所有观察客服递增（计数已失效的客服从观察集合移除），返回 [agentId, 新值, ...]
+     * KEYS[1] 观察集合；ARGV[1] 消息计数键前缀，ARGV[2] sessionId
+     */
+    private static final RedisScript<List> INCREMENT_WATCHERS = new DefaultRedisScript<>(
+            "local result = {} " +
+            "for _, agent in ipairs(redis.call('SMEMBERS', KEYS[1])) do " +
+            "  local key = ARGV[1] .. agent " +
+            "  if redis.call('HEXISTS', key, ARGV[2]) == 1 then " +
+            "    table.insert(result, agent) " +
+            "    table.insert(result, redis.call('HINCRBY', key, ARGV[2], 1)) " +
+            "  else " +
+            "    redis.call('SREM', KEYS[1], agent) " +
+            "  end " +
+            "end " +
+            "return result", List.class);
+
+    /**
+     * 计数存在时递增，返回新值；不存在返回 -1
+     */
+    private static final RedisScript<Long> INCREMENT_IF_PRESENT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 then " +
+            "  return redis.call('HINCRBY', KEYS[1], ARGV[1], 1) " +
+            "end " +
+            "return -1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MessageRepository messageRepository;
+    private final AgentMentionRepository agentMentionRepository;
+    private final WebSocketSessionManager sessionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${unread.counter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${unread.counter.ttl-hours:72}")
+    private long ttlHours;
+
+    public UnreadCounterService(StringRedisTemplate redisTemplate,
+                                MessageRepository messageRepository,
+                                AgentMentionRepository agentMentionRepository,
+                                @Lazy WebSocketSessionManager sessionManager,
+                                ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.messageRepository = messageRepository;
+        this.agentMentionRepository = agentMentionRepository;
+        this.sessionManager = sessionManager;
+        this.objectMapper = objectMapper;
+    }
+
+    // ==================== 读取 ====================
+
+    /**
+     * 批量获取客服在多个会话中的消息未读数
+     */
+    public Map<UUID, Integer> getMessageUnreadCounts(UUID agentId, Collection<UUID> sessionIds) {
+        return read(MESSAGE_KEY_PREFIX, agentId, sessionIds, messageRepository::countUnreadBySessionIds);
+    }
+
+    /**
+     * 批量获取客服在多个会话中的@未读数
+     */
+    public Map<UUID, Integer> getMentionUnreadCounts(UUID agentId, Collection<UUID> sessionIds) {
+        return read(MENTION_KEY_PREFIX, agentId, sessionIds, agentMentionRepository::countUnreadBySessionIds);
+    }
+
+    private Map<UUID, Integer> read(String prefix, UUID agentId, Collection<UUID> sessionIds,
+                                    BiFunction<Collection<UUID>, UUID, List<Object[]>> loader) {
+        Map<UUID, Integer> counts = new LinkedHashMap<>();
+        if (sessionIds.isEmpty()) {
+            return counts;
+        }
+        List<UUID> ids = List.copyOf(sessionIds);
+        if (!enabled) {
+            counts.putAll(countFromDatabase(ids, agentId, loader));
+            return counts;
+        }
+
+        List<UUID> misses = new ArrayList<>();
+        try {
+            List<Object> cached = redisTemplate.opsForHash().multiGet(prefix + agentId,
+                    ids.stream().map(id -> (Object) id.toString()).toList());
+            for (int i = 0; i < ids.size(); i++) {
+                Object value = cached.get(i);
+                if (value != null) {
+                    counts.put(ids.get(i), Integer.parseInt(value.toString()));
+                } else {
+                    misses.add(ids.get(i));
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取未读计数失败，改用数据库统计: agentId={}, error={}", agentId, e.getMessage());
+            counts.putAll(countFromDatabase(ids, agentId, loader));
+            return counts;
+        }
+
+        if (!misses.isEmpty()) {
+            Map<UUID, Integer> loaded = countFromDatabase(misses, agentId, loader);
+            counts.putAll(loaded);
+            store(prefix, agentId, loaded, false);
+        }
+        return counts;
+    }
+
+    private static Map<UUID, Integer> countFromDatabase(List<UUID> sessionIds, UUID agentId,
+                                                        BiFunction<Collection<UUID>, UUID, List<Object[]>> loader) {
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (UUID sessionId : sessionIds) {
+            counts.put(sessionId, 0);
+        }
+        for (Object[] row : loader.apply(sessionIds, agentId)) {
+            counts.put((UUID) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
+
+    /**
+     * 写入计数并登记观察关系
+     *
+     * @param overwrite false 时不覆盖已存在的计数（从数据库加载期间可能已被递增或清零）
+     */
+    private void store(String prefix, UUID agentId, Map<UUID, Integer> counts, boolean overwrite) {
+        String key = prefix + agentId;
+        String agent = agentId.toString();
+        Duration ttl = Duration.ofHours(ttlHours);
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                public Object execute(RedisOperations operations) {
+                    counts.forEach((sessionId, count) -> {
+                        if (overwrite) {
+                            operations.opsForHash().put(key, sessionId.toString(), String.valueOf(count));
+                        } else {
+                            operations.opsForHash().putIfAbsent(key, sessionId.toString(), String.valueOf(count));
+                        }
+                        if (MESSAGE_KEY_PREFIX.equals(prefix)) {
+                            String watchers = WATCHERS_KEY_PREFIX + sessionId;
+                            operations.opsForSet().add(watchers, agent);
+                            operations.expire(watchers, ttl);
+                        }
+                    });
+                    operations.expire(key, ttl);
+                    operations.opsForSet().add(AGENTS_KEY, agent);
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.warn("写入未读计数失败: agentId={}, error={}", agentId, e.getMessage());
+        }
+    }
+
+    // ==================== 维护 ====================
+
+    /**
+     * 会话有新消息（事务提交后执行）
+     */
+    public void onMessageCreated(UUID sessionId) {
+        afterCommit(() -> incrementWatchers(sessionId));
+    }
+
+    /**
+     * 客服被@（事务提交后执行）
+     */
+    public void onMentionCreated(UUID agentId, UUID sessionId) {
+        afterCommit(() -> incrementMention(agentId, sessionId));
+    }
+
+    /**
+     * 客服已读会话：消息未读数和@未读数清零（事务提交后执行）
+     */
+    public void onRead(UUID agentId, UUID sessionId) {
+        afterCommit(() -> reset(agentId, sessionId));
+    }
+
+    private void incrementWatchers(UUID sessionId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            List<?> result = redisTemplate.execute(INCREMENT_WATCHERS,
+                    List.of(WATCHERS_KEY_PREFIX + sessionId), MESSAGE_KEY_PREFIX, sessionId.toString());
+            if (result == null) {
+                return;
+            }
+            for (int i = 0; i + 1 < result.size(); i += 2) {
+                UUID agentId = UUID.fromString(String.valueOf(result.get(i)));
+                push(agentId, sessionId, "message", 1, ((Number) result.get(i + 1)).intValue());
+            }
+        } catch (Exception e) {
+            log.warn("递增会话未读计数失败: sessionId={}, error={}", sessionId, e.getMessage());
+        }
+    }
+
+    private void incrementMention(UUID agentId, UUID sessionId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Long count = redisTemplate.execute(INCREMENT_IF_PRESENT,
+                    List.of(MENTION_KEY_PREFIX + agentId), sessionId.toString());
+            if (count != null && count >= 0) {
+                push(agentId, sessionId, "mention", 1, count.intValue());
+            }
+        } catch (Exception e) {
+            log.warn("递增@未读计数失败: agentId={}, sessionId={}, error={}", agentId, sessionId, e.getMessage());
+        }
+    }
+
+    private void reset(UUID agentId, UUID sessionId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            String field = sessionId.toString();
+            Object previousMessages = redisTemplate.opsForHash().get(MESSAGE_KEY_PREFIX + agentId, field);
+            Object previousMentions = redisTemplate.opsForHash().get(MENTION_KEY_PREFIX + agentId, field);
+            store(MESSAGE_KEY_PREFIX, agentId, Map.of(sessionId, 0), true);
+            store(MENTION_KEY_PREFIX, agentId, Map.of(sessionId, 0), true);
+            pushReset(agentId, sessionId, "message", previousMessages);
+            pushReset(agentId, sessionId, "mention", previousMentions);
+        } catch (Exception e) {
+            log.warn("清零未读计数失败: agentId={}, sessionId={}, error={}", agentId, sessionId, e.getMessage());
+        }
+    }
+
+    private void pushReset(UUID agentId, UUID sessionId, String type, Object previous) {
+        int before = previous != null ? Integer.parseInt(previous.toString()) : 0;
+        if (before != 0) {
+            push(agentId, sessionId, type, -before, 0);
+        }
+    }
+
+    /**
+     * 定时对账：持有计数的客服逐个与数据库统计比对，纠正偏差并推送
+     */
+    @Scheduled(fixedDelayString = "${unread.counter.reconcile-millis:600000}",
+            initialDelayString = "${unread.counter.reconcile-millis:600000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        Set<String> agents;
+        try {
+            agents = redisTemplate.opsForSet().members(AGENTS_KEY);
+        } catch (Exception e) {
+            log.warn("未读计数对账失败: {}", e.getMessage());
+            return;
+        }
+        if (agents == null) {
+            return;
+        }
+        int corrected = 0;
+        for (String agent : agents) {
+            try {
+                UUID agentId = UUID.fromString(agent);
+                boolean active = Boolean.TRUE.equals(redisTemplate.hasKey(MESSAGE_KEY_PREFIX + agent))
+                        || Boolean.TRUE.equals(redisTemplate.hasKey(MENTION_KEY_PREFIX + agent));
+                if (!active) {
+                    redisTemplate.opsForSet().remove(AGENTS_KEY, agent);
+                    continue;
+                }
+                corrected += reconcile(MESSAGE_KEY_PREFIX, "message", agentId, messageRepository::countUnreadBySessionIds);
+                corrected += reconcile(MENTION_KEY_PREFIX, "mention", agentId, agentMentionRepository::countUnreadBySessionIds);
+            } catch (Exception e) {
+                log.warn("未读计数对账失败: agentId={}, error={}", agent, e.getMessage());
+            }
+        }
+        if (corrected > 0) {
+            log.info("未读计数对账完成: agents={}, corrected={}", agents.size(), corrected);
+        }
+    }
+
+    private int reconcile(String prefix, String type, UUID agentId,
+                          BiFunction<Collection<UUID>, UUID, List<Object[]>> loader) {
+        String key = prefix + agentId;
+        Map<Object, Object> cached = redisTemplate.opsForHash().entries(key);
+        if (cached.isEmpty()) {
+            return 0;
+        }
+        List<UUID> sessionIds = cached.keySet().stream().map(field -> UUID.fromString(field.toString())).toList();
+        Map<UUID, Integer> actual = countFromDatabase(sessionIds, agentId, loader);
+        int corrected = 0;
+        for (UUID sessionId : sessionIds) {
+            int expected = actual.get(sessionId);
+            int current = Integer.parseInt(cached.get(sessionId.toString()).toString());
+            if (expected != current) {
+                redisTemplate.opsForHash().put(key, sessionId.toString(), String.valueOf(expected));
+                push(agentId, sessionId, type, expected - current, expected);
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+    // ==================== 推送 ====================
+
+    private void push(UUID agentId, UUID sessionId, String type, int delta, int unreadCount) {
+        if (!sessionManager.isAgentOnline(agentId)) {
+            return;
+        }
+        try {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("sessionId", sessionId.toString());
+            payload.put("type", type);
+            payload.put("delta", delta);
+            payload.put("unreadCount", unreadCount);
+            sessionManager.sendToAgent(agentId, objectMapper.writeValueAsString(new ServerEvent(EVENT_NAME, payload)));
+        } catch (Exception e) {
+            log.warn("推送未读数变化失败: agentId={}, sessionId={}, error={}", agentId, sessionId, e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
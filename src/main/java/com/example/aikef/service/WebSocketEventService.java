@@ -52,6 +52,9 @@ public class WebSocketEventService {
 
     @Autowired
     private ReadRecordService readRecordService;
+
+    @Autowired
+    private SessionParticipantService sessionParticipantService;
     
     @Autowired
     @Lazy
@@ -275,7 +278,7 @@ public class WebSocketEventService {
             sessionManager.broadcastToSession(
                     chatSessionId,
                     session.getPrimaryAgent() != null ? session.getPrimaryAgent().getId() : null,
-                    session.getSupportAgentIds() != null ? session.getSupportAgentIds().stream().toList() : null,
+                    sessionParticipantService.getSupportAgentIds(session),
                     session.getCustomer() != null ? session.getCustomer().getId() : null,
                     null, // 不排除任何发送者
                     broadcastMessage
@@ -308,7 +311,7 @@ public class WebSocketEventService {
         sessionManager.broadcastToSession(
                 chatSessionId,
                 session.getPrimaryAgent() != null ? session.getPrimaryAgent().getId() : null,
-                session.getSupportAgentIds() != null ? session.getSupportAgentIds().stream().toList() : null,
+                sessionParticipantService.getSupportAgentIds(session),
                 session.getCustomer() != null ? session.getCustomer().getId() : null,
                 senderId,  // 发送者ID（可能是客服或客户）
                 broadcastMessage
@@ -0,0 +1,152 @@
+package com.example.aikef.tool.internal;
+
+import com.example.aikef.workflow.context.WorkflowContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 内部工具调用器
+ * 注册时为每个工具方法预先生成 MethodHandle 和参数绑定器（参数名、目标 JavaType），
+ * 调用时不再做反射查找和泛型类型构造；参数值已是目标类型的简单值时跳过 Jackson 转换
+ */
+@Slf4j
+public final class InternalToolInvoker {
+
+    // 可以直接传递、无需 Jackson 转换的不可变类型
+    private static final Set<Class<?>> DIRECT_TYPES = Set.of(
+            String.class, Integer.class, Long.class, Double.class, Float.class,
+            Short.class, Byte.class, Boolean.class, Character.class);
+
+    private final String name;
+    private final ObjectMapper objectMapper;
+    private final MethodHandle handle;
+    private final ParameterBinder[] binders;
+
+    // 只有一个参数时，请求体直接转换为该参数
+    private final Class<?> singleParameterType;
+    private final JavaType singleParameterJavaType;
+
+    private InternalToolInvoker(String name, ObjectMapper objectMapper, MethodHandle handle, ParameterBinder[] binders,
+                                Class<?> singleParameterType) {
+        this.name = name;
+        this.objectMapper = objectMapper;
+        this.handle = handle;
+        this.binders = binders;
+        this.singleParameterType = singleParameterType;
+        this.singleParameterJavaType = singleParameterType != null && binders[0].javaType() != null
+                ? binders[0].javaType()
+                : objectMapper.getTypeFactory().constructType(Object.class);
+    }
+
+    /**
+     * 为工具方法生成调用器
+     *
+     * @param bean   Spring Bean（可能是代理对象）
+     * @param method 目标类上声明的 @Tool 方法
+     */
+    public static InternalToolInvoker create(String name, Object bean, Method method, ObjectMapper objectMapper)
+            throws IllegalAccessException {
+        method.setAccessible(true);
+        Parameter[] parameters = method.getParameters();
+        MethodHandle handle = MethodHandles.lookup().unreflect(method)
+                .bindTo(bean)
+                .asSpreader(Object[].class, parameters.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+
+        ParameterBinder[] binders = new ParameterBinder[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            if (WorkflowContext.class.isAssignableFrom(parameter.getType())) {
+                // 注入 WorkflowContext
+                binders[i] = new ParameterBinder(null, null, null, true);
+            } else {
+                // 参数名需要 -parameters 编译参数，与 ToolSpecification 中的名称一致
+                // 使用 constructType 处理泛型 (例如 List<MyObject>)
+                binders[i] = new ParameterBinder(parameter.getName(), parameter.getType(),
+                        objectMapper.getTypeFactory().constructType(parameter.getParameterizedType()), false);
+            }
+        }
+        Class<?> singleParameterType = parameters.length == 1 ? parameters[0].getType() : null;
+        return new InternalToolInvoker(name, objectMapper, handle, binders, singleParameterType);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getParameterCount() {
+        return binders.length;
+    }
+
+    /**
+     * 按参数名绑定参数并调用
+     */
+    public Object invoke(Map<String, Object> params, WorkflowContext ctx) throws Exception {
+        Object[] args = new Object[binders.length];
+        for (int i = 0; i < binders.length; i++) {
+            args[i] = binders[i].bind(params, ctx, objectMapper);
+        }
+        return invokeWithArgs(args);
+    }
+
+    /**
+     * 单参数方法：将请求体转换为该参数后调用
+     */
+    public Object invokeWithBody(String body) throws Exception {
+        Object arg = body;
+        // If parameter is not String, try to parse JSON
+        if (singleParameterType != String.class) {
+            try {
+                arg = objectMapper.readValue(body, singleParameterJavaType);
+            } catch (Exception e) {
+                // If not JSON or parse fails, warn but proceed (might fail at invoke if type mismatch)
+                log.warn("Failed to convert body to {}: {}", singleParameterType.getSimpleName(), e.getMessage());
+            }
+        }
+        return invokeWithArgs(new Object[]{arg});
+    }
+
+    Object invokeWithArgs(Object[] args) throws Exception {
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 参数绑定器
+     *
+     * @param name     参数名
+     * @param rawType  参数类型
+     * @param javaType 参数的完整泛型类型
+     * @param context  是否注入 WorkflowContext
+     */
+    private record ParameterBinder(String name, Class<?> rawType, JavaType javaType, boolean context) {
+
+        Object bind(Map<String, Object> params, WorkflowContext ctx, ObjectMapper objectMapper) {
+            if (context) {
+                return ctx;
+            }
+            Object value = params != null ? params.get(name) : null;
+            if (value == null) {
+                return null;
+            }
+            if (value.getClass() == rawType && DIRECT_TYPES.contains(rawType)) {
+                return value;
+            }
+            return objectMapper.convertValue(value, javaType);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.example.aikef.extraction.repository.ExtractionSchemaRepository;
 import com.example.aikef.tool.model.AiTool;
 import com.example.aikef.tool.repository.AiToolRepository;
 import com.example.aikef.tool.repository.ToolExecutionRepository;
+import com.example.aikef.tool.service.ToolSpecificationCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -24,7 +25,6 @@ import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.*;
@@ -40,11 +40,12 @@ public class InternalToolRegistry {
     private final ExtractionSchemaRepository schemaRepository;
     private final ToolExecutionRepository executionRepository;
     private final ObjectMapper objectMapper;
+    private final ToolSpecificationCache toolSpecificationCache;
 
-    // Cache: ToolName -> Bean Instance & Method
-    private final Map<String, ToolMethod> toolMethods = new ConcurrentHashMap<>();
+    // Cache: ToolName -> precompiled invoker
+    private final Map<String, InternalToolInvoker> toolInvokers = new ConcurrentHashMap<>();
 
-    private record ToolMethod(Object bean, Method method) {}
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
 
     private record ToolMethodDefinition(ToolSpecification spec, Object bean, Method method) {}
 
@@ -98,6 +99,7 @@ public class InternalToolRegistry {
         // User asked to "reuse old tool ID and bodyTemplate".
         // So we should NOT delete all old tools blindly.
         
+        toolSpecificationCache.invalidate();
         log.info("Registered {} internal tools.", foundTools.values().size());
     }
 
@@ -105,7 +107,11 @@ public class InternalToolRegistry {
         ToolSpecification spec = def.spec;
         
         // Cache execution info
-        toolMethods.put(spec.name(), new ToolMethod(def.bean, def.method));
+        try {
+            toolInvokers.put(spec.name(), InternalToolInvoker.create(spec.name(), def.bean, def.method, objectMapper));
+        } catch (Exception e) {
+            log.error("Failed to create invoker for tool: {}", spec.name(), e);
+        }
 
         // Find existing tool by name
         AiTool tool = toolRepository.findByNameWithSchema(spec.name()).orElse(null);
@@ -164,90 +170,32 @@ public class InternalToolRegistry {
     }
 
     public Object execute(String toolName, Map<String, Object> params, String body, WorkflowContext ctx) throws Exception {
-        ToolMethod toolMethod = toolMethods.get(toolName);
-        if (toolMethod == null) {
+        InternalToolInvoker invoker = toolInvokers.get(toolName);
+        if (invoker == null) {
             throw new IllegalArgumentException("Internal tool not found in registry: " + toolName);
         }
         
         // If body is provided (from bodyTemplate), use it to determine arguments
         if (body != null && !body.isBlank()) {
              // If method has exactly one parameter, try to convert the body to that parameter
-             if (toolMethod.method.getParameterCount() == 1) {
-                 Object arg = body;
-                 Class<?> paramType = toolMethod.method.getParameterTypes()[0];
-                 
-                 // If parameter is not String, try to parse JSON
-                 if (paramType != String.class) {
-                     try {
-                        arg = objectMapper.readValue(body, paramType);
-                     } catch (Exception e) {
-                         // If not JSON or parse fails, warn but proceed (might fail at invoke if type mismatch)
-                         // But if it's a primitive/simple type, readValue might handle it if body is "123"
-                         log.warn("Failed to convert body to {}: {}", paramType.getSimpleName(), e.getMessage());
-                     }
-                 }
-                 return toolMethod.method.invoke(toolMethod.bean, arg);
+             if (invoker.getParameterCount() == 1) {
+                 return invoker.invokeWithBody(body);
              } else {
                  // If method has multiple parameters, try to parse body as JSON Map and use it as params
+                 Map<String, Object> bodyParams = null;
                  try {
-                     Map<String, Object> bodyParams = objectMapper.readValue(body, new TypeReference<Map<String, Object>>(){});
-                     // Use bodyParams as the effective params for invocation
-                     return invokeMethod(toolMethod.bean, toolMethod.method, bodyParams, ctx);
+                     bodyParams = objectMapper.readValue(body, MAP_TYPE);
                  } catch (Exception e) {
-                     log.warn("Tool {} has bodyTemplate but method has {} parameters, and body could not be parsed as JSON Map. Ignoring body.", toolName, toolMethod.method.getParameterCount());
+                     log.warn("Tool {} has bodyTemplate but method has {} parameters, and body could not be parsed as JSON Map. Ignoring body.", toolName, invoker.getParameterCount());
+                 }
+                 if (bodyParams != null) {
+                     // Use bodyParams as the effective params for invocation
+                     return invoker.invoke(bodyParams, ctx);
                  }
              }
         }
         
-        return invokeMethod(toolMethod.bean, toolMethod.method, params, ctx);
-    }
-
-    private Object invokeMethod(Object bean, Method method, Map<String, Object> params, WorkflowContext ctx) throws Exception {
-        Parameter[] parameters = method.getParameters();
-        Object[] args = new Object[parameters.length];
-
-        for (int i = 0; i < parameters.length; i++) {
-            Parameter parameter = parameters[i];
-            
-            // Inject WorkflowContext if parameter type matches
-            if (WorkflowContext.class.isAssignableFrom(parameter.getType())) {
-                args[i] = ctx;
-                continue;
-            }
-
-            String paramName = parameter.getName(); // Requires -parameters compiler flag or distinct mapping
-            // Note: LangChain4j might generate arg0, arg1 if not compiled with parameters.
-            // However, the ToolSpecification also uses those names. 
-            // So if ToolSpecification says "arg0", the map key will be "arg0".
-            // We need to trust that the map keys match parameter names.
-            
-            Object value = params.get(paramName);
-            
-            // Handle optional arguments / nulls
-            if (value == null) {
-                 // Try to look up by @P or other annotations if LangChain4j supports them?
-                 // LangChain4j uses parameter names.
-            }
-            
-            // Type conversion
-            if (value != null) {
-                // 使用 constructType 处理泛型 (例如 List<MyObject>)
-                args[i] = objectMapper.convertValue(value, objectMapper.getTypeFactory().constructType(parameter.getParameterizedType()));
-            } else {
-                args[i] = null; // Or default value?
-            }
-        }
-
-        try {
-            return method.invoke(bean, args);
-        } catch (InvocationTargetException e) {
-            // Unwrap the underlying exception
-            Throwable cause = e.getCause();
-            if (cause instanceof Exception) {
-                throw (Exception) cause;
-            }
-            throw e;
-        }
+        return invoker.invoke(params, ctx);
     }
 
     // --- Schema Conversion Logic ---
@@ -6,6 +6,7 @@ import com.example.aikef.model.ChatSession;
 import com.example.aikef.model.enums.SessionStatus;
 import com.example.aikef.repository.ChatSessionRepository;
 import com.example.aikef.service.ConversationService;
+import com.example.aikef.service.SessionParticipantService;
 import com.example.aikef.websocket.WebSocketSessionManager;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.langchain4j.agent.tool.P;
@@ -27,6 +28,7 @@ public class GeneralCustomerServiceTools {
     private final WebSocketSessionManager sessionManager;
     private final ConversationService conversationService;
     private final ObjectMapper objectMapper;
+    private final SessionParticipantService sessionParticipantService;
 
     @Tool("This tool can be used if a user needs to be transferred to human assistance, but the user must be asked for confirmation before use.")
     @Transactional
@@ -66,7 +68,7 @@ public class GeneralCustomerServiceTools {
                 sessionManager.broadcastToSession(
                         session.getId(),
                         session.getPrimaryAgent() != null ? session.getPrimaryAgent().getId() : null,
-                        session.getSupportAgentIds() != null ? session.getSupportAgentIds().stream().toList() : null,
+                        sessionParticipantService.getSupportAgentIds(session),
                         session.getCustomer() != null ? session.getCustomer().getId() : null,
                         null, // senderId is null (system message)
                         jsonMessage
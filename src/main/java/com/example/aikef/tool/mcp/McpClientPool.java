@@ -0,0 +1,326 @@
+package com.example.aikef.tool.mcp;
+
+import com.example.aikef.tool.model.AiTool;
+import com.example.aikef.tool.service.ToolAuthHeaders;
+import com.example.aikef.tool.mcp.McpClientSession.CallResult;
+import com.example.aikef.tool.mcp.McpClientSession.McpToolInfo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * MCP 会话池
+ * 按服务（传输类型 + 端点 + 启动配置）维护一个常驻会话，同一服务下的所有 MCP 工具共用；
+ * 会话首次使用时建立，断开后在下次使用时重建，定时 ping 检查健康并关闭长时间空闲的会话
+ * <p>
+ * mcpServerType：stdio / sse / http（Streamable HTTP）
+ * mcpConfig（JSON，可选）：{"command": "npx", "args": ["-y", "server"], "env": {}, "cwd": "/path", "headers": {}}，
+ * stdio 类型未配置 command 时使用 mcpEndpoint 作为命令行。
+ * sse / http 类型在 headers 之外按工具的 authType / authConfig 添加认证请求头（与 API 工具相同）。
+ * <p>
+ * stdio 会在服务器上启动进程，只允许 {@code tool.mcp.stdio.allowed-commands} 中列出的命令（逗号分隔，按完整字符串匹配，
+ * 默认为空即禁用 stdio），且不允许通过 env 覆盖 PATH、LD_* 等影响可执行文件解析和加载的变量
+ */
+@Slf4j
+@Component
+public class McpClientPool {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${tool.mcp.request-timeout-millis:30000}")
+    private long requestTimeoutMillis;
+
+    @Value("${tool.mcp.init-timeout-millis:15000}")
+    private long initTimeoutMillis;
+
+    @Value("${tool.mcp.tools-cache-seconds:300}")
+    private long toolsCacheSeconds;
+
+    @Value("${tool.mcp.idle-timeout-seconds:600}")
+    private long idleTimeoutSeconds;
+
+    @Value("${tool.mcp.stdio.allowed-commands:}")
+    private String stdioAllowedCommands;
+
+    private final Map<String, CompletableFuture<McpClientSession>> sessions = new ConcurrentHashMap<>();
+
+    // 读取 HTTP 响应流 / SSE 长连接
+    private final ExecutorService streamReader = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "mcp-stream-reader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public McpClientPool(HttpClient httpClient, ObjectMapper objectMapper) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 调用 MCP 工具，工具名取 mcpToolName，未配置时使用工具名称
+     */
+    public CompletableFuture<CallResult> callTool(AiTool tool, Map<String, Object> arguments) {
+        String toolName = tool.getMcpToolName() != null && !tool.getMcpToolName().isBlank()
+                ? tool.getMcpToolName()
+                : tool.getName();
+        Duration timeout = tool.getApiTimeout() != null && tool.getApiTimeout() > 0
+                ? Duration.ofSeconds(tool.getApiTimeout())
+                : null;
+        McpClientSession session;
+        try {
+            session = acquire(tool);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return session.callTool(toolName, arguments, timeout);
+    }
+
+    /**
+     * 获取工具所在 MCP 服务提供的工具列表（带缓存）
+     */
+    public CompletableFuture<List<McpToolInfo>> listTools(AiTool tool) {
+        try {
+            return acquire(tool).listTools();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 获取会话，不存在或已断开时新建；并发请求同一服务时只建立一次
+     */
+    McpClientSession acquire(AiTool tool) throws IOException {
+        ServerConfig config = ServerConfig.from(tool, objectMapper);
+        if ("stdio".equals(config.type())) {
+            checkStdioAllowed(config);
+        }
+        String key = config.key();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            CompletableFuture<McpClientSession> mine = new CompletableFuture<>();
+            CompletableFuture<McpClientSession> existing = sessions.putIfAbsent(key, mine);
+            if (existing == null) {
+                try {
+                    McpClientSession session = open(config);
+                    mine.complete(session);
+                    return session;
+                } catch (IOException | RuntimeException e) {
+                    sessions.remove(key, mine);
+                    mine.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            McpClientSession session = await(existing, config);
+            if (session != null && session.isOpen()) {
+                return session;
+            }
+            // 已断开，移除后重建
+            if (sessions.remove(key, existing) && session != null) {
+                session.close();
+            }
+        }
+        throw new IOException("MCP 服务连接失败: " + config.describe());
+    }
+
+    /**
+     * stdio 命令白名单检查
+     */
+    void checkStdioAllowed(ServerConfig config) {
+        String executable = config.command().get(0);
+        Set<String> allowed = new HashSet<>();
+        if (stdioAllowedCommands != null) {
+            for (String command : stdioAllowedCommands.split(",")) {
+                if (!command.isBlank()) {
+                    allowed.add(command.trim());
+                }
+            }
+        }
+        if (!allowed.contains(executable)) {
+            throw new IllegalArgumentException("stdio MCP 命令未在 tool.mcp.stdio.allowed-commands 中允许: " + executable);
+        }
+        for (String name : config.env().keySet()) {
+            String upper = name.toUpperCase(Locale.ROOT);
+            if (upper.equals("PATH") || upper.startsWith("LD_") || upper.startsWith("DYLD_")) {
+                throw new IllegalArgumentException("stdio MCP 配置不允许覆盖环境变量: " + name);
+            }
+        }
+    }
+
+    private McpClientSession await(CompletableFuture<McpClientSession> future, ServerConfig config) throws IOException {
+        try {
+            return future.get(initTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待 MCP 会话被中断: " + config.describe());
+        } catch (ExecutionException e) {
+            // 其他线程建立失败，本线程重试一次
+            return null;
+        } catch (TimeoutException e) {
+            throw new IOException("等待 MCP 会话建立超时: " + config.describe());
+        }
+    }
+
+    private McpClientSession open(ServerConfig config) throws IOException {
+        Duration requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+        Duration initTimeout = Duration.ofMillis(initTimeoutMillis);
+        McpTransport transport = switch (config.type()) {
+            case "stdio" -> new StdioMcpTransport(config.command(), config.env(), config.cwd(), objectMapper);
+            case "sse" -> new SseMcpTransport(URI.create(config.endpoint()), config.headers(), httpClient,
+                    initTimeout, requestTimeout, streamReader, objectMapper);
+            case "http", "streamable-http" -> new StreamableHttpMcpTransport(URI.create(config.endpoint()),
+                    config.headers(), httpClient, requestTimeout, streamReader, objectMapper);
+            default -> throw new IllegalArgumentException("不支持的 MCP 服务器类型: " + config.type());
+        };
+        McpClientSession session = new McpClientSession(config.describe(), transport, objectMapper,
+                requestTimeout, TimeUnit.SECONDS.toMillis(toolsCacheSeconds));
+        session.initialize(initTimeout);
+        return session;
+    }
+
+    /**
+     * 健康检查：关闭空闲会话，ping 失败的会话移除（下次使用时重建）
+     */
+    @Scheduled(fixedDelayString = "${tool.mcp.health-check-millis:30000}")
+    public void checkHealth() {
+        long now = System.currentTimeMillis();
+        sessions.forEach((key, future) -> {
+            McpClientSession session = future.getNow(null);
+            if (session == null) {
+                return;
+            }
+            if (!session.isOpen()) {
+                evict(key, future, session, "连接已断开");
+            } else if (session.getPendingCount() == 0
+                    && now - session.getLastUsedAt() > TimeUnit.SECONDS.toMillis(idleTimeoutSeconds)) {
+                evict(key, future, session, "空闲超时");
+            } else {
+                session.ping(Duration.ofMillis(initTimeoutMillis)).whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        evict(key, future, session, "ping 失败: " + error.getMessage());
+                    }
+                });
+            }
+        });
+    }
+
+    private void evict(String key, CompletableFuture<McpClientSession> future, McpClientSession session, String reason) {
+        if (sessions.remove(key, future)) {
+            log.info("关闭 MCP 会话: server={}, reason={}", session.getName(), reason);
+            session.close();
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sessions.values().forEach(future -> {
+            McpClientSession session = future.getNow(null);
+            if (session != null) {
+                session.close();
+            }
+        });
+        sessions.clear();
+        streamReader.shutdownNow();
+    }
+
+    /**
+     * MCP 服务配置
+     */
+    record ServerConfig(String type, String endpoint, List<String> command, Map<String, String> env, String cwd,
+                        Map<String, String> headers) {
+
+        static ServerConfig from(AiTool tool, ObjectMapper objectMapper) {
+            String type = tool.getMcpServerType() != null ? tool.getMcpServerType().trim().toLowerCase() : "http";
+            Map<String, Object> config = new LinkedHashMap<>();
+            if (tool.getMcpConfig() != null && !tool.getMcpConfig().isBlank()) {
+                try {
+                    config = objectMapper.readValue(tool.getMcpConfig(), new TypeReference<Map<String, Object>>() {
+                    });
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("MCP 配置不是合法的 JSON: " + tool.getName());
+                }
+            }
+
+            List<String> command = new ArrayList<>();
+            if (config.get("command") instanceof String cmd && !cmd.isBlank()) {
+                command.add(cmd);
+            } else if ("stdio".equals(type) && tool.getMcpEndpoint() != null && !tool.getMcpEndpoint().isBlank()) {
+                command.addAll(Arrays.asList(tool.getMcpEndpoint().trim().split("\\s+")));
+            }
+            if (config.get("args") instanceof List<?> args) {
+                args.forEach(arg -> command.add(String.valueOf(arg)));
+            }
+            if ("stdio".equals(type) && command.isEmpty()) {
+                throw new IllegalArgumentException("stdio 类型的 MCP 工具需要配置启动命令: " + tool.getName());
+            }
+            if (!"stdio".equals(type) && (tool.getMcpEndpoint() == null || tool.getMcpEndpoint().isBlank())) {
+                throw new IllegalArgumentException("MCP 工具未配置服务端点: " + tool.getName());
+            }
+            Map<String, String> headers = stringMap(config.get("headers"));
+            if (!"stdio".equals(type)) {
+                try {
+                    // 认证请求头优先于 mcpConfig.headers 中的同名请求头
+                    ToolAuthHeaders.resolve(tool, objectMapper).forEach((name, value) -> {
+                        headers.keySet().removeIf(existing -> existing.equalsIgnoreCase(name));
+                        headers.put(name, value);
+                    });
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("认证配置不是合法的 JSON: " + tool.getName());
+                }
+            }
+            return new ServerConfig(type, tool.getMcpEndpoint(), List.copyOf(command),
+                    stringMap(config.get("env")), config.get("cwd") instanceof String cwd ? cwd : null,
+                    headers);
+        }
+
+        private static Map<String, String> stringMap(Object value) {
+            Map<String, String> result = new TreeMap<>();
+            if (value instanceof Map<?, ?> map) {
+                map.forEach((k, v) -> result.put(String.valueOf(k), String.valueOf(v)));
+            }
+            return result;
+        }
+
+        /**
+         * 会话键：配置完全相同的工具共用会话
+         */
+        String key() {
+            return type + "|" + endpoint + "|" + command + "|" + env + "|" + cwd + "|" + headers;
+        }
+
+        /**
+         * 日志中使用，不包含环境变量和请求头（可能含密钥）
+         */
+        String describe() {
+            return "stdio".equals(type) ? "stdio:" + command.get(0) : type + ":" + endpoint;
+        }
+    }
+}
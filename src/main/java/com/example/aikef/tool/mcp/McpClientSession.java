@@ -0,0 +1,307 @@
+package com.example.aikef.tool.mcp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MCP 客户端会话
+ * 一个会话对应一条到 MCP 服务的连接，完成 initialize 握手后常驻复用；
+ * 并发请求按 JSON-RPC id 在同一连接上多路复用，tools/list 结果按 TTL 缓存（收到 list_changed 通知时失效）
+ */
+@Slf4j
+public class McpClientSession implements AutoCloseable {
+
+    static final String PROTOCOL_VERSION = "2025-03-26";
+
+    private final String name;
+    private final McpTransport transport;
+    private final ObjectMapper objectMapper;
+    private final Duration requestTimeout;
+    private final long toolsCacheMillis;
+
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<Long, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+
+    private volatile List<McpToolInfo> tools;
+    private volatile long toolsLoadedAt;
+    private volatile long lastUsedAt = System.currentTimeMillis();
+    private volatile boolean closed;
+
+    public McpClientSession(String name, McpTransport transport, ObjectMapper objectMapper,
+                            Duration requestTimeout, long toolsCacheMillis) {
+        this.name = name;
+        this.transport = transport;
+        this.objectMapper = objectMapper;
+        this.requestTimeout = requestTimeout;
+        this.toolsCacheMillis = toolsCacheMillis;
+    }
+
+    /**
+     * 建立连接并完成 initialize 握手
+     */
+    public void initialize(Duration timeout) throws IOException {
+        transport.start(this::onMessage, this::onTransportClosed);
+        ObjectNode params = objectMapper.createObjectNode();
+        params.put("protocolVersion", PROTOCOL_VERSION);
+        params.putObject("capabilities");
+        params.putObject("clientInfo").put("name", "ai-kef").put("version", "1.0");
+        try {
+            JsonNode result = request("initialize", params, timeout).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            log.info("MCP 会话已建立: server={}, protocolVersion={}, serverInfo={}",
+                    name, result.path("protocolVersion").asText(), result.path("serverInfo"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IOException("MCP 初始化被中断: " + name);
+        } catch (ExecutionException | TimeoutException e) {
+            close();
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            throw new IOException("MCP 初始化失败: " + name + ", " + cause.getMessage(), cause);
+        }
+        notify("notifications/initialized");
+    }
+
+    /**
+     * 获取服务端工具列表（带缓存）
+     */
+    public CompletableFuture<List<McpToolInfo>> listTools() {
+        List<McpToolInfo> cached = tools;
+        if (cached != null && System.currentTimeMillis() - toolsLoadedAt < toolsCacheMillis) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return loadTools(null, new ArrayList<>()).thenApply(loaded -> {
+            tools = List.copyOf(loaded);
+            toolsLoadedAt = System.currentTimeMillis();
+            return tools;
+        });
+    }
+
+    private CompletableFuture<List<McpToolInfo>> loadTools(String cursor, List<McpToolInfo> collected) {
+        ObjectNode params = objectMapper.createObjectNode();
+        if (cursor != null) {
+            params.put("cursor", cursor);
+        }
+        return request("tools/list", params, requestTimeout).thenCompose(result -> {
+            for (JsonNode tool : result.path("tools")) {
+                collected.add(new McpToolInfo(tool.path("name").asText(), tool.path("description").asText(null),
+                        tool.get("inputSchema")));
+            }
+            String next = result.path("nextCursor").asText(null);
+            return next != null && !next.isEmpty()
+                    ? loadTools(next, collected)
+                    : CompletableFuture.completedFuture(collected);
+        });
+    }
+
+    /**
+     * 调用工具
+     */
+    public CompletableFuture<CallResult> callTool(String toolName, Map<String, Object> arguments, Duration timeout) {
+        ObjectNode params = objectMapper.createObjectNode();
+        params.put("name", toolName);
+        params.set("arguments", objectMapper.valueToTree(arguments != null ? arguments : Map.of()));
+        return request("tools/call", params, timeout != null ? timeout : requestTimeout)
+                .thenApply(this::toCallResult);
+    }
+
+    /**
+     * 健康检查
+     */
+    public CompletableFuture<Void> ping(Duration timeout) {
+        return request("ping", objectMapper.createObjectNode(), timeout).thenApply(result -> null);
+    }
+
+    private CallResult toCallResult(JsonNode result) {
+        boolean isError = result.path("isError").asBoolean(false);
+        StringBuilder text = new StringBuilder();
+        for (JsonNode content : result.path("content")) {
+            if ("text".equals(content.path("type").asText()) && content.has("text")) {
+                if (!text.isEmpty()) {
+                    text.append('\n');
+                }
+                text.append(content.get("text").asText());
+            }
+        }
+        String output;
+        if (result.hasNonNull("structuredContent")) {
+            output = result.get("structuredContent").toString();
+        } else if (!text.isEmpty()) {
+            output = text.toString();
+        } else {
+            output = result.path("content").toString();
+        }
+        return new CallResult(!isError, output);
+    }
+
+    // ==================== JSON-RPC ====================
+
+    CompletableFuture<JsonNode> request(String method, JsonNode params, Duration timeout) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("MCP 会话已关闭: " + name));
+        }
+        lastUsedAt = System.currentTimeMillis();
+        long id = nextId.incrementAndGet();
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("jsonrpc", "2.0");
+        message.put("id", id);
+        message.put("method", method);
+        message.set("params", params);
+
+        CompletableFuture<JsonNode> response = new CompletableFuture<>();
+        pending.put(id, response);
+        transport.send(message).whenComplete((ignored, error) -> {
+            if (error != null) {
+                response.completeExceptionally(unwrap(error));
+            }
+        });
+        return response
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, error) -> pending.remove(id))
+                .thenApply(reply -> {
+                    JsonNode error = reply.get("error");
+                    if (error != null && !error.isNull()) {
+                        throw new McpException(error.path("code").asInt(), error.path("message").asText());
+                    }
+                    return reply.path("result");
+                });
+    }
+
+    private void notify(String method) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("jsonrpc", "2.0");
+        message.put("method", method);
+        transport.send(message);
+    }
+
+    private void onMessage(JsonNode message) {
+        JsonNode id = message.get("id");
+        if (message.has("method")) {
+            if (id != null && !id.isNull()) {
+                respondToServer(id, message.path("method").asText());
+            } else if ("notifications/tools/list_changed".equals(message.path("method").asText())) {
+                tools = null;
+            }
+            return;
+        }
+        if (id == null) {
+            return;
+        }
+        Long key = id.canConvertToLong() ? Long.valueOf(id.asLong()) : parseId(id.asText());
+        CompletableFuture<JsonNode> future = key != null ? pending.get(key) : null;
+        if (future != null) {
+            future.complete(message);
+        } else {
+            log.debug("收到未知请求的 MCP 响应: server={}, id={}", name, id);
+        }
+    }
+
+    /**
+     * 服务端发起的请求：只支持 ping，其余回复方法不存在
+     */
+    private void respondToServer(JsonNode id, String method) {
+        ObjectNode reply = objectMapper.createObjectNode();
+        reply.put("jsonrpc", "2.0");
+        reply.set("id", id);
+        if ("ping".equals(method)) {
+            reply.putObject("result");
+        } else {
+            reply.putObject("error").put("code", -32601).put("message", "Method not found: " + method);
+        }
+        transport.send(reply);
+    }
+
+    private void onTransportClosed(Throwable reason) {
+        if (!closed) {
+            log.warn("MCP 连接已断开: server={}, reason={}", name, reason != null ? reason.getMessage() : null);
+        }
+        closed = true;
+        failPending(reason != null ? reason : new IOException("MCP 连接已断开: " + name));
+    }
+
+    private void failPending(Throwable reason) {
+        pending.values().forEach(future -> future.completeExceptionally(reason));
+        pending.clear();
+    }
+
+    private static Long parseId(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    public boolean isOpen() {
+        return !closed && transport.isOpen();
+    }
+
+    public long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        failPending(new IOException("MCP 会话已关闭: " + name));
+        transport.close();
+    }
+
+    /**
+     * MCP 服务端工具
+     */
+    public record McpToolInfo(String name, String description, JsonNode inputSchema) {
+    }
+
+    /**
+     * 工具调用结果
+     *
+     * @param success 服务端未标记 isError
+     * @param output  文本内容（有 structuredContent 时为其 JSON）
+     */
+    public record CallResult(boolean success, String output) {
+    }
+
+    /**
+     * JSON-RPC 错误响应
+     */
+    public static class McpException extends RuntimeException {
+
+        private final int code;
+
+        public McpException(int code, String message) {
+            super("MCP 错误(" + code + "): " + message);
+            this.code = code;
+        }
+
+        public int getCode() {
+            return code;
+        }
+    }
+}
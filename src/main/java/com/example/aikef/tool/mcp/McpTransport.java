@@ -0,0 +1,31 @@
+package com.example.aikef.tool.mcp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * MCP 传输层：收发 JSON-RPC 消息，不关心请求与响应的对应关系（由 {@link McpClientSession} 按 id 匹配）
+ */
+public interface McpTransport extends AutoCloseable {
+
+    /**
+     * 建立连接
+     *
+     * @param onMessage 收到服务端消息（响应、通知或服务端请求）
+     * @param onClose   连接断开，参数为断开原因
+     */
+    void start(Consumer<JsonNode> onMessage, Consumer<Throwable> onClose) throws IOException;
+
+    /**
+     * 发送一条消息，消息写出（HTTP 传输为服务端接收）后完成
+     */
+    CompletableFuture<Void> send(JsonNode message);
+
+    boolean isOpen();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,52 @@
+package com.example.aikef.tool.mcp;
+
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Server-Sent Events 解析：按空行分隔事件，多行 data 以换行拼接
+ */
+final class SseEventReader {
+
+    private SseEventReader() {
+    }
+
+    /**
+     * 逐行读取直到流结束
+     *
+     * @param onEvent 事件回调（事件名，默认为 message；数据）
+     */
+    static void read(Stream<String> lines, BiConsumer<String, String> onEvent) {
+        String event = null;
+        StringBuilder data = null;
+        Iterator<String> iterator = lines.iterator();
+        while (iterator.hasNext()) {
+            String line = iterator.next();
+            if (line.isEmpty()) {
+                if (data != null) {
+                    onEvent.accept(event != null ? event : "message", data.toString());
+                }
+                event = null;
+                data = null;
+            } else if (line.startsWith(":")) {
+                // 注释 / 心跳
+            } else if (line.startsWith("event:")) {
+                event = line.substring(6).trim();
+            } else if (line.startsWith("data:")) {
+                String value = line.substring(5);
+                if (value.startsWith(" ")) {
+                    value = value.substring(1);
+                }
+                if (data == null) {
+                    data = new StringBuilder(value);
+                } else {
+                    data.append('\n').append(value);
+                }
+            }
+        }
+        if (data != null) {
+            onEvent.accept(event != null ? event : "message", data.toString());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.aikef.tool.mcp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * HTTP + SSE 传输（旧版 MCP 协议）：GET 建立一条常驻 SSE 流接收所有响应，
+ * 服务端通过 endpoint 事件告知消息地址，请求以 POST 发送到该地址
+ */
+@Slf4j
+public class SseMcpTransport implements McpTransport {
+
+    private final URI sseEndpoint;
+    private final Map<String, String> headers;
+    private final HttpClient httpClient;
+    private final Duration connectTimeout;
+    private final Duration requestTimeout;
+    private final Executor streamReader;
+    private final ObjectMapper objectMapper;
+
+    private final CompletableFuture<URI> messageEndpoint = new CompletableFuture<>();
+    private volatile Stream<String> stream;
+    private volatile boolean open;
+
+    public SseMcpTransport(URI sseEndpoint, Map<String, String> headers, HttpClient httpClient, Duration connectTimeout,
+                           Duration requestTimeout, Executor streamReader, ObjectMapper objectMapper) {
+        this.sseEndpoint = sseEndpoint;
+        this.headers = headers;
+        this.httpClient = httpClient;
+        this.connectTimeout = connectTimeout;
+        this.requestTimeout = requestTimeout;
+        this.streamReader = streamReader;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void start(Consumer<JsonNode> onMessage, Consumer<Throwable> onClose) throws IOException {
+        HttpRequest request = newRequest(sseEndpoint)
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build();
+        open = true;
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                .thenAcceptAsync(response -> readStream(response, onMessage, onClose), streamReader)
+                .exceptionally(error -> {
+                    closeWith(error, onClose);
+                    return null;
+                });
+        try {
+            messageEndpoint.get(connectTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IOException("等待 MCP SSE 连接被中断: " + sseEndpoint);
+        } catch (ExecutionException | TimeoutException e) {
+            close();
+            throw new IOException("MCP SSE 连接失败: " + sseEndpoint, e instanceof ExecutionException ? e.getCause() : e);
+        }
+    }
+
+    private void readStream(HttpResponse<Stream<String>> response, Consumer<JsonNode> onMessage,
+                            Consumer<Throwable> onClose) {
+        if (response.statusCode() != 200) {
+            response.body().close();
+            closeWith(new IOException("MCP SSE 连接失败: status=" + response.statusCode()), onClose);
+            return;
+        }
+        stream = response.body();
+        if (!open) {
+            // 连接建立前已关闭
+            stream.close();
+            return;
+        }
+        try (Stream<String> lines = stream) {
+            SseEventReader.read(lines, (event, data) -> {
+                if ("endpoint".equals(event)) {
+                    messageEndpoint.complete(sseEndpoint.resolve(data.trim()));
+                } else if ("message".equals(event)) {
+                    try {
+                        onMessage.accept(objectMapper.readTree(data));
+                    } catch (IOException e) {
+                        log.warn("解析 MCP 消息失败: endpoint={}, data={}", sseEndpoint, data);
+                    }
+                }
+            });
+            closeWith(new IOException("MCP SSE 连接已断开: " + sseEndpoint), onClose);
+        } catch (RuntimeException e) {
+            closeWith(e, onClose);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> send(JsonNode message) {
+        if (!open || !messageEndpoint.isDone()) {
+            return CompletableFuture.failedFuture(new IOException("MCP 连接未建立: " + sseEndpoint));
+        }
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(message);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        HttpRequest request = newRequest(messageEndpoint.join())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+        // 响应通过 SSE 流返回，POST 只需确认服务端已接收
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenAccept(response -> {
+                    if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                        throw new IllegalStateException("MCP 请求失败: status=" + response.statusCode()
+                                + ", body=" + response.body());
+                    }
+                });
+    }
+
+    private HttpRequest.Builder newRequest(URI uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+        if ("http".equalsIgnoreCase(uri.getScheme())) {
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        if (uri != sseEndpoint) {
+            // SSE 流是常驻连接，不设置超时
+            builder.timeout(requestTimeout);
+        }
+        if (headers != null) {
+            headers.forEach(builder::header);
+        }
+        return builder;
+    }
+
+    private void closeWith(Throwable reason, Consumer<Throwable> onClose) {
+        messageEndpoint.completeExceptionally(reason);
+        if (open) {
+            open = false;
+            onClose.accept(reason);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        Stream<String> current = stream;
+        if (current != null) {
+            current.close();
+        }
+    }
+}
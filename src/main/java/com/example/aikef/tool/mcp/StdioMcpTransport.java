@@ -0,0 +1,144 @@
+package com.example.aikef.tool.mcp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * stdio 传输：启动 MCP 服务进程，每行一条 JSON-RPC 消息
+ * 进程在会话存续期间常驻，多个请求共用同一个进程
+ */
+@Slf4j
+public class StdioMcpTransport implements McpTransport {
+
+    private final List<String> command;
+    private final Map<String, String> env;
+    private final String workingDir;
+    private final ObjectMapper objectMapper;
+
+    private Process process;
+    private BufferedWriter writer;
+    private volatile boolean open;
+
+    public StdioMcpTransport(List<String> command, Map<String, String> env, String workingDir, ObjectMapper objectMapper) {
+        this.command = command;
+        this.env = env;
+        this.workingDir = workingDir;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void start(Consumer<JsonNode> onMessage, Consumer<Throwable> onClose) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command);
+        if (env != null) {
+            builder.environment().putAll(env);
+        }
+        if (workingDir != null && !workingDir.isBlank()) {
+            builder.directory(new File(workingDir));
+        }
+        process = builder.start();
+        writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        open = true;
+
+        String name = command.get(0);
+        Thread reader = new Thread(() -> readLoop(onMessage, onClose), "mcp-stdio-" + name);
+        reader.setDaemon(true);
+        reader.start();
+
+        // stderr 只用于日志，必须持续读取，否则缓冲区写满会阻塞服务进程
+        Thread stderr = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    log.debug("[mcp:{}] {}", name, line);
+                }
+            } catch (IOException ignored) {
+                // 进程退出
+            }
+        }, "mcp-stdio-stderr-" + name);
+        stderr.setDaemon(true);
+        stderr.start();
+    }
+
+    private void readLoop(Consumer<JsonNode> onMessage, Consumer<Throwable> onClose) {
+        Throwable reason = null;
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    onMessage.accept(objectMapper.readTree(line));
+                } catch (IOException e) {
+                    // 部分服务会把日志打到 stdout
+                    log.debug("忽略非 JSON-RPC 输出: {}", line);
+                }
+            }
+        } catch (IOException e) {
+            reason = e;
+        }
+        open = false;
+        onClose.accept(reason != null ? reason : new IOException("MCP 服务进程已退出: " + command.get(0)));
+    }
+
+    @Override
+    public CompletableFuture<Void> send(JsonNode message) {
+        if (!open) {
+            return CompletableFuture.failedFuture(new IOException("MCP 服务进程未运行: " + command.get(0)));
+        }
+        try {
+            String line = objectMapper.writeValueAsString(message);
+            synchronized (this) {
+                writer.write(line);
+                writer.write('\n');
+                writer.flush();
+            }
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open && process != null && process.isAlive();
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        if (process == null) {
+            return;
+        }
+        try {
+            process.getOutputStream().close();
+            if (!process.waitFor(2, TimeUnit.SECONDS)) {
+                process.destroy();
+                if (!process.waitFor(2, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            process.destroyForcibly();
+        }
+    }
+}
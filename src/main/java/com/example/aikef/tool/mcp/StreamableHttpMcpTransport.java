@@ -0,0 +1,170 @@
+package com.example.aikef.tool.mcp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streamable HTTP 传输：每条消息一个 POST，响应为 JSON 或 SSE 流
+ * 底层共享 JDK HttpClient 的连接池（HTTPS 下 HTTP/2 多路复用），会话通过 Mcp-Session-Id 头保持
+ */
+@Slf4j
+public class StreamableHttpMcpTransport implements McpTransport {
+
+    static final String SESSION_HEADER = "Mcp-Session-Id";
+
+    private final URI endpoint;
+    private final Map<String, String> headers;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final Executor responseReader;
+    private final ObjectMapper objectMapper;
+
+    private Consumer<JsonNode> onMessage;
+    private Consumer<Throwable> onClose;
+    private volatile String sessionId;
+    private volatile boolean open;
+
+    public StreamableHttpMcpTransport(URI endpoint, Map<String, String> headers, HttpClient httpClient,
+                                      Duration requestTimeout, Executor responseReader, ObjectMapper objectMapper) {
+        this.endpoint = endpoint;
+        this.headers = headers;
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+        this.responseReader = responseReader;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void start(Consumer<JsonNode> onMessage, Consumer<Throwable> onClose) {
+        this.onMessage = onMessage;
+        this.onClose = onClose;
+        this.open = true;
+    }
+
+    @Override
+    public CompletableFuture<Void> send(JsonNode message) {
+        if (!open) {
+            return CompletableFuture.failedFuture(new IOException("MCP 连接已关闭: " + endpoint));
+        }
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(message);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        HttpRequest request = newRequest()
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json, text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build();
+
+        // 响应体可能是长时间的 SSE 流，在独立线程读取；消息发出即视为发送完成
+        CompletableFuture<Void> sent = new CompletableFuture<>();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
+                .thenAcceptAsync(response -> {
+                    try {
+                        handleResponse(response, sent);
+                    } catch (RuntimeException e) {
+                        sent.completeExceptionally(e);
+                    }
+                }, responseReader)
+                .exceptionally(error -> {
+                    sent.completeExceptionally(error);
+                    return null;
+                });
+        return sent;
+    }
+
+    private void handleResponse(HttpResponse<Stream<String>> response, CompletableFuture<Void> sent) {
+        response.headers().firstValue(SESSION_HEADER).ifPresent(id -> sessionId = id);
+        int status = response.statusCode();
+        try (Stream<String> lines = response.body()) {
+            if (status == 404 && sessionId != null) {
+                // 服务端会话已失效，由连接池重新建立
+                IOException error = new IOException("MCP 会话已失效: " + endpoint);
+                sent.completeExceptionally(error);
+                markClosed(error);
+                return;
+            }
+            if (status < 200 || status >= 300) {
+                String detail = lines.limit(20).collect(Collectors.joining("\n"));
+                sent.completeExceptionally(new IOException("MCP 请求失败: status=" + status + ", body=" + detail));
+                return;
+            }
+            sent.complete(null);
+            String contentType = response.headers().firstValue("Content-Type").orElse("");
+            if (contentType.startsWith("text/event-stream")) {
+                SseEventReader.read(lines, (event, data) -> dispatch(data));
+            } else {
+                String body = lines.collect(Collectors.joining("\n"));
+                if (!body.isBlank()) {
+                    dispatch(body);
+                }
+            }
+        }
+    }
+
+    private void dispatch(String data) {
+        try {
+            JsonNode node = objectMapper.readTree(data);
+            if (node.isArray()) {
+                node.forEach(onMessage);
+            } else {
+                onMessage.accept(node);
+            }
+        } catch (IOException e) {
+            log.warn("解析 MCP 消息失败: endpoint={}, data={}", endpoint, data);
+        }
+    }
+
+    private HttpRequest.Builder newRequest() {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(endpoint).timeout(requestTimeout);
+        if ("http".equalsIgnoreCase(endpoint.getScheme())) {
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        if (headers != null) {
+            headers.forEach(builder::header);
+        }
+        if (sessionId != null) {
+            builder.header(SESSION_HEADER, sessionId);
+        }
+        return builder;
+    }
+
+    private void markClosed(Throwable reason) {
+        if (open) {
+            open = false;
+            onClose.accept(reason);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        if (sessionId != null) {
+            // 通知服务端释放会话，失败无影响
+            httpClient.sendAsync(newRequest().DELETE().build(), HttpResponse.BodyHandlers.discarding())
+                    .exceptionally(error -> null);
+        }
+    }
+}
@@ -189,6 +189,26 @@ public class AiTool {
     @Column(name = "retry_count")
     private Integer retryCount = 0;
 
+    // ==================== 结果缓存配置 ====================
+
+    /**
+     * 是否缓存执行结果（仅适用于只读工具，如订单状态、商品目录、物流查询）
+     */
+    @Column(name = "cache_enabled")
+    private Boolean cacheEnabled = false;
+
+    /**
+     * 缓存有效期（秒）
+     */
+    @Column(name = "cache_ttl_seconds")
+    private Integer cacheTtlSeconds = 300;
+
+    /**
+     * 缓存键字段（逗号分隔，取自参数 Schema 的字段名），为空时使用全部参数字段
+     */
+    @Column(name = "cache_key_fields", length = 500)
+    private String cacheKeyFields;
+
     /**
      * 是否需要确认（执行前是否需要用户确认）
      */
@@ -20,8 +20,10 @@ import java.util.UUID;
 })
 public class ToolExecution {
 
+    /**
+     * 由写入器在提交时分配（记录异步写入，调用方需要提前拿到 ID）
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
     /**
@@ -80,6 +82,13 @@ public class ToolExecution {
     @Column(name = "retry_count")
     private Integer retryCount = 0;
 
+    /**
+     * 结果缓存状态（工具未开启缓存时为 null）
+     */
+    @Column(name = "cache_status", length = 20)
+    @Enumerated(EnumType.STRING)
+    private CacheStatus cacheStatus;
+
     /**
      * 触发来源
      */
@@ -119,5 +128,14 @@ public class ToolExecution {
         TIMEOUT,        // 超时
         CANCELLED       // 已取消
     }
-}
 
+    /**
+     * 结果缓存状态
+     */
+    public enum CacheStatus {
+        MISS,           // 未命中，实际调用
+        LOCAL_HIT,      // 命中本地缓存
+        REDIS_HIT,      // 命中 Redis 缓存
+        COALESCED       // 合并到并发的相同调用
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.aikef.tool.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * 工具执行统计（按工具汇总）
+ * 由执行记录写入器在写入执行记录的同一事务中累加，统计查询不再扫描执行记录表
+ */
+@Data
+@Entity
+@Table(name = "tool_execution_stats")
+public class ToolExecutionStats {
+
+    @Id
+    @Column(name = "tool_id")
+    private UUID toolId;
+
+    @Column(name = "success_count", nullable = false)
+    private long successCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    /**
+     * 成功执行的总耗时（毫秒），与 successCount 计算平均耗时
+     */
+    @Column(name = "success_duration_ms", nullable = false)
+    private long successDurationMs;
+
+    /**
+     * 缓存命中次数（本地/Redis 命中与合并调用）
+     */
+    @Column(name = "cache_hit_count", nullable = false)
+    private long cacheHitCount;
+
+    @Column(name = "cache_miss_count", nullable = false)
+    private long cacheMissCount;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
@@ -0,0 +1,35 @@
+package com.example.aikef.tool.repository;
+
+import com.example.aikef.tool.model.ToolExecutionStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface ToolExecutionStatsRepository extends JpaRepository<ToolExecutionStats, UUID> {
+
+    /**
+     * 累加统计（不存在时插入），并发写入时由数据库保证原子性
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tool_execution_stats " +
+            "(tool_id, success_count, failed_count, success_duration_ms, cache_hit_count, cache_miss_count, updated_at) " +
+            "VALUES (:toolId, :successCount, :failedCount, :successDurationMs, :cacheHitCount, :cacheMissCount, NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "success_count = success_count + VALUES(success_count), " +
+            "failed_count = failed_count + VALUES(failed_count), " +
+            "success_duration_ms = success_duration_ms + VALUES(success_duration_ms), " +
+            "cache_hit_count = cache_hit_count + VALUES(cache_hit_count), " +
+            "cache_miss_count = cache_miss_count + VALUES(cache_miss_count), " +
+            "updated_at = NOW()", nativeQuery = true)
+    int increment(@Param("toolId") String toolId,
+                  @Param("successCount") long successCount,
+                  @Param("failedCount") long failedCount,
+                  @Param("successDurationMs") long successDurationMs,
+                  @Param("cacheHitCount") long cacheHitCount,
+                  @Param("cacheMissCount") long cacheMissCount);
+}
@@ -3,33 +3,38 @@ package com.example.aikef.tool.service;
 import com.example.aikef.extraction.model.ExtractionSchema;
 import com.example.aikef.extraction.model.FieldDefinition;
 import com.example.aikef.extraction.repository.ExtractionSchemaRepository;
+import com.example.aikef.saas.context.TenantContext;
+import com.example.aikef.service.OutboundHttpClient;
+import com.example.aikef.tool.mcp.McpClientPool;
+import com.example.aikef.tool.mcp.McpClientSession;
 import com.example.aikef.tool.model.AiTool;
 import com.example.aikef.tool.model.ToolExecution;
+import com.example.aikef.tool.model.ToolExecutionStats;
 import com.example.aikef.tool.repository.AiToolRepository;
 import com.example.aikef.tool.repository.ToolExecutionRepository;
+import com.example.aikef.tool.repository.ToolExecutionStatsRepository;
 import com.example.aikef.workflow.context.WorkflowContext;
 import com.example.aikef.workflow.util.TemplateEngine;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.*;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpStatusCodeException;
 
-import java.net.ConnectException;
-import java.net.SocketTimeoutException;
-import java.net.UnknownHostException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -44,11 +49,19 @@ public class AiToolService {
 
     private final AiToolRepository toolRepository;
     private final ToolExecutionRepository executionRepository;
+    private final ToolExecutionStatsRepository statsRepository;
+    private final ToolExecutionWriter executionWriter;
     private final ExtractionSchemaRepository schemaRepository;
     private final ObjectMapper objectMapper;
-    private final RestTemplate restTemplate;
+    private final OutboundHttpClient outboundHttpClient;
     private final com.example.aikef.service.ChatSessionService chatSessionService;
     private final com.example.aikef.tool.internal.InternalToolRegistry internalToolRegistry;
+    private final ToolRetryExecutor retryExecutor;
+    private final ToolResultCache toolResultCache;
+    private final ToolSpecificationCache toolSpecificationCache;
+    private final JsonPathStreamExtractor jsonPathExtractor;
+    private final McpClientPool mcpClientPool;
+    private final PlatformTransactionManager transactionManager;
 
     // ==================== 工具 CRUD ====================
 
@@ -103,6 +116,9 @@ public class AiToolService {
         tool.setResultDescription(request.resultDescription());
         tool.setResultMetadata(request.resultMetadata());
         tool.setRetryCount(request.retryCount() != null ? request.retryCount() : 0);
+        tool.setCacheEnabled(request.cacheEnabled() != null ? request.cacheEnabled() : false);
+        tool.setCacheTtlSeconds(request.cacheTtlSeconds() != null ? request.cacheTtlSeconds() : 300);
+        tool.setCacheKeyFields(request.cacheKeyFields());
         tool.setRequireConfirmation(request.requireConfirmation() != null ? request.requireConfirmation() : false);
         tool.setEnabled(true);
         tool.setSortOrder(request.sortOrder() != null ? request.sortOrder() : 0);
@@ -110,6 +126,7 @@ public class AiToolService {
         tool.setCreatedBy(createdBy);
 
         AiTool saved = toolRepository.save(tool);
+        toolSpecificationCache.invalidate();
         log.info("创建工具: id={}, name={}, type={}, schemaId={}",
                 saved.getId(), saved.getName(), saved.getToolType(),
                 saved.getSchema() != null ? saved.getSchema().getId() : null);
@@ -170,6 +187,9 @@ public class AiToolService {
         if (request.resultDescription() != null) tool.setResultDescription(request.resultDescription());
         if (request.resultMetadata() != null) tool.setResultMetadata(request.resultMetadata());
         if (request.retryCount() != null) tool.setRetryCount(request.retryCount());
+        if (request.cacheEnabled() != null) tool.setCacheEnabled(request.cacheEnabled());
+        if (request.cacheTtlSeconds() != null) tool.setCacheTtlSeconds(request.cacheTtlSeconds());
+        if (request.cacheKeyFields() != null) tool.setCacheKeyFields(request.cacheKeyFields());
         if (request.requireConfirmation() != null) tool.setRequireConfirmation(request.requireConfirmation());
         if (request.enabled() != null) tool.setEnabled(request.enabled());
         if (request.sortOrder() != null) tool.setSortOrder(request.sortOrder());
@@ -177,7 +197,9 @@ public class AiToolService {
 
         log.info("更新工具: id={}, schemaId={}",
                 toolId, tool.getSchema() != null ? tool.getSchema().getId() : null);
-        return toolRepository.save(tool);
+        AiTool saved = toolRepository.save(tool);
+        toolSpecificationCache.invalidate();
+        return saved;
     }
 
     /**
@@ -243,10 +265,19 @@ public class AiToolService {
                 .orElseThrow(() -> new IllegalArgumentException("工具不存在: " + toolId));
         // 先删除执行记录，避免外键约束导致无法删除工具
         executionRepository.deleteByTool_Id(toolId);
+        deleteStats(toolId);
         toolRepository.delete(tool);
+        retryExecutor.forget(toolId);
+        toolSpecificationCache.invalidate();
         log.info("删除工具: id={}, name={}", toolId, tool.getName());
     }
 
+    private void deleteStats(UUID toolId) {
+        if (statsRepository.existsById(toolId)) {
+            statsRepository.deleteById(toolId);
+        }
+    }
+
     /**
      * 覆盖创建工具（按 name 幂等）
      * <p>
@@ -266,6 +297,7 @@ public class AiToolService {
             oldApiUrl = existing.getApiUrl();
             // 先删执行记录（外键）
             executionRepository.deleteByTool_Id(reuseId);
+            deleteStats(reuseId);
             // 再删工具（Schema 会 orphanRemoval 级联删除）
             toolRepository.delete(existing);
             // 立即 flush，避免 name 唯一键/外键约束影响后续插入
@@ -281,6 +313,7 @@ public class AiToolService {
                 oldApiUrl = existing2.getApiUrl();
                 oldApiBodyTemplate = existing2.getApiBodyTemplate();
                 executionRepository.deleteByTool_Id(reuseId);
+                deleteStats(reuseId);
                 toolRepository.delete(existing2);
                 toolRepository.flush();
             }
@@ -334,6 +367,9 @@ public class AiToolService {
         tool.setResultDescription(request.resultDescription());
         tool.setResultMetadata(request.resultMetadata());
         tool.setRetryCount(request.retryCount() != null ? request.retryCount() : 0);
+        tool.setCacheEnabled(request.cacheEnabled() != null ? request.cacheEnabled() : false);
+        tool.setCacheTtlSeconds(request.cacheTtlSeconds() != null ? request.cacheTtlSeconds() : 300);
+        tool.setCacheKeyFields(request.cacheKeyFields());
         tool.setRequireConfirmation(request.requireConfirmation() != null ? request.requireConfirmation() : false);
         tool.setEnabled(true);
         tool.setSortOrder(request.sortOrder() != null ? request.sortOrder() : 0);
@@ -341,6 +377,7 @@ public class AiToolService {
         tool.setCreatedBy(createdBy);
 
         AiTool saved = toolRepository.save(tool);
+        toolSpecificationCache.invalidate();
         log.info("覆盖创建工具: id={}, name={}, type={}, schemaId={}",
                 saved.getId(), saved.getName(), saved.getToolType(),
                 saved.getSchema() != null ? saved.getSchema().getId() : null);
@@ -351,8 +388,8 @@ public class AiToolService {
 
     /**
      * 执行工具
+     * 不在事务中执行：外部调用（含重试退避）期间不占用数据库连接
      */
-    @Transactional
     public ToolExecutionResult executeTool(UUID toolId, Map<String, Object> params, UUID sessionId, UUID executedBy) {
         // 创建临时上下文（为了兼容旧 API，同时支持 TemplateEngine）
         WorkflowContext ctx = createContext(sessionId, params);
@@ -360,18 +397,31 @@ public class AiToolService {
     }
 
     /**
-     * 执行工具（支持传入 WorkflowContext）
+     * 执行工具（支持传入 WorkflowContext），同步等待结果
      */
-    @Transactional
     public ToolExecutionResult executeTool(UUID toolId, Map<String, Object> params, WorkflowContext ctx, UUID executedBy) {
-        AiTool tool = toolRepository.findById(toolId)
+        return executeToolAsync(toolId, params, ctx, executedBy).join();
+    }
+
+    /**
+     * 异步执行工具
+     * 加载工具、渲染请求在调用线程完成；API / MCP 调用及其重试退避在 future 中进行，不占用调用线程。
+     * 返回的 future 总是以 ToolExecutionResult 完成（执行失败时 success=false）
+     *
+     * @throws IllegalArgumentException 工具不存在
+     * @throws IllegalStateException    工具已禁用
+     */
+    public CompletableFuture<ToolExecutionResult> executeToolAsync(UUID toolId, Map<String, Object> params,
+                                                                   WorkflowContext ctx, UUID executedBy) {
+        // 短只读查询加载工具及执行所需的 Schema（缓存键字段），之后的执行不依赖持久化上下文
+        AiTool tool = toolRepository.findByIdWithSchema(toolId)
                 .orElseThrow(() -> new IllegalArgumentException("工具不存在: " + toolId));
 
         if (!tool.getEnabled()) {
             throw new IllegalStateException("工具已禁用: " + tool.getName());
         }
 
-        // 创建执行记录
+        // 执行记录在完成后一次性提交给后台写入器
         ToolExecution execution = new ToolExecution();
         execution.setTool(tool);
         execution.setSessionId(ctx.getSessionId());
@@ -380,53 +430,99 @@ public class AiToolService {
         execution.setStartedAt(Instant.now());
         execution.setExecutedBy(executedBy);
         execution.setTriggerSource("API");
-        executionRepository.save(execution);
 
+        CompletableFuture<ToolExecutionResult> future;
         try {
-            ToolExecutionResult result;
-
-            if (tool.getToolType() == AiTool.ToolType.API) {
-                result = executeApiTool(tool, params, ctx);
-            } else if (tool.getToolType() == AiTool.ToolType.MCP) {
-                result = executeMcpTool(tool, params);
-            } else if (tool.getToolType() == AiTool.ToolType.INTERNAL) {
-                result = executeInternalTool(tool, params, ctx);
+            if (toolResultCache.isCacheable(tool)) {
+                future = toolResultCache.getOrLoad(tool, params, ctx,
+                                withCurrentTenant(() -> dispatchTool(tool, params, ctx)))
+                        .thenApply(lookup -> {
+                            execution.setCacheStatus(lookup.status());
+                            return lookup.result();
+                        });
             } else {
-                throw new IllegalArgumentException("不支持的工具类型: " + tool.getToolType());
+                future = dispatchTool(tool, params, ctx);
             }
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.handle((result, error) -> error == null
+                ? completeExecution(execution, result)
+                : failExecution(execution, error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error));
+    }
 
-            // 更新执行记录
-            execution.setStatus(result.success() ? ToolExecution.ExecutionStatus.SUCCESS : ToolExecution.ExecutionStatus.FAILED);
-            execution.setOutputResult(result.output());
-            execution.setErrorMessage(result.errorMessage());
-            execution.setHttpStatus(result.httpStatus());
-            execution.setFinishedAt(Instant.now());
-            execution.setDurationMs(execution.getFinishedAt().toEpochMilli() - execution.getStartedAt().toEpochMilli());
-            executionRepository.save(execution);
+    private ToolExecutionResult completeExecution(ToolExecution execution, ToolExecutionResult result) {
+        // 更新执行记录
+        execution.setStatus(result.success() ? ToolExecution.ExecutionStatus.SUCCESS : ToolExecution.ExecutionStatus.FAILED);
+        execution.setOutputResult(result.output());
+        execution.setErrorMessage(result.errorMessage());
+        execution.setHttpStatus(result.httpStatus());
+        execution.setFinishedAt(Instant.now());
+        execution.setDurationMs(execution.getFinishedAt().toEpochMilli() - execution.getStartedAt().toEpochMilli());
+        executionWriter.submit(execution);
 
-            log.info("工具执行完成: toolId={}, status={}, duration={}ms",
-                    toolId, result.success() ? "SUCCESS" : "FAILED", execution.getDurationMs());
+        log.info("工具执行完成: toolId={}, status={}, duration={}ms",
+                execution.getTool().getId(), result.success() ? "SUCCESS" : "FAILED", execution.getDurationMs());
 
-            return new ToolExecutionResult(
-                    result.success(),
-                    result.output(),
-                    result.errorMessage(),
-                    result.httpStatus(),
-                    execution.getDurationMs(),
-                    execution.getId()
-            );
+        return new ToolExecutionResult(
+                result.success(),
+                result.output(),
+                result.errorMessage(),
+                result.httpStatus(),
+                execution.getDurationMs(),
+                execution.getId()
+        );
+    }
 
-        } catch (Exception e) {
-            log.error("工具执行异常: toolId={}", toolId, e);
+    private ToolExecutionResult failExecution(ToolExecution execution, Throwable error) {
+        log.error("工具执行异常: toolId={}", execution.getTool().getId(), error);
+
+        execution.setStatus(ToolExecution.ExecutionStatus.FAILED);
+        execution.setErrorMessage(error.getMessage());
+        execution.setFinishedAt(Instant.now());
+        execution.setDurationMs(execution.getFinishedAt().toEpochMilli() - execution.getStartedAt().toEpochMilli());
+        executionWriter.submit(execution);
+
+        return new ToolExecutionResult(false, null, error.getMessage(), null, execution.getDurationMs(), execution.getId());
+    }
 
-            execution.setStatus(ToolExecution.ExecutionStatus.FAILED);
-            execution.setErrorMessage(e.getMessage());
-            execution.setFinishedAt(Instant.now());
-            execution.setDurationMs(execution.getFinishedAt().toEpochMilli() - execution.getStartedAt().toEpochMilli());
-            executionRepository.save(execution);
+    /**
+     * 并发相同调用失败后的兜底调用在完成该调用的线程上发起，需要带上发起方的租户
+     */
+    private static <T> Supplier<T> withCurrentTenant(Supplier<T> supplier) {
+        String tenantId = TenantContext.getTenantId();
+        return () -> {
+            String previous = TenantContext.getTenantId();
+            if (Objects.equals(previous, tenantId)) {
+                return supplier.get();
+            }
+            TenantContext.setTenantId(tenantId);
+            try {
+                return supplier.get();
+            } finally {
+                if (previous != null) {
+                    TenantContext.setTenantId(previous);
+                } else {
+                    TenantContext.clear();
+                }
+            }
+        };
+    }
 
-            return new ToolExecutionResult(false, null, e.getMessage(), null, execution.getDurationMs(), execution.getId());
+    /**
+     * 按工具类型执行
+     */
+    private CompletableFuture<ToolExecutionResult> dispatchTool(AiTool tool, Map<String, Object> params,
+                                                                WorkflowContext ctx) {
+        if (tool.getToolType() == AiTool.ToolType.API) {
+            return executeApiTool(tool, params, ctx);
+        } else if (tool.getToolType() == AiTool.ToolType.MCP) {
+            return executeMcpTool(tool, params);
+        } else if (tool.getToolType() == AiTool.ToolType.INTERNAL) {
+            return CompletableFuture.completedFuture(executeInternalTool(tool, params, ctx));
         }
+        throw new IllegalArgumentException("不支持的工具类型: " + tool.getToolType());
     }
 
     /**
@@ -465,59 +561,51 @@ public class AiToolService {
     }
 
     /**
-     * 异步执行工具
+     * 异步执行工具（按会话创建临时上下文）
      */
-    @Async
     public CompletableFuture<ToolExecutionResult> executeToolAsync(UUID toolId, Map<String, Object> params, UUID sessionId, UUID executedBy) {
-        return CompletableFuture.completedFuture(executeTool(toolId, params, sessionId, executedBy));
+        return executeToolAsync(toolId, params, createContext(sessionId, params), executedBy);
     }
 
     /**
-     * 执行 API 工具（支持网络异常重试）
+     * 执行 API 工具（可恢复的失败按工具配置重试，重试由调度线程在退避到期后发起，不占用调用线程）
      */
-    private ToolExecutionResult executeApiTool(AiTool tool, Map<String, Object> params, WorkflowContext ctx) {
-        int maxRetries = tool.getRetryCount() != null ? tool.getRetryCount() : 0;
-        int retryCount = 0;
-        Exception lastException = null;
-
-        while (retryCount <= maxRetries) {
-            try {
-                // 如果是重试，记录日志
-                if (retryCount > 0) {
-                    log.info("API 工具重试中: tool={}, 第 {}/{} 次重试",
-                            tool.getName(), retryCount, maxRetries);
-                    // 重试前等待一段时间（指数退避）
-                    Thread.sleep(1000L * retryCount);
-                }
-
-                return executeApiToolInternal(tool, params, ctx);
-
-            } catch (Exception e) {
-                lastException = e;
+    private CompletableFuture<ToolExecutionResult> executeApiTool(AiTool tool, Map<String, Object> params,
+                                                                  WorkflowContext ctx) {
+        return executeApiToolAsync(tool, params, ctx).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("API 工具执行失败: tool={}, error={}", tool.getName(), cause.getMessage());
+            Integer httpStatus = cause instanceof HttpStatusCodeException statusException
+                    ? statusException.getStatusCode().value()
+                    : null;
+            return new ToolExecutionResult(false, null,
+                    cause.getMessage() != null ? cause.getMessage() : "执行失败",
+                    httpStatus, null, null);
+        });
+    }
 
-                // 判断是否是网络问题（可重试）
-                if (retryCount < maxRetries) {
-                    log.warn("API 工具执行网络异常，准备重试: tool={}, retry={}/{}, error={}",
-                            tool.getName(), retryCount + 1, maxRetries, e.getMessage());
-                    retryCount++;
-                } else {
-                    // 非网络问题或已达到最大重试次数，直接返回失败
-                    log.error("API 工具执行失败: tool={}, retries={}", tool.getName(), retryCount, e);
-                    break;
-                }
-            }
+    /**
+     * 异步执行 API 工具：请求只构建一次，每次重试复用
+     */
+    private CompletableFuture<ToolExecutionResult> executeApiToolAsync(AiTool tool, Map<String, Object> params,
+                                                                       WorkflowContext ctx) {
+        ApiRequest request;
+        try {
+            request = buildApiRequest(tool, params, ctx);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
         }
-
-        return new ToolExecutionResult(false, null,
-                lastException != null ? lastException.getMessage() : "执行失败",
-                null, null, null);
+        // 响应体按 JSONPath 流式提取，只物化需要的部分，同时限制响应大小
+        return retryExecutor.execute(tool, () -> outboundHttpClient
+                .exchangeStreamAsync(request.url(), request.method(), request.headers(), request.body(), request.timeout(),
+                        in -> jsonPathExtractor.extract(in, tool.getApiResponsePath()))
+                .thenApply(this::toApiResult));
     }
 
     /**
-     * 实际执行 API 工具调用
+     * 构建 API 工具请求（渲染 URL / 请求头 / 请求体，处理认证）
      */
-    private ToolExecutionResult executeApiToolInternal(AiTool tool, Map<String, Object> params, WorkflowContext ctx)
-            throws Exception {
+    private ApiRequest buildApiRequest(AiTool tool, Map<String, Object> params, WorkflowContext ctx) throws Exception {
         // 构建请求头
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -547,21 +635,21 @@ public class AiToolService {
             body = objectMapper.writeValueAsString(params);
         }
 
-        HttpEntity<String> entity = new HttpEntity<>(body, headers);
-
-        // 发送请求
+        // 超时取工具配置
         HttpMethod method = HttpMethod.valueOf(tool.getApiMethod().toUpperCase());
-        ResponseEntity<String> response = restTemplate.exchange(url, method, entity, String.class);
-
-        // 解析响应
-        String output = response.getBody();
-        if (tool.getApiResponsePath() != null && !tool.getApiResponsePath().isEmpty()) {
-            output = extractByJsonPath(response.getBody(), tool.getApiResponsePath());
-        }
+        Duration timeout = tool.getApiTimeout() != null && tool.getApiTimeout() > 0
+                ? Duration.ofSeconds(tool.getApiTimeout())
+                : null;
+        return new ApiRequest(url, method, headers, body, timeout);
+    }
 
+    /**
+     * 解析 API 工具响应
+     */
+    private ToolExecutionResult toApiResult(ResponseEntity<String> response) {
         return new ToolExecutionResult(
                 response.getStatusCode().is2xxSuccessful(),
-                output,
+                response.getBody(),
                 null,
                 response.getStatusCode().value(),
                 null,
@@ -569,10 +657,18 @@ public class AiToolService {
         );
     }
 
+    private record ApiRequest(String url, HttpMethod method, HttpHeaders headers, String body, Duration timeout) {
+    }
+
     /**
      * 执行内部工具
      */
     private ToolExecutionResult executeInternalTool(AiTool tool, Map<String, Object> params, WorkflowContext ctx) {
+        // 内部工具在进程内读写业务数据，仍在事务中执行
+        return new TransactionTemplate(transactionManager).execute(status -> doExecuteInternalTool(tool, params, ctx));
+    }
+
+    private ToolExecutionResult doExecuteInternalTool(AiTool tool, Map<String, Object> params, WorkflowContext ctx) {
         try {
             // 处理 Body Template (如果存在)
             String body = null;
@@ -613,125 +709,47 @@ public class AiToolService {
         }
     }
 
-    /**
-     * 判断是否是网络异常（可重试）
-     */
-    private boolean isNetworkException(Exception e) {
-        // ResourceAccessException 是 RestTemplate 封装的网络异常
-        if (e instanceof ResourceAccessException) {
-            return true;
-        }
-
-        // 检查根本原因
-        Throwable cause = e.getCause();
-        while (cause != null) {
-            if (cause instanceof ConnectException ||
-                    cause instanceof SocketTimeoutException ||
-                    cause instanceof UnknownHostException ||
-                    cause instanceof java.net.NoRouteToHostException ||
-                    cause instanceof java.net.PortUnreachableException) {
-                return true;
-            }
-            cause = cause.getCause();
-        }
-
-        // 检查异常消息
-        String message = e.getMessage();
-        if (message != null) {
-            String lowerMessage = message.toLowerCase();
-            if (lowerMessage.contains("connection refused") ||
-                    lowerMessage.contains("connection timed out") ||
-                    lowerMessage.contains("read timed out") ||
-                    lowerMessage.contains("connect timed out") ||
-                    lowerMessage.contains("network is unreachable") ||
-                    lowerMessage.contains("no route to host") ||
-                    lowerMessage.contains("unknown host")) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
     /**
      * 执行 MCP 工具
      */
-    private ToolExecutionResult executeMcpTool(AiTool tool, Map<String, Object> params) {
-        // TODO: 实现 MCP 工具调用
-        // MCP (Model Context Protocol) 需要根据具体实现来处理
-        // 可能需要：
-        // 1. stdio 方式：启动进程并通过标准输入输出通信
-        // 2. SSE 方式：HTTP SSE 连接
-        // 3. WebSocket 方式：WebSocket 连接
-
-        log.warn("MCP 工具暂未实现: tool={}", tool.getName());
-        return new ToolExecutionResult(false, null, "MCP 工具暂未实现", null, null, null);
+    private CompletableFuture<ToolExecutionResult> executeMcpTool(AiTool tool, Map<String, Object> params) {
+        return mcpClientPool.callTool(tool, params).handle((result, e) -> {
+            if (e == null) {
+                return new ToolExecutionResult(result.success(), result.output(),
+                        result.success() ? null : result.output(), null, null, null);
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("MCP 工具执行失败: tool={}, error={}", tool.getName(), cause.getMessage());
+            return new ToolExecutionResult(false, null,
+                    cause.getMessage() != null ? cause.getMessage() : "执行失败", null, null, null);
+        });
     }
 
     /**
-     * 应用认证
+     * 获取 MCP 工具所在服务提供的工具列表（用于配置时选择 mcpToolName）
      */
-    private void applyAuthentication(HttpHeaders headers, AiTool tool, Map<String, Object> params) {
-        if (tool.getAuthType() == null || tool.getAuthType() == AiTool.AuthType.NONE) {
-            return;
+    public List<McpClientSession.McpToolInfo> listMcpTools(UUID toolId) {
+        AiTool tool = toolRepository.findById(toolId)
+                .orElseThrow(() -> new IllegalArgumentException("工具不存在: " + toolId));
+        if (tool.getToolType() != AiTool.ToolType.MCP) {
+            throw new IllegalArgumentException("不是 MCP 工具: " + tool.getName());
         }
-
         try {
-            Map<String, String> authConfig = tool.getAuthConfig() != null
-                    ? objectMapper.readValue(tool.getAuthConfig(), new TypeReference<Map<String, String>>() {
-            })
-                    : new HashMap<>();
-
-            switch (tool.getAuthType()) {
-                case API_KEY -> {
-                    String headerName = authConfig.getOrDefault("headerName", "X-API-Key");
-                    String apiKey = authConfig.get("apiKey");
-                    if (apiKey != null) {
-                        headers.set(headerName, apiKey);
-                    }
-                }
-                case BEARER -> {
-                    String token = authConfig.get("token");
-                    if (token != null) {
-                        headers.setBearerAuth(token);
-                    }
-                }
-                case BASIC -> {
-                    String username = authConfig.get("username");
-                    String password = authConfig.get("password");
-                    if (username != null && password != null) {
-                        headers.setBasicAuth(username, password);
-                    }
-                }
-                case OAUTH2 -> {
-                    // OAuth2 需要更复杂的实现，这里简化处理
-                    String accessToken = authConfig.get("accessToken");
-                    if (accessToken != null) {
-                        headers.setBearerAuth(accessToken);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.warn("应用认证失败: tool={}", tool.getName(), e);
+            return mcpClientPool.listTools(tool).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IllegalStateException("获取 MCP 工具列表失败: " + cause.getMessage(), cause);
         }
     }
 
     /**
-     * 根据 JSONPath 提取数据
+     * 应用认证
      */
-    private String extractByJsonPath(String json, String path) {
+    private void applyAuthentication(HttpHeaders headers, AiTool tool, Map<String, Object> params) {
         try {
-            JsonNode root = objectMapper.readTree(json);
-            // 简单实现：支持 $.field.subfield 格式
-            String[] parts = path.replace("$.", "").split("\\.");
-            JsonNode current = root;
-            for (String part : parts) {
-                if (current == null) break;
-                current = current.get(part);
-            }
-            return current != null ? current.toString() : json;
+            ToolAuthHeaders.resolve(tool, objectMapper).forEach(headers::set);
         } catch (Exception e) {
-            return json;
+            log.warn("应用认证失败: tool={}", tool.getName(), e);
         }
     }
 
@@ -755,19 +773,28 @@ public class AiToolService {
      * 获取工具统计
      */
     public ToolStats getToolStats(UUID toolId) {
-        long successCount = executionRepository.countByToolIdAndStatus(toolId, ToolExecution.ExecutionStatus.SUCCESS);
-        long failedCount = executionRepository.countByToolIdAndStatus(toolId, ToolExecution.ExecutionStatus.FAILED);
-        Double avgDuration = executionRepository.getAverageDurationByToolId(toolId);
-
-        return new ToolStats(successCount, failedCount, avgDuration != null ? avgDuration : 0.0);
+        // 统计由执行记录写入器累加维护，缓存命中包括本地/Redis 命中与合并调用
+        ToolExecutionStats stats = statsRepository.findById(toolId).orElseGet(ToolExecutionStats::new);
+        long successCount = stats.getSuccessCount();
+        double avgDuration = successCount > 0 ? (double) stats.getSuccessDurationMs() / successCount : 0.0;
+        long cacheHits = stats.getCacheHitCount();
+        long cacheMisses = stats.getCacheMissCount();
+        double cacheHitRate = cacheHits + cacheMisses > 0 ? (double) cacheHits / (cacheHits + cacheMisses) : 0.0;
+
+        return new ToolStats(successCount, stats.getFailedCount(), avgDuration,
+                cacheHits, cacheMisses, cacheHitRate, retryExecutor.getCircuitBreaker(toolId));
     }
 
     // ==================== 工具定义生成（用于 LLM） ====================
 
     /**
-     * 生成工具定义（用于 LLM function calling）
+     * 生成工具定义（用于 LLM function calling，结果缓存至工具变更）
      */
     public List<ToolDefinition> generateToolDefinitions() {
+        return toolSpecificationCache.getDefinitions(this::loadToolDefinitions);
+    }
+
+    private List<ToolDefinition> loadToolDefinitions() {
         List<AiTool> tools = getToolsWithSchema();
         List<ToolDefinition> definitions = new ArrayList<>();
 
@@ -997,7 +1024,11 @@ public class AiToolService {
             Integer retryCount,
             Boolean requireConfirmation,
             Integer sortOrder,
-            String tags
+            String tags,
+            // 结果缓存
+            Boolean cacheEnabled,
+            Integer cacheTtlSeconds,
+            String cacheKeyFields
     ) {
     }
 
@@ -1025,7 +1056,11 @@ public class AiToolService {
             Boolean requireConfirmation,
             Boolean enabled,
             Integer sortOrder,
-            String tags
+            String tags,
+            // 结果缓存
+            Boolean cacheEnabled,
+            Integer cacheTtlSeconds,
+            String cacheKeyFields
     ) {
     }
 
@@ -1042,7 +1077,11 @@ public class AiToolService {
     public record ToolStats(
             long successCount,
             long failedCount,
-            double avgDurationMs
+            double avgDurationMs,
+            long cacheHitCount,
+            long cacheMissCount,
+            double cacheHitRate,
+            ToolCircuitBreaker.Snapshot circuitBreaker
     ) {
     }
 
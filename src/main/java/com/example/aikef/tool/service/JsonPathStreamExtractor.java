@@ -0,0 +1,556 @@
+package com.example.aikef.tool.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * API 工具响应的流式 JSONPath 提取
+ * 基于 Jackson JsonParser 逐个 token 读取响应流，只把路径命中的子树物化为 JsonNode，
+ * 其余部分直接跳过；确定路径（不含通配符/过滤器）命中后立即停止读取
+ * <p>
+ * 支持的路径语法：
+ * - $.a.b / a.b           字段
+ * - $['a'] / $["a"]       字段（可包含特殊字符）
+ * - $.items[0]            数组下标
+ * - $.items[*] / $.map.*  通配符
+ * - $.items[?(@.status == 'PAID')]  过滤器，支持 == != > >= < <=，以及 [?(@.field)] 判断字段存在
+ * <p>
+ * 结果：确定路径返回命中节点；含通配符/过滤器时返回命中节点组成的数组；未命中或响应不是 JSON 时返回原始响应
+ * 限制：响应读取字节数上限（超出时按策略失败或截断）、输出字符数上限（超出时截断）
+ */
+@Slf4j
+@Component
+public class JsonPathStreamExtractor {
+
+    public enum OverflowPolicy {
+        FAIL,       // 超出上限时工具调用失败
+        TRUNCATE    // 超出上限时停止读取，返回已读取部分的提取结果
+    }
+
+    private static final String TRUNCATED_SUFFIX = "...(truncated)";
+
+    private final ObjectMapper objectMapper;
+
+    // 单次响应最多读取的字节数
+    @Value("${tool.response.max-bytes:20971520}")
+    private long maxBytes;
+
+    // 返回给调用方（LLM）的最大字符数
+    @Value("${tool.response.max-output-chars:200000}")
+    private int maxOutputChars;
+
+    @Value("${tool.response.overflow-policy:TRUNCATE}")
+    private OverflowPolicy overflowPolicy;
+
+    private final Map<String, CompiledPath> pathCache = new ConcurrentHashMap<>();
+
+    public JsonPathStreamExtractor(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        log.info("工具响应提取限制: maxBytes={}, maxOutputChars={}, overflowPolicy={}", maxBytes, maxOutputChars, overflowPolicy);
+    }
+
+    /**
+     * 从响应流中提取结果
+     *
+     * @param path JSONPath，为空时返回完整响应（同样受大小限制）
+     */
+    public String extract(InputStream in, String path) throws IOException {
+        LimitedInputStream limited = new LimitedInputStream(in, maxBytes, maxOutputChars);
+        if (path == null || path.isBlank()) {
+            return readRaw(limited);
+        }
+
+        CompiledPath compiled = pathCache.computeIfAbsent(path, CompiledPath::parse);
+        Collector collector = new Collector(compiled.definite(), maxOutputChars);
+        JsonParser parser = objectMapper.createParser(limited);
+        // 未命中时还要继续读取原始响应，不能随解析器关闭底层流
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        try {
+            if (parser.nextToken() != null) {
+                walk(parser, compiled.segments(), 0, collector);
+            }
+        } catch (LimitExceededException e) {
+            if (overflowPolicy == OverflowPolicy.FAIL) {
+                throw new IllegalStateException("API 响应超过大小限制: " + maxBytes + " 字节");
+            }
+            log.warn("API 响应超过大小限制，已截断: maxBytes={}, path={}", maxBytes, path);
+            collector.truncated = true;
+        } catch (IOException e) {
+            // 不是合法 JSON，返回原始响应
+            if (collector.matches.isEmpty()) {
+                return readRaw(limited);
+            }
+        } finally {
+            parser.close();
+        }
+
+        if (collector.matches.isEmpty()) {
+            return readRaw(limited);
+        }
+        String output;
+        if (compiled.definite()) {
+            output = collector.matches.get(0).toString();
+        } else {
+            ArrayNode array = objectMapper.createArrayNode();
+            collector.matches.forEach(array::add);
+            output = array.toString();
+        }
+        return truncate(output, collector.truncated);
+    }
+
+    // ==================== 流式遍历 ====================
+
+    /**
+     * 当前 token 为某个值的起始 token，按 segments[depth..] 继续匹配
+     */
+    private void walk(JsonParser parser, List<Segment> segments, int depth, Collector collector) throws IOException {
+        if (collector.done()) {
+            // 已得到结果，剩余内容不再读取
+            return;
+        }
+        if (depth == segments.size()) {
+            collector.add(parser.readValueAsTree());
+            return;
+        }
+
+        Segment segment = segments.get(depth);
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if (collector.done()) {
+                    return;
+                }
+                if (segment instanceof Field field && field.name().equals(name) || segment instanceof Wildcard) {
+                    walk(parser, segments, depth + 1, collector);
+                } else if (segment instanceof Filter filter) {
+                    matchFiltered(parser.readValueAsTree(), filter, segments, depth, collector);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (collector.done()) {
+                    return;
+                }
+                if (segment instanceof Index i && i.value() == index || segment instanceof Wildcard) {
+                    walk(parser, segments, depth + 1, collector);
+                } else if (segment instanceof Filter filter) {
+                    // 过滤器需要整个元素，逐个物化元素而不是整个数组
+                    matchFiltered(parser.readValueAsTree(), filter, segments, depth, collector);
+                } else {
+                    parser.skipChildren();
+                }
+                index++;
+            }
+        }
+        // 标量值无法继续匹配
+    }
+
+    private void matchFiltered(JsonNode element, Filter filter, List<Segment> segments, int depth, Collector collector) {
+        if (filter.test(element)) {
+            walkTree(element, segments, depth + 1, collector);
+        }
+    }
+
+    /**
+     * 已物化子树上的匹配（过滤器命中之后的剩余路径）
+     */
+    private void walkTree(JsonNode node, List<Segment> segments, int depth, Collector collector) {
+        if (node == null || collector.done()) {
+            return;
+        }
+        if (depth == segments.size()) {
+            collector.add(node);
+            return;
+        }
+        Segment segment = segments.get(depth);
+        if (segment instanceof Field field) {
+            walkTree(node.get(field.name()), segments, depth + 1, collector);
+        } else if (segment instanceof Index index) {
+            walkTree(node.isArray() ? node.get(index.value()) : null, segments, depth + 1, collector);
+        } else if (segment instanceof Wildcard) {
+            if (node.isContainerNode()) {
+                node.elements().forEachRemaining(child -> walkTree(child, segments, depth + 1, collector));
+            }
+        } else if (segment instanceof Filter filter && node.isContainerNode()) {
+            node.elements().forEachRemaining(child -> {
+                if (filter.test(child)) {
+                    walkTree(child, segments, depth + 1, collector);
+                }
+            });
+        }
+    }
+
+    private String readRaw(LimitedInputStream in) throws IOException {
+        boolean truncated = false;
+        try {
+            in.drain();
+        } catch (LimitExceededException e) {
+            if (overflowPolicy == OverflowPolicy.FAIL) {
+                throw new IllegalStateException("API 响应超过大小限制: " + maxBytes + " 字节");
+            }
+            truncated = true;
+        }
+        return truncate(in.captured(), truncated || in.captureOverflowed());
+    }
+
+    private String truncate(String output, boolean truncated) {
+        if (output.length() > maxOutputChars) {
+            return output.substring(0, maxOutputChars) + TRUNCATED_SUFFIX;
+        }
+        return truncated ? output + TRUNCATED_SUFFIX : output;
+    }
+
+    // ==================== 结果收集 ====================
+
+    private static final class Collector {
+
+        private final boolean definite;
+        private final int maxChars;
+        private final List<JsonNode> matches = new ArrayList<>();
+        private long chars;
+        private boolean truncated;
+
+        Collector(boolean definite, int maxChars) {
+            this.definite = definite;
+            this.maxChars = maxChars;
+        }
+
+        void add(JsonNode node) {
+            matches.add(node);
+            if (!definite) {
+                // 估算输出长度，超过上限后停止收集（保证输出仍是合法 JSON 数组）
+                chars += node.toString().length() + 1;
+                if (chars > maxChars) {
+                    truncated = true;
+                }
+            }
+        }
+
+        /**
+         * 确定路径命中一次即可结束；不确定路径在输出达到上限后结束
+         */
+        boolean done() {
+            return definite ? !matches.isEmpty() : truncated;
+        }
+    }
+
+    // ==================== 路径编译 ====================
+
+    private sealed interface Segment permits Field, Index, Wildcard, Filter {
+    }
+
+    private record Field(String name) implements Segment {
+    }
+
+    private record Index(int value) implements Segment {
+    }
+
+    private record Wildcard() implements Segment {
+    }
+
+    /**
+     * 过滤器：@.a.b OP literal，op 为 null 时表示字段存在
+     */
+    private record Filter(List<String> fieldPath, String op, JsonNode literal) implements Segment {
+
+        boolean test(JsonNode element) {
+            JsonNode value = element;
+            for (String field : fieldPath) {
+                value = value != null ? value.get(field) : null;
+            }
+            if (op == null) {
+                return value != null && !value.isNull();
+            }
+            if (value == null) {
+                return "!=".equals(op);
+            }
+            if (value.isNumber() && literal.isNumber()) {
+                int cmp = new BigDecimal(value.asText()).compareTo(new BigDecimal(literal.asText()));
+                return compare(cmp);
+            }
+            if ("==".equals(op) || "!=".equals(op)) {
+                boolean equal = value.isValueNode() && literal.isValueNode()
+                        ? Objects.equals(value.asText(), literal.asText()) && value.isTextual() == literal.isTextual()
+                        : value.equals(literal);
+                return "==".equals(op) == equal;
+            }
+            if (value.isTextual() && literal.isTextual()) {
+                return compare(value.asText().compareTo(literal.asText()));
+            }
+            return false;
+        }
+
+        private boolean compare(int cmp) {
+            return switch (op) {
+                case "==" -> cmp == 0;
+                case "!=" -> cmp != 0;
+                case ">" -> cmp > 0;
+                case ">=" -> cmp >= 0;
+                case "<" -> cmp < 0;
+                case "<=" -> cmp <= 0;
+                default -> false;
+            };
+        }
+    }
+
+    /**
+     * @param definite 不含通配符和过滤器，最多命中一个节点
+     */
+    record CompiledPath(List<Segment> segments, boolean definite) {
+
+        static CompiledPath parse(String path) {
+            String p = path.trim();
+            int i = 0;
+            if (p.startsWith("$")) {
+                i = 1;
+            }
+            List<Segment> segments = new ArrayList<>();
+            while (i < p.length()) {
+                char c = p.charAt(i);
+                if (c == '.') {
+                    i++;
+                    if (i < p.length() && p.charAt(i) == '*') {
+                        segments.add(new Wildcard());
+                        i++;
+                    } else {
+                        int end = nextDelimiter(p, i);
+                        addField(segments, p.substring(i, end), path);
+                        i = end;
+                    }
+                } else if (c == '[') {
+                    int end = closingBracket(p, i, path);
+                    segments.add(parseBracket(p.substring(i + 1, end).trim(), path));
+                    i = end + 1;
+                } else {
+                    // 兼容不带 $ 的写法：a.b
+                    int end = nextDelimiter(p, i);
+                    addField(segments, p.substring(i, end), path);
+                    i = end;
+                }
+            }
+            boolean definite = segments.stream().noneMatch(s -> s instanceof Wildcard || s instanceof Filter);
+            return new CompiledPath(List.copyOf(segments), definite);
+        }
+
+        private static void addField(List<Segment> segments, String name, String path) {
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("无效的 JSONPath: " + path);
+            }
+            segments.add(new Field(name));
+        }
+
+        private static int nextDelimiter(String p, int from) {
+            int i = from;
+            while (i < p.length() && p.charAt(i) != '.' && p.charAt(i) != '[') {
+                i++;
+            }
+            return i;
+        }
+
+        private static int closingBracket(String p, int open, String path) {
+            char quote = 0;
+            for (int i = open + 1; i < p.length(); i++) {
+                char c = p.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == ']') {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("无效的 JSONPath: " + path);
+        }
+
+        private static Segment parseBracket(String content, String path) {
+            if (content.equals("*")) {
+                return new Wildcard();
+            }
+            if (isQuoted(content)) {
+                return new Field(content.substring(1, content.length() - 1));
+            }
+            if (content.startsWith("?(") && content.endsWith(")")) {
+                return parseFilter(content.substring(2, content.length() - 1).trim(), path);
+            }
+            try {
+                int index = Integer.parseInt(content);
+                if (index < 0) {
+                    throw new IllegalArgumentException("流式提取不支持负数下标: " + path);
+                }
+                return new Index(index);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的 JSONPath: " + path);
+            }
+        }
+
+        private static Filter parseFilter(String expression, String path) {
+            if (!expression.startsWith("@.")) {
+                throw new IllegalArgumentException("过滤器必须以 @. 开头: " + path);
+            }
+            String[] ops = {"==", "!=", ">=", "<=", ">", "<"};
+            for (String op : ops) {
+                int idx = indexOutsideQuotes(expression, op);
+                if (idx > 0) {
+                    List<String> fieldPath = List.of(expression.substring(2, idx).trim().split("\\."));
+                    return new Filter(fieldPath, op, parseLiteral(expression.substring(idx + op.length()).trim(), path));
+                }
+            }
+            return new Filter(List.of(expression.substring(2).trim().split("\\.")), null, null);
+        }
+
+        private static int indexOutsideQuotes(String s, String token) {
+            char quote = 0;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (s.startsWith(token, i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static JsonNode parseLiteral(String literal, String path) {
+            ObjectMapper mapper = new ObjectMapper();
+            try {
+                if (literal.startsWith("'") && literal.endsWith("'") && literal.length() >= 2) {
+                    return mapper.getNodeFactory().textNode(literal.substring(1, literal.length() - 1));
+                }
+                return mapper.readTree(literal);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("无效的过滤器值: " + path);
+            }
+        }
+
+        private static boolean isQuoted(String s) {
+            return s.length() >= 2 && (s.startsWith("'") && s.endsWith("'") || s.startsWith("\"") && s.endsWith("\""));
+        }
+    }
+
+    // ==================== 输入流 ====================
+
+    /**
+     * 超出读取上限
+     */
+    private static final class LimitExceededException extends IOException {
+        LimitExceededException() {
+            super("response size limit exceeded");
+        }
+    }
+
+    /**
+     * 限制读取字节数，同时保留前 captureLimit 个字节（未命中路径时作为原始响应返回）
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long maxBytes;
+        private final int captureLimit;
+        private final ByteArrayOutputStream capture = new ByteArrayOutputStream();
+        private long count;
+        private boolean captureOverflowed;
+
+        LimitedInputStream(InputStream in, long maxBytes, int captureLimit) {
+            super(in);
+            this.maxBytes = maxBytes;
+            // 字符上限按 UTF-8 最多 4 字节估算
+            this.captureLimit = (int) Math.min(Integer.MAX_VALUE - 8, (long) captureLimit * 4);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (count >= maxBytes) {
+                // 恰好读完时允许返回 EOF
+                if (super.read(b, off, 1) < 0) {
+                    return -1;
+                }
+                throw new LimitExceededException();
+            }
+            int n = super.read(b, off, (int) Math.min(len, maxBytes - count));
+            if (n > 0) {
+                count += n;
+                int room = captureLimit - capture.size();
+                if (room > 0) {
+                    capture.write(b, off, Math.min(room, n));
+                }
+                if (n > room) {
+                    captureOverflowed = true;
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(8192, Math.max(n, 1))];
+            long skipped = 0;
+            while (skipped < n) {
+                int r = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (r < 0) {
+                    break;
+                }
+                skipped += r;
+            }
+            return skipped;
+        }
+
+        /**
+         * 读取剩余内容直到 EOF 或保留区已满
+         */
+        void drain() throws IOException {
+            byte[] buffer = new byte[8192];
+            while (!captureOverflowed && read(buffer, 0, buffer.length) >= 0) {
+                // 只为填充保留区
+            }
+        }
+
+        String captured() {
+            return capture.toString(StandardCharsets.UTF_8);
+        }
+
+        boolean captureOverflowed() {
+            return captureOverflowed;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.aikef.tool.service;
+
+import com.example.aikef.tool.model.AiTool;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 工具认证请求头
+ * 按 authType / authConfig 生成认证请求头，API 工具与 HTTP / SSE 类型的 MCP 工具共用
+ */
+public final class ToolAuthHeaders {
+
+    private ToolAuthHeaders() {
+    }
+
+    /**
+     * @return 请求头名 -> 值；未配置认证或缺少必要字段时为空
+     * @throws IOException authConfig 不是合法的 JSON
+     */
+    public static Map<String, String> resolve(AiTool tool, ObjectMapper objectMapper) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (tool.getAuthType() == null || tool.getAuthType() == AiTool.AuthType.NONE) {
+            return headers;
+        }
+        Map<String, String> authConfig = tool.getAuthConfig() != null && !tool.getAuthConfig().isBlank()
+                ? objectMapper.readValue(tool.getAuthConfig(), new TypeReference<Map<String, String>>() {
+        })
+                : Map.of();
+
+        switch (tool.getAuthType()) {
+            case API_KEY -> {
+                String apiKey = authConfig.get("apiKey");
+                if (apiKey != null) {
+                    headers.put(authConfig.getOrDefault("headerName", "X-API-Key"), apiKey);
+                }
+            }
+            case BEARER -> {
+                String token = authConfig.get("token");
+                if (token != null) {
+                    headers.put(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+                }
+            }
+            case BASIC -> {
+                String username = authConfig.get("username");
+                String password = authConfig.get("password");
+                if (username != null && password != null) {
+                    headers.put(HttpHeaders.AUTHORIZATION,
+                            "Basic " + HttpHeaders.encodeBasicAuth(username, password, null));
+                }
+            }
+            case OAUTH2 -> {
+                // OAuth2 需要更复杂的实现，这里简化处理
+                String accessToken = authConfig.get("accessToken");
+                if (accessToken != null) {
+                    headers.put(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+                }
+            }
+            default -> {
+            }
+        }
+        return headers;
+    }
+}
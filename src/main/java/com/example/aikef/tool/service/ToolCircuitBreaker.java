@@ -0,0 +1,118 @@
+package com.example.aikef.tool.service;
+
+/**
+ * 单个工具的熔断器与重试预算
+ * - 熔断：连续失败达到阈值后打开，冷却期内直接拒绝调用；冷却结束后放行一次探测请求（半开），成功则关闭，失败则重新打开
+ * - 重试预算：每次请求存入 ratio 个令牌，每次重试消耗 1 个，令牌不足时不再重试，
+ *   保证下游故障时重试流量不超过正常流量的固定比例
+ */
+public class ToolCircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final double budgetRatio;
+    private final double budgetMaxTokens;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private double retryTokens;
+
+    private long rejectedCount;
+    private long retryCount;
+    private long budgetExhaustedCount;
+
+    public ToolCircuitBreaker(int failureThreshold, long openMillis, double budgetRatio, double budgetMaxTokens) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openMillis = Math.max(0, openMillis);
+        this.budgetRatio = Math.max(0, budgetRatio);
+        this.budgetMaxTokens = Math.max(0, budgetMaxTokens);
+        this.retryTokens = this.budgetMaxTokens;
+    }
+
+    /**
+     * 请求前调用，返回 false 表示熔断中应直接拒绝
+     */
+    public synchronized boolean tryAcquire(long now) {
+        if (state == State.OPEN) {
+            if (now - openedAt < openMillis) {
+                rejectedCount++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                rejectedCount++;
+                return false;
+            }
+            probeInFlight = true;
+        }
+        retryTokens = Math.min(budgetMaxTokens, retryTokens + budgetRatio);
+        return true;
+    }
+
+    /**
+     * 重试前调用，返回 false 表示预算不足或熔断已打开，不应再重试
+     */
+    public synchronized boolean tryAcquireRetry() {
+        if (state == State.OPEN) {
+            return false;
+        }
+        if (retryTokens < 1) {
+            budgetExhaustedCount++;
+            return false;
+        }
+        retryTokens -= 1;
+        retryCount++;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+
+    /**
+     * 记录一次下游故障（网络异常、超时、5xx 等），参数错误类的失败不应调用
+     */
+    public synchronized void onFailure(long now) {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = now;
+        }
+    }
+
+    public synchronized Snapshot snapshot(long now) {
+        State current = state == State.OPEN && now - openedAt >= openMillis ? State.HALF_OPEN : state;
+        Long openUntil = state == State.OPEN ? openedAt + openMillis : null;
+        return new Snapshot(current, consecutiveFailures, openUntil, rejectedCount, retryCount,
+                budgetExhaustedCount, Math.floor(retryTokens));
+    }
+
+    /**
+     * @param openUntil          熔断打开时的恢复时间（epoch millis），未打开时为 null
+     * @param retryTokens        当前剩余重试预算
+     */
+    public record Snapshot(
+            State state,
+            int consecutiveFailures,
+            Long openUntil,
+            long rejectedCount,
+            long retryCount,
+            long budgetExhaustedCount,
+            double retryTokens
+    ) {
+    }
+}
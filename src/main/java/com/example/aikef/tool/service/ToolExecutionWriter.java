@@ -0,0 +1,207 @@
+package com.example.aikef.tool.service;
+
+import com.example.aikef.model.base.UuidV7Generator;
+import com.example.aikef.tool.model.AiTool;
+import com.example.aikef.tool.model.ToolExecution;
+import com.example.aikef.tool.repository.ToolExecutionStatsRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 工具执行记录写入器
+ * 执行记录先进入有界队列，由后台线程按批写入（同一事务内批量插入执行记录并累加 {@code tool_execution_stats}），
+ * 工具调用线程不再占用数据库连接。队列已满时短暂等待后丢弃并计数；应用停止时写完队列中剩余的记录
+ */
+@Slf4j
+@Component
+public class ToolExecutionWriter {
+
+    @Value("${tool.execution-log.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${tool.execution-log.batch-size:100}")
+    private int batchSize;
+
+    // 队列已满时调用线程最多等待的时间
+    @Value("${tool.execution-log.offer-timeout-millis:50}")
+    private long offerTimeoutMillis;
+
+    @Value("${tool.execution-log.shutdown-timeout-seconds:10}")
+    private long shutdownTimeoutSeconds;
+
+    private final EntityManager entityManager;
+    private final ToolExecutionStatsRepository statsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private BlockingQueue<ToolExecution> queue;
+    private Thread worker;
+    private volatile boolean running;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public ToolExecutionWriter(EntityManager entityManager, ToolExecutionStatsRepository statsRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.statsRepository = statsRepository;
+        this.transactionTemplate = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::run, "tool-execution-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 提交执行记录，未设置 ID 时分配 ID（调用方可立即返回执行记录 ID）
+     *
+     * @return 执行记录 ID
+     */
+    public UUID submit(ToolExecution execution) {
+        if (execution.getId() == null) {
+            execution.setId(UuidV7Generator.next());
+        }
+        boolean queued;
+        try {
+            queued = running && queue.offer(execution, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            long dropped = droppedCount.incrementAndGet();
+            // 避免积压时日志刷屏
+            if (dropped == 1 || dropped % 1000 == 0) {
+                log.warn("工具执行记录队列已满，丢弃记录: dropped={}, capacity={}", dropped, queueCapacity);
+            }
+        }
+        return execution.getId();
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private void run() {
+        List<ToolExecution> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ToolExecution first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("写入工具执行记录失败: size={}", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 写入一批记录；整批失败（如工具已被删除导致外键冲突）时逐条重试，只丢弃写不进去的记录
+     */
+    void write(List<ToolExecution> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(batch));
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                log.error("写入工具执行记录失败，丢弃: id={}, error={}", batch.get(0).getId(), e.getMessage());
+                return;
+            }
+            log.warn("批量写入工具执行记录失败，改为逐条写入: size={}, error={}", batch.size(), e.getMessage());
+            for (ToolExecution execution : batch) {
+                write(List.of(execution));
+            }
+        }
+    }
+
+    private void persist(List<ToolExecution> batch) {
+        for (ToolExecution execution : batch) {
+            // 工具实体来自调用线程的持久化上下文，这里只需要外键引用
+            execution.setTool(entityManager.getReference(AiTool.class, execution.getTool().getId()));
+            entityManager.persist(execution);
+        }
+        entityManager.flush();
+        aggregate(batch).forEach((toolId, delta) -> statsRepository.increment(toolId.toString(),
+                delta.successCount, delta.failedCount, delta.successDurationMs,
+                delta.cacheHitCount, delta.cacheMissCount));
+    }
+
+    /**
+     * 按工具汇总一批记录的统计增量（按工具 ID 排序，多实例并发累加时加锁顺序一致）
+     */
+    static Map<UUID, StatsDelta> aggregate(List<ToolExecution> batch) {
+        Map<UUID, StatsDelta> deltas = new TreeMap<>();
+        for (ToolExecution execution : batch) {
+            StatsDelta delta = deltas.computeIfAbsent(execution.getTool().getId(), id -> new StatsDelta());
+            if (execution.getStatus() == ToolExecution.ExecutionStatus.SUCCESS) {
+                delta.successCount++;
+                delta.successDurationMs += execution.getDurationMs() != null ? execution.getDurationMs() : 0;
+            } else if (execution.getStatus() == ToolExecution.ExecutionStatus.FAILED) {
+                delta.failedCount++;
+            }
+            if (execution.getCacheStatus() == ToolExecution.CacheStatus.MISS) {
+                delta.cacheMissCount++;
+            } else if (execution.getCacheStatus() != null) {
+                delta.cacheHitCount++;
+            }
+        }
+        return deltas;
+    }
+
+    static final class StatsDelta {
+        long successCount;
+        long failedCount;
+        long successDurationMs;
+        long cacheHitCount;
+        long cacheMissCount;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(shutdownTimeoutSeconds));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<ToolExecution> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (remaining.isEmpty()) {
+            return;
+        }
+        log.info("应用停止，写入剩余工具执行记录: count={}", remaining.size());
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            write(remaining.subList(from, Math.min(remaining.size(), from + batchSize)));
+        }
+    }
+}
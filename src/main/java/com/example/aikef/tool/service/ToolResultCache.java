@@ -0,0 +1,277 @@
+package com.example.aikef.tool.service;
+
+import cn.hutool.cache.impl.LRUCache;
+import com.example.aikef.extraction.model.FieldDefinition;
+import com.example.aikef.tool.model.AiTool;
+import com.example.aikef.tool.model.ToolExecution.CacheStatus;
+import com.example.aikef.tool.service.AiToolService.ToolExecutionResult;
+import com.example.aikef.workflow.context.WorkflowContext;
+import com.example.aikef.workflow.util.TemplateEngine;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 工具结果缓存
+ * - 两级缓存：本地 LRU + Redis，Redis 命中后回填本地
+ * - 缓存键：工具 ID + 工具版本（updatedAt）+ 键字段参数值 + 模板中引用的上下文变量值，
+ *   模板依赖会话/客户信息的工具不会在不同会话间串用结果
+ * - 相同缓存键的并发调用只执行一次，其余调用等待并复用结果
+ * - 只缓存成功的结果
+ */
+@Slf4j
+@Component
+public class ToolResultCache {
+
+    private static final String KEY_PREFIX = "tool_cache:";
+
+    @Value("${tool.cache.local-max-entries:2000}")
+    private int localMaxEntries;
+
+    @Value("${tool.cache.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    // 等待并发相同调用的最长时间，超时后自行调用
+    @Value("${tool.cache.coalesce-timeout-seconds:60}")
+    private long coalesceTimeoutSeconds;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    // 键字段取值序列化：Map 按键排序，保证相同参数得到相同的缓存键
+    private final ObjectMapper keyMapper;
+
+    private LRUCache<String, CachedValue> localCache;
+
+    private final Map<String, CompletableFuture<ToolExecutionResult>> inFlight = new ConcurrentHashMap<>();
+
+    public ToolResultCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.keyMapper = objectMapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    }
+
+    @PostConstruct
+    public void init() {
+        localCache = new LRUCache<>(localMaxEntries);
+    }
+
+    public boolean isCacheable(AiTool tool) {
+        return Boolean.TRUE.equals(tool.getCacheEnabled())
+                && tool.getCacheTtlSeconds() != null && tool.getCacheTtlSeconds() > 0;
+    }
+
+    /**
+     * 读取缓存或执行调用；未命中时在调用的 future 上组合，等待期间不占用线程
+     *
+     * @param loader 发起实际的工具调用，应尽快返回（实际等待在 future 中完成）；
+     *               复用的并发调用失败或超时时，在完成该调用的线程上发起
+     */
+    public CompletableFuture<Lookup> getOrLoad(AiTool tool, Map<String, Object> params, WorkflowContext ctx,
+                                               Supplier<CompletableFuture<ToolExecutionResult>> loader) {
+        String key = buildKey(tool, params, ctx);
+
+        CachedValue local = localCache.get(key, false);
+        if (local != null) {
+            return CompletableFuture.completedFuture(new Lookup(local.toResult(), CacheStatus.LOCAL_HIT));
+        }
+
+        CompletableFuture<ToolExecutionResult> mine = new CompletableFuture<>();
+        CompletableFuture<ToolExecutionResult> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            // 复用并发的相同调用，失败或超时后自行调用
+            return existing.copy()
+                    .orTimeout(coalesceTimeoutSeconds, TimeUnit.SECONDS)
+                    .handle((shared, error) -> {
+                        if (error != null) {
+                            log.debug("等待并发工具调用失败，改为自行调用: tool={}, error={}", tool.getName(), error.getMessage());
+                            return null;
+                        }
+                        return shared.success() ? shared : null;
+                    })
+                    .thenCompose(shared -> shared != null
+                            ? CompletableFuture.completedFuture(new Lookup(shared, CacheStatus.COALESCED))
+                            : load(loader).thenApply(result -> new Lookup(result, CacheStatus.MISS)));
+        }
+
+        CompletableFuture<ToolExecutionResult> loading;
+        try {
+            CachedValue remote = readRedis(key);
+            if (remote != null) {
+                localCache.put(key, remote, ttlMillis(tool));
+                ToolExecutionResult result = remote.toResult();
+                inFlight.remove(key, mine);
+                mine.complete(result);
+                return CompletableFuture.completedFuture(new Lookup(result, CacheStatus.REDIS_HIT));
+            }
+            loading = load(loader);
+        } catch (RuntimeException e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+
+        return loading.whenComplete((result, error) -> {
+            if (error == null && result.success()) {
+                CachedValue value = new CachedValue(result.output(), result.httpStatus());
+                localCache.put(key, value, ttlMillis(tool));
+                writeRedis(key, value, tool);
+            }
+            inFlight.remove(key, mine);
+            if (error != null) {
+                mine.completeExceptionally(error);
+            } else {
+                mine.complete(result);
+            }
+        }).thenApply(result -> new Lookup(result, CacheStatus.MISS));
+    }
+
+    private static CompletableFuture<ToolExecutionResult> load(Supplier<CompletableFuture<ToolExecutionResult>> loader) {
+        try {
+            return loader.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    String buildKey(AiTool tool, Map<String, Object> params, WorkflowContext ctx) {
+        Map<String, Object> safeParams = params != null ? params : Collections.emptyMap();
+        Set<String> schemaFields = schemaFieldNames(tool);
+        Collection<String> keyFields = keyFieldNames(tool, schemaFields, safeParams);
+
+        StringBuilder material = new StringBuilder();
+        material.append(tool.getId()).append('|')
+                .append(tool.getUpdatedAt() != null ? tool.getUpdatedAt().toEpochMilli() : 0);
+        for (String field : keyFields) {
+            material.append('|').append(field).append('=').append(serializeKeyValue(safeParams.get(field)));
+        }
+
+        // 模板中引用的非参数变量（会话、客户、系统变量等）同样决定请求内容
+        if (ctx != null) {
+            Set<String> expressions = new TreeSet<>();
+            for (String template : Arrays.asList(tool.getApiUrl(), tool.getApiHeaders(), tool.getApiBodyTemplate())) {
+                expressions.addAll(TemplateEngine.extractVariables(template));
+            }
+            for (String expression : expressions) {
+                boolean isParam = expression.indexOf('.') < 0
+                        && (schemaFields.contains(expression) || safeParams.containsKey(expression));
+                if (!isParam) {
+                    material.append("|{").append(expression).append("}=")
+                            .append(TemplateEngine.render("{{" + expression + "}}", ctx, safeParams));
+                }
+            }
+        }
+        return KEY_PREFIX + tool.getId() + ":" + sha256(material.toString());
+    }
+
+    private Collection<String> keyFieldNames(AiTool tool, Set<String> schemaFields, Map<String, Object> params) {
+        if (tool.getCacheKeyFields() != null && !tool.getCacheKeyFields().isBlank()) {
+            Set<String> fields = new TreeSet<>();
+            for (String field : tool.getCacheKeyFields().split(",")) {
+                if (!field.isBlank()) {
+                    fields.add(field.trim());
+                }
+            }
+            return fields;
+        }
+        return schemaFields.isEmpty() ? new TreeSet<>(params.keySet()) : schemaFields;
+    }
+
+    private Set<String> schemaFieldNames(AiTool tool) {
+        Set<String> names = new TreeSet<>();
+        if (tool.getSchema() == null || tool.getSchema().getFieldsJson() == null) {
+            return names;
+        }
+        try {
+            List<FieldDefinition> fields = objectMapper.readValue(tool.getSchema().getFieldsJson(),
+                    new TypeReference<List<FieldDefinition>>() {
+                    });
+            for (FieldDefinition field : fields) {
+                names.add(field.getName());
+            }
+        } catch (Exception e) {
+            log.warn("解析工具参数 Schema 失败，使用全部参数作为缓存键: tool={}", tool.getName());
+        }
+        return names;
+    }
+
+    private String serializeKeyValue(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        try {
+            return keyMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            return String.valueOf(value);
+        }
+    }
+
+    private CachedValue readRedis(String key) {
+        if (!redisEnabled) {
+            return null;
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(key);
+            return json != null ? objectMapper.readValue(json, CachedValue.class) : null;
+        } catch (Exception e) {
+            log.warn("读取工具结果缓存失败: key={}, error={}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, CachedValue value, AiTool tool) {
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(value),
+                    Duration.ofSeconds(tool.getCacheTtlSeconds()));
+        } catch (Exception e) {
+            log.warn("写入工具结果缓存失败: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    private long ttlMillis(AiTool tool) {
+        return tool.getCacheTtlSeconds() * 1000L;
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 缓存查询结果
+     */
+    public record Lookup(ToolExecutionResult result, CacheStatus status) {
+    }
+
+    /**
+     * 缓存内容（Redis 中以 JSON 存储）
+     */
+    record CachedValue(String output, Integer httpStatus) {
+
+        ToolExecutionResult toResult() {
+            return new ToolExecutionResult(true, output, null, httpStatus, null, null);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.aikef.tool.service;
+
+import com.example.aikef.tool.model.AiTool;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.PortUnreachableException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 工具调用重试执行器
+ * - 只重试可恢复的失败：网络异常、超时、408/425/429/500/502/503/504，参数错误等 4xx 直接返回
+ * - 带抖动的指数退避，由调度线程在延迟到期后发起下一次请求，执行器本身不占用线程等待；
+ *   工作流节点在返回的 future 上组合，同一轮的工具调用全部发起后统一收集结果
+ * - 按工具维护重试预算和熔断器（{@link ToolCircuitBreaker}），下游故障时快速失败而不是放大流量
+ */
+@Slf4j
+@Component
+public class ToolRetryExecutor {
+
+    private static final Set<Integer> RETRYABLE_STATUS = Set.of(408, 425, 429, 500, 502, 503, 504);
+
+    @Value("${tool.retry.base-delay-millis:200}")
+    private long baseDelayMillis;
+
+    @Value("${tool.retry.max-delay-millis:5000}")
+    private long maxDelayMillis;
+
+    // 每次请求可换取的重试次数（0.2 表示重试流量最多为请求流量的 20%）
+    @Value("${tool.retry.budget-ratio:0.2}")
+    private double budgetRatio;
+
+    // 重试预算上限，也是冷启动时可用的重试次数
+    @Value("${tool.retry.budget-max-tokens:10}")
+    private double budgetMaxTokens;
+
+    @Value("${tool.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${tool.circuit-breaker.open-millis:30000}")
+    private long openMillis;
+
+    private final Map<UUID, ToolCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "tool-retry-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * 按工具的重试次数配置执行调用
+     *
+     * @param attempt 发起一次调用，应尽快返回（实际等待在 future 中完成）
+     */
+    public <T> CompletableFuture<T> execute(AiTool tool, Supplier<CompletableFuture<T>> attempt) {
+        ToolCircuitBreaker breaker = breakerFor(tool.getId());
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (!breaker.tryAcquire(System.currentTimeMillis())) {
+            result.completeExceptionally(new IllegalStateException("工具已熔断，暂停调用: " + tool.getName()));
+            return result;
+        }
+        int maxRetries = tool.getRetryCount() != null ? Math.max(0, tool.getRetryCount()) : 0;
+        runAttempt(tool.getName(), attempt, breaker, 0, maxRetries, result);
+        return result;
+    }
+
+    private <T> void runAttempt(String toolName, Supplier<CompletableFuture<T>> attempt, ToolCircuitBreaker breaker,
+                                int retry, int maxRetries, CompletableFuture<T> result) {
+        CompletableFuture<T> future;
+        try {
+            future = attempt.get();
+        } catch (Throwable e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                breaker.onSuccess();
+                result.complete(value);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (isDownstreamFailure(cause)) {
+                breaker.onFailure(System.currentTimeMillis());
+            } else {
+                breaker.onSuccess();
+            }
+
+            if (retry < maxRetries && isRetryable(cause) && breaker.tryAcquireRetry()) {
+                long delay = backoffMillis(retry, cause);
+                log.warn("工具调用失败，{}ms 后重试: tool={}, retry={}/{}, error={}",
+                        delay, toolName, retry + 1, maxRetries, cause.getMessage());
+                try {
+                    scheduler.schedule(() -> runAttempt(toolName, attempt, breaker, retry + 1, maxRetries, result),
+                            delay, TimeUnit.MILLISECONDS);
+                } catch (RuntimeException e) {
+                    // 调度器已关闭（应用停止中）
+                    result.completeExceptionally(cause);
+                }
+                return;
+            }
+            if (retry > 0) {
+                log.error("工具调用重试后仍失败: tool={}, retries={}, error={}", toolName, retry, cause.getMessage());
+            }
+            result.completeExceptionally(cause);
+        });
+    }
+
+    /**
+     * 第 retry 次重试前的等待时间：指数退避 + 抖动（[delay/2, delay) 内随机），
+     * 若服务端返回 Retry-After 则不早于该时间
+     */
+    long backoffMillis(int retry, Throwable cause) {
+        long exp = baseDelayMillis << Math.min(retry, 20);
+        long delay = Math.min(maxDelayMillis, exp);
+        long jittered = delay / 2 + ThreadLocalRandom.current().nextLong(Math.max(1, delay - delay / 2));
+        Long retryAfter = retryAfterMillis(cause);
+        if (retryAfter != null) {
+            jittered = Math.max(jittered, Math.min(retryAfter, maxDelayMillis));
+        }
+        return jittered;
+    }
+
+    /**
+     * 是否可以重试
+     */
+    static boolean isRetryable(Throwable e) {
+        if (e instanceof HttpStatusCodeException statusException) {
+            return RETRYABLE_STATUS.contains(statusException.getStatusCode().value());
+        }
+        return isNetworkException(e);
+    }
+
+    /**
+     * 是否计入熔断：下游不可用或过载，请求本身有误（4xx）不计入
+     */
+    static boolean isDownstreamFailure(Throwable e) {
+        if (e instanceof HttpServerErrorException) {
+            return true;
+        }
+        if (e instanceof HttpStatusCodeException statusException) {
+            int status = statusException.getStatusCode().value();
+            return status == 408 || status == 429;
+        }
+        return isNetworkException(e);
+    }
+
+    /**
+     * 判断是否是网络异常
+     */
+    static boolean isNetworkException(Throwable e) {
+        // ResourceAccessException 是 RestTemplate / OutboundHttpClient 封装的网络异常
+        if (e instanceof ResourceAccessException) {
+            return true;
+        }
+
+        // 检查根本原因
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof ConnectException ||
+                    cause instanceof SocketTimeoutException ||
+                    cause instanceof HttpTimeoutException ||
+                    cause instanceof UnknownHostException ||
+                    cause instanceof NoRouteToHostException ||
+                    cause instanceof PortUnreachableException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+
+        // 检查异常消息
+        String message = e.getMessage();
+        if (message != null) {
+            String lowerMessage = message.toLowerCase();
+            return lowerMessage.contains("connection refused") ||
+                    lowerMessage.contains("connection timed out") ||
+                    lowerMessage.contains("read timed out") ||
+                    lowerMessage.contains("connect timed out") ||
+                    lowerMessage.contains("network is unreachable") ||
+                    lowerMessage.contains("no route to host") ||
+                    lowerMessage.contains("unknown host");
+        }
+        return false;
+    }
+
+    private Long retryAfterMillis(Throwable e) {
+        if (!(e instanceof HttpStatusCodeException statusException) || statusException.getResponseHeaders() == null) {
+            return null;
+        }
+        String value = statusException.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1000;
+        } catch (NumberFormatException ignored) {
+            // HTTP-date 格式不解析，按普通退避处理
+            return null;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private ToolCircuitBreaker breakerFor(UUID toolId) {
+        return breakers.computeIfAbsent(toolId,
+                id -> new ToolCircuitBreaker(failureThreshold, openMillis, budgetRatio, budgetMaxTokens));
+    }
+
+    /**
+     * 工具熔断与重试状态，未调用过的工具返回初始状态
+     */
+    public ToolCircuitBreaker.Snapshot getCircuitBreaker(UUID toolId) {
+        ToolCircuitBreaker breaker = breakers.get(toolId);
+        if (breaker == null) {
+            breaker = new ToolCircuitBreaker(failureThreshold, openMillis, budgetRatio, budgetMaxTokens);
+        }
+        return breaker.snapshot(System.currentTimeMillis());
+    }
+
+    public void forget(UUID toolId) {
+        breakers.remove(toolId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
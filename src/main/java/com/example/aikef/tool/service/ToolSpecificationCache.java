@@ -0,0 +1,138 @@
+package com.example.aikef.tool.service;
+
+import com.example.aikef.tool.service.AiToolService.ToolDefinition;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 工具规格缓存
+ * 缓存 LLM function calling 使用的 ToolSpecification / ToolDefinition，避免每轮对话重新查库和构建 JSON Schema。
+ * 工具增删改时递增版本号（本地 + Redis），其他实例在下次读取时发现版本变化后清空本地缓存
+ */
+@Slf4j
+@Component
+public class ToolSpecificationCache {
+
+    private static final String VERSION_KEY = "tool_spec_version";
+
+    private final StringRedisTemplate redisTemplate;
+
+    // 两次检查 Redis 全局版本号的最小间隔
+    @Value("${tool.spec-cache.version-check-millis:2000}")
+    private long versionCheckMillis;
+
+    private final Map<UUID, Optional<ToolSpecification>> specifications = new ConcurrentHashMap<>();
+    private volatile List<ToolDefinition> definitions;
+
+    private volatile long version = -1;
+    private volatile long lastVersionCheck;
+
+    public ToolSpecificationCache(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 获取工具规格，工具不存在或已禁用时缓存为空
+     */
+    public Optional<ToolSpecification> getSpecification(UUID toolId, Function<UUID, Optional<ToolSpecification>> loader) {
+        syncVersion();
+        Optional<ToolSpecification> cached = specifications.get(toolId);
+        if (cached != null) {
+            return cached;
+        }
+        long loadedVersion = version;
+        Optional<ToolSpecification> loaded = loader.apply(toolId);
+        specifications.put(toolId, loaded);
+        // 加载期间版本已变化则丢弃，避免缓存旧数据
+        if (loadedVersion != version) {
+            specifications.remove(toolId);
+        }
+        return loaded;
+    }
+
+    /**
+     * 获取全部启用工具的定义
+     */
+    public List<ToolDefinition> getDefinitions(Supplier<List<ToolDefinition>> loader) {
+        syncVersion();
+        List<ToolDefinition> cached = definitions;
+        if (cached != null) {
+            return cached;
+        }
+        long loadedVersion = version;
+        List<ToolDefinition> loaded = List.copyOf(loader.get());
+        definitions = loaded;
+        if (loadedVersion != version) {
+            definitions = null;
+        }
+        return loaded;
+    }
+
+    /**
+     * 工具变更后失效缓存；在事务中调用时推迟到提交之后，避免其他线程在提交前重新加载到旧数据
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow();
+                }
+            });
+        } else {
+            invalidateNow();
+        }
+    }
+
+    private void invalidateNow() {
+        long next;
+        try {
+            Long incremented = redisTemplate.opsForValue().increment(VERSION_KEY);
+            next = incremented != null ? incremented : version + 1;
+        } catch (Exception e) {
+            log.warn("更新工具规格版本号失败，仅清空本地缓存: {}", e.getMessage());
+            next = version + 1;
+        }
+        clear(next);
+        log.debug("工具规格缓存已失效: version={}", next);
+    }
+
+    /**
+     * 按间隔检查全局版本号，其他实例修改过工具时清空本地缓存
+     */
+    private void syncVersion() {
+        long now = System.currentTimeMillis();
+        if (now - lastVersionCheck < versionCheckMillis) {
+            return;
+        }
+        lastVersionCheck = now;
+        try {
+            String value = redisTemplate.opsForValue().get(VERSION_KEY);
+            long global = value != null ? Long.parseLong(value) : 0;
+            if (global != version) {
+                clear(global);
+            }
+        } catch (Exception e) {
+            log.debug("读取工具规格版本号失败: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void clear(long newVersion) {
+        version = newVersion;
+        specifications.clear();
+        definitions = null;
+    }
+}
@@ -1,6 +1,5 @@
 package com.example.aikef.websocket;
 
-import com.example.aikef.model.ChatSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -181,28 +180,14 @@ public class WebSocketSessionManager {
     }
     
     /**
-     * 获取会话中在线的客服ID集合
+     * 获取在线的客服ID集合
      * 
-     * @param session 聊天会话
-     * @return 在线客服ID集合
+     * @param agentIds 候选客服ID（如会话的主责 + 支持客服）
+     * @return 其中在线的客服ID集合
      */
-    public Set<UUID> getOnlineAgentsInSession(ChatSession session) {
-        Set<UUID> onlineAgents = new HashSet<>();
-        
-        // 检查主责客服是否在线
-        if (session.getPrimaryAgent() != null && isAgentOnline(session.getPrimaryAgent().getId())) {
-            onlineAgents.add(session.getPrimaryAgent().getId());
-        }
-        
-        // 检查支持客服是否在线
-        if (session.getSupportAgentIds() != null) {
-            onlineAgents.addAll(
-                session.getSupportAgentIds().stream()
-                    .filter(this::isAgentOnline)
-                    .collect(Collectors.toSet())
-            );
-        }
-        
-        return onlineAgents;
+    public Set<UUID> getOnlineAgents(Collection<UUID> agentIds) {
+        return agentIds.stream()
+                .filter(this::isAgentOnline)
+                .collect(Collectors.toSet());
     }
 }
\ No newline at end of file
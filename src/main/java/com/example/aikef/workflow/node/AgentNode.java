@@ -29,6 +29,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Advanced Agent Node
@@ -67,6 +69,9 @@ public class AgentNode extends BaseWorkflowNode {
     @Resource
     private com.example.aikef.repository.ChatSessionRepository chatSessionRepository;
 
+    @Resource
+    private com.example.aikef.service.SessionActivityWriter sessionActivityWriter;
+
     @Resource
     private com.example.aikef.tool.repository.AiToolRepository aiToolRepository;
 
@@ -279,7 +284,8 @@ You are a friendly, professional, and empathetic Customer Support Specialist.
                     List<ToolExecutionRequest> requests = aiMessage.toolExecutionRequests();
                     log.info("Agent decided to call tools: {}", requests.size());
 
-                    List<ToolExecutionOutcome> outcomes = new ArrayList<>();
+                    // 同一轮的工具调用互不依赖：全部发起后再按顺序等待，重试退避在 future 中进行
+                    List<PendingToolCall> pending = new ArrayList<>();
                     for (ToolExecutionRequest request : requests) {
                         log.info("Executing tool: {}", request.name());
 
@@ -293,11 +299,16 @@ You are a friendly, professional, and empathetic Customer Support Specialist.
                         ctx.setVariable(request.name()+"_ex", 1);
                         // Execute directly (simplified for autonomous agent)
                         // Note: Real Agent might need state management for parameters, but here we assume LLM provides args
-                        ToolExecutionOutcome outcome = executeTool(request, ctx);
+                        pending.add(startTool(request, ctx));
+                    }
+
+                    List<ToolExecutionOutcome> outcomes = new ArrayList<>();
+                    for (PendingToolCall call : pending) {
+                        ToolExecutionOutcome outcome = awaitTool(call, ctx);
                         outcomes.add(outcome);
-                        
+
                         // Add Result to history
-                        messages.add(ToolExecutionResultMessage.from(request, outcome.resultText()));
+                        messages.add(ToolExecutionResultMessage.from(call.request(), outcome.resultText()));
                     }
                     saveToolBatchToDatabase(ctx, aiMessage, requests, outcomes);
                     // Loop continues with new history
@@ -325,13 +336,22 @@ You are a friendly, professional, and empathetic Customer Support Specialist.
     private record ToolExecutionOutcome(boolean success, String resultText, String errorMessage) {
     }
 
-    private ToolExecutionOutcome executeTool(ToolExecutionRequest request, WorkflowContext ctx) {
+    /**
+     * 已发起的工具调用，completed 在调用结束时记录耗时
+     */
+    private record PendingToolCall(ToolExecutionRequest request, CompletableFuture<CompletedToolCall> completed) {
+    }
+
+    private record CompletedToolCall(ToolCallProcessor.ToolCallProcessResult result, Throwable error, long durationMs) {
+    }
+
+    private PendingToolCall startTool(ToolExecutionRequest request, WorkflowContext ctx) {
         long startTime = System.currentTimeMillis();
-        String toolName = request.name();
         String arguments = request.arguments();
-        
+
+        CompletableFuture<ToolCallProcessor.ToolCallProcessResult> future;
         try {
-            UUID toolId = toolCallProcessor.getToolIdByName(toolName);
+            UUID toolId = toolCallProcessor.getToolIdByName(request.name());
 
             // Parse arguments
             Map<String, Object> params = new HashMap<>();
@@ -340,7 +360,7 @@ You are a friendly, professional, and empathetic Customer Support Specialist.
             }
 
             // Execute
-            ToolCallProcessor.ToolCallProcessResult result = toolCallProcessor.executeToolDirectly(
+            future = toolCallProcessor.executeToolDirectlyAsync(
                 new ToolCallState.ToolCallRequest(
                     request.id(), 
                     request.name(), 
@@ -349,24 +369,37 @@ You are a friendly, professional, and empathetic Customer Support Specialist.
                 ), 
                 ctx
             );
-
-            long duration = System.currentTimeMillis() - startTime;
-            
-            if (result.isSuccess()) {
-                String output = result.getResult().getResult();
-                ctx.addToolExecution(getActualNodeId(), "agent", toolName, arguments, output, null, duration, true);
-                return new ToolExecutionOutcome(true, output, null);
-            }
-            
-            String errorMessage = result.getResult().getErrorMessage();
-            ctx.addToolExecution(getActualNodeId(), "agent", toolName, arguments, null, errorMessage, duration, false);
-            return new ToolExecutionOutcome(false, "Tool Execution Failed: " + errorMessage, errorMessage);
         } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return new PendingToolCall(request, future.handle((result, error) -> new CompletedToolCall(result,
+                error instanceof CompletionException && error.getCause() != null ? error.getCause() : error,
+                System.currentTimeMillis() - startTime)));
+    }
+
+    private ToolExecutionOutcome awaitTool(PendingToolCall call, WorkflowContext ctx) {
+        String toolName = call.request().name();
+        String arguments = call.request().arguments();
+        CompletedToolCall completed = call.completed().join();
+        long duration = completed.durationMs();
+
+        if (completed.error() != null) {
+            Throwable e = completed.error();
             log.error("Tool execution error", e);
-            long duration = System.currentTimeMillis() - startTime;
             ctx.addToolExecution(getActualNodeId(), "agent", toolName, arguments, null, e.getMessage(), duration, false);
             return new ToolExecutionOutcome(false, "Tool Execution Error: " + e.getMessage(), e.getMessage());
         }
+
+        ToolCallProcessor.ToolCallProcessResult result = completed.result();
+        if (result.isSuccess()) {
+            String output = result.getResult().getResult();
+            ctx.addToolExecution(getActualNodeId(), "agent", toolName, arguments, output, null, duration, true);
+            return new ToolExecutionOutcome(true, output, null);
+        }
+
+        String errorMessage = result.getResult() != null ? result.getResult().getErrorMessage() : result.getErrorMessage();
+        ctx.addToolExecution(getActualNodeId(), "agent", toolName, arguments, null, errorMessage, duration, false);
+        return new ToolExecutionOutcome(false, "Tool Execution Failed: " + errorMessage, errorMessage);
     }
 
     private void saveAiMessageToDatabase(WorkflowContext ctx, AiMessage aiMessage) {
@@ -390,7 +423,7 @@ You are a friendly, professional, and empathetic Customer Support Specialist.
                 message.setToolCallData(toolData);
             }
             
-            messageRepository.save(message);
+            sessionActivityWriter.messageSaved(messageRepository.save(message));
         } catch (Exception e) {
             log.error("Failed to save AI message to DB", e);
         }
@@ -452,7 +485,7 @@ You are a friendly, professional, and empathetic Customer Support Specialist.
 
             message.setToolCallData(toolData);
             
-            messageRepository.save(message);
+            sessionActivityWriter.messageSaved(messageRepository.save(message));
         } catch (Exception e) {
             log.error("Failed to save tool result to DB", e);
         }
@@ -4,6 +4,7 @@ import com.example.aikef.workflow.context.WorkflowContext;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yomahub.liteflow.annotation.LiteflowComponent;
+import jakarta.annotation.Resource;
 import org.springframework.http.*;
 import org.springframework.web.client.RestTemplate;
 
@@ -20,7 +21,10 @@ import java.util.regex.Pattern;
 @LiteflowComponent("api")
 public class ApiNode extends BaseWorkflowNode {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    // 共享的连接池 RestTemplate
+    @Resource
+    private RestTemplate restTemplate;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
     private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{\\{(\\w+)\\}\\}");
 
@@ -9,6 +9,7 @@ import com.example.aikef.service.ChatSessionService;
 import com.example.aikef.service.ConversationService;
 import com.example.aikef.service.CustomerService;
 import com.example.aikef.service.SessionMessageGateway;
+import com.example.aikef.service.SessionParticipantService;
 import com.example.aikef.websocket.WebSocketSessionManager;
 import com.example.aikef.workflow.context.WorkflowContext;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -44,6 +45,9 @@ public class HumanTransferNode extends BaseWorkflowNode {
     @Autowired
     private ConversationService conversationService;
 
+    @Autowired
+    private SessionParticipantService sessionParticipantService;
+
     @Override
     @Transactional
     public void process() {
@@ -84,7 +88,7 @@ public class HumanTransferNode extends BaseWorkflowNode {
                         sessionManager.broadcastToSession(
                                 session.getId(),
                                 session.getPrimaryAgent() != null ? session.getPrimaryAgent().getId() : null,
-                                session.getSupportAgentIds() != null ? session.getSupportAgentIds().stream().toList() : null,
+                                sessionParticipantService.getSupportAgentIds(session),
                                 session.getCustomer() != null ? session.getCustomer().getId() : null,
                                 null, // senderId 为 null，表示系统发送，广播给所有人
                                 jsonMessage
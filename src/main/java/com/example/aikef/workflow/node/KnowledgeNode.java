@@ -1,6 +1,7 @@
 package com.example.aikef.workflow.node;
 
 import com.example.aikef.knowledge.KnowledgeBaseService;
+import com.example.aikef.knowledge.KnowledgeSearchFilter;
 import com.example.aikef.knowledge.VectorStoreService;
 import com.example.aikef.model.KnowledgeBase;
 import com.example.aikef.workflow.context.WorkflowContext;
@@ -9,6 +10,8 @@ import jakarta.annotation.Resource;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -65,12 +68,15 @@ public class KnowledgeNode extends BaseWorkflowNode {
                 return;
             }
             
+            // 元数据过滤条件（租户条件由 VectorStoreService 自动附加）
+            KnowledgeSearchFilter filter = buildSearchFilter();
+
             // 执行向量搜索
             List<VectorStoreService.SearchResult> results;
             if (knowledgeBaseIds.size() == 1) {
-                results = vectorStoreService.search(knowledgeBaseIds.get(0), query, maxResults, minScore);
+                results = vectorStoreService.search(knowledgeBaseIds.get(0), query, maxResults, minScore, filter);
             } else {
-                results = vectorStoreService.searchMultiple(knowledgeBaseIds, query, maxResults, minScore);
+                results = vectorStoreService.searchMultiple(knowledgeBaseIds, query, maxResults, minScore, filter);
             }
             
             String output;
@@ -178,6 +184,49 @@ public class KnowledgeNode extends BaseWorkflowNode {
         return ids;
     }
 
+    /**
+     * 构建检索过滤条件
+     * 配置项：docTypes（文档类型）、tags（标签，需全部匹配）、updatedWithinDays（最近 N 天更新的文档）
+     */
+    private KnowledgeSearchFilter buildSearchFilter() {
+        List<String> docTypes = getConfigStringList("docTypes");
+        List<String> tags = getConfigStringList("tags");
+        int updatedWithinDays = getConfigInt("updatedWithinDays", 0);
+        Instant updatedAfter = updatedWithinDays > 0
+                ? Instant.now().minus(Duration.ofDays(updatedWithinDays))
+                : null;
+        return new KnowledgeSearchFilter(null,
+                docTypes.isEmpty() ? null : docTypes,
+                tags.isEmpty() ? null : tags,
+                null, updatedAfter, null);
+    }
+
+    /**
+     * 读取字符串列表配置，支持数组或逗号分隔字符串
+     */
+    private List<String> getConfigStringList(String key) {
+        JsonNode config = getNodeConfig();
+        JsonNode node = config != null ? config.get(key) : null;
+        List<String> values = new ArrayList<>();
+        if (node == null || node.isNull()) {
+            return values;
+        }
+        if (node.isArray()) {
+            for (JsonNode item : node) {
+                if (!item.asText().isBlank()) {
+                    values.add(item.asText().trim());
+                }
+            }
+        } else {
+            for (String item : node.asText().split(",")) {
+                if (!item.isBlank()) {
+                    values.add(item.trim());
+                }
+            }
+        }
+        return values;
+    }
+
     /**
      * 格式化输出
      */
@@ -27,6 +27,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.Map;
 
 /**
@@ -82,6 +84,9 @@ public class LlmNode extends BaseWorkflowNode {
     @Resource
     private com.example.aikef.repository.ChatSessionRepository chatSessionRepository;
 
+    @Resource
+    private com.example.aikef.service.SessionActivityWriter sessionActivityWriter;
+
     @Autowired
     private AiToolService aiToolService;
 
@@ -202,7 +207,7 @@ public class LlmNode extends BaseWorkflowNode {
             long startTime) {
 
         List<ToolExecutionRequest> toolRequests = aiMessage.toolExecutionRequests();
-        log.info("检测到 {} 个工具调用请求，将串行处理", toolRequests.size());
+        log.info("检测到 {} 个工具调用请求，将同时发起并等待全部完成", toolRequests.size());
         log.info("config={}", getNodeConfig());
 
         // 初始化工具调用状态 (用于存储结果)
@@ -213,7 +218,10 @@ public class LlmNode extends BaseWorkflowNode {
         // 清空旧结果
         toolState.getCompletedResults().clear();
 
-        // 解析并执行工具调用请求
+        // 解析并发起工具调用请求：同一轮的工具调用互不依赖，全部发起后再统一等待，
+        // 重试退避在 future 中进行，节点线程只等待最慢的一个调用
+        List<CompletableFuture<ToolCallProcessor.ToolCallProcessResult>> pending = new ArrayList<>();
+        List<UUID> toolIds = new ArrayList<>();
         for (ToolExecutionRequest toolRequest : toolRequests) {
             String toolName = toolRequest.name();
             String arguments = toolRequest.arguments();
@@ -241,9 +249,27 @@ public class LlmNode extends BaseWorkflowNode {
             );
             
             // 直接执行工具
-            ToolCallProcessor.ToolCallProcessResult result = 
-                    toolCallProcessor.executeToolDirectly(request, ctx.getSessionId());
-            
+            pending.add(toolCallProcessor.executeToolDirectlyAsync(request, ctx.getSessionId()));
+            toolIds.add(toolId);
+        }
+
+        // 按请求顺序收集结果
+        for (int i = 0; i < toolRequests.size(); i++) {
+            ToolExecutionRequest toolRequest = toolRequests.get(i);
+            String toolName = toolRequest.name();
+            String arguments = toolRequest.arguments();
+            String callId = toolRequest.id();
+            UUID toolId = toolIds.get(i);
+
+            ToolCallProcessor.ToolCallProcessResult result;
+            try {
+                result = pending.get(i).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("工具执行失败: tool={}", toolName, cause);
+                result = ToolCallProcessor.ToolCallProcessResult.error("工具执行异常: " + cause.getMessage());
+            }
+
             if (result.isSuccess()) {
                 toolState.addResult(result.getResult());
                 ctx.addToolExecution(getActualNodeId(), "llm", toolName, arguments, result.getResult().getResult(), null, result.getResult().getDurationMs(), true);
@@ -453,7 +479,7 @@ public class LlmNode extends BaseWorkflowNode {
             toolData.put("results", resultList);
             message.setToolCallData(toolData);
 
-            messageRepository.save(message);
+            sessionActivityWriter.messageSaved(messageRepository.save(message));
         } catch (Exception e) {
             log.error("保存工具执行结果失败", e);
         }
@@ -12,8 +12,10 @@ import com.example.aikef.repository.AiWorkflowRepository;
 import com.example.aikef.repository.ChatSessionRepository;
 import com.example.aikef.repository.SessionCategoryRepository;
 import com.example.aikef.repository.WorkflowCategoryBindingRepository;
+import com.example.aikef.repository.WorkflowExecutionLogDetailRepository;
 import com.example.aikef.repository.WorkflowExecutionLogRepository;
 import com.example.aikef.service.AgentService;
+import com.example.aikef.service.ConfigEntityCache;
 import com.example.aikef.workflow.context.WorkflowContext;
 import com.example.aikef.workflow.converter.ReactFlowToLiteflowConverter;
 import com.example.aikef.workflow.dto.WorkflowEdgeDto;
@@ -54,6 +56,12 @@ public class AiWorkflowService {
     @Resource
     private WorkflowExecutionLogRepository executionLogRepository;
 
+    @Resource
+    private WorkflowExecutionLogDetailRepository executionLogDetailRepository;
+
+    @Resource
+    private WorkflowExecutionLogWriter executionLogWriter;
+
     @Resource
     private ChatSessionRepository chatSessionRepository;
 
@@ -78,6 +86,9 @@ public class AiWorkflowService {
     @Resource
     private WorkflowStatusService workflowStatusService;
 
+    @Resource
+    private ConfigEntityCache configEntityCache;
+
     private final ObjectMapper objectMapper = new ObjectMapper()
             .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
 
@@ -129,6 +140,7 @@ public class AiWorkflowService {
         }
 
         AiWorkflow saved = workflowRepository.save(workflow);
+        configEntityCache.invalidate(ConfigEntityCache.SESSION_WORKFLOW);
         
         // 绑定分类
         if (request.categoryIds() != null && !request.categoryIds().isEmpty()) {
@@ -416,6 +428,7 @@ public class AiWorkflowService {
         }
 
         AiWorkflow saved = workflowRepository.save(workflow);
+        configEntityCache.invalidate(ConfigEntityCache.SESSION_WORKFLOW);
         
         // 更新分类绑定（如果提供了 categoryIds）
         if (request.categoryIds() != null) {
@@ -428,6 +441,7 @@ public class AiWorkflowService {
 
     /**
      * 根据消息ID获取工作流执行日志
+     * 执行详情单独存放，只在这里按日志 ID 加载并解压；日志异步写入，回复发出后短时间内可能还查不到
      */
     public Map<String, Object> getExecutionLogByMessageId(UUID messageId) {
         return executionLogRepository.findByMessageId(messageId)
@@ -436,16 +450,20 @@ public class AiWorkflowService {
                     workflowInfo.put("executionId", log.getId());
                     workflowInfo.put("status", log.getStatus());
                     
-                    try {
-                        if (log.getNodeDetails() != null) {
-                            workflowInfo.put("nodeDetails", objectMapper.readValue(log.getNodeDetails(), new TypeReference<List<Map<String, Object>>>() {}));
-                        }
-                        if (log.getToolExecutionChain() != null) {
-                            workflowInfo.put("toolExecutionChain", objectMapper.readValue(log.getToolExecutionChain(), new TypeReference<List<Map<String, Object>>>() {}));
+                    executionLogDetailRepository.findById(log.getId()).ifPresent(detail -> {
+                        try {
+                            String nodeDetails = detail.getNodeDetails();
+                            if (nodeDetails != null) {
+                                workflowInfo.put("nodeDetails", objectMapper.readValue(nodeDetails, new TypeReference<List<Map<String, Object>>>() {}));
+                            }
+                            String toolExecutionChain = detail.getToolExecutionChain();
+                            if (toolExecutionChain != null) {
+                                workflowInfo.put("toolExecutionChain", objectMapper.readValue(toolExecutionChain, new TypeReference<List<Map<String, Object>>>() {}));
+                            }
+                        } catch (Exception e) {
+                            AiWorkflowService.log.warn("解析工作流日志JSON失败", e);
                         }
-                    } catch (Exception e) {
-                        AiWorkflowService.log.warn("解析工作流日志JSON失败", e);
-                    }
+                    });
                     
                     workflowInfo.put("errorMessage", log.getErrorMessage());
                     workflowInfo.put("durationMs", log.getDurationMs());
@@ -470,6 +488,7 @@ public class AiWorkflowService {
         // 删除分类绑定
         categoryBindingRepository.deleteByWorkflow_Id(workflowId);
         workflowRepository.deleteById(workflowId);
+        configEntityCache.invalidate(ConfigEntityCache.SESSION_WORKFLOW);
     }
 
     /**
@@ -494,6 +513,7 @@ public class AiWorkflowService {
     public AiWorkflow toggleWorkflow(UUID workflowId, boolean enabled) {
         AiWorkflow workflow = getWorkflow(workflowId);
         workflow.setEnabled(enabled);
+        configEntityCache.invalidate(ConfigEntityCache.SESSION_WORKFLOW);
         return workflowRepository.save(workflow);
     }
 
@@ -512,6 +532,7 @@ public class AiWorkflowService {
         AiWorkflow workflow = getWorkflow(workflowId);
         workflow.setIsDefault(true);
         workflow.setEnabled(true);
+        configEntityCache.invalidate(ConfigEntityCache.SESSION_WORKFLOW);
         return workflowRepository.save(workflow);
     }
 
@@ -620,7 +641,8 @@ public class AiWorkflowService {
         log.setMessageId(messageId);
 
         if (sessionId != null) {
-            chatSessionRepository.findById(sessionId).ifPresent(log::setSession);
+            // 只需要外键，不查询会话
+            log.setSession(chatSessionRepository.getReferenceById(sessionId));
         }
 
         try {
@@ -629,13 +651,11 @@ public class AiWorkflowService {
 
             log.setStatus(result.success() ? "SUCCESS" : "FAILED");
             log.setFinalOutput(result.reply());
-            log.setNodeDetails(result.nodeDetailsJson());
-            log.setToolExecutionChain(result.toolExecutionChainJson());
             log.setErrorMessage(result.errorMessage());
             log.setFinishedAt(Instant.now());
             log.setDurationMs(System.currentTimeMillis() - startTime);
 
-            executionLogRepository.save(log);
+            executionLogWriter.submit(log, result.nodeDetailsJson(), result.toolExecutionChainJson());
             return result;
 
         } catch (Exception e) {
@@ -643,14 +663,14 @@ public class AiWorkflowService {
             log.setErrorMessage(e.getMessage());
             log.setFinishedAt(Instant.now());
             log.setDurationMs(System.currentTimeMillis() - startTime);
-            executionLogRepository.save(log);
+            executionLogWriter.submit(log, null, null);
 
             return new WorkflowExecutionResult(false, null, e.getMessage(), null, false, null);
         }
     }
 
     /**
-     * 根据会话查找匹配的工作流
+     * 根据会话查找匹配的工作流（分类绑定和默认工作流均走配置缓存，返回的实体只读）
      * 优先级：
      * 1. 会话分类绑定的工作流
      * 2. 默认工作流
@@ -660,24 +680,25 @@ public class AiWorkflowService {
         if (session.getCategory() != null) {
 
             log.info("categoryId={}", session.getCategory().getId());
-            Optional<WorkflowCategoryBinding> bindingOpt = categoryBindingRepository
-                    .findByCategoryIdWithWorkflow(session.getCategory().getId());
+            Optional<AiWorkflow> bound = findWorkflowByCategoryId(session.getCategory().getId());
             
-            if (bindingOpt.isPresent()) {
-                return bindingOpt.get().getWorkflow();
+            if (bound.isPresent()) {
+                return bound.get();
             }
         }
 
         // 2. 查找默认工作流
-        return workflowRepository.findByIsDefaultTrueAndEnabledTrue().orElse(null);
+        return configEntityCache.get(ConfigEntityCache.SESSION_WORKFLOW, "default",
+                workflowRepository::findByIsDefaultTrueAndEnabledTrue).orElse(null);
     }
 
     /**
      * 根据分类ID查找绑定的工作流（一个分类只能绑定一个工作流）
      */
     public Optional<AiWorkflow> findWorkflowByCategoryId(UUID categoryId) {
-        return categoryBindingRepository.findByCategoryIdWithWorkflow(categoryId)
-                .map(WorkflowCategoryBinding::getWorkflow);
+        return configEntityCache.get(ConfigEntityCache.SESSION_WORKFLOW, categoryId,
+                () -> categoryBindingRepository.findByCategoryIdWithWorkflow(categoryId)
+                        .map(WorkflowCategoryBinding::getWorkflow));
     }
 
     /**
@@ -717,6 +738,7 @@ public class AiWorkflowService {
             }
         }
         
+        configEntityCache.invalidate(ConfigEntityCache.SESSION_WORKFLOW);
         log.info("工作流分类绑定更新: workflowId={}, categories={}", workflowId, categoryIds);
     }
 
@@ -977,7 +999,8 @@ public class AiWorkflowService {
         log.setMessageId(messageId);
 
         if (sessionId != null) {
-            chatSessionRepository.findById(sessionId).ifPresent(log::setSession);
+            // 只需要外键，不查询会话
+            log.setSession(chatSessionRepository.getReferenceById(sessionId));
         }
 
         try {
@@ -986,13 +1009,11 @@ public class AiWorkflowService {
 
             log.setStatus(result.success() ? "SUCCESS" : "FAILED");
             log.setFinalOutput(result.reply());
-            log.setNodeDetails(result.nodeDetailsJson());
-            log.setToolExecutionChain(result.toolExecutionChainJson());
             log.setErrorMessage(result.errorMessage());
             log.setFinishedAt(Instant.now());
             log.setDurationMs(System.currentTimeMillis() - startTime);
 
-            executionLogRepository.save(log);
+            executionLogWriter.submit(log, result.nodeDetailsJson(), result.toolExecutionChainJson());
             return result;
 
         } catch (Exception e) {
@@ -1000,7 +1021,7 @@ public class AiWorkflowService {
             log.setErrorMessage(e.getMessage());
             log.setFinishedAt(Instant.now());
             log.setDurationMs(System.currentTimeMillis() - startTime);
-            executionLogRepository.save(log);
+            executionLogWriter.submit(log, null, null);
 
             return new WorkflowExecutionResult(false, null, e.getMessage(), null, false, null);
         }
@@ -0,0 +1,100 @@
+package com.example.aikef.workflow.service;
+
+import com.example.aikef.repository.WorkflowExecutionLogDetailRepository;
+import com.example.aikef.repository.WorkflowExecutionLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.IntSupplier;
+
+/**
+ * 工作流执行日志保留策略
+ * 执行详情（节点输入输出、工具调用链）只用于近期排查，保留 detail-days 天；
+ * 执行日志本身（状态、耗时、错误信息）用于统计，保留 log-days 天，删除日志时详情随外键级联删除。
+ * 每批在独立事务中按 LIMIT 删除，单次运行最多处理 max-batches 批。
+ * 删除不可恢复，默认关闭，需显式配置 {@code workflow.execution-log.retention.enabled=true}
+ */
+@Slf4j
+@Service
+public class WorkflowExecutionLogRetentionService {
+
+    @Value("${workflow.execution-log.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${workflow.execution-log.retention.detail-days:30}")
+    private int detailDays;
+
+    @Value("${workflow.execution-log.retention.log-days:180}")
+    private int logDays;
+
+    @Value("${workflow.execution-log.retention.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${workflow.execution-log.retention.max-batches:100}")
+    private int maxBatches;
+
+    private final WorkflowExecutionLogRepository executionLogRepository;
+    private final WorkflowExecutionLogDetailRepository executionLogDetailRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public WorkflowExecutionLogRetentionService(WorkflowExecutionLogRepository executionLogRepository,
+                                                WorkflowExecutionLogDetailRepository executionLogDetailRepository,
+                                                PlatformTransactionManager transactionManager) {
+        this.executionLogRepository = executionLogRepository;
+        this.executionLogDetailRepository = executionLogDetailRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${workflow.execution-log.retention.cron:0 0 4 * * *}")
+    public void scheduledCleanup() {
+        if (enabled) {
+            cleanup();
+        }
+    }
+
+    /**
+     * 清理一轮
+     *
+     * @return 删除的执行日志数（不含只删除详情的记录）
+     */
+    public int cleanup() {
+        Instant now = Instant.now();
+        Instant detailCutoff = now.minus(Duration.ofDays(detailDays));
+        Instant logCutoff = now.minus(Duration.ofDays(Math.max(logDays, detailDays)));
+
+        int details = deleteInBatches("执行详情",
+                () -> executionLogDetailRepository.deleteCreatedBefore(detailCutoff, batchSize));
+        int logs = deleteInBatches("执行日志",
+                () -> executionLogRepository.deleteCreatedBefore(logCutoff, batchSize));
+        if (details > 0 || logs > 0) {
+            log.info("工作流执行日志清理完成: details={}, logs={}, detailCutoff={}, logCutoff={}",
+                    details, logs, detailCutoff, logCutoff);
+        }
+        return logs;
+    }
+
+    private int deleteInBatches(String name, IntSupplier deleteBatch) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int deleted;
+            try {
+                Integer result = transactionTemplate.execute(status -> deleteBatch.getAsInt());
+                deleted = result != null ? result : 0;
+            } catch (Exception e) {
+                log.error("清理工作流{}失败: deleted={}, error={}", name, total, e.getMessage(), e);
+                break;
+            }
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
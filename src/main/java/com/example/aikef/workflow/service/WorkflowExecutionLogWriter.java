@@ -0,0 +1,200 @@
+package com.example.aikef.workflow.service;
+
+import com.example.aikef.model.AiWorkflow;
+import com.example.aikef.model.ChatSession;
+import com.example.aikef.model.WorkflowExecutionLog;
+import com.example.aikef.model.WorkflowExecutionLogDetail;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 工作流执行日志写入器
+ * 工作流执行结束后日志进入有界队列，由后台线程压缩执行详情并按批写入，
+ * 回复不再等待日志序列化、压缩和落库。队列已满时短暂等待后丢弃并计数；应用停止时写完队列中剩余的日志。
+ * 关闭 {@code workflow.execution-log.async} 时在调用线程同步写入
+ */
+@Slf4j
+@Component
+public class WorkflowExecutionLogWriter {
+
+    @Value("${workflow.execution-log.async:true}")
+    private boolean async;
+
+    @Value("${workflow.execution-log.queue-capacity:5000}")
+    private int queueCapacity;
+
+    @Value("${workflow.execution-log.batch-size:50}")
+    private int batchSize;
+
+    // 队列已满时调用线程最多等待的时间
+    @Value("${workflow.execution-log.offer-timeout-millis:50}")
+    private long offerTimeoutMillis;
+
+    @Value("${workflow.execution-log.shutdown-timeout-seconds:10}")
+    private long shutdownTimeoutSeconds;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private BlockingQueue<PendingLog> queue;
+    private Thread worker;
+    private volatile boolean running;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public WorkflowExecutionLogWriter(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionManager != null ? new TransactionTemplate(transactionManager) : null;
+        if (transactionTemplate != null) {
+            // 同步写入时调用方可能处于只读事务中，日志始终在独立事务中写入
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        if (!async) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "workflow-execution-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 提交执行日志；工作流、会话只需设置 ID（可为代理或缓存中的只读实体），写入时按 ID 关联
+     *
+     * @param nodeDetails        节点执行详情 JSON（可为 null）
+     * @param toolExecutionChain 工具执行链 JSON（可为 null）
+     */
+    public void submit(WorkflowExecutionLog executionLog, String nodeDetails, String toolExecutionChain) {
+        PendingLog pending = new PendingLog(executionLog, nodeDetails, toolExecutionChain);
+        if (!async) {
+            write(List.of(pending));
+            return;
+        }
+        boolean queued;
+        try {
+            queued = running && queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            long dropped = droppedCount.incrementAndGet();
+            // 避免积压时日志刷屏
+            if (dropped == 1 || dropped % 1000 == 0) {
+                log.warn("工作流执行日志队列已满，丢弃日志: dropped={}, capacity={}", dropped, queueCapacity);
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private void run() {
+        List<PendingLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingLog first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("写入工作流执行日志失败: size={}", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 写入一批日志；整批失败（如工作流或会话已被删除导致外键冲突）时逐条重试，只丢弃写不进去的日志
+     */
+    void write(List<PendingLog> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(batch));
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                log.error("写入工作流执行日志失败，丢弃: messageId={}, error={}",
+                        batch.get(0).executionLog().getMessageId(), e.getMessage());
+                return;
+            }
+            log.warn("批量写入工作流执行日志失败，改为逐条写入: size={}, error={}", batch.size(), e.getMessage());
+            for (PendingLog pending : batch) {
+                write(List.of(pending));
+            }
+        }
+    }
+
+    private void persist(List<PendingLog> batch) {
+        for (PendingLog pending : batch) {
+            WorkflowExecutionLog executionLog = pending.executionLog();
+            // 重试时日志可能已在失败的事务中分配过 ID，清空后重新生成
+            executionLog.setId(null);
+            executionLog.setWorkflow(entityManager.getReference(AiWorkflow.class, executionLog.getWorkflow().getId()));
+            if (executionLog.getSession() != null) {
+                executionLog.setSession(entityManager.getReference(ChatSession.class, executionLog.getSession().getId()));
+            }
+            entityManager.persist(executionLog);
+
+            WorkflowExecutionLogDetail detail = new WorkflowExecutionLogDetail(
+                    executionLog, pending.nodeDetails(), pending.toolExecutionChain());
+            if (detail.hasContent()) {
+                entityManager.persist(detail);
+            }
+        }
+        entityManager.flush();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(shutdownTimeoutSeconds));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (remaining.isEmpty()) {
+            return;
+        }
+        log.info("应用停止，写入剩余工作流执行日志: count={}", remaining.size());
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            write(remaining.subList(from, Math.min(remaining.size(), from + batchSize)));
+        }
+    }
+
+    record PendingLog(WorkflowExecutionLog executionLog, String nodeDetails, String toolExecutionChain) {
+    }
+}
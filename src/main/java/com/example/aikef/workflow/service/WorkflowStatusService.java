@@ -1,8 +1,8 @@
 package com.example.aikef.workflow.service;
 
 import com.example.aikef.llm.LangChainChatService;
+import com.example.aikef.llm.LlmModelService;
 import com.example.aikef.model.LlmModel;
-import com.example.aikef.repository.LlmModelRepository;
 import com.example.aikef.service.WebSocketEventService;
 import com.example.aikef.workflow.context.WorkflowContext;
 import org.slf4j.Logger;
@@ -21,14 +21,14 @@ public class WorkflowStatusService {
 
     private static final Logger log = LoggerFactory.getLogger(WorkflowStatusService.class);
 
-    private final LlmModelRepository llmModelRepository;
+    private final LlmModelService llmModelService;
     private final LangChainChatService langChainChatService;
     private final WebSocketEventService webSocketEventService;
 
-    public WorkflowStatusService(LlmModelRepository llmModelRepository,
+    public WorkflowStatusService(LlmModelService llmModelService,
                                 LangChainChatService langChainChatService,
                                 WebSocketEventService webSocketEventService) {
-        this.llmModelRepository = llmModelRepository;
+        this.llmModelService = llmModelService;
         this.langChainChatService = langChainChatService;
         this.webSocketEventService = webSocketEventService;
     }
@@ -80,8 +80,7 @@ public class WorkflowStatusService {
      */
     private String interpretStatus(StatusType type, String data, String language, String userQuery) {
         // 查找状态解释专用的小模型
-        LlmModel smallModel = llmModelRepository.findFirstByStatusExplanationTrueAndEnabledTrueOrderBySortOrderAsc()
-                .orElse(null);
+        LlmModel smallModel = llmModelService.getStatusExplanationModel().orElse(null);
 
         if (smallModel == null) {
             // 如果没有配置小模型，返回默认描述
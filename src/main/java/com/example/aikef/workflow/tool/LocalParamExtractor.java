@@ -0,0 +1,362 @@
+package com.example.aikef.workflow.tool;
+
+import com.example.aikef.extraction.model.FieldDefinition;
+import com.example.aikef.extraction.model.FieldDefinition.FieldType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 本地参数提取
+ * 根据字段定义（类型、validationPattern、枚举值、示例值）用正则从用户回复中直接提取参数，
+ * 手机号、邮箱、日期、订单号这类格式明确的参数不需要调用 LLM；提取不到的参数再交给 LLM
+ * <p>
+ * 只在结果无歧义时返回：同一字段匹配到多个不同的值、或多个目标字段竞争同一类值时放弃该字段
+ */
+@Slf4j
+@Component
+public class LocalParamExtractor {
+
+    private static final Pattern EMAIL = Pattern.compile("[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}");
+    private static final Pattern MOBILE = Pattern.compile("(?<!\\d)(?:\\+?86[- ]?)?(1[3-9]\\d)[- ]?(\\d{4})[- ]?(\\d{4})(?!\\d)");
+    private static final Pattern LANDLINE = Pattern.compile("(?<!\\d)(0\\d{2,3})-(\\d{7,8})(?!\\d)");
+    private static final Pattern DATE = Pattern.compile("(?<!\\d)(\\d{4})\\s*[-/.年]\\s*(\\d{1,2})\\s*[-/.月]\\s*(\\d{1,2})\\s*[日号]?");
+    private static final Pattern TIME = Pattern.compile("(\\d{1,2})\\s*[:：点时]\\s*(\\d{1,2})?\\s*分?");
+    private static final Pattern INTEGER = Pattern.compile("(?<![\\d.])-?\\d+(?![\\d.])");
+    private static final Pattern NUMBER = Pattern.compile("(?<![\\d.])-?\\d+(?:\\.\\d+)?(?![\\d.])");
+
+    private static final Set<String> YES = Set.of("是", "是的", "对", "对的", "好", "好的", "可以", "确认", "确定", "需要", "要",
+            "嗯", "y", "yes", "true", "ok");
+    private static final Set<String> NO = Set.of("否", "不", "不是", "不对", "不用", "不要", "不需要", "取消", "n", "no", "false");
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final Clock clock;
+
+    // validationPattern / 示例值推导出的正则
+    private final Map<String, Optional<Pattern>> patternCache = new ConcurrentHashMap<>();
+
+    public LocalParamExtractor() {
+        this(Clock.systemDefaultZone());
+    }
+
+    LocalParamExtractor(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 提取目标参数
+     *
+     * @param text         用户回复
+     * @param paramDefs    工具参数定义
+     * @param targetParams 需要提取的参数名
+     * @return 成功提取的参数（不含未提取到的参数）
+     */
+    public Map<String, Object> extract(String text, List<FieldDefinition> paramDefs, List<String> targetParams) {
+        return extract(text, paramDefs, targetParams, false);
+    }
+
+    /**
+     * 只用高精度规则提取：validationPattern、示例值推导的格式、邮箱、手机号
+     * 用于从用户原始消息中补齐 LLM 漏掉的参数——原始消息不是针对该参数的回答，
+     * 仅凭类型匹配的数字（可能是手机号、订单号的一部分）或"今天/明天"容易绑定到用户没有给出的值
+     */
+    public Map<String, Object> extractStrict(String text, List<FieldDefinition> paramDefs, List<String> targetParams) {
+        return extract(text, paramDefs, targetParams, true);
+    }
+
+    private Map<String, Object> extract(String text, List<FieldDefinition> paramDefs, List<String> targetParams,
+                                        boolean strict) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (text == null || text.isBlank() || paramDefs == null || targetParams == null || targetParams.isEmpty()) {
+            return result;
+        }
+        List<FieldDefinition> targets = new ArrayList<>();
+        for (FieldDefinition field : paramDefs) {
+            if (targetParams.contains(field.getName())) {
+                targets.add(field);
+            }
+        }
+
+        for (FieldDefinition field : targets) {
+            Object value = extractField(text, field, targets, strict);
+            if (value != null) {
+                result.put(field.getName(), value);
+            }
+        }
+        return result;
+    }
+
+    private Object extractField(String text, FieldDefinition field, List<FieldDefinition> targets, boolean strict) {
+        // 配置了校验正则时以正则为准
+        Optional<Pattern> validation = compile(field.getValidationPattern());
+        if (validation.isPresent()) {
+            return single(findAll(validation.get(), text));
+        }
+        FieldType type = field.getType() != null ? field.getType() : FieldType.STRING;
+        // 高精度模式下只保留格式自带标识的类型，字符串仍只按示例值推导的格式匹配
+        if (strict && type != FieldType.EMAIL && type != FieldType.PHONE && type != FieldType.STRING) {
+            return null;
+        }
+        // 同类型（或都由类型推断的数值）字段有多个时无法区分，交给 LLM
+        boolean ambiguousType = targets.stream()
+                .filter(other -> other != field)
+                .anyMatch(other -> sameValueKind(type, other));
+
+        return switch (type) {
+            case EMAIL -> ambiguousType ? null : single(findAll(EMAIL, text));
+            case PHONE -> ambiguousType ? null : single(findPhones(text));
+            case DATE -> ambiguousType ? null : single(findDates(text));
+            case DATETIME -> ambiguousType ? null : single(findDateTimes(text));
+            case INTEGER -> ambiguousType ? null : toLong(single(findAll(INTEGER, text)));
+            case NUMBER -> ambiguousType ? null : toNumber(single(findAll(NUMBER, text)));
+            case BOOLEAN -> targets.size() == 1 ? parseBoolean(text) : null;
+            case ENUM -> single(findEnumValues(text, field.getEnumValues()));
+            case STRING -> extractByExamples(text, field);
+            default -> null;
+        };
+    }
+
+    /**
+     * 两个字段的取值是否会相互混淆（校验正则/示例值能区分的字段不算）
+     */
+    private boolean sameValueKind(FieldType type, FieldDefinition other) {
+        if (compile(other.getValidationPattern()).isPresent()) {
+            return false;
+        }
+        FieldType otherType = other.getType() != null ? other.getType() : FieldType.STRING;
+        if (type == otherType) {
+            return true;
+        }
+        boolean numeric = type == FieldType.INTEGER || type == FieldType.NUMBER;
+        boolean otherNumeric = otherType == FieldType.INTEGER || otherType == FieldType.NUMBER;
+        return numeric && otherNumeric;
+    }
+
+    // ==================== 各类型提取 ====================
+
+    private List<String> findPhones(String text) {
+        List<String> values = new ArrayList<>();
+        Matcher mobile = MOBILE.matcher(text);
+        while (mobile.find()) {
+            values.add(mobile.group(1) + mobile.group(2) + mobile.group(3));
+        }
+        Matcher landline = LANDLINE.matcher(text);
+        while (landline.find()) {
+            values.add(landline.group(1) + "-" + landline.group(2));
+        }
+        return values;
+    }
+
+    private List<String> findDates(String text) {
+        List<String> values = new ArrayList<>();
+        Matcher matcher = DATE.matcher(text);
+        while (matcher.find()) {
+            LocalDate date = toDate(matcher.group(1), matcher.group(2), matcher.group(3));
+            if (date != null) {
+                values.add(date.format(DATE_FORMAT));
+            }
+        }
+        if (values.isEmpty()) {
+            LocalDate today = LocalDate.now(clock);
+            addRelative(values, text, "大后天", today.plusDays(3));
+            if (!text.contains("大后天")) {
+                addRelative(values, text, "后天", today.plusDays(2));
+            }
+            addRelative(values, text, "明天", today.plusDays(1));
+            addRelative(values, text, "今天", today);
+            addRelative(values, text, "昨天", today.minusDays(1));
+        }
+        return values;
+    }
+
+    private void addRelative(List<String> values, String text, String word, LocalDate date) {
+        if (text.contains(word)) {
+            values.add(date.format(DATE_FORMAT));
+        }
+    }
+
+    private List<String> findDateTimes(String text) {
+        List<String> dates = findDates(text);
+        if (dates.size() != 1) {
+            return dates.isEmpty() ? List.of() : dates;
+        }
+        // 时间部分在日期之后查找，避免把日期中的数字当成时间
+        Matcher dateMatcher = DATE.matcher(text);
+        String rest = dateMatcher.find() ? text.substring(dateMatcher.end()) : text;
+        Matcher time = TIME.matcher(rest);
+        if (time.find()) {
+            int hour = Integer.parseInt(time.group(1));
+            int minute = time.group(2) != null ? Integer.parseInt(time.group(2)) : 0;
+            if (hour < 24 && minute < 60) {
+                return List.of(String.format("%s %02d:%02d:00", dates.get(0), hour, minute));
+            }
+        }
+        return List.of(dates.get(0) + " 00:00:00");
+    }
+
+    private List<String> findEnumValues(String text, List<String> enumValues) {
+        if (enumValues == null || enumValues.isEmpty()) {
+            return List.of();
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        List<String> matched = new ArrayList<>();
+        for (String value : enumValues) {
+            if (value != null && !value.isBlank() && lower.contains(value.toLowerCase(Locale.ROOT))) {
+                matched.add(value);
+            }
+        }
+        // 一个枚举值包含另一个时（如 "VIP" 与 "SVIP"）只保留最长的
+        matched.removeIf(value -> matched.stream()
+                .anyMatch(other -> other.length() > value.length() && other.toLowerCase(Locale.ROOT)
+                        .contains(value.toLowerCase(Locale.ROOT))));
+        return matched;
+    }
+
+    private Boolean parseBoolean(String text) {
+        String normalized = text.trim().toLowerCase(Locale.ROOT).replaceAll("[\\s。！!，,.～~]+$", "");
+        if (YES.contains(normalized)) {
+            return Boolean.TRUE;
+        }
+        if (NO.contains(normalized)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    /**
+     * 字符串字段：由示例值推导格式（如订单号 ORD20240101001 → ORD\d{11}）
+     */
+    private String extractByExamples(String text, FieldDefinition field) {
+        if (field.getExamples() == null || field.getExamples().isEmpty()) {
+            return null;
+        }
+        String key = "examples:" + String.join("\u0000", field.getExamples());
+        Optional<Pattern> pattern = patternCache.computeIfAbsent(key, k -> derivePattern(field.getExamples()));
+        return pattern.map(p -> single(findAll(p, text))).orElse(null);
+    }
+
+    /**
+     * 示例值推导正则：字母保留原样（忽略大小写），连续数字按位数匹配，其余字符转义；
+     * 只对包含足够数字的示例推导，避免普通文本示例误匹配
+     */
+    static Optional<Pattern> derivePattern(List<String> examples) {
+        Set<String> shapes = new LinkedHashSet<>();
+        for (String example : examples) {
+            if (example == null) {
+                continue;
+            }
+            String value = example.trim();
+            long digits = value.chars().filter(Character::isDigit).count();
+            if (value.length() < 6 || digits < 4 || value.chars().anyMatch(Character::isWhitespace)) {
+                return Optional.empty();
+            }
+            StringBuilder shape = new StringBuilder();
+            int i = 0;
+            while (i < value.length()) {
+                char c = value.charAt(i);
+                int start = i;
+                if (Character.isDigit(c)) {
+                    while (i < value.length() && Character.isDigit(value.charAt(i))) {
+                        i++;
+                    }
+                    shape.append("\\d{").append(i - start).append('}');
+                } else {
+                    shape.append(Pattern.quote(String.valueOf(c)));
+                    i++;
+                }
+            }
+            shapes.add(shape.toString());
+        }
+        if (shapes.isEmpty()) {
+            return Optional.empty();
+        }
+        String regex = "(?<![A-Za-z0-9])(?:" + String.join("|", shapes) + ")(?![A-Za-z0-9])";
+        return Optional.of(Pattern.compile(regex, Pattern.CASE_INSENSITIVE));
+    }
+
+    // ==================== 工具方法 ====================
+
+    /**
+     * 编译 validationPattern，用于在整段文本中查找（去掉首尾锚点）
+     */
+    private Optional<Pattern> compile(String validationPattern) {
+        if (validationPattern == null || validationPattern.isBlank()) {
+            return Optional.empty();
+        }
+        return patternCache.computeIfAbsent("validation:" + validationPattern, key -> {
+            String regex = validationPattern;
+            if (regex.startsWith("^")) {
+                regex = regex.substring(1);
+            }
+            if (regex.endsWith("$") && !regex.endsWith("\\$")) {
+                regex = regex.substring(0, regex.length() - 1);
+            }
+            try {
+                return Optional.of(Pattern.compile(regex));
+            } catch (PatternSyntaxException e) {
+                log.warn("参数校验正则无效，跳过本地提取: pattern={}", validationPattern);
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static List<String> findAll(Pattern pattern, String text) {
+        List<String> values = new ArrayList<>();
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            if (!matcher.group().isEmpty()) {
+                values.add(matcher.group());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 只有一个不同的候选值时返回该值
+     */
+    private static String single(List<String> values) {
+        Set<String> distinct = new LinkedHashSet<>(values);
+        return distinct.size() == 1 ? distinct.iterator().next() : null;
+    }
+
+    private static LocalDate toDate(String year, String month, String day) {
+        try {
+            return LocalDate.of(Integer.parseInt(year), Integer.parseInt(month), Integer.parseInt(day));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Long toLong(String value) {
+        try {
+            return value != null ? Long.valueOf(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Number toNumber(String value) {
+        if (value == null) {
+            return null;
+        }
+        BigDecimal number = new BigDecimal(value);
+        return number.scale() > 0 ? number.doubleValue() : (Number) number.longValue();
+    }
+}
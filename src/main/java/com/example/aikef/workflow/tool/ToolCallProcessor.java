@@ -9,6 +9,7 @@ import com.example.aikef.llm.LlmModelService;
 import com.example.aikef.tool.model.AiTool;
 import com.example.aikef.tool.repository.AiToolRepository;
 import com.example.aikef.tool.service.AiToolService;
+import com.example.aikef.tool.service.ToolSpecificationCache;
 import com.example.aikef.workflow.context.WorkflowContext;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -17,9 +18,11 @@ import dev.langchain4j.agent.tool.ToolSpecification;
 import dev.langchain4j.model.chat.request.json.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 工具调用处理器
@@ -36,34 +39,41 @@ public class ToolCallProcessor {
 
     private final AiToolRepository toolRepository;
     private final AiToolService toolService;
+    private final ToolSpecificationCache toolSpecificationCache;
     private final StructuredExtractionService extractionService;
     private final ExtractionSchemaRepository schemaRepository;
     private final LlmModelService llmModelService;
     private final ObjectMapper objectMapper;
+    private final LocalParamExtractor localParamExtractor;
+
+    // 参数收集时先用本地正则提取（手机号、邮箱、日期、订单号等），提取不到的参数再调用 LLM
+    @Value("${tool.param-collection.local-extraction:true}")
+    private boolean localExtractionEnabled;
 
     /**
-     * 根据工具ID列表构建 ToolSpecification 列表
+     * 根据工具ID列表构建 ToolSpecification 列表（结果按工具缓存，工具变更后失效）
      */
     public List<ToolSpecification> buildToolSpecifications(List<UUID> toolIds) {
         List<ToolSpecification> specifications = new ArrayList<>();
 
         for (UUID toolId : toolIds) {
-            // 使用带 Schema 的查询避免 LazyInitializationException
-            AiTool tool = toolRepository.findByIdWithSchema(toolId).orElse(null);
-            if (tool == null || !tool.getEnabled()) {
-                log.warn("工具不存在或已禁用: {}", toolId);
-                continue;
-            }
-
-            ToolSpecification spec = buildToolSpecification(tool);
-            if (spec != null) {
-                specifications.add(spec);
-            }
+            toolSpecificationCache.getSpecification(toolId, this::loadToolSpecification)
+                    .ifPresent(specifications::add);
         }
 
         return specifications;
     }
 
+    private Optional<ToolSpecification> loadToolSpecification(UUID toolId) {
+        // 使用带 Schema 的查询避免 LazyInitializationException
+        AiTool tool = toolRepository.findByIdWithSchema(toolId).orElse(null);
+        if (tool == null || !tool.getEnabled()) {
+            log.warn("工具不存在或已禁用: {}", toolId);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(buildToolSpecification(tool));
+    }
+
     /**
      * 构建单个工具的 ToolSpecification（支持嵌套的 object 和 array）
      */
@@ -181,8 +191,17 @@ public class ToolCallProcessor {
      * 直接执行工具，使用提供的 WorkflowContext
      */
     public ToolCallProcessResult executeToolDirectly(ToolCallState.ToolCallRequest request, WorkflowContext ctx) {
+        return executeToolDirectlyAsync(request, ctx).join();
+    }
+
+    /**
+     * 异步直接执行工具，使用提供的 WorkflowContext
+     * 工具调用及其重试在返回的 future 中完成，调用方可同时发起多个工具调用后统一等待
+     */
+    public CompletableFuture<ToolCallProcessResult> executeToolDirectlyAsync(ToolCallState.ToolCallRequest request,
+                                                                            WorkflowContext ctx) {
         if (request == null) {
-            return ToolCallProcessResult.error("没有待处理的工具调用");
+            return CompletableFuture.completedFuture(ToolCallProcessResult.error("没有待处理的工具调用"));
         }
 
         // 获取工具（带 Schema）
@@ -192,7 +211,7 @@ public class ToolCallProcessor {
         }
 
         if (tool == null) {
-            return ToolCallProcessResult.error("工具不存在: " + request.getToolName());
+            return CompletableFuture.completedFuture(ToolCallProcessResult.error("工具不存在: " + request.getToolName()));
         }
 
         // 使用 LLM 提取的参数，不进行完整性检查
@@ -215,8 +234,16 @@ public class ToolCallProcessor {
      * @return 处理结果
      */
     public ToolCallProcessResult executeToolDirectly(ToolCallState.ToolCallRequest request, UUID sessionId) {
+        return executeToolDirectlyAsync(request, sessionId).join();
+    }
+
+    /**
+     * 异步直接执行工具，按会话 ID 构建上下文
+     */
+    public CompletableFuture<ToolCallProcessResult> executeToolDirectlyAsync(ToolCallState.ToolCallRequest request,
+                                                                            UUID sessionId) {
         if (request == null) {
-            return ToolCallProcessResult.error("没有待处理的工具调用");
+            return CompletableFuture.completedFuture(ToolCallProcessResult.error("没有待处理的工具调用"));
         }
 
         // 获取工具（带 Schema）
@@ -226,7 +253,7 @@ public class ToolCallProcessor {
         }
 
         if (tool == null) {
-            return ToolCallProcessResult.error("工具不存在: " + request.getToolName());
+            return CompletableFuture.completedFuture(ToolCallProcessResult.error("工具不存在: " + request.getToolName()));
         }
 
         // 使用 LLM 提取的参数，不进行完整性检查
@@ -294,6 +321,18 @@ public class ToolCallProcessor {
             }
         }
         
+        // LLM 调用工具时漏掉的格式明确的参数，直接从用户原始消息中补齐，省去一轮追问；
+        // 原始消息不是针对这些参数的回答，只用高精度规则（校验正则、示例格式、邮箱、手机号），
+        // 仅凭类型匹配的数字、相对日期留到追问后的回复中再提取
+        if (!missingParams.isEmpty() && localExtractionEnabled) {
+            Map<String, Object> localParams = localParamExtractor.extractStrict(userMessage, paramDefs, missingParams);
+            if (!localParams.isEmpty()) {
+                log.info("本地提取补齐参数: {}", localParams.keySet());
+                allParams.putAll(localParams);
+                missingParams.removeAll(localParams.keySet());
+            }
+        }
+
         log.info("缺失参数: {}", missingParams);
 
         toolCallState.setCollectedParams(allParams);
@@ -301,7 +340,7 @@ public class ToolCallProcessor {
 
         if (missingParams.isEmpty()) {
             // 所有参数都有了，执行工具
-            return executeToolWithParams(tool, allParams, request.getId(), sessionId);
+            return executeToolWithParams(tool, allParams, request.getId(), sessionId).join();
         } else {
             // 有缺失参数，需要收集
             String nextQuestion = buildFollowupQuestion(paramDefs, missingParams);
@@ -346,7 +385,7 @@ public class ToolCallProcessor {
         try {
             // 使用结构化提取从用户回复中提取参数
             List<FieldDefinition> paramDefs = getToolParameters(tool);
-            Map<String, Object> extractedParams = extractParamsFromText(
+            Map<String, Object> extractedParams = collectParamsFromReply(
                     userResponse,
                     paramDefs,
                     toolCallState.getMissingParams(),
@@ -376,7 +415,7 @@ public class ToolCallProcessor {
 
             if (stillMissing.isEmpty()) {
                 // 参数收集完成，执行工具
-                return executeToolWithParams(tool, allParams, request.getId(), sessionId);
+                return executeToolWithParams(tool, allParams, request.getId(), sessionId).join();
             } else {
                 // 还有缺失参数
                 String nextQuestion = buildFollowupQuestion(paramDefs, stillMissing);
@@ -395,7 +434,31 @@ public class ToolCallProcessor {
     }
 
     /**
-     * 从文本中提取参数
+     * 从用户回复中提取缺失参数：先本地提取，仍有缺失时再调用 LLM 提取剩余参数
+     */
+    private Map<String, Object> collectParamsFromReply(
+            String text,
+            List<FieldDefinition> paramDefs,
+            List<String> targetParams,
+            UUID llmModelId) {
+
+        Map<String, Object> params = new HashMap<>();
+        List<String> remaining = targetParams != null ? new ArrayList<>(targetParams) : new ArrayList<>();
+        if (localExtractionEnabled) {
+            params.putAll(localParamExtractor.extract(text, paramDefs, remaining));
+            remaining.removeAll(params.keySet());
+            if (!params.isEmpty()) {
+                log.info("本地提取参数: extracted={}, remaining={}", params.keySet(), remaining);
+            }
+        }
+        if (!remaining.isEmpty()) {
+            params.putAll(extractParamsFromText(text, paramDefs, remaining, llmModelId));
+        }
+        return params;
+    }
+
+    /**
+     * 从文本中提取参数（LLM）
      */
     private Map<String, Object> extractParamsFromText(
             String text,
@@ -447,44 +510,34 @@ public class ToolCallProcessor {
     /**
      * 使用参数执行工具（带上下文）
      */
-    private ToolCallProcessResult executeToolWithParams(AiTool tool, Map<String, Object> params, String toolCallId, WorkflowContext ctx) {
+    private CompletableFuture<ToolCallProcessResult> executeToolWithParams(AiTool tool, Map<String, Object> params,
+                                                                          String toolCallId, WorkflowContext ctx) {
         try {
             log.info("执行工具(带上下文): tool={}, params={}", tool.getName(), params);
 
-            AiToolService.ToolExecutionResult result = toolService.executeTool(
-                    tool.getId(),
-                    params,
-                    ctx,
-                    null
-            );
-
-            return buildToolCallResult(tool, toolCallId, result);
+            return toolService.executeToolAsync(tool.getId(), params, ctx, null)
+                    .thenApply(result -> buildToolCallResult(tool, toolCallId, result));
 
         } catch (Exception e) {
             log.error("工具执行失败: tool={}", tool.getName(), e);
-            return ToolCallProcessResult.error("工具执行异常: " + e.getMessage());
+            return CompletableFuture.completedFuture(ToolCallProcessResult.error("工具执行异常: " + e.getMessage()));
         }
     }
 
     /**
      * 使用参数执行工具
      */
-    private ToolCallProcessResult executeToolWithParams(AiTool tool, Map<String, Object> params, String toolCallId, UUID sessionId) {
+    private CompletableFuture<ToolCallProcessResult> executeToolWithParams(AiTool tool, Map<String, Object> params,
+                                                                          String toolCallId, UUID sessionId) {
         try {
             log.info("执行工具: tool={}, params={}", tool.getName(), params);
 
-            AiToolService.ToolExecutionResult result = toolService.executeTool(
-                    tool.getId(),
-                    params,
-                    sessionId,
-                    null
-            );
-
-            return buildToolCallResult(tool, toolCallId, result);
+            return toolService.executeToolAsync(tool.getId(), params, sessionId, null)
+                    .thenApply(result -> buildToolCallResult(tool, toolCallId, result));
 
         } catch (Exception e) {
             log.error("工具执行失败: tool={}", tool.getName(), e);
-            return ToolCallProcessResult.error("工具执行异常: " + e.getMessage());
+            return CompletableFuture.completedFuture(ToolCallProcessResult.error("工具执行异常: " + e.getMessage()));
         }
     }
 
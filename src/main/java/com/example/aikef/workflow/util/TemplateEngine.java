@@ -7,9 +7,10 @@ import org.slf4j.LoggerFactory;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 工作流模板引擎
@@ -38,15 +39,26 @@ import java.util.regex.Pattern;
  * - {{agent.sysPrompt}} - Agent 会话的系统提示词
  * - {{event.orderId}} - 事件数据中的 orderId 字段
  * - {{event.userName}} - 事件数据中的 userName 字段
+ *
+ * 模板首次使用时编译为“文本片段 + 变量访问器”序列并按模板字符串缓存，
+ * 之后的渲染只做片段拼接和取值，不再进行正则匹配和表达式解析
  */
 public class TemplateEngine {
 
     private static final Logger log = LoggerFactory.getLogger(TemplateEngine.class);
 
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
     /**
-     * 变量模式: {{namespace.key}} 或 {{key}}
+     * 编译缓存上限，模板来自节点和工具配置，数量有限；超过上限后新模板不再缓存（每次编译）
      */
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{\\{([^}]+)\\}\\}");
+    private static final int MAX_CACHED_TEMPLATES = 10_000;
+
+    private static final Map<String, CompiledTemplate> CACHE = new ConcurrentHashMap<>();
 
     /**
      * 解析模板，替换变量
@@ -71,143 +83,206 @@ public class TemplateEngine {
         if (template == null || template.isEmpty()) {
             return template;
         }
+        return compile(template).render(ctx, localVariables);
+    }
 
-        Matcher matcher = VARIABLE_PATTERN.matcher(template);
-        StringBuffer result = new StringBuffer();
-
-        while (matcher.find()) {
-            String expression = matcher.group(1).trim();
-            String replacement = resolveExpression(expression, ctx, localVariables);
-            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+    /**
+     * 获取编译后的模板（带缓存）
+     */
+    private static CompiledTemplate compile(String template) {
+        CompiledTemplate compiled = CACHE.get(template);
+        if (compiled != null) {
+            return compiled;
+        }
+        compiled = CompiledTemplate.parse(template);
+        if (CACHE.size() < MAX_CACHED_TEMPLATES) {
+            CACHE.putIfAbsent(template, compiled);
         }
-        matcher.appendTail(result);
+        return compiled;
+    }
+
+    // ==================== 编译 ====================
 
-        return result.toString();
+    /**
+     * 变量访问器（编译期确定命名空间和键，渲染时只取值）
+     */
+    @FunctionalInterface
+    private interface Accessor {
+        String resolve(WorkflowContext ctx, Map<String, Object> localVariables);
     }
 
     /**
-     * 解析变量表达式
+     * 编译后的模板：literals[i] + value(i) + literals[i+1] ...，literals 比 accessors 多一个
      */
-    private static String resolveExpression(String expression, WorkflowContext ctx, Map<String, Object> localVariables) {
-        try {
-            // 解析 namespace.key 格式
-            int dotIndex = expression.indexOf('.');
-            if (dotIndex > 0) {
-                String namespace = expression.substring(0, dotIndex);
-                String key = expression.substring(dotIndex + 1);
-                return resolveNamespacedVariable(namespace, key, ctx);
+    private record CompiledTemplate(String[] literals, Accessor[] accessors, String[] expressions, int literalLength) {
+
+        /**
+         * 切分模板，规则与正则 \{\{([^}]+)\}\} 一致：
+         * "{{" 后至少一个非 '}' 字符，并紧跟 "}}"
+         */
+        static CompiledTemplate parse(String template) {
+            List<String> literals = new ArrayList<>();
+            List<String> expressions = new ArrayList<>();
+            int literalStart = 0;
+            int from = 0;
+            int open;
+            while ((open = template.indexOf(OPEN, from)) >= 0) {
+                int end = open + OPEN.length();
+                while (end < template.length() && template.charAt(end) != '}') {
+                    end++;
+                }
+                if (end == open + OPEN.length() || !template.startsWith(CLOSE, end)) {
+                    from = open + 1;
+                    continue;
+                }
+                literals.add(template.substring(literalStart, open));
+                expressions.add(template.substring(open + OPEN.length(), end).trim());
+                literalStart = end + CLOSE.length();
+                from = literalStart;
             }
+            literals.add(template.substring(literalStart));
 
-            // 没有命名空间，尝试按优先级查找
-            return resolveSimpleVariable(expression, ctx, localVariables);
+            Accessor[] accessors = new Accessor[expressions.size()];
+            for (int i = 0; i < accessors.length; i++) {
+                accessors[i] = compileExpression(expressions.get(i));
+            }
+            int literalLength = 0;
+            for (String literal : literals) {
+                literalLength += literal.length();
+            }
+            return new CompiledTemplate(literals.toArray(new String[0]), accessors,
+                    expressions.toArray(new String[0]), literalLength);
+        }
+
+        String render(WorkflowContext ctx, Map<String, Object> localVariables) {
+            if (accessors.length == 0) {
+                return literals[0];
+            }
+            StringBuilder sb = new StringBuilder(literalLength + accessors.length * 16);
+            sb.append(literals[0]);
+            for (int i = 0; i < accessors.length; i++) {
+                String value;
+                try {
+                    value = accessors[i].resolve(ctx, localVariables);
+                } catch (Exception e) {
+                    log.warn("解析变量表达式失败: {}", expressions[i], e);
+                    value = OPEN + expressions[i] + CLOSE; // 保留原始表达式
+                }
+                sb.append(value).append(literals[i + 1]);
+            }
+            return sb.toString();
+        }
+    }
 
-        } catch (Exception e) {
-            log.warn("解析变量表达式失败: {}", expression, e);
-            return "{{" + expression + "}}"; // 保留原始表达式
+    /**
+     * 编译变量表达式
+     */
+    private static Accessor compileExpression(String expression) {
+        // 解析 namespace.key 格式
+        int dotIndex = expression.indexOf('.');
+        if (dotIndex > 0) {
+            String namespace = expression.substring(0, dotIndex);
+            String key = expression.substring(dotIndex + 1);
+            return compileNamespacedVariable(namespace, key);
         }
+
+        // 没有命名空间，尝试按优先级查找
+        return compileSimpleVariable(expression);
     }
 
     /**
-     * 解析带命名空间的变量
+     * 编译带命名空间的变量
      */
-    private static String resolveNamespacedVariable(String namespace, String key, WorkflowContext ctx) {
+    private static Accessor compileNamespacedVariable(String namespace, String key) {
         return switch (namespace.toLowerCase()) {
-            case "sys", "system" -> resolveSystemVariable(key, ctx);
-            case "var", "variable" -> resolveCustomVariable(key, ctx);
-            case "node" -> resolveNodeOutput(key, ctx);
-            case "customer" -> resolveCustomerInfo(key, ctx);
-            case "entity" -> resolveEntity(key, ctx);
-            case "agent" -> resolveAgentVariable(key, ctx);
-            case "event" -> resolveEventData(key, ctx);
-            case "meta" -> resolveSessionMetadata(key, ctx);
+            case "sys", "system" -> {
+                Accessor system = compileSystemVariable(key);
+                if (system == null) {
+                    log.warn("未知的系统变量: {}", key);
+                    yield (ctx, locals) -> "";
+                }
+                yield system;
+            }
+            case "var", "variable" -> (ctx, locals) -> toText(ctx.getVariable(key));
+            case "node" -> (ctx, locals) -> toText(ctx.getOutput(key));
+            case "customer" -> (ctx, locals) -> toText(ctx.getCustomerInfo().get(key));
+            case "entity" -> (ctx, locals) -> toText(ctx.getEntities().get(key));
+            case "agent" -> compileAgentVariable(key);
+            case "event" -> (ctx, locals) -> resolveEventData(key, ctx);
+            case "meta" -> (ctx, locals) -> resolveSessionMetadata(key, ctx);
             default -> {
                 log.warn("未知的命名空间: {}", namespace);
-                yield "";
+                yield (ctx, locals) -> "";
             }
         };
     }
 
     /**
-     * 解析系统变量
+     * 编译系统变量，未知变量返回 null
      */
-    private static String resolveSystemVariable(String key, WorkflowContext ctx) {
+    private static Accessor compileSystemVariable(String key) {
         return switch (key.toLowerCase()) {
-            case "query", "input", "usermessage", "user_message" -> 
-                    nullToEmpty(ctx.getQuery());
-            case "lastoutput", "last_output", "previousoutput", "previous_output" -> 
-                    nullToEmpty(ctx.getLastOutput());
-            case "intent" -> 
-                    nullToEmpty(ctx.getIntent());
-            case "intentconfidence", "intent_confidence" -> 
-                    ctx.getIntentConfidence() != null ? String.format("%.2f", ctx.getIntentConfidence()) : "";
-            case "sessionid", "session_id" -> 
-                    ctx.getSessionId() != null ? ctx.getSessionId().toString() : "";
-            case "customerid", "customer_id" -> 
-                    ctx.getCustomerId() != null ? ctx.getCustomerId().toString() : "";
-            case "finalreply", "final_reply" -> 
-                    nullToEmpty(ctx.getFinalReply());
-            case "needhumantransfer", "need_human_transfer" -> 
-                    String.valueOf(ctx.isNeedHumanTransfer());
-            case "humantransferreason", "human_transfer_reason" -> 
-                    nullToEmpty(ctx.getHumanTransferReason());
+            case "query", "input", "usermessage", "user_message" ->
+                    (ctx, locals) -> nullToEmpty(ctx.getQuery());
+            case "lastoutput", "last_output", "previousoutput", "previous_output" ->
+                    (ctx, locals) -> nullToEmpty(ctx.getLastOutput());
+            case "intent" ->
+                    (ctx, locals) -> nullToEmpty(ctx.getIntent());
+            case "intentconfidence", "intent_confidence" ->
+                    (ctx, locals) -> ctx.getIntentConfidence() != null ? String.format("%.2f", ctx.getIntentConfidence()) : "";
+            case "sessionid", "session_id" ->
+                    (ctx, locals) -> ctx.getSessionId() != null ? ctx.getSessionId().toString() : "";
+            case "customerid", "customer_id" ->
+                    (ctx, locals) -> ctx.getCustomerId() != null ? ctx.getCustomerId().toString() : "";
+            case "finalreply", "final_reply" ->
+                    (ctx, locals) -> nullToEmpty(ctx.getFinalReply());
+            case "needhumantransfer", "need_human_transfer" ->
+                    (ctx, locals) -> String.valueOf(ctx.isNeedHumanTransfer());
+            case "humantransferreason", "human_transfer_reason" ->
+                    (ctx, locals) -> nullToEmpty(ctx.getHumanTransferReason());
             case "now", "date", "currentdate", "current_date" ->
-                    LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+                    (ctx, locals) -> LocalDate.now().format(DATE_FORMAT);
             case "nowTime" ->
-                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-            default -> {
-                log.warn("未知的系统变量: {}", key);
-                yield "";
-            }
+                    (ctx, locals) -> LocalDateTime.now().format(DATE_TIME_FORMAT);
+            default -> null;
         };
     }
 
     /**
-     * 解析自定义变量
+     * 编译 Agent 变量
      */
-    private static String resolveCustomVariable(String key, WorkflowContext ctx) {
-        Object value = ctx.getVariable(key);
-        return value != null ? value.toString() : "";
-    }
-
-    /**
-     * 解析节点输出
-     */
-    private static String resolveNodeOutput(String nodeId, WorkflowContext ctx) {
-        Object output = ctx.getOutput(nodeId);
-        return output != null ? output.toString() : "";
-    }
-
-    /**
-     * 解析客户信息
-     */
-    private static String resolveCustomerInfo(String key, WorkflowContext ctx) {
-        Object value = ctx.getCustomerInfo().get(key);
-        return value != null ? value.toString() : "";
-    }
-
-    /**
-     * 解析实体
-     */
-    private static String resolveEntity(String key, WorkflowContext ctx) {
-        Object value = ctx.getEntities().get(key);
-        return value != null ? value.toString() : "";
+    private static Accessor compileAgentVariable(String key) {
+        return switch (key.toLowerCase()) {
+            case "sysprompt", "sys_prompt" -> (ctx, locals) -> ctx.getAgentSession() != null
+                    ? nullToEmpty(ctx.getAgentSession().getSysPrompt())
+                    : "";
+            default -> {
+                log.warn("未知的 Agent 变量: {}", key);
+                yield (ctx, locals) -> "";
+            }
+        };
     }
 
     /**
-     * 解析 Agent 变量
+     * 编译简单变量（无命名空间）
+     * 按优先级查找: 局部变量 > 系统变量，均未找到时返回空字符串
      */
-    private static String resolveAgentVariable(String key, WorkflowContext ctx) {
-        com.example.aikef.model.AgentSession agentSession = ctx.getAgentSession();
-        if (agentSession == null) {
-            return "";
-        }
-        
-        return switch (key.toLowerCase()) {
-            case "sysprompt", "sys_prompt" -> nullToEmpty(agentSession.getSysPrompt());
-            default -> {
-                log.warn("未知的 Agent 变量: {}", key);
-                yield "";
+    private static Accessor compileSimpleVariable(String key) {
+        Accessor system = compileSystemVariable(key);
+        return (ctx, locals) -> {
+            // 0. 尝试局部变量
+            if (locals != null) {
+                Object localValue = locals.get(key);
+                if (localValue != null) {
+                    return localValue.toString();
+                }
             }
+            // 1. 尝试系统变量
+            if (system != null) {
+                return system.resolve(ctx, locals);
+            }
+            log.debug("变量未找到: {}", key);
+            return "";
         };
     }
 
@@ -252,55 +327,10 @@ public class TemplateEngine {
         return value != null ? value.toString() : "";
     }
 
-    /**
-     * 解析简单变量（无命名空间）
-     * 按优先级查找: 局部变量 > 系统变量 > 自定义变量 > 实体 > 客户信息
-     */
-    private static String resolveSimpleVariable(String key, WorkflowContext ctx, Map<String, Object> localVariables) {
-        // 0. 尝试局部变量
-        if (localVariables != null) {
-            Object localValue = localVariables.get(key);
-            if (localValue != null) {
-                return localValue.toString();
-            }
-        }
-
-        // 1. 尝试系统变量
-        String sysValue = resolveSystemVariable(key, ctx);
-        if (sysValue != null) {
-            return sysValue;
-        }
-
-        // 2. 尝试自定义变量
-        Object varValue = ctx.getVariable(key);
-        if (varValue != null) {
-            return varValue.toString();
-        }
-
-        // 3. 尝试实体
-        Object entityValue = ctx.getEntities().get(key);
-        if (entityValue != null) {
-            return entityValue.toString();
-        }
-
-        // 4. 尝试客户信息
-        Object customerValue = ctx.getCustomerInfo().get(key);
-        if (customerValue != null) {
-            return customerValue.toString();
-        }
-
-        // 5. 尝试节点输出
-        Object nodeOutput = ctx.getOutput(key);
-        if (nodeOutput != null) {
-            return nodeOutput.toString();
-        }
-
-        log.debug("变量未找到: {}", key);
-        return "";
+    private static String toText(Object value) {
+        return value != null ? value.toString() : "";
     }
 
-
-
     private static String nullToEmpty(String value) {
         return value != null ? value : "";
     }
@@ -312,7 +342,7 @@ public class TemplateEngine {
         if (template == null || template.isEmpty()) {
             return false;
         }
-        return VARIABLE_PATTERN.matcher(template).find();
+        return compile(template).expressions().length > 0;
     }
 
     /**
@@ -323,12 +353,7 @@ public class TemplateEngine {
         if (template == null || template.isEmpty()) {
             return variables;
         }
-
-        Matcher matcher = VARIABLE_PATTERN.matcher(template);
-        while (matcher.find()) {
-            variables.add(matcher.group(1).trim());
-        }
+        variables.addAll(List.of(compile(template).expressions()));
         return variables;
     }
 }
-
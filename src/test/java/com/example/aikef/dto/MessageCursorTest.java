@@ -0,0 +1,29 @@
+package com.example.aikef.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCursorTest {
+
+    @Test
+    void encodeDecode_ShouldRoundTripWithMicrosecondPrecision() {
+        MessageCursor cursor = new MessageCursor(Instant.parse("2024-05-20T02:00:00.123456Z"), UUID.randomUUID());
+
+        String encoded = cursor.encode();
+
+        assertFalse(encoded.contains("/") || encoded.contains("+") || encoded.contains("="));
+        assertEquals(cursor, MessageCursor.decode(encoded));
+    }
+
+    @Test
+    void decode_ShouldTreatBlankAsFirstPageAndRejectGarbage() {
+        assertNull(MessageCursor.decode(null));
+        assertNull(MessageCursor.decode(" "));
+        assertThrows(IllegalArgumentException.class, () -> MessageCursor.decode("not-a-cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> MessageCursor.decode("YWJj"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.aikef.knowledge;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddingBatcherTest {
+
+    private EmbeddingBatcher batcher;
+    private RecordingEmbeddingModel model;
+    private final UUID modelKey = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        batcher = new EmbeddingBatcher();
+        ReflectionTestUtils.setField(batcher, "enabled", true);
+        ReflectionTestUtils.setField(batcher, "windowMillis", 50L);
+        ReflectionTestUtils.setField(batcher, "maxBatchSize", 32);
+        ReflectionTestUtils.setField(batcher, "timeoutSeconds", 5L);
+        model = new RecordingEmbeddingModel();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+    }
+
+    @Test
+    void submit_ShouldMergeConcurrentRequestsIntoOneCall() {
+        List<CompletableFuture<Embedding>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(batcher.submit(modelKey, model, "query-" + i));
+        }
+        // 重复文本只发送一次
+        futures.add(batcher.submit(modelKey, model, "query-3"));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, futures.get(i).join().vector()[0]);
+        }
+        assertEquals(3, futures.get(10).join().vector()[0]);
+        assertEquals(1, model.batches.size());
+        assertEquals(10, model.batches.get(0).size());
+    }
+
+    @Test
+    void submit_ShouldSendImmediatelyWhenBatchIsFull() {
+        ReflectionTestUtils.setField(batcher, "windowMillis", 60_000L);
+        ReflectionTestUtils.setField(batcher, "maxBatchSize", 4);
+
+        List<CompletableFuture<Embedding>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(batcher.submit(modelKey, model, "query-" + i));
+        }
+
+        futures.forEach(CompletableFuture::join);
+        assertEquals(1, model.batches.size());
+    }
+
+    @Test
+    void embed_ShouldPropagateModelFailure() {
+        model.fail = true;
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> batcher.embed(modelKey, model, "query"));
+        assertEquals("model unavailable", e.getMessage());
+    }
+
+    private static class RecordingEmbeddingModel implements EmbeddingModel {
+
+        private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        private volatile boolean fail;
+
+        @Override
+        public Response<List<Embedding>> embedAll(List<TextSegment> segments) {
+            if (fail) {
+                throw new IllegalStateException("model unavailable");
+            }
+            List<String> texts = segments.stream().map(TextSegment::text).toList();
+            batches.add(texts);
+            // 向量第一维为文本序号，便于校验结果对应关系
+            List<Embedding> embeddings = texts.stream()
+                    .map(text -> Embedding.from(new float[]{Float.parseFloat(text.substring(text.indexOf('-') + 1)), 1f}))
+                    .toList();
+            return Response.from(embeddings);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.aikef.knowledge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswVectorIndexTest {
+
+    @Test
+    void search_ShouldReturnExactMatchFirst() {
+        Random random = new Random(7);
+        float[][] vectors = randomVectors(random, 500, 64);
+        HnswVectorIndex index = build(vectors);
+
+        List<HnswVectorIndex.Candidate> results = index.search(vectors[123], 5, 32);
+
+        assertEquals(5, results.size());
+        assertEquals(123, results.get(0).node());
+        assertEquals(1.0f, results.get(0).similarity(), 1e-4);
+        for (int i = 1; i < results.size(); i++) {
+            assertTrue(results.get(i - 1).similarity() >= results.get(i).similarity());
+        }
+    }
+
+    @Test
+    void search_ShouldHaveHighRecallAgainstBruteForce() {
+        Random random = new Random(11);
+        float[][] vectors = randomVectors(random, 1000, 32);
+        HnswVectorIndex index = build(vectors);
+
+        int k = 10;
+        int hits = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVectors(random, 1, 32)[0];
+            Set<Integer> expected = bruteForceTopK(vectors, query, k);
+            for (HnswVectorIndex.Candidate candidate : index.search(query, k, 64)) {
+                if (expected.contains(candidate.node())) {
+                    hits++;
+                }
+            }
+        }
+
+        double recall = hits / (double) (queries * k);
+        assertTrue(recall >= 0.9, "recall=" + recall);
+    }
+
+    @Test
+    void search_ShouldHandleEmptyIndexAndDimensionMismatch() {
+        HnswVectorIndex empty = new HnswVectorIndex(4, 0, 16, 100, 1L);
+        assertTrue(empty.search(new float[]{1, 0, 0, 0}, 3, 16).isEmpty());
+
+        HnswVectorIndex index = new HnswVectorIndex(4, 1, 16, 100, 1L);
+        index.add(new float[]{1, 0, 0, 0});
+        assertThrows(IllegalArgumentException.class, () -> index.search(new float[]{1, 0}, 1, 16));
+        assertThrows(IllegalStateException.class, () -> index.add(new float[]{0, 1, 0, 0}));
+    }
+
+    private HnswVectorIndex build(float[][] vectors) {
+        HnswVectorIndex index = new HnswVectorIndex(vectors[0].length, vectors.length, 16, 100, 42L);
+        for (float[] vector : vectors) {
+            index.add(vector);
+        }
+        return index;
+    }
+
+    private float[][] randomVectors(Random random, int count, int dimension) {
+        float[][] vectors = new float[count][dimension];
+        for (float[] vector : vectors) {
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+        }
+        return vectors;
+    }
+
+    private Set<Integer> bruteForceTopK(float[][] vectors, float[] query, int k) {
+        double[] scores = new double[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            scores[i] = cosine(vectors[i], query);
+        }
+        Set<Integer> top = new HashSet<>();
+        IntStream.range(0, vectors.length).boxed()
+                .sorted((a, b) -> Double.compare(scores[b], scores[a]))
+                .limit(k)
+                .forEach(top::add);
+        return top;
+    }
+
+    private double cosine(float[] a, float[] b) {
+        double dot = 0, na = 0, nb = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return dot / Math.sqrt(na * nb);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.aikef.knowledge;
+
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.store.embedding.filter.Filter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KnowledgeSearchFilterTest {
+
+    @Test
+    void toFilter_ShouldReturnNullWhenEmpty() {
+        assertNull(KnowledgeSearchFilter.empty().toFilter());
+    }
+
+    @Test
+    void toFilter_ShouldMatchTenantDocTypeTagsAndDateRange() {
+        Instant updatedAt = Instant.parse("2024-06-01T00:00:00Z");
+        Metadata metadata = metadata("tenant-a", "MARKDOWN", List.of("退款", "vip"), updatedAt);
+
+        Filter filter = new KnowledgeSearchFilter("tenant-a", List.of("TEXT", "MARKDOWN"), List.of("vip"), null,
+                updatedAt.minusSeconds(60), updatedAt.plusSeconds(60)).toFilter();
+        assertTrue(filter.test(metadata));
+
+        assertFalse(KnowledgeSearchFilter.empty().withTenantId("tenant-b").toFilter().test(metadata));
+        assertFalse(new KnowledgeSearchFilter(null, List.of("PDF"), null, null, null, null).toFilter().test(metadata));
+        assertFalse(new KnowledgeSearchFilter(null, null, List.of("vi"), null, null, null).toFilter().test(metadata));
+        assertFalse(new KnowledgeSearchFilter(null, null, null, null, updatedAt.plusSeconds(1), null).toFilter().test(metadata));
+    }
+
+    @Test
+    void joinTags_ShouldStripSeparatorsAndRegexCharacters() {
+        assertEquals(",ab,c,", KnowledgeSearchFilter.joinTags(List.of(" a,b ", "c++", " ")));
+        assertNull(KnowledgeSearchFilter.joinTags(List.of(" ", "*")));
+    }
+
+    private Metadata metadata(String tenantId, String docType, List<String> tags, Instant updatedAt) {
+        Map<String, Object> map = new HashMap<>();
+        map.put(KnowledgeSearchFilter.KEY_TENANT_ID, tenantId);
+        map.put(KnowledgeSearchFilter.KEY_DOC_TYPE, docType);
+        map.put(KnowledgeSearchFilter.KEY_TAGS, KnowledgeSearchFilter.joinTags(tags));
+        map.put(KnowledgeSearchFilter.KEY_UPDATED_AT, updatedAt.toEpochMilli());
+        return Metadata.from(map);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.aikef.knowledge;
+
+import dev.langchain4j.store.embedding.filter.MetadataFilterBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PgVectorFilterSqlTest {
+
+    @Test
+    void of_ShouldUseIndexedExpressionsAndBindValues() {
+        Instant after = Instant.parse("2024-06-01T00:00:00Z");
+        PgVectorFilterSql sql = PgVectorFilterSql.of(new KnowledgeSearchFilter("tenant-a", List.of("PDF"),
+                List.of("vip"), null, after, null).toFilter());
+
+        assertEquals("(((((metadata->>'tenantId')::text IS NOT NULL AND (metadata->>'tenantId')::text = ?)"
+                        + " AND (metadata->>'docType' IN (?)))"
+                        + " AND (metadata->>'tags' IS NOT NULL AND strpos(metadata->>'tags', ?) > 0))"
+                        + " AND ((metadata->>'updatedAt')::bigint >= ?))",
+                sql.sql());
+        assertEquals(List.of("tenant-a", "PDF", ",vip,", after.toEpochMilli()), sql.params());
+    }
+
+    @Test
+    void of_ShouldRejectUnsafeKeys() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PgVectorFilterSql.of(MetadataFilterBuilder.metadataKey("a' OR '1'='1").isEqualTo("x")));
+    }
+}
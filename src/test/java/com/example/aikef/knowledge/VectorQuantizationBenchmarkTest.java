@@ -0,0 +1,118 @@
+package com.example.aikef.knowledge;
+
+import com.example.aikef.model.KnowledgeBase.VectorQuantization;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * 量化存储基准：对比 float32 / INT8 / BINARY(+重排) 的召回率、查询延迟与向量内存
+ * 默认跳过，运行方式：mvn test -Dtest=VectorQuantizationBenchmarkTest -Dbenchmark=true
+ * 可通过 -Dbenchmark.vectors / -Dbenchmark.dimension / -Dbenchmark.queries 调整规模
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VectorQuantizationBenchmarkTest {
+
+    private static final int K = 10;
+    private static final int EF_SEARCH = 64;
+
+    @Test
+    void compareQuantizationModes() {
+        int count = Integer.getInteger("benchmark.vectors", 2000);
+        int dimension = Integer.getInteger("benchmark.dimension", 1536);
+        int queries = Integer.getInteger("benchmark.queries", 200);
+
+        Random random = new Random(2024);
+        float[][] vectors = clusteredVectors(random, count, dimension, 50);
+        float[][] queryVectors = clusteredVectors(random, queries, dimension, 50);
+
+        List<Set<Integer>> expected = IntStream.range(0, queries)
+                .mapToObj(q -> bruteForceTopK(vectors, queryVectors[q]))
+                .toList();
+
+        System.out.printf("vectors=%d, dimension=%d, queries=%d, k=%d%n", count, dimension, queries, K);
+        System.out.printf("%-16s %14s %10s %12s %12s%n", "mode", "vectorBytes", "recall@10", "avgQueryUs", "buildMs");
+
+        run("FLOAT32", VectorQuantization.NONE, 0, vectors, queryVectors, expected);
+        run("INT8", VectorQuantization.INT8, 0, vectors, queryVectors, expected);
+        run("BINARY", VectorQuantization.BINARY, 0, vectors, queryVectors, expected);
+        run("BINARY+rescore4", VectorQuantization.BINARY, 4, vectors, queryVectors, expected);
+    }
+
+    private void run(String name, VectorQuantization quantization, int rescoreMultiplier,
+                     float[][] vectors, float[][] queries, List<Set<Integer>> expected) {
+        long buildStart = System.nanoTime();
+        HnswVectorIndex index = new HnswVectorIndex(vectors[0].length, vectors.length, 16, 100, 42L,
+                quantization, rescoreMultiplier);
+        for (float[] vector : vectors) {
+            index.add(vector);
+        }
+        long buildMs = (System.nanoTime() - buildStart) / 1_000_000;
+
+        // 预热
+        for (int i = 0; i < Math.min(50, queries.length); i++) {
+            index.search(queries[i], K, EF_SEARCH);
+        }
+
+        int hits = 0;
+        long totalNanos = 0;
+        for (int q = 0; q < queries.length; q++) {
+            long start = System.nanoTime();
+            List<HnswVectorIndex.Candidate> results = index.search(queries[q], K, EF_SEARCH);
+            totalNanos += System.nanoTime() - start;
+            for (HnswVectorIndex.Candidate candidate : results) {
+                if (expected.get(q).contains(candidate.node())) {
+                    hits++;
+                }
+            }
+        }
+
+        System.out.printf("%-16s %14d %10.3f %12d %12d%n", name, index.vectorBytes(),
+                hits / (double) (queries.length * K), totalNanos / queries.length / 1000, buildMs);
+    }
+
+    /**
+     * 模拟真实 embedding 的聚簇分布：簇中心 + 高斯噪声
+     */
+    private float[][] clusteredVectors(Random random, int count, int dimension, int clusters) {
+        Random centerRandom = new Random(7);
+        float[][] centers = new float[clusters][dimension];
+        for (float[] center : centers) {
+            for (int i = 0; i < dimension; i++) {
+                center[i] = (float) centerRandom.nextGaussian();
+            }
+        }
+        float[][] vectors = new float[count][dimension];
+        for (float[] vector : vectors) {
+            float[] center = centers[random.nextInt(clusters)];
+            for (int i = 0; i < dimension; i++) {
+                vector[i] = center[i] + (float) random.nextGaussian() * 0.6f;
+            }
+        }
+        return vectors;
+    }
+
+    private Set<Integer> bruteForceTopK(float[][] vectors, float[] query) {
+        double[] scores = new double[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            double dot = 0, norm = 0, queryNorm = 0;
+            for (int d = 0; d < query.length; d++) {
+                dot += vectors[i][d] * query[d];
+                norm += vectors[i][d] * vectors[i][d];
+                queryNorm += query[d] * query[d];
+            }
+            scores[i] = dot / Math.sqrt(norm * queryNorm);
+        }
+        Set<Integer> top = new HashSet<>();
+        IntStream.range(0, vectors.length).boxed()
+                .sorted((a, b) -> Double.compare(scores[b], scores[a]))
+                .limit(K)
+                .forEach(top::add);
+        return top;
+    }
+}
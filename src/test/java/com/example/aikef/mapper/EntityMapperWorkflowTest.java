@@ -4,7 +4,6 @@ import com.example.aikef.dto.MessageDto;
 import com.example.aikef.model.Message;
 import com.example.aikef.model.WorkflowExecutionLog;
 import com.example.aikef.repository.AgentRepository;
-import com.example.aikef.repository.MessageRepository;
 import com.example.aikef.repository.SessionGroupMappingRepository;
 import com.example.aikef.repository.SpecialCustomerRepository;
 import com.example.aikef.repository.WorkflowExecutionLogRepository;
@@ -28,8 +27,6 @@ class EntityMapperWorkflowTest {
     @Mock
     private SessionGroupMappingRepository sessionGroupMappingRepository;
     @Mock
-    private MessageRepository messageRepository;
-    @Mock
     private AgentRepository agentRepository;
     @Mock
     private SpecialCustomerRepository specialCustomerRepository;
@@ -45,7 +42,6 @@ class EntityMapperWorkflowTest {
         objectMapper = new ObjectMapper();
         entityMapper = new EntityMapper(
                 sessionGroupMappingRepository,
-                messageRepository,
                 agentRepository,
                 objectMapper,
                 specialCustomerRepository,
@@ -0,0 +1,64 @@
+package com.example.aikef.model;
+
+import com.example.aikef.model.enums.AttachmentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatSessionTest {
+
+    @Test
+    void setSupportAgentIds_ShouldSyncParticipantsByDiff() {
+        ChatSession session = new ChatSession();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        session.setSupportAgentIds(List.of(first, second));
+        assertEquals(List.of(first, second), session.getSupportAgentIds());
+        assertEquals(1, session.getParticipantsVersion());
+        SessionParticipant kept = session.getParticipants().stream()
+                .filter(participant -> participant.getAgentId().equals(second))
+                .findFirst().orElseThrow();
+
+        // 调用方常见写法：取副本修改后写回
+        List<UUID> agentIds = new ArrayList<>(session.getSupportAgentIds());
+        agentIds.remove(first);
+        agentIds.add(third);
+        agentIds.add(third);
+        session.setSupportAgentIds(agentIds);
+
+        assertEquals(List.of(second, third), session.getSupportAgentIds());
+        assertTrue(session.getParticipants().contains(kept), "未变化的参与者行不应重建");
+        assertEquals(2, session.getParticipantsVersion());
+
+        session.setSupportAgentIds(List.of(second, third));
+        assertEquals(2, session.getParticipantsVersion());
+    }
+
+    @Test
+    void previewOf_ShouldUsePlaceholderForAttachmentOnlyMessage() {
+        Message message = new Message();
+        message.getAttachments().add(attachment(AttachmentType.IMAGE));
+        assertEquals("[图片]", ChatSession.previewOf(message));
+
+        message.getAttachments().add(attachment(AttachmentType.IMAGE));
+        assertEquals("[图片×2]", ChatSession.previewOf(message));
+
+        message.getAttachments().add(attachment(AttachmentType.FILE));
+        assertEquals("[附件×3]", ChatSession.previewOf(message));
+
+        message.setText("看下这个截图");
+        assertEquals("看下这个截图", ChatSession.previewOf(message));
+    }
+
+    private static Attachment attachment(AttachmentType type) {
+        Attachment attachment = new Attachment();
+        attachment.setType(type);
+        return attachment;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.aikef.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkflowExecutionLogDetailTest {
+
+    @Test
+    void setters_ShouldCompressAndRoundTrip() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            json.append("{\"nodeId\":\"llm_").append(i).append("\",\"input\":\"用户问题\",\"output\":\"回复内容\",\"durationMs\":")
+                    .append(i).append("},");
+        }
+        json.setCharAt(json.length() - 1, ']');
+
+        WorkflowExecutionLogDetail detail = new WorkflowExecutionLogDetail(new WorkflowExecutionLog(), json.toString(), null);
+
+        assertEquals(json.toString(), detail.getNodeDetails());
+        assertNull(detail.getToolExecutionChain());
+        assertTrue(detail.hasContent());
+        assertTrue(detail.getStoredBytes() < json.toString().getBytes(StandardCharsets.UTF_8).length / 5,
+                "重复度高的 JSON 压缩后应明显变小");
+
+        detail.setNodeDetails("");
+        assertEquals("", detail.getNodeDetails());
+        assertFalse(new WorkflowExecutionLogDetail(new WorkflowExecutionLog(), null, null).hasContent());
+    }
+
+    @Test
+    void decompress_ShouldReadMysqlCompressOutput() {
+        // SELECT HEX(COMPRESS('a')) => 01000000789C4B040000620062
+        byte[] mysql = {0x01, 0x00, 0x00, 0x00, 0x78, (byte) 0x9C, 0x4B, 0x04, 0x00, 0x00, 0x62, 0x00, 0x62};
+
+        assertEquals("a", WorkflowExecutionLogDetail.decompress(mysql));
+        assertArrayEquals(mysql, WorkflowExecutionLogDetail.compress("a"));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.aikef.model.base;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 主键类型插入基准：CHAR(36) + UUID v4（原方案）、CHAR(36) + UUID v7、BINARY(16) + UUID v7，
+ * 以及逐条提交与批量（rewriteBatchedStatements）插入的对比，输出吞吐量和数据 / 索引大小。
+ * 表结构参照 message_delivery（主键 + 两个二级索引），在指定库中建临时表，结束后删除。
+ * 需要可写的 MySQL，默认跳过，运行方式：
+ * mvn test -Dtest=UuidInsertBenchmarkTest -Dbenchmark=true
+ * -Dbenchmark.jdbc-url=jdbc:mysql://localhost:3306/bench -Dbenchmark.jdbc-user=root -Dbenchmark.jdbc-password=...
+ * 可通过 -Dbenchmark.rows（默认 200000）、-Dbenchmark.batch-size（默认 50）调整规模
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UuidInsertBenchmarkTest {
+
+    private static final String TABLE = "bench_uuid_insert";
+
+    private final int rows = Integer.getInteger("benchmark.rows", 200_000);
+    private final int batchSize = Integer.getInteger("benchmark.batch-size", 50);
+
+    @Test
+    void compareKeyLayouts() throws SQLException {
+        assumeTrue(System.getProperty("benchmark.jdbc-url") != null, "未指定 -Dbenchmark.jdbc-url");
+        try (Connection connection = connect()) {
+            System.out.printf("rows=%d, batchSize=%d%n", rows, batchSize);
+            System.out.printf("%-18s %10s %12s %10s %10s%n", "layout", "rows", "rows/s", "dataMB", "indexMB");
+            run(connection, "char36-v4", "CHAR(36)", () -> UUID.randomUUID().toString(), rows, batchSize);
+            run(connection, "char36-v7", "CHAR(36)", () -> UuidV7Generator.next().toString(), rows, batchSize);
+            run(connection, "binary16-v7", "BINARY(16)", () -> bytes(UuidV7Generator.next()), rows, batchSize);
+            // 逐条插入只跑 1/10 的数据量，对比批量写入的收益
+            run(connection, "binary16-v7-row", "BINARY(16)", () -> bytes(UuidV7Generator.next()), rows / 10, 1);
+        }
+    }
+
+    private void run(Connection connection, String layout, String keyType, Supplier<Object> ids,
+                     int count, int batch) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " (" +
+                    "id " + keyType + " NOT NULL PRIMARY KEY, " +
+                    "message_id CHAR(36) NOT NULL, " +
+                    "agent_id CHAR(36) NOT NULL, " +
+                    "is_sent BOOLEAN NOT NULL, " +
+                    "created_at DATETIME(6) NOT NULL, " +
+                    "INDEX idx_bench_agent_sent (agent_id, is_sent), " +
+                    "INDEX idx_bench_message (message_id)" +
+                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
+        }
+
+        UUID[] agents = new UUID[20];
+        for (int i = 0; i < agents.length; i++) {
+            agents[i] = UUID.randomUUID();
+        }
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE +
+                " (id, message_id, agent_id, is_sent, created_at) VALUES (?, ?, ?, ?, ?)")) {
+            String messageId = null;
+            for (int i = 0; i < count; i++) {
+                // 每条消息给 agents.length 个客服各写一条发送记录
+                if (i % agents.length == 0) {
+                    messageId = UuidV7Generator.next().toString();
+                }
+                insert.setObject(1, ids.get());
+                insert.setString(2, messageId);
+                insert.setString(3, agents[i % agents.length].toString());
+                insert.setBoolean(4, false);
+                insert.setTimestamp(5, Timestamp.from(Instant.now()));
+                insert.addBatch();
+                if ((i + 1) % batch == 0 || i == count - 1) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE " + TABLE);
+            try (ResultSet counted = statement.executeQuery("SELECT COUNT(*) FROM " + TABLE)) {
+                counted.next();
+                assertEquals(count, counted.getLong(1));
+            }
+            try (ResultSet size = statement.executeQuery("SELECT data_length, index_length " +
+                    "FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = '" + TABLE + "'")) {
+                size.next();
+                System.out.printf("%-18s %10d %12.0f %10.1f %10.1f%n", layout, count, count / seconds,
+                        size.getLong(1) / 1048576.0, size.getLong(2) / 1048576.0);
+            }
+            statement.execute("DROP TABLE " + TABLE);
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        String url = System.getProperty("benchmark.jdbc-url");
+        if (!url.contains("rewriteBatchedStatements")) {
+            url += (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        }
+        return DriverManager.getConnection(url, System.getProperty("benchmark.jdbc-user", "root"),
+                System.getProperty("benchmark.jdbc-password", ""));
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
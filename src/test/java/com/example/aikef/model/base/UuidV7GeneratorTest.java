@@ -0,0 +1,49 @@
+package com.example.aikef.model.base;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    void next_ShouldSetVersionVariantAndTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = UuidV7Generator.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long timestamp = id.getMostSignificantBits() >>> 16;
+        // 毫秒内计数器溢出时会进位到时间戳，允许略超前
+        assertTrue(timestamp >= before && timestamp <= after + 5, "高 48 位应为毫秒时间戳");
+    }
+
+    @Test
+    void next_ShouldBeStrictlyIncreasingAsStringAndBytes() {
+        // 同一毫秒内生成大量 ID，靠计数器保持递增
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(UuidV7Generator.next());
+        }
+        for (int i = 1; i < ids.size(); i++) {
+            UUID previous = ids.get(i - 1);
+            UUID current = ids.get(i);
+            assertTrue(previous.toString().compareTo(current.toString()) < 0, "CHAR(36) 存储时按生成顺序排序");
+            assertTrue(Arrays.compareUnsigned(bytes(previous), bytes(current)) < 0, "BINARY(16) 存储时按生成顺序排序");
+        }
+    }
+
+    private static byte[] bytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
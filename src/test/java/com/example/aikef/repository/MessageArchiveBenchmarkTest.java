@@ -0,0 +1,261 @@
+package com.example.aikef.repository;
+
+import com.example.aikef.model.base.UuidV7Generator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 消息归档基准：同一批数据分别以"全部在 messages 热表"和"旧会话迁移到归档表"两种布局存放，
+ * 对比新消息插入吞吐、近期会话历史查询延迟（p50 / p99）以及热表数据 / 索引大小。
+ * 表结构参照 messages（keyset 索引 + JSON 列），在指定库中建临时表，结束后删除。
+ * 需要可写的 MySQL，默认跳过，运行方式：
+ * mvn test -Dtest=MessageArchiveBenchmarkTest -Dbenchmark=true
+ * -Dbenchmark.jdbc-url=jdbc:mysql://localhost:3306/bench -Dbenchmark.jdbc-user=root -Dbenchmark.jdbc-password=...
+ * 可通过 -Dbenchmark.rows（默认 1000000，生产规模可设为 100000000）、-Dbenchmark.archive-ratio（旧会话占比，默认 0.9）、
+ * -Dbenchmark.queries（默认 2000）调整规模
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MessageArchiveBenchmarkTest {
+
+    private static final String HOT = "bench_messages";
+    private static final String ARCHIVE = "bench_messages_archive";
+    private static final int MESSAGES_PER_SESSION = 20;
+    private static final int BATCH_SIZE = 1000;
+    private static final String HISTORY_SQL = "SELECT id, sender_type, text, agent_metadata, created_at FROM %s " +
+            "WHERE session_id = ? AND sender_type NOT IN ('SYSTEM', 'TOOL') AND is_internal = FALSE " +
+            "ORDER BY created_at DESC, id DESC LIMIT 20";
+
+    private final long rows = Long.getLong("benchmark.rows", 1_000_000L);
+    private final double archiveRatio = Double.parseDouble(System.getProperty("benchmark.archive-ratio", "0.9"));
+    private final int queries = Integer.getInteger("benchmark.queries", 2000);
+
+    private final Instant now = Instant.now();
+    private final Instant cutoff = now.minus(Duration.ofDays(90));
+
+    @Test
+    void compareHotOnlyWithArchivedLayout() throws SQLException {
+        assumeTrue(System.getProperty("benchmark.jdbc-url") != null, "未指定 -Dbenchmark.jdbc-url");
+        int sessions = (int) (rows / MESSAGES_PER_SESSION);
+        int oldSessions = (int) (sessions * archiveRatio);
+        UUID[] sessionIds = new UUID[sessions];
+        for (int i = 0; i < sessions; i++) {
+            sessionIds[i] = UUID.randomUUID();
+        }
+
+        try (Connection connection = connect()) {
+            System.out.printf("rows=%d, sessions=%d, oldSessions=%d, queries=%d%n", rows, sessions, oldSessions, queries);
+            createTables(connection);
+            try {
+                long start = System.nanoTime();
+                load(connection, sessionIds, oldSessions);
+                System.out.printf("load: %.0f rows/s%n", rows / seconds(start));
+
+                System.out.printf("%-10s %12s %10s %10s %10s %10s%n",
+                        "layout", "insert/s", "p50(ms)", "p99(ms)", "dataMB", "indexMB");
+                measure(connection, "hot-only", sessionIds, oldSessions);
+
+                start = System.nanoTime();
+                long moved = archive(connection);
+                System.out.printf("archive: moved=%d in %.1fs%n", moved, seconds(start));
+                measure(connection, "archived", sessionIds, oldSessions);
+
+                // 已归档会话的历史从归档表读取
+                double[] archivedLatency = queryLatency(connection, ARCHIVE, sessionIds, 0, oldSessions);
+                System.out.printf("%-10s %12s %10.2f %10.2f%n", "archive-read", "-",
+                        percentile(archivedLatency, 0.5), percentile(archivedLatency, 0.99));
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("DROP TABLE IF EXISTS " + HOT);
+                    statement.execute("DROP TABLE IF EXISTS " + ARCHIVE);
+                }
+            }
+        }
+    }
+
+    private void createTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + HOT);
+            statement.execute("DROP TABLE IF EXISTS " + ARCHIVE);
+            statement.execute("CREATE TABLE " + HOT + " (" +
+                    "id CHAR(36) NOT NULL PRIMARY KEY, " +
+                    "session_id CHAR(36) NOT NULL, " +
+                    "sender_type VARCHAR(20) NOT NULL, " +
+                    "is_internal BOOLEAN NOT NULL, " +
+                    "text TEXT, " +
+                    "agent_metadata JSON, " +
+                    "created_at DATETIME(6) NOT NULL, " +
+                    "INDEX idx_bench_session_keyset (session_id, created_at, id, sender_type, is_internal)" +
+                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
+            statement.execute("CREATE TABLE " + ARCHIVE + " LIKE " + HOT);
+        }
+    }
+
+    /**
+     * 前 oldSessions 个会话的消息早于归档截止时间，其余为近 30 天内的消息
+     */
+    private void load(Connection connection, UUID[] sessionIds, int oldSessions) throws SQLException {
+        long oldSpanSeconds = Duration.ofDays(365).toSeconds();
+        long recentSpanSeconds = Duration.ofDays(30).toSeconds();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(insertSql(HOT))) {
+            long count = 0;
+            for (int s = 0; s < sessionIds.length; s++) {
+                Instant sessionStart = s < oldSessions
+                        ? cutoff.minusSeconds(oldSpanSeconds - ThreadLocalRandom.current().nextLong(oldSpanSeconds - 3600))
+                        : now.minusSeconds(ThreadLocalRandom.current().nextLong(3600, recentSpanSeconds));
+                for (int m = 0; m < MESSAGES_PER_SESSION; m++) {
+                    bind(insert, sessionIds[s], sessionStart.plusSeconds(m * 10L), m);
+                    insert.addBatch();
+                    if (++count % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void measure(Connection connection, String layout, UUID[] sessionIds, int oldSessions) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE " + HOT);
+        }
+        double[] latency = queryLatency(connection, HOT, sessionIds, oldSessions, sessionIds.length);
+        double insertRate = insertRecent(connection, sessionIds, oldSessions);
+        try (Statement statement = connection.createStatement();
+             ResultSet size = statement.executeQuery("SELECT data_length, index_length " +
+                     "FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = '" + HOT + "'")) {
+            size.next();
+            System.out.printf("%-10s %12.0f %10.2f %10.2f %10.1f %10.1f%n", layout, insertRate,
+                    percentile(latency, 0.5), percentile(latency, 0.99),
+                    size.getLong(1) / 1048576.0, size.getLong(2) / 1048576.0);
+        }
+    }
+
+    /**
+     * 近期会话追加新消息（逐批提交，与线上写入方式一致），返回每秒插入行数
+     */
+    private double insertRecent(Connection connection, UUID[] sessionIds, int oldSessions) throws SQLException {
+        int count = Math.max(BATCH_SIZE, queries * 10);
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(insertSql(HOT))) {
+            for (int i = 0; i < count; i++) {
+                UUID sessionId = sessionIds[ThreadLocalRandom.current().nextInt(oldSessions, sessionIds.length)];
+                bind(insert, sessionId, Instant.now(), i);
+                insert.addBatch();
+                if ((i + 1) % 50 == 0 || i == count - 1) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        return count / seconds(start);
+    }
+
+    private double[] queryLatency(Connection connection, String table, UUID[] sessionIds, int from, int to)
+            throws SQLException {
+        double[] latency = new double[queries];
+        try (PreparedStatement query = connection.prepareStatement(HISTORY_SQL.formatted(table))) {
+            for (int i = 0; i < queries; i++) {
+                query.setString(1, sessionIds[ThreadLocalRandom.current().nextInt(from, to)].toString());
+                long start = System.nanoTime();
+                int found = 0;
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getString(3);
+                        found++;
+                    }
+                }
+                latency[i] = (System.nanoTime() - start) / 1_000_000.0;
+                assertTrue(found > 0, "会话没有可见消息，数据加载不完整");
+            }
+        }
+        return latency;
+    }
+
+    /**
+     * 与 MessageArchiveService 相同的"复制 -> 删除"，按会话最后活跃时间早于截止时间划分
+     */
+    private long archive(Connection connection) throws SQLException {
+        long copied;
+        try (PreparedStatement copy = connection.prepareStatement("INSERT IGNORE INTO " + ARCHIVE +
+                " SELECT * FROM " + HOT + " WHERE created_at < ?")) {
+            copy.setTimestamp(1, Timestamp.from(cutoff));
+            copied = copy.executeUpdate();
+        }
+        long deleted = 0;
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + HOT +
+                " WHERE created_at < ? LIMIT " + (BATCH_SIZE * 10))) {
+            delete.setTimestamp(1, Timestamp.from(cutoff));
+            int batch;
+            do {
+                batch = delete.executeUpdate();
+                deleted += batch;
+            } while (batch > 0);
+        }
+        assertEquals(copied, deleted);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("OPTIMIZE TABLE " + HOT);
+        }
+        return deleted;
+    }
+
+    private static String insertSql(String table) {
+        return "INSERT INTO " + table + " (id, session_id, sender_type, is_internal, text, agent_metadata, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    }
+
+    private static void bind(PreparedStatement insert, UUID sessionId, Instant createdAt, int index)
+            throws SQLException {
+        boolean user = index % 2 == 0;
+        insert.setString(1, UuidV7Generator.next().toString());
+        insert.setString(2, sessionId.toString());
+        insert.setString(3, user ? "USER" : "AI");
+        insert.setBoolean(4, false);
+        insert.setString(5, "您好，我想咨询一下订单的物流进度，订单号 " + index + "，什么时候能送到？");
+        insert.setString(6, user ? null : "{\"model\":\"gpt-4o-mini\",\"tokens\":" + (100 + index) + "}");
+        insert.setTimestamp(7, Timestamp.from(createdAt));
+    }
+
+    private static double percentile(double[] values, double p) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    }
+
+    private static Connection connect() throws SQLException {
+        String url = System.getProperty("benchmark.jdbc-url");
+        if (!url.contains("rewriteBatchedStatements")) {
+            url += (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        }
+        return DriverManager.getConnection(url, System.getProperty("benchmark.jdbc-user", "root"),
+                System.getProperty("benchmark.jdbc-password", ""));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.aikef.repository;
+
+import com.example.aikef.model.ChatSession;
+import com.example.aikef.model.Message;
+import com.example.aikef.model.enums.SenderType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 热表 / 归档表拼接：EntityManager 由内存中的两张"表"模拟，按查询的 SQL 判断读哪张表，
+ * 并按游标、firstResult、maxResults 截取，验证偏移量、游标与总数的换算
+ */
+class MessageHistoryRepositoryImplTest {
+
+    private static final Instant BASE = Instant.parse("2024-01-01T00:00:00Z");
+    private static final List<SenderType> EXCLUDED = List.of(SenderType.SYSTEM);
+
+    private final UUID sessionId = UUID.randomUUID();
+    private final ChatSession session = new ChatSession();
+    // 均按 createdAt DESC, id DESC 排列
+    private final List<Message> hot = new ArrayList<>();
+    private final List<Message> archive = new ArrayList<>();
+    private final List<String> queries = new ArrayList<>();
+
+    private MessageHistoryRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        session.setId(sessionId);
+        session.setMessagesArchivedAt(BASE);
+        // 归档 5 条（第 0~4 分钟），热表 7 条（第 5~11 分钟）
+        for (int minute = 11; minute >= 0; minute--) {
+            (minute >= 5 ? hot : archive).add(message(minute));
+        }
+        repository = new MessageHistoryRepositoryImpl(entityManager());
+    }
+
+    @Test
+    void findHistory_ShouldStitchOffsetsAcrossHotAndArchive() {
+        List<Message> all = new ArrayList<>(hot);
+        all.addAll(archive);
+
+        for (int page = 0; page < 4; page++) {
+            Page<Message> result = repository.findHistory(sessionId, EXCLUDED, false, PageRequest.of(page, 5));
+            int from = Math.min(all.size(), page * 5);
+            assertEquals(ids(all.subList(from, Math.min(all.size(), from + 5))), ids(result.getContent()), "page " + page);
+            assertEquals(12, result.getTotalElements());
+            assertEquals(3, result.getTotalPages());
+        }
+    }
+
+    @Test
+    void findHistory_ShouldSkipArchiveForUnarchivedSession() {
+        session.setMessagesArchivedAt(null);
+
+        Page<Message> result = repository.findHistory(sessionId, EXCLUDED, false, PageRequest.of(1, 5));
+
+        assertEquals(ids(hot.subList(5, 7)), ids(result.getContent()));
+        assertEquals(7, result.getTotalElements());
+        assertTrue(queries.stream().noneMatch(sql -> sql.contains("messages_archive")));
+    }
+
+    @Test
+    void findHistoryPage_ShouldContinueCursorIntoArchive() {
+        List<Message> first = repository.findHistoryPage(sessionId, EXCLUDED, false, null, null, 5);
+        assertEquals(ids(hot.subList(0, 5)), ids(first));
+        // 热表已取满一页，不查询归档表
+        assertTrue(queries.stream().noneMatch(sql -> sql.contains("messages_archive")));
+
+        Message last = first.get(first.size() - 1);
+        List<Message> second = repository.findHistoryPage(sessionId, EXCLUDED, false,
+                last.getCreatedAt(), last.getId(), 5);
+        List<UUID> expected = ids(hot.subList(5, 7));
+        expected.addAll(ids(archive.subList(0, 3)));
+        assertEquals(expected, ids(second));
+
+        last = second.get(second.size() - 1);
+        List<Message> third = repository.findHistoryPage(sessionId, EXCLUDED, false,
+                last.getCreatedAt(), last.getId(), 5);
+        assertEquals(ids(archive.subList(3, 5)), ids(third));
+
+        last = third.get(third.size() - 1);
+        assertTrue(repository.findHistoryPage(sessionId, EXCLUDED, false,
+                last.getCreatedAt(), last.getId(), 5).isEmpty());
+    }
+
+    private Message message(int minute) {
+        Message message = new Message();
+        message.setId(UUID.randomUUID());
+        message.setCreatedAt(BASE.plusSeconds(minute * 60L));
+        message.setSession(session);
+        return message;
+    }
+
+    private static List<UUID> ids(List<Message> messages) {
+        return new ArrayList<>(messages.stream().map(Message::getId).toList());
+    }
+
+    private EntityManager entityManager() {
+        return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{EntityManager.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "find" -> session;
+                    case "createQuery", "createNativeQuery" -> {
+                        queries.add((String) args[0]);
+                        yield query((String) args[0]);
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private TypedQuery<?> query(String sql) {
+        List<Message> table = sql.contains("messages_archive") ? archive : hot;
+        Map<String, Object> params = new HashMap<>();
+        int[] range = {0, Integer.MAX_VALUE};
+        return (TypedQuery<?>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{TypedQuery.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "setParameter" -> {
+                        params.put((String) args[0], args[1]);
+                        yield proxy;
+                    }
+                    case "setFirstResult" -> {
+                        range[0] = (int) args[0];
+                        yield proxy;
+                    }
+                    case "setMaxResults" -> {
+                        range[1] = (int) args[0];
+                        yield proxy;
+                    }
+                    case "setHint" -> proxy;
+                    case "getSingleResult" -> (long) table.size();
+                    case "getResultList" -> table.stream()
+                            .filter(m -> before(m, (Instant) params.get("createdAt"), params.get("id")))
+                            .skip(range[0])
+                            .limit(range[1])
+                            .toList();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static boolean before(Message message, Instant createdAt, Object id) {
+        if (createdAt == null) {
+            return true;
+        }
+        int cmp = message.getCreatedAt().compareTo(createdAt);
+        return cmp < 0 || (cmp == 0 && message.getId().toString().compareTo(id.toString()) < 0);
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.aikef.service;
+
+import com.example.aikef.dto.BootstrapResponse;
+import com.example.aikef.dto.ChatSessionDto;
+import com.example.aikef.dto.SessionCategoryDto;
+import com.example.aikef.dto.SessionGroupDto;
+import com.example.aikef.mapper.EntityMapper;
+import com.example.aikef.model.Agent;
+import com.example.aikef.model.ChatSession;
+import com.example.aikef.model.Customer;
+import com.example.aikef.model.CustomerRole;
+import com.example.aikef.model.Message;
+import com.example.aikef.model.Role;
+import com.example.aikef.model.SessionCategory;
+import com.example.aikef.model.SessionGroup;
+import com.example.aikef.model.SessionGroupCategoryBinding;
+import com.example.aikef.model.SessionGroupMapping;
+import com.example.aikef.model.SpecialCustomer;
+import com.example.aikef.model.enums.SenderType;
+import com.example.aikef.repository.AgentMentionRepository;
+import com.example.aikef.repository.AgentRepository;
+import com.example.aikef.repository.KnowledgeBaseRepository;
+import com.example.aikef.repository.MessageRepository;
+import com.example.aikef.repository.QuickReplyRepository;
+import com.example.aikef.repository.ReadRecordRepository;
+import com.example.aikef.repository.RoleRepository;
+import com.example.aikef.repository.SessionGroupCategoryBindingRepository;
+import com.example.aikef.repository.SessionGroupMappingRepository;
+import com.example.aikef.repository.SessionGroupRepository;
+import com.example.aikef.repository.SpecialCustomerRepository;
+import com.example.aikef.repository.WorkflowExecutionLogRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * bootstrap 组装基准：对比原逐分组、逐会话查询与按集合查询的查询次数和耗时
+ * 仓库为内存桩，每次查询按 -Dbenchmark.rtt-micros（默认 300）模拟一次数据库往返；
+ * 懒加载集合（客户标签、支持客服、消息附件）由 hibernate.default_batch_fetch_size 批量加载，不计入统计
+ * 默认跳过，运行方式：mvn test -Dtest=BootstrapServiceBenchmarkTest -Dbenchmark=true
+ * 可通过 -Dbenchmark.iterations 调整每种规模的测量轮数
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BootstrapServiceBenchmarkTest {
+
+    private static final int GROUPS = 4;
+
+    private final AtomicInteger queries = new AtomicInteger();
+    private final long rttNanos = TimeUnit.MICROSECONDS.toNanos(Long.getLong("benchmark.rtt-micros", 300));
+
+    @Test
+    void compareWithPerSessionQueries() {
+        int iterations = Integer.getInteger("benchmark.iterations", 3);
+        System.out.printf("iterations=%d, rttMicros=%d%n", iterations, TimeUnit.NANOSECONDS.toMicros(rttNanos));
+        System.out.printf("%8s %14s %14s %12s %12s %8s%n",
+                "sessions", "legacyQueries", "setQueries", "legacyMs", "setMs", "speedup");
+        for (int sessions : new int[]{10, 100, 1000}) {
+            run(new Fixture(sessions), iterations);
+        }
+    }
+
+    private void run(Fixture fixture, int iterations) {
+        BootstrapService service = fixture.bootstrapService();
+
+        // 两种方式结果一致
+        assertEquals(fixture.legacyBootstrap(), service.bootstrap(fixture.agentId));
+
+        queries.set(0);
+        fixture.legacyBootstrap();
+        int legacyQueries = queries.get();
+        queries.set(0);
+        service.bootstrap(fixture.agentId);
+        int setQueries = queries.get();
+
+        double legacyMs = measure(iterations, fixture::legacyBootstrap);
+        double setMs = measure(iterations, () -> service.bootstrap(fixture.agentId));
+        System.out.printf("%8d %14d %14d %12.2f %12.2f %7.1fx%n",
+                fixture.sessions.size(), legacyQueries, setQueries, legacyMs, setMs, legacyMs / setMs);
+    }
+
+    private static double measure(int iterations, Runnable task) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / iterations;
+    }
+
+    /**
+     * 仓库桩：按方法名分派，每次调用计一次查询并模拟往返延迟
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> handlers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> type.getSimpleName();
+                };
+            }
+            Function<Object[], Object> handler = handlers.get(method.getName());
+            if (handler == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            queries.incrementAndGet();
+            LockSupport.parkNanos(rttNanos);
+            return handler.apply(args);
+        });
+    }
+
+    private class Fixture {
+
+        final UUID agentId = UUID.randomUUID();
+        final List<SessionGroup> groups = new ArrayList<>();
+        final List<SessionGroupMapping> mappings = new ArrayList<>();
+        final List<ChatSession> sessions = new ArrayList<>();
+        final Map<UUID, Agent> agents = new HashMap<>();
+        final Map<UUID, Message> lastMessages = new HashMap<>();
+        final Map<UUID, Integer> unreadCounts = new HashMap<>();
+        final Map<UUID, SpecialCustomer> specialCustomers = new HashMap<>();
+        final List<SessionGroupCategoryBinding> bindings = new ArrayList<>();
+
+        final SessionGroupRepository sessionGroupRepository;
+        final SessionGroupMappingRepository mappingRepository;
+        final MessageRepository messageRepository;
+        final AgentRepository agentRepository;
+        final SpecialCustomerRepository specialCustomerRepository;
+        final SessionGroupCategoryBindingRepository bindingRepository;
+        final ReadRecordRepository readRecordRepository;
+        final AgentMentionRepository agentMentionRepository;
+        final RoleRepository roleRepository;
+        final QuickReplyRepository quickReplyRepository;
+        final KnowledgeBaseRepository knowledgeBaseRepository;
+        final EntityMapper entityMapper;
+
+        Fixture(int sessionCount) {
+            Role role = new Role();
+            role.setId(UUID.randomUUID());
+            role.setName("客服");
+            Agent self = agent(agentId, role);
+            Agent colleague = agent(UUID.randomUUID(), role);
+            CustomerRole vip = new CustomerRole();
+            vip.setCode("VIP");
+            vip.setName("大客户");
+
+            for (int g = 0; g < GROUPS; g++) {
+                SessionGroup group = new SessionGroup();
+                group.setId(UUID.randomUUID());
+                group.setName("分组" + g);
+                group.setAgent(self);
+                group.setSortOrder(g);
+                groups.add(group);
+                for (int c = 0; c < 2; c++) {
+                    SessionCategory category = new SessionCategory();
+                    category.setId(UUID.randomUUID());
+                    category.setName("分类" + g + "-" + c);
+                    SessionGroupCategoryBinding binding = new SessionGroupCategoryBinding();
+                    binding.setSessionGroup(group);
+                    binding.setCategory(category);
+                    bindings.add(binding);
+                }
+            }
+
+            for (int i = 0; i < sessionCount; i++) {
+                Customer customer = new Customer();
+                customer.setId(UUID.randomUUID());
+                customer.setName("客户" + i);
+                if (i % 10 == 0) {
+                    SpecialCustomer special = new SpecialCustomer();
+                    special.setCustomer(customer);
+                    special.setRole(vip);
+                    specialCustomers.put(customer.getId(), special);
+                }
+
+                ChatSession session = new ChatSession();
+                session.setId(UUID.randomUUID());
+                session.setCustomer(customer);
+                session.setLastActiveAt(Instant.ofEpochMilli(1_700_000_000_000L + i));
+                // 三分之二由本人负责，其余为同事负责、本人支持
+                if (i % 3 != 2) {
+                    session.setPrimaryAgent(self);
+                    session.setSupportAgentIds(new ArrayList<>(List.of(colleague.getId())));
+                } else {
+                    session.setPrimaryAgent(colleague);
+                    session.setSupportAgentIds(new ArrayList<>(List.of(agentId)));
+                }
+                sessions.add(session);
+
+                SessionGroupMapping mapping = new SessionGroupMapping();
+                mapping.setSession(session);
+                mapping.setSessionGroup(groups.get(i % GROUPS));
+                mapping.setAgent(self);
+                mappings.add(mapping);
+
+                Message message = new Message();
+                message.setId(UUID.randomUUID());
+                message.setSession(session);
+                message.setSenderType(SenderType.USER);
+                message.setText("消息" + i);
+                message.setCreatedAt(session.getLastActiveAt());
+                lastMessages.put(session.getId(), message);
+                session.setLastMessageId(message.getId());
+                session.setLastMessagePreview(message.getText());
+                session.setLastMessageSender(message.getSenderType());
+                session.setLastMessageAt(message.getCreatedAt());
+                session.setLastMessageInternal(false);
+                unreadCounts.put(session.getId(), i % 5);
+            }
+
+            sessionGroupRepository = repository(SessionGroupRepository.class, Map.of(
+                    "findByAgent_IdOrderBySortOrderAsc", args -> groups));
+            mappingRepository = repository(SessionGroupMappingRepository.class, Map.of(
+                    "findByAgentIdWithSession", args -> mappings,
+                    "findBySessionGroupIdAndAgentId", args -> mappings.stream()
+                            .filter(m -> m.getSessionGroup().getId().equals(args[0])).toList(),
+                    "findBySessionIdAndAgentId", args -> mappings.stream()
+                            .filter(m -> m.getSession().getId().equals(args[0])).findFirst()));
+            messageRepository = repository(MessageRepository.class, Map.of(
+                    "findFirstBySession_IdOrderByCreatedAtDesc", args -> lastMessages.get((UUID) args[0]),
+                    "countBySession_Id", args -> (long) unreadCounts.get((UUID) args[0]),
+                    "countUnreadBySessionIds", args -> countRows((Collection<UUID>) args[0])));
+            agentRepository = repository(AgentRepository.class, Map.of(
+                    "findByIdWithRole", args -> Optional.ofNullable(agents.get((UUID) args[0])),
+                    "findAllByIdWithRole", args -> ((Collection<UUID>) args[0]).stream()
+                            .map(agents::get).toList()));
+            specialCustomerRepository = repository(SpecialCustomerRepository.class, Map.of(
+                    "findByCustomer_Id", args -> Optional.ofNullable(specialCustomers.get((UUID) args[0])),
+                    "findByCustomerIdIn", args -> ((Collection<UUID>) args[0]).stream()
+                            .map(specialCustomers::get).filter(s -> s != null).toList()));
+            bindingRepository = repository(SessionGroupCategoryBindingRepository.class, Map.of(
+                    "findBySessionGroup_Id", args -> bindings.stream()
+                            .filter(b -> b.getSessionGroup().getId().equals(args[0])).toList(),
+                    "findBySessionGroupIdInWithCategory", args -> bindings));
+            readRecordRepository = repository(ReadRecordRepository.class, Map.of(
+                    "findByAgentIdAndSessionIdIn", args -> List.of()));
+            agentMentionRepository = repository(AgentMentionRepository.class, Map.of(
+                    "countByAgent_IdAndSession_Id", args -> (long) unreadCounts.get((UUID) args[1]),
+                    "countUnreadBySessionIds", args -> countRows((Collection<UUID>) args[0])));
+            roleRepository = repository(RoleRepository.class, Map.of("findAll", args -> List.of(role)));
+            quickReplyRepository = repository(QuickReplyRepository.class, Map.of("findAll", args -> List.of()));
+            knowledgeBaseRepository = repository(KnowledgeBaseRepository.class, Map.of(
+                    "findByEnabledTrue", args -> List.of()));
+            entityMapper = new EntityMapper(mappingRepository, agentRepository, new ObjectMapper(),
+                    specialCustomerRepository, repository(WorkflowExecutionLogRepository.class, Map.of()));
+        }
+
+        private Agent agent(UUID id, Role role) {
+            Agent agent = new Agent();
+            agent.setId(id);
+            agent.setName("客服-" + id.toString().substring(0, 4));
+            agent.setRole(role);
+            agents.put(id, agent);
+            return agent;
+        }
+
+        private List<Object[]> countRows(Collection<UUID> sessionIds) {
+            return sessionIds.stream()
+                    .filter(id -> unreadCounts.get(id) > 0)
+                    .map(id -> new Object[]{id, (long) unreadCounts.get(id)})
+                    .toList();
+        }
+
+        BootstrapService bootstrapService() {
+            // 未读计数器未启用时按数据库分组统计
+            UnreadCounterService unreadCounterService = new UnreadCounterService(null, messageRepository,
+                    agentMentionRepository, null, null);
+            ReadRecordService readRecordService = new ReadRecordService(readRecordRepository, unreadCounterService,
+                    null);
+            RoleService roleService = new RoleService(roleRepository, entityMapper, new ConfigEntityCache(null, null));
+            return new BootstrapService(sessionGroupRepository, mappingRepository, agentRepository, roleService,
+                    quickReplyRepository, knowledgeBaseRepository, entityMapper, readRecordService,
+                    specialCustomerRepository, bindingRepository);
+        }
+
+        /**
+         * 原实现：逐分组查映射和分类，逐会话查分组、最后消息、客户特殊角色和客服，逐会话统计未读数
+         */
+        BootstrapResponse legacyBootstrap() {
+            List<UUID> primaryIds = new ArrayList<>();
+            List<UUID> supportIds = new ArrayList<>();
+            List<SessionGroupDto> groupDtos = sessionGroupRepository.findByAgent_IdOrderBySortOrderAsc(agentId).stream()
+                    .map(group -> {
+                        List<ChatSessionDto> sessionDtos = mappingRepository
+                                .findBySessionGroupIdAndAgentId(group.getId(), agentId).stream()
+                                .map(SessionGroupMapping::getSession)
+                                .map(session -> {
+                                    (session.getPrimaryAgent().getId().equals(agentId) ? primaryIds : supportIds)
+                                            .add(session.getId());
+                                    // 原实现逐会话查询最后一条消息，现由会话快照提供
+                                    messageRepository.findFirstBySession_IdOrderByCreatedAtDesc(session.getId());
+                                    return entityMapper.toChatSessionDtoForAgent(session, agentId);
+                                })
+                                .toList();
+                        List<SessionCategoryDto> categories = bindingRepository.findBySessionGroup_Id(group.getId())
+                                .stream()
+                                .map(binding -> entityMapper.toSessionCategoryDto(binding.getCategory()))
+                                .toList();
+                        return entityMapper.toSessionGroupDtoWithSessionsAndCategories(group, sessionDtos, categories);
+                    })
+                    .toList();
+
+            Map<UUID, Integer> unread = new HashMap<>();
+            readRecordRepository.findByAgentIdAndSessionIdIn(agentId, primaryIds);
+            primaryIds.forEach(id -> unread.put(id, (int) messageRepository.countBySession_Id(id)));
+            readRecordRepository.findByAgentIdAndSessionIdIn(agentId, supportIds);
+            supportIds.forEach(id -> unread.put(id, (int) agentMentionRepository.countByAgent_IdAndSession_Id(agentId, id)));
+
+            List<SessionGroupDto> updated = groupDtos.stream()
+                    .map(group -> new SessionGroupDto(group.id(), group.name(), group.system(), group.agentId(),
+                            group.icon(), group.color(), group.sortOrder(),
+                            group.sessions().stream()
+                                    .map(s -> new ChatSessionDto(s.id(), s.userId(), s.user(), s.status(),
+                                            s.lastActive(), unread.getOrDefault(s.id(), 0), s.sessionGroupId(),
+                                            s.primaryAgentId(), s.agents(), s.lastMessage(), s.note(),
+                                            s.categoryId(), s.category(), s.metadata(), s.customerLanguage()))
+                                    .toList(),
+                            group.categories(), group.createdAt(), group.updatedAt()))
+                    .toList();
+            return new BootstrapResponse(
+                    updated,
+                    agentRepository.findByIdWithRole(agentId).map(entityMapper::toAgentDto).orElseThrow(),
+                    roleRepository.findAll().stream().map(entityMapper::toRoleDto).toList(),
+                    quickReplyRepository.findAll().stream().map(entityMapper::toQuickReplyDto).toList(),
+                    knowledgeBaseRepository.findByEnabledTrue().stream().map(entityMapper::toKnowledgeEntryDto).toList());
+        }
+    }
+}
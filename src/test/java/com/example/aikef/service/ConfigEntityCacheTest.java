@@ -0,0 +1,68 @@
+package com.example.aikef.service;
+
+import com.example.aikef.saas.context.TenantContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigEntityCacheTest {
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void get_ShouldCachePerTenantUntilInvalidated() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", registry);
+        // Redis 不可用时退化为仅本地失效
+        ConfigEntityCache cache = new ConfigEntityCache(null, beanFactory.getBeanProvider(MeterRegistry.class));
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 600L);
+        ReflectionTestUtils.setField(cache, "versionCheckMillis", 60_000L);
+        AtomicInteger loads = new AtomicInteger();
+
+        TenantContext.setTenantId("t1");
+        for (int i = 0; i < 3; i++) {
+            Optional<String> model = cache.get(ConfigEntityCache.LLM_MODEL, "default", () -> {
+                loads.incrementAndGet();
+                return Optional.of("gpt-t1");
+            });
+            assertEquals("gpt-t1", model.orElseThrow());
+        }
+        assertEquals(1, loads.get());
+
+        // 其他租户使用独立的缓存键
+        TenantContext.setTenantId("t2");
+        assertTrue(cache.get(ConfigEntityCache.LLM_MODEL, "default", () -> {
+            loads.incrementAndGet();
+            return Optional.<String>empty();
+        }).isEmpty());
+        assertEquals(2, loads.get());
+
+        cache.invalidate(ConfigEntityCache.LLM_MODEL);
+        TenantContext.setTenantId("t1");
+        cache.get(ConfigEntityCache.LLM_MODEL, "default", () -> {
+            loads.incrementAndGet();
+            return Optional.of("gpt-t1-v2");
+        });
+        assertEquals(3, loads.get());
+
+        ConfigEntityCache.Stats stats = cache.getStats(ConfigEntityCache.LLM_MODEL);
+        assertEquals(2, stats.hits());
+        assertEquals(3, stats.misses());
+        assertEquals(0.4, stats.hitRate(), 1e-9);
+        assertEquals(2.0, registry.get("config.cache.gets").tag("result", "hit").functionCounter().count());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.aikef.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostRequestLimiterTest {
+
+    @Test
+    void release_ShouldHandPermitToWaitersInOrder() {
+        HostRequestLimiter limiter = new HostRequestLimiter(1);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        CompletableFuture<Void> first = limiter.acquire(5000);
+        CompletableFuture<Void> second = limiter.acquire(5000);
+        assertFalse(first.isDone());
+        assertEquals(2, limiter.waitingCount());
+
+        limiter.release();
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(1, limiter.activeCount());
+
+        limiter.release();
+        assertTrue(second.isDone());
+        limiter.release();
+        assertEquals(0, limiter.activeCount());
+        assertEquals(0, limiter.waitingCount());
+    }
+
+    @Test
+    void acquire_ShouldTimeOutWithoutLeakingPermits() {
+        HostRequestLimiter limiter = new HostRequestLimiter(1);
+        assertTrue(limiter.tryAcquire());
+
+        CompletableFuture<Void> timedOut = limiter.acquire(20);
+        CompletionException error = assertThrows(CompletionException.class, timedOut::join);
+        assertInstanceOf(TimeoutException.class, error.getCause());
+
+        // 超时的等待者不占用许可，释放后许可回到可用状态
+        limiter.release();
+        assertEquals(0, limiter.activeCount());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void retireIfIdleSince_ShouldOnlyRetireIdleLimiter() {
+        HostRequestLimiter limiter = new HostRequestLimiter(1);
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.retireIfIdleSince(System.nanoTime()), "有进行中的请求时不回收");
+
+        limiter.release();
+        long releasedAt = System.nanoTime();
+        assertFalse(limiter.retireIfIdleSince(releasedAt - 1_000_000_000L), "空闲时间不足时不回收");
+        assertTrue(limiter.retireIfIdleSince(System.nanoTime()));
+
+        // 回收后不再发放许可，调用方需重新获取限流器
+        assertNull(limiter.acquire(5000));
+        assertFalse(limiter.tryAcquire());
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.aikef.service;
+
+import com.example.aikef.repository.ChatSessionRepository;
+import com.example.aikef.repository.MessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 归档周期：仓库由内存中的热表 / 归档表模拟，记录每批的事务边界与调用顺序
+ */
+class MessageArchiveServiceTest {
+
+    // 会话 -> 热表中的消息数
+    private final Map<UUID, Integer> hot = new LinkedHashMap<>();
+    private final Map<UUID, Integer> archived = new LinkedHashMap<>();
+    private final List<UUID> markedSessions = new ArrayList<>();
+    private final List<String> calls = new ArrayList<>();
+    private RuntimeException deleteFailure;
+
+    private MessageArchiveService service;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            hot.put(UUID.randomUUID(), i + 1);
+        }
+        service = new MessageArchiveService(chatSessionRepository(), messageRepository(), transactionManager());
+        ReflectionTestUtils.setField(service, "afterDays", 90);
+        ReflectionTestUtils.setField(service, "batchSessions", 2);
+        ReflectionTestUtils.setField(service, "maxBatches", 10);
+    }
+
+    @Test
+    void archive_ShouldCopyDeleteAndMarkEachBatchInOneTransaction() {
+        int moved = service.archive();
+
+        assertEquals(15, moved);
+        assertTrue(hot.isEmpty());
+        assertEquals(List.of(1, 2, 3, 4, 5), new ArrayList<>(archived.values()));
+        assertEquals(new ArrayList<>(archived.keySet()), markedSessions);
+        // 5 个会话每批 2 个：3 批，每批 复制 -> 删除 -> 标记 后提交，第 4 次查询没有可归档会话
+        List<String> batch = List.of("find", "begin", "copy", "delete", "mark", "commit");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            expected.addAll(batch);
+        }
+        expected.add("find");
+        assertEquals(expected, calls);
+    }
+
+    @Test
+    void archive_ShouldRollbackAndStopWhenBatchFails() {
+        deleteFailure = new IllegalStateException("lock wait timeout");
+
+        assertEquals(0, service.archive());
+
+        assertEquals(List.of("find", "begin", "copy", "delete", "rollback"), calls);
+        assertTrue(markedSessions.isEmpty());
+    }
+
+    private ChatSessionRepository chatSessionRepository() {
+        return (ChatSessionRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ChatSessionRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findArchivableSessionIds" -> {
+                        calls.add("find");
+                        yield hot.keySet().stream().limit(((Pageable) args[2]).getPageSize()).toList();
+                    }
+                    case "markMessagesArchived" -> {
+                        calls.add("mark");
+                        markedSessions.addAll(cast(args[0]));
+                        yield cast(args[0]).size();
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private MessageRepository messageRepository() {
+        return (MessageRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{MessageRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "copyToArchive" -> {
+                        calls.add("copy");
+                        int copied = 0;
+                        for (UUID id : sessionIds(args[0])) {
+                            archived.put(id, hot.get(id));
+                            copied += hot.get(id);
+                        }
+                        yield copied;
+                    }
+                    case "deleteArchived" -> {
+                        calls.add("delete");
+                        if (deleteFailure != null) {
+                            throw deleteFailure;
+                        }
+                        int deleted = 0;
+                        for (UUID id : sessionIds(args[0])) {
+                            deleted += hot.remove(id);
+                        }
+                        yield deleted;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private PlatformTransactionManager transactionManager() {
+        return new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                calls.add("begin");
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                calls.add("commit");
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                calls.add("rollback");
+            }
+        };
+    }
+
+    private static List<UUID> sessionIds(Object ids) {
+        return ((Collection<?>) ids).stream().map(id -> UUID.fromString((String) id)).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<UUID> cast(Object ids) {
+        return (Collection<UUID>) ids;
+    }
+}
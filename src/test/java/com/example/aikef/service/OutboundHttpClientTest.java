@@ -0,0 +1,123 @@
+package com.example.aikef.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RestTemplate 拦截器的主机许可与空闲主机回收（不发出真实请求）
+ */
+class OutboundHttpClientTest {
+
+    private static final ClientHttpRequestExecution RESPOND_OK = (request, body) -> new ClientHttpResponse() {
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public String getStatusText() {
+            return "OK";
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private OutboundHttpClient client;
+
+    @BeforeEach
+    void setUp() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("meterRegistry", registry));
+        client = new OutboundHttpClient(null, beanFactory.getBeanProvider(MeterRegistry.class));
+        ReflectionTestUtils.setField(client, "maxRequestsPerHost", 1);
+        ReflectionTestUtils.setField(client, "acquireTimeoutMillis", 50L);
+        ReflectionTestUtils.setField(client, "hostIdleEvictMillis", 0L);
+    }
+
+    @Test
+    void interceptor_ShouldHoldPermitUntilResponseClosed() throws Exception {
+        ClientHttpRequestInterceptor interceptor = client.interceptor();
+
+        ClientHttpResponse first = interceptor.intercept(request(), new byte[0], RESPOND_OK);
+
+        // 响应体尚未读完（未关闭）时仍占用该主机唯一的许可
+        assertThrows(ResourceAccessException.class, () -> interceptor.intercept(request(), new byte[0], RESPOND_OK));
+
+        first.close();
+        first.close();
+        try (ClientHttpResponse second = interceptor.intercept(request(), new byte[0], RESPOND_OK)) {
+            assertEquals(HttpStatus.OK, second.getStatusCode());
+        }
+    }
+
+    @Test
+    void evictIdleHosts_ShouldDropIdleLimitersAndTheirMeters() throws Exception {
+        ClientHttpRequestInterceptor interceptor = client.interceptor();
+        ClientHttpResponse open = interceptor.intercept(request(), new byte[0], RESPOND_OK);
+        assertNotNull(registry.find("http.client.outbound.active").tag("host", "api.example.com").gauge());
+
+        client.evictIdleHosts();
+        assertEquals(1, client.trackedHostCount(), "有进行中的请求时不回收");
+
+        open.close();
+        client.evictIdleHosts();
+        assertEquals(0, client.trackedHostCount());
+        assertNull(registry.find("http.client.outbound.active").tag("host", "api.example.com").gauge());
+        assertNull(registry.find("http.client.outbound.requests").tag("host", "api.example.com").timer());
+
+        // 回收后同一主机的请求重新创建限流器
+        interceptor.intercept(request(), new byte[0], RESPOND_OK).close();
+        assertEquals(1, client.trackedHostCount());
+    }
+
+    private static HttpRequest request() {
+        return new HttpRequest() {
+            @Override
+            public HttpMethod getMethod() {
+                return HttpMethod.GET;
+            }
+
+            @Override
+            public URI getURI() {
+                return URI.create("https://api.example.com/orders/1");
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return new HttpHeaders();
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.aikef.service;
+
+import com.example.aikef.model.ChatSession;
+import com.example.aikef.model.Message;
+import com.example.aikef.model.enums.SenderType;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionActivityWriterTest {
+
+    private final List<Map<UUID, SessionActivityWriter.SessionActivity>> sessionWrites = new ArrayList<>();
+    private final List<Map<SessionActivityWriter.ReadKey, SessionActivityWriter.ReadMark>> readWrites = new ArrayList<>();
+
+    private final SessionActivityWriter writer = new SessionActivityWriter(null, null) {
+        @Override
+        void write(Map<UUID, SessionActivity> sessionBatch, Map<ReadKey, ReadMark> readBatch) {
+            sessionWrites.add(sessionBatch);
+            readWrites.add(readBatch);
+        }
+    };
+
+    @Test
+    void flush_ShouldCollapseUpdatesPerKeyKeepingLatest() {
+        ReflectionTestUtils.setField(writer, "enabled", true);
+        ChatSession session = session();
+        UUID agentId = UUID.randomUUID();
+
+        Message newer = message(session, "第二条", Instant.parse("2024-05-20T02:00:01Z"));
+        Message older = message(session, "第一条", Instant.parse("2024-05-20T02:00:00Z"));
+        writer.messageSaved(newer);
+        writer.messageSaved(older);
+        writer.touch(session.getId());
+        for (int i = 0; i < 5; i++) {
+            writer.markRead(session.getId(), agentId);
+        }
+        assertEquals(2, writer.getPendingCount());
+
+        writer.flush();
+
+        assertEquals(1, sessionWrites.size());
+        SessionActivityWriter.SessionActivity activity = sessionWrites.get(0).get(session.getId());
+        assertEquals(newer.getId(), activity.lastMessage().id());
+        assertEquals("第二条", activity.lastMessage().preview());
+        assertEquals(1, readWrites.get(0).size());
+        assertEquals(0, writer.getPendingCount());
+
+        writer.flush();
+        assertEquals(1, sessionWrites.size());
+    }
+
+    @Test
+    void disabled_ShouldWriteEachUpdateImmediately() {
+        ChatSession session = session();
+
+        writer.touch(session.getId());
+        writer.markRead(session.getId(), UUID.randomUUID());
+
+        assertEquals(2, sessionWrites.size());
+        assertNull(sessionWrites.get(0).get(session.getId()).lastMessage());
+        assertEquals(1, readWrites.get(1).size());
+        assertEquals(0, writer.getPendingCount());
+    }
+
+    private static ChatSession session() {
+        ChatSession session = new ChatSession();
+        session.setId(UUID.randomUUID());
+        return session;
+    }
+
+    private static Message message(ChatSession session, String text, Instant createdAt) {
+        Message message = new Message();
+        message.setId(UUID.randomUUID());
+        message.setSession(session);
+        message.setText(text);
+        message.setSenderType(SenderType.USER);
+        message.setCreatedAt(createdAt);
+        return message;
+    }
+}
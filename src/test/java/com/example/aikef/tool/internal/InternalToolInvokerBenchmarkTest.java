@@ -0,0 +1,102 @@
+package com.example.aikef.tool.internal;
+
+import com.example.aikef.workflow.context.WorkflowContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 内部工具调用基准：对比预生成调用器与原反射调用（每次 Method.invoke + constructType + convertValue）
+ * 默认跳过，运行方式：mvn test -Dtest=InternalToolInvokerBenchmarkTest -Dbenchmark=true
+ * 可通过 -Dbenchmark.iterations 调整每轮调用次数
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InternalToolInvokerBenchmarkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void compareWithReflectiveInvocation() throws Exception {
+        int iterations = Integer.getInteger("benchmark.iterations", 500_000);
+        Tools tools = new Tools();
+        WorkflowContext ctx = new WorkflowContext();
+
+        System.out.printf("iterations=%d%n", iterations);
+        System.out.printf("%-16s %14s %14s %8s%n", "tool", "reflectNsPerOp", "invokerNsPerOp", "speedup");
+        run("getCustomerInfo", tools, Tools.class.getDeclaredMethod("getCustomerInfo", String.class),
+                Map.of("sessionId", "4f1c2e9a-0000-0000-0000-000000000001"), ctx, iterations);
+        run("updateCustomer", tools, Tools.class.getDeclaredMethod("updateCustomer", String.class, String.class,
+                        Integer.class, List.class, WorkflowContext.class),
+                Map.of("sessionId", "s-1", "name", "张三", "age", 30, "tags", List.of("vip", "new")), ctx, iterations);
+    }
+
+    private void run(String name, Object bean, Method method, Map<String, Object> params, WorkflowContext ctx,
+                     int iterations) throws Exception {
+        InternalToolInvoker invoker = InternalToolInvoker.create(name, bean, method, objectMapper);
+        double reflective = measure(iterations, () -> invokeReflectively(bean, method, params, ctx));
+        double compiled = measure(iterations, () -> invoker.invoke(params, ctx));
+        System.out.printf("%-16s %14.1f %14.1f %7.2fx%n", name, reflective, compiled, reflective / compiled);
+    }
+
+    /**
+     * 原 InternalToolRegistry.invokeMethod 的调用方式
+     */
+    private Object invokeReflectively(Object bean, Method method, Map<String, Object> params, WorkflowContext ctx)
+            throws Exception {
+        Parameter[] parameters = method.getParameters();
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            if (WorkflowContext.class.isAssignableFrom(parameter.getType())) {
+                args[i] = ctx;
+                continue;
+            }
+            Object value = params.get(parameter.getName());
+            args[i] = value != null
+                    ? objectMapper.convertValue(value, objectMapper.getTypeFactory().constructType(parameter.getParameterizedType()))
+                    : null;
+        }
+        return method.invoke(bean, args);
+    }
+
+    private double measure(int iterations, Call call) throws Exception {
+        long sink = 0;
+        // 预热
+        for (int i = 0; i < iterations; i++) {
+            sink += call.run().hashCode();
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += call.run().hashCode();
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+        return (double) best / iterations;
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        Object run() throws Exception;
+    }
+
+    public static class Tools {
+
+        public String getCustomerInfo(String sessionId) {
+            return sessionId;
+        }
+
+        public String updateCustomer(String sessionId, String name, Integer age, List<String> tags, WorkflowContext ctx) {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.aikef.tool.internal;
+
+import com.example.aikef.workflow.context.WorkflowContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InternalToolInvokerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SampleTools tools = new SampleTools();
+
+    @Test
+    void invoke_ShouldBindParametersByNameAndInjectContext() throws Exception {
+        InternalToolInvoker invoker = InternalToolInvoker.create("updateProfile", tools,
+                SampleTools.class.getDeclaredMethod("updateProfile", String.class, Integer.class, List.class,
+                        WorkflowContext.class), objectMapper);
+        WorkflowContext ctx = new WorkflowContext();
+        ctx.setQuery("hi");
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", "张三");
+        params.put("age", "30");
+        params.put("scores", List.of(1, "2"));
+
+        assertEquals("张三|30|[1, 2]|hi", invoker.invoke(params, ctx));
+        assertEquals("null|null|null|hi", invoker.invoke(Map.of(), ctx));
+    }
+
+    @Test
+    void invokeWithBody_ShouldConvertBodyForSingleParameter() throws Exception {
+        InternalToolInvoker invoker = InternalToolInvoker.create("sum", tools,
+                SampleTools.class.getDeclaredMethod("sum", List.class), objectMapper);
+
+        assertEquals(6L, invoker.invokeWithBody("[1, 2, 3]"));
+    }
+
+    @Test
+    void invoke_ShouldRethrowToolException() throws Exception {
+        InternalToolInvoker invoker = InternalToolInvoker.create("fail", tools,
+                SampleTools.class.getDeclaredMethod("fail", String.class), objectMapper);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> invoker.invoke(Map.of("reason", "boom"), null));
+        assertEquals("boom", e.getMessage());
+    }
+
+    static class SampleTools {
+
+        String updateProfile(String name, Integer age, List<Long> scores, WorkflowContext ctx) {
+            return name + "|" + age + "|" + scores + "|" + ctx.getQuery();
+        }
+
+        long sum(List<Long> values) {
+            return values.stream().mapToLong(Long::longValue).sum();
+        }
+
+        String fail(String reason) {
+            throw new IllegalStateException(reason);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.aikef.tool.mcp;
+
+import com.example.aikef.tool.mcp.McpClientSession.CallResult;
+import com.example.aikef.tool.mcp.McpClientSession.McpToolInfo;
+import com.example.aikef.tool.model.AiTool;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class McpClientPoolTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger initializeCount = new AtomicInteger();
+    private final AtomicInteger toolsListCount = new AtomicInteger();
+    private final BlockingQueue<String> sseEvents = new LinkedBlockingQueue<>();
+
+    private HttpServer server;
+    private McpClientPool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/mcp", this::handleStreamableHttp);
+        server.createContext("/sse", this::handleSseStream);
+        server.createContext("/messages", this::handleSseMessage);
+        server.start();
+
+        pool = new McpClientPool(HttpClient.newHttpClient(), objectMapper);
+        ReflectionTestUtils.setField(pool, "requestTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(pool, "initTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(pool, "toolsCacheSeconds", 300L);
+        ReflectionTestUtils.setField(pool, "idleTimeoutSeconds", 600L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+        sseEvents.add("");
+        server.stop(0);
+    }
+
+    @Test
+    void callTool_ShouldReuseOneSessionForConcurrentCalls() {
+        AiTool tool = tool("http", "http://127.0.0.1:" + server.getAddress().getPort() + "/mcp");
+
+        List<CompletableFuture<CallResult>> calls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            calls.add(pool.callTool(tool, Map.of("orderNo", "A" + i)));
+        }
+        for (int i = 0; i < calls.size(); i++) {
+            CallResult result = calls.get(i).join();
+            assertTrue(result.success());
+            assertEquals("订单 A" + i + " 已发货", result.output());
+        }
+
+        List<McpToolInfo> tools = pool.listTools(tool).join();
+        pool.listTools(tool).join();
+        assertEquals("query_order", tools.get(0).name());
+        assertEquals(1, initializeCount.get());
+        assertEquals(1, toolsListCount.get());
+        assertEquals(1, pool.getSessionCount());
+    }
+
+    @Test
+    void callTool_ShouldReceiveResponsesOverSseStream() {
+        AiTool tool = tool("sse", "http://127.0.0.1:" + server.getAddress().getPort() + "/sse");
+
+        CallResult first = pool.callTool(tool, Map.of("orderNo", "B1")).join();
+        CallResult second = pool.callTool(tool, Map.of("orderNo", "B2")).join();
+
+        assertEquals("订单 B1 已发货", first.output());
+        assertEquals("订单 B2 已发货", second.output());
+        assertEquals(1, initializeCount.get());
+    }
+
+    @Test
+    void acquire_ShouldReconnectAfterSessionClosed() throws IOException {
+        AiTool tool = tool("http", "http://127.0.0.1:" + server.getAddress().getPort() + "/mcp");
+        McpClientSession first = pool.acquire(tool);
+        first.close();
+
+        McpClientSession second = pool.acquire(tool);
+        assertNotSame(first, second);
+        assertTrue(second.isOpen());
+        assertEquals(2, initializeCount.get());
+    }
+
+    @Test
+    void acquire_ShouldOnlyStartAllowedStdioCommands() {
+        AiTool tool = tool("stdio", "python3 server.py");
+        assertThrows(IllegalArgumentException.class, () -> pool.acquire(tool));
+
+        ReflectionTestUtils.setField(pool, "stdioAllowedCommands", "npx, python3");
+        McpClientPool.ServerConfig config = McpClientPool.ServerConfig.from(tool, objectMapper);
+        assertDoesNotThrow(() -> pool.checkStdioAllowed(config));
+
+        tool.setMcpConfig("{\"env\": {\"PATH\": \"/tmp/bin\"}}");
+        assertThrows(IllegalArgumentException.class,
+                () -> pool.checkStdioAllowed(McpClientPool.ServerConfig.from(tool, objectMapper)));
+        tool.setMcpConfig("{\"command\": \"/tmp/python3\"}");
+        assertThrows(IllegalArgumentException.class,
+                () -> pool.checkStdioAllowed(McpClientPool.ServerConfig.from(tool, objectMapper)));
+    }
+
+    @Test
+    void serverConfig_ShouldApplyToolAuthentication() {
+        AiTool tool = tool("http", "http://127.0.0.1/mcp");
+        tool.setMcpConfig("{\"headers\": {\"authorization\": \"old\", \"X-Trace\": \"1\"}}");
+        tool.setAuthType(AiTool.AuthType.BEARER);
+        tool.setAuthConfig("{\"token\": \"secret\"}");
+
+        Map<String, String> headers = McpClientPool.ServerConfig.from(tool, objectMapper).headers();
+
+        assertEquals(Map.of("Authorization", "Bearer secret", "X-Trace", "1"), headers);
+    }
+
+    // ==================== 本地 MCP 服务桩 ====================
+
+    private void handleStreamableHttp(HttpExchange exchange) throws IOException {
+        if ("DELETE".equals(exchange.getRequestMethod())) {
+            respond(exchange, 200, null, null);
+            return;
+        }
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        ObjectNode reply = handle(request);
+        if (reply == null) {
+            respond(exchange, 202, null, null);
+            return;
+        }
+        if ("initialize".equals(request.path("method").asText())) {
+            exchange.getResponseHeaders().add(StreamableHttpMcpTransport.SESSION_HEADER, UUID.randomUUID().toString());
+        }
+        if ("tools/call".equals(request.path("method").asText())) {
+            // 以 SSE 形式返回工具调用结果
+            respond(exchange, 200, "text/event-stream", "event: message\ndata: " + reply + "\n\n");
+        } else {
+            respond(exchange, 200, "application/json", reply.toString());
+        }
+    }
+
+    private void handleSseStream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            write(out, "event: endpoint\ndata: /messages?sessionId=1\n\n");
+            while (true) {
+                String event = sseEvents.poll(10, TimeUnit.SECONDS);
+                if (event == null || event.isEmpty()) {
+                    return;
+                }
+                write(out, event);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ignored) {
+            // 客户端断开
+        }
+    }
+
+    private void handleSseMessage(HttpExchange exchange) throws IOException {
+        ObjectNode reply = handle(objectMapper.readTree(exchange.getRequestBody()));
+        if (reply != null) {
+            sseEvents.add("event: message\ndata: " + reply + "\n\n");
+        }
+        respond(exchange, 202, null, null);
+    }
+
+    private ObjectNode handle(JsonNode request) {
+        if (!request.has("id")) {
+            return null;
+        }
+        ObjectNode reply = objectMapper.createObjectNode();
+        reply.put("jsonrpc", "2.0");
+        reply.set("id", request.get("id"));
+        ObjectNode result = reply.putObject("result");
+        switch (request.path("method").asText()) {
+            case "initialize" -> {
+                initializeCount.incrementAndGet();
+                result.put("protocolVersion", McpClientSession.PROTOCOL_VERSION);
+                result.putObject("serverInfo").put("name", "stub");
+            }
+            case "tools/list" -> {
+                toolsListCount.incrementAndGet();
+                result.putArray("tools").addObject().put("name", "query_order").put("description", "查询订单");
+            }
+            case "tools/call" -> {
+                String orderNo = request.path("params").path("arguments").path("orderNo").asText();
+                result.putArray("content").addObject().put("type", "text").put("text", "订单 " + orderNo + " 已发货");
+            }
+            default -> {
+            }
+        }
+        return reply;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (contentType != null) {
+            exchange.getResponseHeaders().add("Content-Type", contentType);
+        }
+        // 桩服务不保持连接，避免客户端复用已被服务端关闭的连接导致偶发失败
+        exchange.getResponseHeaders().add("Connection", "close");
+        exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static AiTool tool(String type, String endpoint) {
+        AiTool tool = new AiTool();
+        tool.setId(UUID.randomUUID());
+        tool.setName("query_order");
+        tool.setToolType(AiTool.ToolType.MCP);
+        tool.setMcpServerType(type);
+        tool.setMcpEndpoint(endpoint);
+        return tool;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.aikef.tool.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonPathStreamExtractorTest {
+
+    private static final String ORDERS = """
+            {"code":0,"data":{"total":3,"items":[
+              {"id":"A1","status":"PAID","amount":120.5,"buyer":{"name":"张三"}},
+              {"id":"A2","status":"CANCELLED","amount":30},
+              {"id":"A3","status":"PAID","amount":99,"buyer":{"name":"李四"}}
+            ]},"meta":{"page.size":20}}
+            """;
+
+    private JsonPathStreamExtractor extractor;
+
+    @BeforeEach
+    void setUp() {
+        extractor = new JsonPathStreamExtractor(new ObjectMapper());
+        ReflectionTestUtils.setField(extractor, "maxBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(extractor, "maxOutputChars", 10_000);
+        ReflectionTestUtils.setField(extractor, "overflowPolicy", JsonPathStreamExtractor.OverflowPolicy.TRUNCATE);
+    }
+
+    @Test
+    void extract_ShouldSupportFieldsAndIndices() throws IOException {
+        assertEquals("3", extract(ORDERS, "$.data.total"));
+        assertEquals("3", extract(ORDERS, "data.total"));
+        assertEquals("\"A2\"", extract(ORDERS, "$.data.items[1].id"));
+        assertEquals("{\"name\":\"张三\"}", extract(ORDERS, "$['data']['items'][0].buyer"));
+        assertEquals("20", extract(ORDERS, "$.meta['page.size']"));
+    }
+
+    @Test
+    void extract_ShouldCollectWildcardAndFilterMatchesIntoArray() throws IOException {
+        assertEquals("[\"A1\",\"A2\",\"A3\"]", extract(ORDERS, "$.data.items[*].id"));
+        assertEquals("[\"A1\",\"A3\"]", extract(ORDERS, "$.data.items[?(@.status == 'PAID')].id"));
+        assertEquals("[\"A1\",\"A3\"]", extract(ORDERS, "$.data.items[?(@.amount > 50)].id"));
+        assertEquals("[\"李四\"]", extract(ORDERS, "$.data.items[?(@.amount < 100)].buyer.name"));
+        assertEquals("[\"A1\",\"A3\"]", extract(ORDERS, "$.data.items[?(@.buyer)].id"));
+    }
+
+    @Test
+    void extract_ShouldReturnRawBodyWhenPathMissesOrBodyIsNotJson() throws IOException {
+        assertEquals(ORDERS, extract(ORDERS, "$.data.missing"));
+        assertEquals("plain text response", extract("plain text response", "$.data"));
+        assertEquals(ORDERS, extract(ORDERS, null));
+    }
+
+    @Test
+    void extract_ShouldStopReadingOnceDefinitePathMatched() throws IOException {
+        // 命中后的内容是非法 JSON，若继续读取会解析失败
+        String body = "{\"status\":\"ok\",\"rest\":[1,2,";
+        assertEquals("\"ok\"", extract(body, "$.status"));
+    }
+
+    @Test
+    void extract_ShouldApplyOverflowPolicy() throws IOException {
+        ReflectionTestUtils.setField(extractor, "maxBytes", 64L);
+        String body = "{\"first\":\"x\",\"padding\":\"" + "y".repeat(200) + "\",\"last\":1}";
+
+        assertEquals("\"x\"", extract(body, "$.first"));
+        assertTrue(extract(body, null).endsWith("...(truncated)"));
+
+        ReflectionTestUtils.setField(extractor, "overflowPolicy", JsonPathStreamExtractor.OverflowPolicy.FAIL);
+        assertThrows(IllegalStateException.class, () -> extract(body, "$.last"));
+    }
+
+    @Test
+    void extract_ShouldTruncateLongOutput() throws IOException {
+        ReflectionTestUtils.setField(extractor, "maxOutputChars", 10);
+        String output = extract("{\"text\":\"" + "z".repeat(100) + "\"}", "$.text");
+        assertEquals("\"zzzzzzzzz...(truncated)", output);
+    }
+
+    private String extract(String body, String path) throws IOException {
+        InputStream in = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+        return extractor.extract(in, path);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.aikef.tool.service;
+
+import com.example.aikef.tool.model.AiTool;
+import com.example.aikef.tool.model.ToolExecution;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolExecutionWriterTest {
+
+    @Test
+    void submit_ShouldWriteInBatchesAndFlushOnShutdown() throws Exception {
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+        List<Integer> batchSizes = new ArrayList<>();
+        ToolExecutionWriter writer = new ToolExecutionWriter(null, null, null) {
+            @Override
+            void write(List<ToolExecution> batch) {
+                synchronized (batchSizes) {
+                    batchSizes.add(batch.size());
+                }
+                firstWriteStarted.countDown();
+                try {
+                    releaseFirstWrite.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        configure(writer, 100);
+        writer.start();
+
+        AiTool tool = tool();
+        UUID id = writer.submit(execution(tool, ToolExecution.ExecutionStatus.SUCCESS, 10L, null));
+        assertNotNull(id);
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+        // 写入期间到达的记录在下一批一起写入
+        for (int i = 0; i < 5; i++) {
+            writer.submit(execution(tool, ToolExecution.ExecutionStatus.SUCCESS, 10L, null));
+        }
+        assertEquals(5, writer.getPendingCount());
+        ReflectionTestUtils.setField(writer, "shutdownTimeoutSeconds", 0L);
+        releaseFirstWrite.countDown();
+        writer.shutdown();
+
+        synchronized (batchSizes) {
+            assertEquals(6, batchSizes.stream().mapToInt(Integer::intValue).sum());
+            assertEquals(1, batchSizes.get(0).intValue());
+        }
+        assertEquals(0, writer.getPendingCount());
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    void submit_ShouldDropWhenQueueIsFull() throws Exception {
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ToolExecutionWriter writer = new ToolExecutionWriter(null, null, null) {
+            @Override
+            void write(List<ToolExecution> batch) {
+                writeStarted.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        configure(writer, 2);
+        writer.start();
+
+        AiTool tool = tool();
+        writer.submit(execution(tool, ToolExecution.ExecutionStatus.SUCCESS, 1L, null));
+        assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            writer.submit(execution(tool, ToolExecution.ExecutionStatus.SUCCESS, 1L, null));
+        }
+        assertEquals(2, writer.getPendingCount());
+        assertEquals(8, writer.getDroppedCount());
+        release.countDown();
+        writer.shutdown();
+    }
+
+    @Test
+    void aggregate_ShouldSumPerTool() {
+        AiTool a = tool();
+        AiTool b = tool();
+        Map<UUID, ToolExecutionWriter.StatsDelta> deltas = ToolExecutionWriter.aggregate(List.of(
+                execution(a, ToolExecution.ExecutionStatus.SUCCESS, 100L, ToolExecution.CacheStatus.MISS),
+                execution(a, ToolExecution.ExecutionStatus.SUCCESS, 20L, ToolExecution.CacheStatus.LOCAL_HIT),
+                execution(a, ToolExecution.ExecutionStatus.FAILED, 5L, null),
+                execution(b, ToolExecution.ExecutionStatus.SUCCESS, 7L, ToolExecution.CacheStatus.COALESCED)));
+
+        ToolExecutionWriter.StatsDelta deltaA = deltas.get(a.getId());
+        assertEquals(2, deltaA.successCount);
+        assertEquals(1, deltaA.failedCount);
+        assertEquals(120, deltaA.successDurationMs);
+        assertEquals(1, deltaA.cacheHitCount);
+        assertEquals(1, deltaA.cacheMissCount);
+        assertEquals(1, deltas.get(b.getId()).cacheHitCount);
+    }
+
+    private static void configure(ToolExecutionWriter writer, int capacity) {
+        ReflectionTestUtils.setField(writer, "queueCapacity", capacity);
+        ReflectionTestUtils.setField(writer, "batchSize", 100);
+        ReflectionTestUtils.setField(writer, "offerTimeoutMillis", 1L);
+        ReflectionTestUtils.setField(writer, "shutdownTimeoutSeconds", 5L);
+    }
+
+    private static AiTool tool() {
+        AiTool tool = new AiTool();
+        tool.setId(UUID.randomUUID());
+        tool.setName("query_order");
+        return tool;
+    }
+
+    private static ToolExecution execution(AiTool tool, ToolExecution.ExecutionStatus status, Long durationMs,
+                                           ToolExecution.CacheStatus cacheStatus) {
+        ToolExecution execution = new ToolExecution();
+        execution.setTool(tool);
+        execution.setStatus(status);
+        execution.setDurationMs(durationMs);
+        execution.setCacheStatus(cacheStatus);
+        return execution;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.aikef.tool.service;
+
+import com.example.aikef.extraction.model.ExtractionSchema;
+import com.example.aikef.tool.model.AiTool;
+import com.example.aikef.tool.model.ToolExecution.CacheStatus;
+import com.example.aikef.tool.service.AiToolService.ToolExecutionResult;
+import com.example.aikef.workflow.context.WorkflowContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolResultCacheTest {
+
+    private ToolResultCache cache;
+    private AiTool tool;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ToolResultCache(null, new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "localMaxEntries", 100);
+        ReflectionTestUtils.setField(cache, "redisEnabled", false);
+        ReflectionTestUtils.setField(cache, "coalesceTimeoutSeconds", 5L);
+        cache.init();
+
+        ExtractionSchema schema = new ExtractionSchema();
+        schema.setFieldsJson("[{\"name\":\"orderId\",\"type\":\"STRING\"},{\"name\":\"reason\",\"type\":\"STRING\"}]");
+        tool = new AiTool();
+        tool.setId(UUID.randomUUID());
+        tool.setName("query_order");
+        tool.setSchema(schema);
+        tool.setApiUrl("https://api.example.com/orders/{{orderId}}?lang={{meta.language}}");
+        tool.setCacheEnabled(true);
+        tool.setCacheTtlSeconds(60);
+        tool.setCacheKeyFields("orderId");
+        tool.setUpdatedAt(Instant.parse("2024-06-01T00:00:00Z"));
+    }
+
+    @Test
+    void buildKey_ShouldUseKeyFieldsAndReferencedContext() {
+        WorkflowContext zh = context("zh");
+        String key = cache.buildKey(tool, Map.of("orderId", "A1", "reason", "查物流"), zh);
+
+        assertEquals(key, cache.buildKey(tool, Map.of("orderId", "A1", "reason", "催发货"), zh));
+        assertNotEquals(key, cache.buildKey(tool, Map.of("orderId", "A2"), zh));
+        assertNotEquals(key, cache.buildKey(tool, Map.of("orderId", "A1"), context("en")));
+
+        tool.setUpdatedAt(Instant.parse("2024-06-02T00:00:00Z"));
+        assertNotEquals(key, cache.buildKey(tool, Map.of("orderId", "A1"), zh));
+    }
+
+    @Test
+    void getOrLoad_ShouldCacheSuccessfulResultsOnly() {
+        AtomicInteger calls = new AtomicInteger();
+        WorkflowContext ctx = context("zh");
+
+        ToolResultCache.Lookup first = cache.getOrLoad(tool, Map.of("orderId", "A1"), ctx, () -> {
+            calls.incrementAndGet();
+            return completed(new ToolExecutionResult(true, "{\"status\":\"SHIPPED\"}", null, 200, null, null));
+        }).join();
+        ToolResultCache.Lookup second = cache.getOrLoad(tool, Map.of("orderId", "A1"), ctx, () -> {
+            calls.incrementAndGet();
+            return completed(new ToolExecutionResult(true, "other", null, 200, null, null));
+        }).join();
+
+        assertEquals(CacheStatus.MISS, first.status());
+        assertEquals(CacheStatus.LOCAL_HIT, second.status());
+        assertEquals("{\"status\":\"SHIPPED\"}", second.result().output());
+
+        cache.getOrLoad(tool, Map.of("orderId", "B1"), ctx, () -> {
+            calls.incrementAndGet();
+            return completed(new ToolExecutionResult(false, null, "503", 503, null, null));
+        }).join();
+        assertEquals(CacheStatus.MISS, cache.getOrLoad(tool, Map.of("orderId", "B1"), ctx, () -> {
+            calls.incrementAndGet();
+            return completed(new ToolExecutionResult(true, "ok", null, 200, null, null));
+        }).join().status());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void getOrLoad_ShouldCoalesceConcurrentIdenticalCallsWithoutBlocking() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<ToolExecutionResult> pending = new CompletableFuture<>();
+        WorkflowContext ctx = context("zh");
+
+        // 调用未完成时 getOrLoad 立即返回，不阻塞调用线程
+        CompletableFuture<ToolResultCache.Lookup> leader = cache.getOrLoad(tool, Map.of("orderId", "A1"), ctx, () -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<ToolResultCache.Lookup> follower = cache.getOrLoad(tool, Map.of("orderId", "A1"), ctx, () -> {
+            calls.incrementAndGet();
+            return completed(new ToolExecutionResult(true, "duplicate", null, 200, null, null));
+        });
+        assertFalse(leader.isDone());
+        assertFalse(follower.isDone());
+
+        pending.complete(new ToolExecutionResult(true, "ok", null, 200, null, null));
+
+        assertEquals(CacheStatus.MISS, leader.get(5, TimeUnit.SECONDS).status());
+        ToolResultCache.Lookup coalesced = follower.get(5, TimeUnit.SECONDS);
+        assertEquals(CacheStatus.COALESCED, coalesced.status());
+        assertEquals("ok", coalesced.result().output());
+        assertEquals(1, calls.get());
+    }
+
+    private WorkflowContext context(String language) {
+        WorkflowContext ctx = new WorkflowContext();
+        ctx.setSessionMetadata(Map.of("language", language));
+        return ctx;
+    }
+
+    private static CompletableFuture<ToolExecutionResult> completed(ToolExecutionResult result) {
+        return CompletableFuture.completedFuture(result);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.aikef.tool.service;
+
+import com.example.aikef.tool.model.AiTool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolRetryExecutorTest {
+
+    private ToolRetryExecutor executor;
+    private AiTool tool;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ToolRetryExecutor();
+        ReflectionTestUtils.setField(executor, "baseDelayMillis", 1L);
+        ReflectionTestUtils.setField(executor, "maxDelayMillis", 5L);
+        ReflectionTestUtils.setField(executor, "budgetRatio", 0.2);
+        ReflectionTestUtils.setField(executor, "budgetMaxTokens", 10.0);
+        ReflectionTestUtils.setField(executor, "failureThreshold", 3);
+        ReflectionTestUtils.setField(executor, "openMillis", 60_000L);
+        tool = new AiTool();
+        tool.setId(UUID.randomUUID());
+        tool.setName("query_order");
+        tool.setRetryCount(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void execute_ShouldRetryServerErrorsUntilSuccess() {
+        AtomicInteger calls = new AtomicInteger();
+        String result = executor.execute(tool, () -> calls.incrementAndGet() < 3
+                ? CompletableFuture.failedFuture(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE))
+                : CompletableFuture.completedFuture("ok")).join();
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, executor.getCircuitBreaker(tool.getId()).retryCount());
+        assertEquals(ToolCircuitBreaker.State.CLOSED, executor.getCircuitBreaker(tool.getId()).state());
+    }
+
+    @Test
+    void execute_ShouldNotRetryClientErrors() {
+        AtomicInteger calls = new AtomicInteger();
+        CompletionException e = assertThrows(CompletionException.class, () -> executor.execute(tool, () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.<String>failedFuture(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+        }).join());
+
+        assertInstanceOf(HttpClientErrorException.class, e.getCause());
+        assertEquals(1, calls.get());
+        assertEquals(0, executor.getCircuitBreaker(tool.getId()).consecutiveFailures());
+    }
+
+    @Test
+    void execute_ShouldOpenCircuitAfterConsecutiveFailures() {
+        tool.setRetryCount(0);
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertThrows(CompletionException.class, () -> executor.execute(tool, () -> {
+                calls.incrementAndGet();
+                return CompletableFuture.<String>failedFuture(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+            }).join());
+        }
+
+        CompletionException rejected = assertThrows(CompletionException.class,
+                () -> executor.execute(tool, () -> {
+                    calls.incrementAndGet();
+                    return CompletableFuture.completedFuture("ok");
+                }).join());
+
+        assertInstanceOf(IllegalStateException.class, rejected.getCause());
+        assertEquals(3, calls.get());
+        ToolCircuitBreaker.Snapshot snapshot = executor.getCircuitBreaker(tool.getId());
+        assertEquals(ToolCircuitBreaker.State.OPEN, snapshot.state());
+        assertEquals(1, snapshot.rejectedCount());
+    }
+}
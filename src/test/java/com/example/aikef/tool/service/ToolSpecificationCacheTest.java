@@ -0,0 +1,44 @@
+package com.example.aikef.tool.service;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolSpecificationCacheTest {
+
+    @Test
+    void getSpecification_ShouldLoadOnceUntilInvalidated() {
+        // Redis 不可用时退化为仅本地缓存
+        ToolSpecificationCache cache = new ToolSpecificationCache(null);
+        ReflectionTestUtils.setField(cache, "versionCheckMillis", 60_000L);
+        UUID toolId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            Optional<ToolSpecification> spec = cache.getSpecification(toolId, id -> {
+                loads.incrementAndGet();
+                return Optional.of(ToolSpecification.builder().name("query_order").description("查询订单").build());
+            });
+            assertEquals("query_order", spec.orElseThrow().name());
+            assertTrue(cache.getSpecification(missingId, id -> {
+                loads.incrementAndGet();
+                return Optional.empty();
+            }).isEmpty());
+        }
+        assertEquals(2, loads.get());
+
+        cache.invalidate();
+        cache.getSpecification(toolId, id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+        assertEquals(3, loads.get());
+    }
+}
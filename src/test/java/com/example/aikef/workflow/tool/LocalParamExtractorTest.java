@@ -0,0 +1,94 @@
+package com.example.aikef.workflow.tool;
+
+import com.example.aikef.extraction.model.FieldDefinition;
+import com.example.aikef.extraction.model.FieldDefinition.FieldType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalParamExtractorTest {
+
+    private final LocalParamExtractor extractor = new LocalParamExtractor(
+            Clock.fixed(Instant.parse("2024-05-20T02:00:00Z"), ZoneId.of("Asia/Shanghai")));
+
+    @Test
+    void extract_ShouldRecognizeFormattedTypes() {
+        List<FieldDefinition> defs = List.of(
+                field("phone", FieldType.PHONE),
+                field("email", FieldType.EMAIL),
+                field("date", FieldType.DATE));
+
+        Map<String, Object> params = extractor.extract(
+                "手机 +86 138-0013-8000，邮箱 zhang.san@example.com，预约 2024年6月1日",
+                defs, List.of("phone", "email", "date"));
+
+        assertEquals("13800138000", params.get("phone"));
+        assertEquals("zhang.san@example.com", params.get("email"));
+        assertEquals("2024-06-01", params.get("date"));
+    }
+
+    @Test
+    void extract_ShouldUseValidationPatternAndExamples() {
+        FieldDefinition orderNo = field("orderNo", FieldType.STRING);
+        orderNo.setExamples(List.of("ORD20240101001"));
+        FieldDefinition coupon = field("coupon", FieldType.STRING);
+        coupon.setValidationPattern("^CP[A-Z]{4}$");
+
+        Map<String, Object> params = extractor.extract("订单号是 ord20240519888，优惠码 CPABCD 谢谢",
+                List.of(orderNo, coupon), List.of("orderNo", "coupon"));
+
+        assertEquals("ord20240519888", params.get("orderNo"));
+        assertEquals("CPABCD", params.get("coupon"));
+    }
+
+    @Test
+    void extract_ShouldHandleRelativeDatesEnumsAndBooleans() {
+        FieldDefinition level = field("level", FieldType.ENUM);
+        level.setEnumValues(List.of("VIP", "SVIP", "普通"));
+
+        assertEquals("2024-05-21", extractor.extract("明天下午吧", List.of(field("date", FieldType.DATE)), List.of("date")).get("date"));
+        assertEquals("SVIP", extractor.extract("我是svip用户", List.of(level), List.of("level")).get("level"));
+        assertEquals(Boolean.TRUE, extractor.extract("好的。", List.of(field("confirm", FieldType.BOOLEAN)), List.of("confirm")).get("confirm"));
+        assertEquals(3L, extractor.extract("要 3 件", List.of(field("quantity", FieldType.INTEGER)), List.of("quantity")).get("quantity"));
+    }
+
+    @Test
+    void extract_ShouldSkipAmbiguousValues() {
+        // 两个手机号、两个同类型字段、无格式的字符串字段都交给 LLM
+        assertTrue(extractor.extract("13800138000 或 13900139000", List.of(field("phone", FieldType.PHONE)),
+                List.of("phone")).isEmpty());
+        assertTrue(extractor.extract("13800138000", List.of(field("sender", FieldType.PHONE), field("receiver", FieldType.PHONE)),
+                List.of("sender", "receiver")).isEmpty());
+        assertTrue(extractor.extract("张三", List.of(field("name", FieldType.STRING)), List.of("name")).isEmpty());
+        assertTrue(extractor.extract("可以吗", List.of(field("confirm", FieldType.BOOLEAN)), List.of("confirm")).isEmpty());
+    }
+
+    @Test
+    void extractStrict_ShouldNotBindTypeOnlyMatches() {
+        // 原始消息中的手机号、"今天"不是金额、日期的回答，预填时不能绑定
+        List<FieldDefinition> defs = List.of(field("amount", FieldType.NUMBER), field("date", FieldType.DATE),
+                field("phone", FieldType.PHONE));
+
+        Map<String, Object> strict = extractor.extractStrict("我的手机13812345678想退款，今天能到账吗",
+                defs, List.of("amount", "date", "phone"));
+
+        assertEquals(Map.of("phone", "13812345678"), strict);
+        assertTrue(extractor.extractStrict("我的手机13812345678想退款", defs, List.of("amount")).isEmpty());
+        assertEquals(99.5,
+                extractor.extract("99.5", defs, List.of("amount")).get("amount"));
+    }
+
+    private static FieldDefinition field(String name, FieldType type) {
+        FieldDefinition field = new FieldDefinition();
+        field.setName(name);
+        field.setType(type);
+        field.setRequired(true);
+        return field;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.aikef.workflow.util;
+
+import com.example.aikef.workflow.context.WorkflowContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateEngineTest {
+
+    @Test
+    void render_ShouldMatchLegacyImplementation() {
+        WorkflowContext ctx = sampleContext();
+        Map<String, Object> params = Map.of("orderId", "A-1001", "amount", 99.5);
+
+        List<String> templates = List.of(
+                "",
+                "no variables",
+                "{\"orderId\": \"{{orderId}}\", \"amount\": {{amount}}, \"missing\": \"{{missing}}\"}",
+                "https://api.example.com/orders/{{ orderId }}?session={{sys.sessionId}}&lang={{meta.language}}",
+                "{{sys.query}}|{{sys.intent}}|{{sys.intentConfidence}}|{{sys.unknown}}|{{sys.nowTime}}",
+                "{{var.userLevel}}-{{node.llm_1}}-{{customer.name}}-{{entity.product}}-{{event.orderId}}",
+                "{{agent.sysPrompt}}{{unknown.key}}{{.x}}",
+                "{{}} {{ }} {{a}b}} {{{x}}} {{a{{b}} }} {{ unterminated",
+                "$1 \\\\ {{orderId}} $0"
+        );
+        for (String template : templates) {
+            assertEquals(LegacyTemplateEngine.render(template, ctx, params), TemplateEngine.render(template, ctx, params),
+                    template);
+            assertEquals(LegacyTemplateEngine.extractVariables(template), TemplateEngine.extractVariables(template));
+            assertEquals(LegacyTemplateEngine.hasVariables(template), TemplateEngine.hasVariables(template));
+        }
+    }
+
+    @Test
+    void render_ShouldKeepExpressionWhenResolutionFails() {
+        assertEquals("a {{sys.query}} b", TemplateEngine.render("a {{sys.query}} b", null, null));
+        assertEquals("local", TemplateEngine.render("{{name}}", null, Map.of("name", "local")));
+    }
+
+    static WorkflowContext sampleContext() {
+        WorkflowContext ctx = new WorkflowContext();
+        ctx.setSessionId(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+        ctx.setQuery("我的订单到哪了");
+        ctx.setIntent("query_order");
+        ctx.setIntentConfidence(0.876);
+        ctx.setVariable("userLevel", "VIP");
+        ctx.setVariable("eventData", Map.of("orderId", "E-1"));
+        ctx.setOutput("llm_1", "ok");
+        ctx.getCustomerInfo().put("name", "张三");
+        ctx.getEntities().put("product", "耳机");
+        ctx.setSessionMetadata(Map.of("language", "zh"));
+        return ctx;
+    }
+}